@@ -20,6 +20,7 @@ package org.keycloak.adapters;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.jboss.logging.Logger;
+import org.keycloak.VerifiedTokenCache;
 import org.keycloak.adapters.authentication.ClientCredentialsProvider;
 import org.keycloak.adapters.authorization.PolicyEnforcer;
 import org.keycloak.adapters.rotation.PublicKeyLocator;
@@ -446,6 +447,16 @@ public class AdapterDeploymentContext {
         public int getMinTimeBetweenJwksRequests() {
             return delegate.getMinTimeBetweenJwksRequests();
         }
+
+        @Override
+        public VerifiedTokenCache getVerifiedTokenCache() {
+            return delegate.getVerifiedTokenCache();
+        }
+
+        @Override
+        public void setVerifiedTokenCache(VerifiedTokenCache verifiedTokenCache) {
+            delegate.setVerifiedTokenCache(verifiedTokenCache);
+        }
     }
 
     protected KeycloakUriBuilder getBaseBuilder(HttpFacade facade, String base) {
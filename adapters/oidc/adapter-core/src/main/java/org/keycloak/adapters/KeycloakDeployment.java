@@ -19,6 +19,7 @@ package org.keycloak.adapters;
 
 import org.apache.http.client.HttpClient;
 import org.jboss.logging.Logger;
+import org.keycloak.VerifiedTokenCache;
 import org.keycloak.adapters.authentication.ClientCredentialsProvider;
 import org.keycloak.adapters.authorization.PolicyEnforcer;
 import org.keycloak.adapters.rotation.PublicKeyLocator;
@@ -81,6 +82,7 @@ public class KeycloakDeployment {
     protected volatile int notBefore;
     protected int tokenMinimumTimeToLive;
     protected int minTimeBetweenJwksRequests;
+    protected VerifiedTokenCache verifiedTokenCache;
     private PolicyEnforcer policyEnforcer;
 
     public KeycloakDeployment() {
@@ -384,6 +386,18 @@ public class KeycloakDeployment {
         this.minTimeBetweenJwksRequests = minTimeBetweenJwksRequests;
     }
 
+    /**
+     * Returns the cache of bearer tokens with already verified signature, or {@code null} if verified tokens aren't
+     * cached.
+     */
+    public VerifiedTokenCache getVerifiedTokenCache() {
+        return verifiedTokenCache;
+    }
+
+    public void setVerifiedTokenCache(VerifiedTokenCache verifiedTokenCache) {
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
     public void setPolicyEnforcer(PolicyEnforcer policyEnforcer) {
         this.policyEnforcer = policyEnforcer;
     }
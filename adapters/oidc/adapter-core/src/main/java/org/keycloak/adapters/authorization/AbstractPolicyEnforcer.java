@@ -37,6 +37,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
@@ -47,16 +48,16 @@ public abstract class AbstractPolicyEnforcer {
     private final PolicyEnforcerConfig enforcerConfig;
     private final PolicyEnforcer policyEnforcer;
 
-    private List<PathConfig> paths;
     private AuthzClient authzClient;
     private PathMatcher pathMatcher;
+    private PathCache pathCache;
 
     public AbstractPolicyEnforcer(PolicyEnforcer policyEnforcer) {
         this.policyEnforcer = policyEnforcer;
         this.enforcerConfig = policyEnforcer.getEnforcerConfig();
         this.authzClient = policyEnforcer.getClient();
-        this.pathMatcher = new PathMatcher();
-        this.paths = new ArrayList<>(policyEnforcer.getPaths());
+        this.pathMatcher = policyEnforcer.getPathMatcher();
+        this.pathCache = policyEnforcer.getPathCache();
     }
 
     public AuthorizationContext authorize(OIDCHttpFacade httpFacade) {
@@ -71,13 +72,13 @@ public abstract class AbstractPolicyEnforcer {
         Response response = httpFacade.getResponse();
         String pathInfo = URI.create(request.getURI()).getPath().substring(1);
         String path = pathInfo.substring(pathInfo.indexOf('/'), pathInfo.length());
-        PathConfig pathConfig = this.pathMatcher.matches(path, this.paths);
+        PathConfig pathConfig = this.pathMatcher.matches(path);
 
         LOGGER.debugf("Checking permissions for path [%s] with config [%s].", request.getURI(), pathConfig);
 
         if (pathConfig == null) {
             if (EnforcementMode.PERMISSIVE.equals(enforcementMode)) {
-                return createAuthorizationContext(accessToken);
+                return createAuthorizationContext(accessToken, null);
             }
 
             LOGGER.debugf("Could not find a configuration for path [%s]", path);
@@ -86,12 +87,12 @@ public abstract class AbstractPolicyEnforcer {
             return createEmptyAuthorizationContext(false);
         }
 
-        PathConfig actualPathConfig = resolvePathConfig(pathConfig, request);
+        PathConfig actualPathConfig = resolvePathConfig(pathConfig, path);
         Set<String> requiredScopes = getRequiredScopes(actualPathConfig, request);
 
         if (isAuthorized(actualPathConfig, requiredScopes, accessToken, httpFacade)) {
             try {
-                return createAuthorizationContext(accessToken);
+                return createAuthorizationContext(accessToken, actualPathConfig);
             } catch (Exception e) {
                 throw new RuntimeException("Error processing path [" + actualPathConfig.getPath() + "].", e);
             }
@@ -136,7 +137,7 @@ public abstract class AbstractPolicyEnforcer {
                     if (hasResourceScopePermission(requiredScopes, permission, actualPathConfig)) {
                         LOGGER.debugf("Authorization GRANTED for path [%s]. Permissions [%s].", actualPathConfig, permissions);
                         if (request.getMethod().equalsIgnoreCase("DELETE") && actualPathConfig.isInstance()) {
-                            this.paths.remove(actualPathConfig);
+                            this.pathCache.remove(actualPathConfig.getPath());
                         }
                         return true;
                     }
@@ -199,35 +200,51 @@ public abstract class AbstractPolicyEnforcer {
         };
     }
 
-    private PathConfig resolvePathConfig(PathConfig originalConfig, Request request) {
+    private PathConfig resolvePathConfig(final PathConfig originalConfig, final String path) {
         if (originalConfig.hasPattern()) {
-            String pathInfo = URI.create(request.getURI()).getPath().substring(1);
-            String path = pathInfo.substring(pathInfo.indexOf('/'), pathInfo.length());
-            ProtectedResource resource = this.authzClient.protection().resource();
-            Set<String> search = resource.findByFilter("uri=" + path);
-
-            if (!search.isEmpty()) {
-                // resource does exist on the server, cache it
-                ResourceRepresentation targetResource = resource.findById(search.iterator().next()).getResourceDescription();
-                PathConfig config = new PathConfig();
-
-                config.setId(targetResource.getId());
-                config.setName(targetResource.getName());
-                config.setType(targetResource.getType());
-                config.setPath(targetResource.getUri());
-                config.setScopes(originalConfig.getScopes());
-                config.setMethods(originalConfig.getMethods());
-                config.setParentConfig(originalConfig);
-
-                this.paths.add(config);
-
-                return config;
+            PathConfig cached = this.pathCache.get(path);
+
+            // the original config is cached for paths without a resource on the server
+            if (cached != null && (cached == originalConfig || cached.getParentConfig() == originalConfig)) {
+                return cached;
             }
+
+            return this.policyEnforcer.getPathResolution().execute(path, new Callable<PathConfig>() {
+                @Override
+                public PathConfig call() {
+                    PathConfig config = findPathConfig(originalConfig, path);
+                    pathCache.put(path, config);
+                    return config;
+                }
+            });
         }
 
         return originalConfig;
     }
 
+    private PathConfig findPathConfig(PathConfig originalConfig, String path) {
+        ProtectedResource resource = this.authzClient.protection().resource();
+        Set<String> search = resource.findByFilter("uri=" + path);
+
+        if (search.isEmpty()) {
+            return originalConfig;
+        }
+
+        // resource does exist on the server, cache it
+        ResourceRepresentation targetResource = resource.findById(search.iterator().next()).getResourceDescription();
+        PathConfig config = new PathConfig();
+
+        config.setId(targetResource.getId());
+        config.setName(targetResource.getName());
+        config.setType(targetResource.getType());
+        config.setPath(targetResource.getUri());
+        config.setScopes(originalConfig.getScopes());
+        config.setMethods(originalConfig.getMethods());
+        config.setParentConfig(originalConfig);
+
+        return config;
+    }
+
     private Set<String> getRequiredScopes(PathConfig pathConfig, Request request) {
         Set<String> requiredScopes = new HashSet<>();
 
@@ -244,8 +261,15 @@ public abstract class AbstractPolicyEnforcer {
         return requiredScopes;
     }
 
-    private AuthorizationContext createAuthorizationContext(AccessToken accessToken) {
-        return new AuthorizationContext(accessToken, this.paths);
+    private AuthorizationContext createAuthorizationContext(AccessToken accessToken, PathConfig actualPathConfig) {
+        List<PathConfig> paths = this.policyEnforcer.getPaths();
+
+        if (actualPathConfig != null && actualPathConfig.isInstance()) {
+            paths = new ArrayList<>(paths);
+            paths.add(actualPathConfig);
+        }
+
+        return new AuthorizationContext(accessToken, paths);
     }
 
     private boolean isResourcePermission(PathConfig actualPathConfig, Permission permission) {
@@ -30,6 +30,7 @@ import org.keycloak.authorization.client.representation.EntitlementRequest;
 import org.keycloak.authorization.client.representation.EntitlementResponse;
 import org.keycloak.authorization.client.representation.PermissionRequest;
 import org.keycloak.authorization.client.representation.PermissionResponse;
+import org.keycloak.common.VerificationException;
 import org.keycloak.representations.AccessToken;
 import org.keycloak.representations.adapters.config.PolicyEnforcerConfig.PathConfig;
 import org.keycloak.representations.idm.authorization.Permission;
@@ -37,6 +38,7 @@ import org.keycloak.representations.idm.authorization.Permission;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
@@ -101,7 +103,32 @@ public class KeycloakAdapterPolicyEnforcer extends AbstractPolicyEnforcer {
         return true;
     }
 
-    private AccessToken requestAuthorizationToken(PathConfig pathConfig, Set<String> requiredScopes, OIDCHttpFacade httpFacade) {
+    private AccessToken requestAuthorizationToken(final PathConfig pathConfig, final Set<String> requiredScopes, final OIDCHttpFacade httpFacade) {
+        final PermissionCache permissionCache = getPolicyEnforcer().getPermissionCache();
+        final String cacheKey = PermissionCache.createKey(httpFacade.getSecurityContext().getToken(), pathConfig, requiredScopes);
+        AccessToken cached = permissionCache.get(cacheKey);
+
+        if (cached != null) {
+            LOGGER.debugf("Using cached permissions for path [%s].", pathConfig);
+            return cached;
+        }
+
+        // concurrent requests of the same user session for the same resource share a single call to the server
+        return getPolicyEnforcer().getPermissionRequests().execute(cacheKey, new Callable<AccessToken>() {
+            @Override
+            public AccessToken call() {
+                AccessToken token = obtainAuthorizationToken(pathConfig, requiredScopes, httpFacade);
+
+                if (token != null) {
+                    permissionCache.put(cacheKey, token);
+                }
+
+                return token;
+            }
+        });
+    }
+
+    private AccessToken obtainAuthorizationToken(PathConfig pathConfig, Set<String> requiredScopes, OIDCHttpFacade httpFacade) {
         try {
             String accessToken = httpFacade.getSecurityContext().getTokenString();
             AuthzClient authzClient = getAuthzClient();
@@ -119,7 +146,7 @@ public class KeycloakAdapterPolicyEnforcer extends AbstractPolicyEnforcer {
                 AuthorizationResponse authzResponse = authzClient.authorization(accessToken).authorize(authzRequest);
 
                 if (authzResponse != null) {
-                    return AdapterRSATokenVerifier.verifyToken(authzResponse.getRpt(), deployment);
+                    return verifyRpt(authzResponse.getRpt(), deployment);
                 }
 
                 return null;
@@ -129,7 +156,7 @@ public class KeycloakAdapterPolicyEnforcer extends AbstractPolicyEnforcer {
 
                 if (token.getAuthorization() == null) {
                     EntitlementResponse authzResponse = authzClient.entitlement(accessToken).getAll(authzClient.getConfiguration().getClientId());
-                    return AdapterRSATokenVerifier.verifyToken(authzResponse.getRpt(), deployment);
+                    return verifyRpt(authzResponse.getRpt(), deployment);
                 } else {
                     EntitlementRequest request = new EntitlementRequest();
                     PermissionRequest permissionRequest = new PermissionRequest();
@@ -138,7 +165,7 @@ public class KeycloakAdapterPolicyEnforcer extends AbstractPolicyEnforcer {
                     permissionRequest.setScopes(new HashSet<>(pathConfig.getScopes()));
                     request.addPermission(permissionRequest);
                     EntitlementResponse authzResponse = authzClient.entitlement(accessToken).get(authzClient.getConfiguration().getClientId(), request);
-                    return AdapterRSATokenVerifier.verifyToken(authzResponse.getRpt(), deployment);
+                    return verifyRpt(authzResponse.getRpt(), deployment);
                 }
             }
         } catch (AuthorizationDeniedException e) {
@@ -147,4 +174,9 @@ public class KeycloakAdapterPolicyEnforcer extends AbstractPolicyEnforcer {
             throw new RuntimeException("Unexpected error during authorization request.", e);
         }
     }
+
+    private AccessToken verifyRpt(String rpt, KeycloakDeployment deployment) throws VerificationException {
+        // RPTs are kept in the permission cache, so don't let them evict bearer tokens from the verified token cache
+        return AdapterRSATokenVerifier.verifyToken(rpt, deployment, true, true, null);
+    }
 }
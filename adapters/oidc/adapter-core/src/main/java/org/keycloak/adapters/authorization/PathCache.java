@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2016 Red Hat, Inc. and/or its affiliates
+ *  and other contributors as indicated by the @author tags.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.keycloak.adapters.authorization;
+
+import org.keycloak.common.util.Time;
+import org.keycloak.representations.adapters.config.PolicyEnforcerConfig.PathConfig;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of {@link PathConfig} resolved from the server for URIs matching a path template. Least recently used
+ * entries are removed when the cache is full and entries expire after the configured lifespan.
+ */
+class PathCache {
+
+    private final Map<String, CacheEntry> entries;
+    private final long lifespan;
+
+    PathCache(final int maxEntries, long lifespan) {
+        this.lifespan = lifespan;
+        this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    PathConfig get(String uri) {
+        synchronized (entries) {
+            CacheEntry entry = entries.get(uri);
+
+            if (entry == null) {
+                return null;
+            }
+
+            if (entry.isExpired()) {
+                entries.remove(uri);
+                return null;
+            }
+
+            return entry.config;
+        }
+    }
+
+    void put(String uri, PathConfig config) {
+        synchronized (entries) {
+            entries.put(uri, new CacheEntry(config, Time.currentTimeMillis() + lifespan));
+        }
+    }
+
+    void remove(String uri) {
+        synchronized (entries) {
+            entries.remove(uri);
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static class CacheEntry {
+
+        final PathConfig config;
+        final long expiration;
+
+        CacheEntry(PathConfig config, long expiration) {
+            this.config = config;
+            this.expiration = expiration;
+        }
+
+        boolean isExpired() {
+            return Time.currentTimeMillis() > expiration;
+        }
+    }
+}
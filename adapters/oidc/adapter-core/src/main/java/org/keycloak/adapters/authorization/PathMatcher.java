@@ -19,85 +19,170 @@ package org.keycloak.adapters.authorization;
 
 import org.keycloak.representations.adapters.config.PolicyEnforcerConfig.PathConfig;
 
-import java.util.List;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
+ * Finds the {@link PathConfig} for a requested URI. Paths are compiled into a tree of path segments, so the cost of a
+ * lookup depends on the length of the URI and not on the number of configured paths.
+ *
+ * <p>Supported paths are exact paths ({@code /api/orders}), prefix wildcards ({@code /api/*}), suffixes
+ * ({@code /api/*.html}) and templates ({@code /api/orders/{id}}). Templates also match longer URIs, as a prefix.</p>
+ *
+ * <p>If more paths match, the one matching more segments of the URI wins. For the same count of segments an exact or
+ * template match wins over suffix, suffix wins over prefix wildcard and a literal segment wins over a template
+ * variable. So {@code /*} is used only if nothing else matches.</p>
+ *
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
 class PathMatcher {
 
     private static final String ANY_RESOURCE_PATTERN = "/*";
 
-    PathConfig matches(final String requestedUri, List<PathConfig> paths) {
-        PathConfig actualConfig = null;
+    private static final int TEMPLATE_PREFIX = 0;
+    private static final int PREFIX = 1;
+    private static final int SUFFIX = 2;
+    private static final int EXACT = 3;
 
-        for (PathConfig entry : paths) {
-            String protectedUri = entry.getPath();
-            String selectedUri = null;
+    private final Node root = new Node();
 
-            if (protectedUri.equals(ANY_RESOURCE_PATTERN) && actualConfig == null) {
-                selectedUri = protectedUri;
-            }
+    PathMatcher(Collection<PathConfig> paths) {
+        for (PathConfig path : paths) {
+            add(path);
+        }
+    }
 
-            int suffixIndex = protectedUri.indexOf(ANY_RESOURCE_PATTERN + ".");
+    PathConfig matches(final String requestedUri) {
+        if (requestedUri.isEmpty() || requestedUri.charAt(0) != '/') {
+            return matches("/" + requestedUri);
+        }
 
-            if (suffixIndex != -1) {
-                String protectedSuffix = protectedUri.substring(suffixIndex + ANY_RESOURCE_PATTERN.length());
+        Match match = new Match();
+        search(root, requestedUri, 1, 0, 0, match);
+        return match.config;
+    }
 
-                if (requestedUri.endsWith(protectedSuffix)) {
-                    selectedUri = protectedUri;
-                }
-            }
+    private void add(PathConfig pathConfig) {
+        String path = pathConfig.getPath();
 
-            if (protectedUri.equals(requestedUri)) {
-                selectedUri = protectedUri;
-            }
+        if (path.equals(ANY_RESOURCE_PATTERN)) {
+            root.prefix = pathConfig;
+            return;
+        }
 
-            if (protectedUri.endsWith(ANY_RESOURCE_PATTERN)) {
-                String formattedPattern = removeWildCardsFromUri(protectedUri);
+        String[] segments = (path.startsWith("/") ? path.substring(1) : path).split("/", -1);
+        boolean template = false;
+        Node node = root;
 
-                if (!formattedPattern.equals("/") && requestedUri.startsWith(formattedPattern)) {
-                    selectedUri = protectedUri;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            boolean last = i == segments.length - 1;
+
+            if (last && segment.equals("*")) {
+                node.prefix = pathConfig;
+                return;
+            }
+
+            if (last && segment.startsWith("*.")) {
+                if (node.suffixes == null) {
+                    node.suffixes = new LinkedHashMap<>();
                 }
+                node.suffixes.put(segment.substring(1), pathConfig);
+                return;
+            }
 
-                if (!formattedPattern.equals("/") && formattedPattern.endsWith("/") && formattedPattern.substring(0, formattedPattern.length() - 1).equals(requestedUri)) {
-                    selectedUri = protectedUri;
+            if (segment.indexOf('{') != -1) {
+                template = true;
+                if (node.variable == null) {
+                    node.variable = new Node();
                 }
+                node = node.variable;
+            } else {
+                Node child = node.children.get(segment);
+                if (child == null) {
+                    child = new Node();
+                    node.children.put(segment, child);
+                }
+                node = child;
             }
+        }
 
-            int startRegex = protectedUri.indexOf('{');
+        node.exact = pathConfig;
 
-            if (startRegex != -1) {
-                String prefix = protectedUri.substring(0, startRegex);
+        if (template && node.prefix == null) {
+            node.templatePrefix = pathConfig;
+        }
+    }
 
-                if (requestedUri.startsWith(prefix)) {
-                    selectedUri = protectedUri;
+    /**
+     * @param pos index of the first character of the next segment in the uri, greater than the uri length if the whole
+     *            uri was already matched
+     */
+    private void search(Node node, String uri, int pos, int depth, int literals, Match match) {
+        if (node.suffixes != null) {
+            for (Map.Entry<String, PathConfig> suffix : node.suffixes.entrySet()) {
+                if (uri.length() - pos >= suffix.getKey().length() && uri.endsWith(suffix.getKey())) {
+                    match.offer(suffix.getValue(), depth, SUFFIX, literals);
                 }
             }
+        }
 
-            if (selectedUri != null) {
-                selectedUri = protectedUri;
-            }
+        if (node.prefix != null) {
+            match.offer(node.prefix, depth, PREFIX, literals);
+        } else if (node.templatePrefix != null) {
+            match.offer(node.templatePrefix, depth, TEMPLATE_PREFIX, literals);
+        }
 
-            if (selectedUri != null) {
-                if (actualConfig == null) {
-                    actualConfig = entry;
-                } else {
-                    if (actualConfig.equals(ANY_RESOURCE_PATTERN)) {
-                        actualConfig = entry;
-                    }
-
-                    if (protectedUri.startsWith(removeWildCardsFromUri(actualConfig.getPath()))) {
-                        actualConfig = entry;
-                    }
-                }
+        if (pos > uri.length()) {
+            if (node.exact != null) {
+                match.offer(node.exact, depth, EXACT, literals);
             }
+            return;
+        }
+
+        int end = uri.indexOf('/', pos);
+
+        if (end == -1) {
+            end = uri.length();
         }
 
-        return actualConfig;
+        Node child = node.children.isEmpty() ? null : node.children.get(uri.substring(pos, end));
+
+        if (child != null) {
+            search(child, uri, end + 1, depth + 1, literals + 1, match);
+        }
+
+        if (node.variable != null) {
+            search(node.variable, uri, end + 1, depth + 1, literals, match);
+        }
     }
 
-    private String removeWildCardsFromUri(String protectedUri) {
-        return protectedUri.replaceAll("/[*]", "/");
+    private static class Node {
+        final Map<String, Node> children = new HashMap<>();
+        Node variable;
+        PathConfig exact;
+        PathConfig prefix;
+        PathConfig templatePrefix;
+        Map<String, PathConfig> suffixes;
+    }
+
+    private static class Match {
+        PathConfig config;
+        int depth = -1;
+        int kind;
+        int literals;
+
+        void offer(PathConfig config, int depth, int kind, int literals) {
+            if (depth > this.depth
+                    || (depth == this.depth && kind > this.kind)
+                    || (depth == this.depth && kind == this.kind && literals > this.literals)) {
+                this.config = config;
+                this.depth = depth;
+                this.kind = kind;
+                this.literals = literals;
+            }
+        }
     }
 }
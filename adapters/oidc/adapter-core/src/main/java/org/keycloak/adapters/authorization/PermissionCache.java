@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2016 Red Hat, Inc. and/or its affiliates
+ *  and other contributors as indicated by the @author tags.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.keycloak.adapters.authorization;
+
+import org.keycloak.common.util.Time;
+import org.keycloak.representations.AccessToken;
+import org.keycloak.representations.adapters.config.PolicyEnforcerConfig.PathConfig;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Bounded cache of authorization tokens (RPT) obtained from the server for a user session, resource and scopes.
+ * Entries expire together with the token or after the configured lifespan, whichever comes first.
+ */
+class PermissionCache {
+
+    private final Map<String, CacheEntry> entries;
+    private final long lifespan;
+
+    PermissionCache(final int maxEntries, long lifespan) {
+        this.lifespan = lifespan;
+        this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    static String createKey(AccessToken accessToken, PathConfig pathConfig, Set<String> requiredScopes) {
+        StringBuilder key = new StringBuilder();
+
+        key.append(accessToken.getSubject()).append(':').append(accessToken.getSessionState())
+                .append(':').append(pathConfig.getId()).append(':').append(pathConfig.getPath());
+
+        for (String scope : new TreeSet<>(requiredScopes)) {
+            key.append(':').append(scope);
+        }
+
+        return key.toString();
+    }
+
+    AccessToken get(String key) {
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+
+            if (entry == null) {
+                return null;
+            }
+
+            if (Time.currentTimeMillis() > entry.expiration) {
+                entries.remove(key);
+                return null;
+            }
+
+            return entry.token;
+        }
+    }
+
+    void put(String key, AccessToken token) {
+        long expiration = Time.currentTimeMillis() + lifespan;
+
+        if (token.getExpiration() != 0) {
+            expiration = Math.min(expiration, Time.toMillis(token.getExpiration()));
+        }
+
+        synchronized (entries) {
+            entries.put(key, new CacheEntry(token, expiration));
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static class CacheEntry {
+
+        final AccessToken token;
+        final long expiration;
+
+        CacheEntry(AccessToken token, long expiration) {
+            this.token = token;
+            this.expiration = expiration;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.keycloak.authorization.client.representation.RegistrationResponse;
 import org.keycloak.authorization.client.representation.ResourceRepresentation;
 import org.keycloak.authorization.client.representation.ScopeRepresentation;
 import org.keycloak.authorization.client.resource.ProtectedResource;
+import org.keycloak.representations.AccessToken;
 import org.keycloak.representations.adapters.config.AdapterConfig;
 import org.keycloak.representations.adapters.config.PolicyEnforcerConfig;
 import org.keycloak.representations.adapters.config.PolicyEnforcerConfig.PathConfig;
@@ -49,12 +50,34 @@ public class PolicyEnforcer {
     private final AuthzClient authzClient;
     private final PolicyEnforcerConfig enforcerConfig;
     private final List<PathConfig> paths;
+    private final PathMatcher pathMatcher;
+    private final PathCache pathCache;
+    private final PermissionCache permissionCache;
+    private final SingleFlight<PathConfig> pathResolution = new SingleFlight<>();
+    private final SingleFlight<AccessToken> permissionRequests = new SingleFlight<>();
 
     public PolicyEnforcer(KeycloakDeployment deployment, AdapterConfig adapterConfig) {
         this.deployment = deployment;
         this.enforcerConfig = adapterConfig.getPolicyEnforcerConfig();
         this.authzClient = AuthzClient.create(new Configuration(adapterConfig.getAuthServerUrl(), adapterConfig.getRealm(), adapterConfig.getResource(), adapterConfig.getCredentials(), deployment.getClient()));
         this.paths = configurePaths(this.authzClient.protection().resource(), this.enforcerConfig);
+        this.pathMatcher = new PathMatcher(this.paths);
+
+        PolicyEnforcerConfig.PathCacheConfig pathCacheConfig = this.enforcerConfig.getPathCacheConfig();
+
+        if (pathCacheConfig == null) {
+            pathCacheConfig = new PolicyEnforcerConfig.PathCacheConfig();
+        }
+
+        this.pathCache = new PathCache(pathCacheConfig.getMaxEntries(), pathCacheConfig.getLifespan());
+
+        PolicyEnforcerConfig.PermissionCacheConfig permissionCacheConfig = this.enforcerConfig.getPermissionCacheConfig();
+
+        if (permissionCacheConfig == null) {
+            permissionCacheConfig = new PolicyEnforcerConfig.PermissionCacheConfig();
+        }
+
+        this.permissionCache = new PermissionCache(permissionCacheConfig.getMaxEntries(), permissionCacheConfig.getLifespan());
 
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Initialization complete. Path configurations:");
@@ -100,6 +123,26 @@ public class PolicyEnforcer {
         return Collections.unmodifiableList(paths);
     }
 
+    PathMatcher getPathMatcher() {
+        return pathMatcher;
+    }
+
+    PathCache getPathCache() {
+        return pathCache;
+    }
+
+    PermissionCache getPermissionCache() {
+        return permissionCache;
+    }
+
+    SingleFlight<PathConfig> getPathResolution() {
+        return pathResolution;
+    }
+
+    SingleFlight<AccessToken> getPermissionRequests() {
+        return permissionRequests;
+    }
+
     KeycloakDeployment getDeployment() {
         return deployment;
     }
@@ -19,6 +19,7 @@ package org.keycloak.adapters.rotation;
 
 import org.jboss.logging.Logger;
 import org.keycloak.RSATokenVerifier;
+import org.keycloak.VerifiedTokenCache;
 import org.keycloak.adapters.KeycloakDeployment;
 import org.keycloak.common.VerificationException;
 import org.keycloak.jose.jws.JWSInput;
@@ -51,7 +52,15 @@ public class AdapterRSATokenVerifier {
     }
 
     public static AccessToken verifyToken(String tokenString, KeycloakDeployment deployment, boolean checkActive, boolean checkTokenType) throws VerificationException {
-        RSATokenVerifier verifier = RSATokenVerifier.create(tokenString).realmUrl(deployment.getRealmInfoUrl()).checkActive(checkActive).checkTokenType(checkTokenType);
+        return verifyToken(tokenString, deployment, checkActive, checkTokenType, deployment.getVerifiedTokenCache());
+    }
+
+    /**
+     * @param verifiedTokenCache cache of verified tokens to use, or {@code null} to always verify the signature
+     */
+    public static AccessToken verifyToken(String tokenString, KeycloakDeployment deployment, boolean checkActive, boolean checkTokenType, VerifiedTokenCache verifiedTokenCache) throws VerificationException {
+        RSATokenVerifier verifier = RSATokenVerifier.create(tokenString).realmUrl(deployment.getRealmInfoUrl()).checkActive(checkActive).checkTokenType(checkTokenType)
+                .verifiedTokenCache(verifiedTokenCache);
         PublicKey publicKey = getPublicKey(verifier.getHeader().getKeyId(), deployment);
         return verifier.publicKey(publicKey).verify().getToken();
     }
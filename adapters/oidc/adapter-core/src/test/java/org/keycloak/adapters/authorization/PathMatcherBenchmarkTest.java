@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keycloak.adapters.authorization;
+
+import org.jboss.logging.Logger;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.keycloak.representations.adapters.config.PolicyEnforcerConfig.PathConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures lookups per second of {@link PathMatcher} and {@link PathCache} with 5000 configured paths.
+ *
+ * Not executed during build. Run manually.
+ */
+@Ignore
+public class PathMatcherBenchmarkTest {
+
+    private static final Logger logger = Logger.getLogger(PathMatcherBenchmarkTest.class);
+
+    private static final int PATHS = 5000;
+    private static final int LOOKUPS = 1000000;
+
+    @Test
+    public void benchmark() {
+        List<PathConfig> paths = new ArrayList<>();
+
+        for (int i = 0; i < PATHS / 4; i++) {
+            paths.add(pathConfig("/api/exact-" + i));
+            paths.add(pathConfig("/api/prefix-" + i + "/*"));
+            paths.add(pathConfig("/api/template-" + i + "/{id}"));
+            paths.add(pathConfig("/static-" + i + "/*.css"));
+        }
+        paths.add(pathConfig("/*"));
+
+        PathMatcher matcher = new PathMatcher(paths);
+        String[] uris = new String[PATHS];
+
+        for (int i = 0; i < PATHS / 4; i++) {
+            uris[i * 4] = "/api/exact-" + i;
+            uris[i * 4 + 1] = "/api/prefix-" + i + "/some/resource";
+            uris[i * 4 + 2] = "/api/template-" + i + "/" + i;
+            uris[i * 4 + 3] = "/static-" + i + "/css/main.css";
+        }
+
+        // warm up
+        run(matcher, uris, LOOKUPS / 10);
+
+        long start = System.nanoTime();
+        run(matcher, uris, LOOKUPS);
+        long matcherTime = System.nanoTime() - start;
+
+        PathCache cache = new PathCache(PATHS, 60000);
+        for (String uri : uris) {
+            cache.put(uri, matcher.matches(uri));
+        }
+
+        start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (cache.get(uris[i % uris.length]) == null) {
+                throw new IllegalStateException("Missing cache entry for " + uris[i % uris.length]);
+            }
+        }
+        long cacheTime = System.nanoTime() - start;
+
+        logger.infof("Paths: %d, path matcher lookups/sec: %d, path cache lookups/sec: %d", paths.size(),
+                LOOKUPS * 1000000000L / matcherTime, LOOKUPS * 1000000000L / cacheTime);
+    }
+
+    private void run(PathMatcher matcher, String[] uris, int lookups) {
+        for (int i = 0; i < lookups; i++) {
+            PathConfig config = matcher.matches(uris[i % uris.length]);
+
+            if (config == null || config.getPath().equals("/*")) {
+                throw new IllegalStateException("Unexpected match for " + uris[i % uris.length]);
+            }
+        }
+    }
+
+    private PathConfig pathConfig(String path) {
+        PathConfig config = new PathConfig();
+        config.setPath(path);
+        return config;
+    }
+}
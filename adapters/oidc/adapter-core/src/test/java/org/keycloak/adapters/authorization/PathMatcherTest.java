@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keycloak.adapters.authorization;
+
+import org.junit.Test;
+import org.keycloak.common.util.Time;
+import org.keycloak.representations.adapters.config.PolicyEnforcerConfig.PathConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PathMatcherTest {
+
+    @Test
+    public void testExactMatch() {
+        PathMatcher matcher = matcher("/api/orders", "/api/orders/", "/");
+
+        assertPath("/api/orders", matcher, "/api/orders");
+        assertPath("/api/orders/", matcher, "/api/orders/");
+        assertPath("/", matcher, "/");
+        assertNull(matcher.matches("/api"));
+        assertNull(matcher.matches("/api/orders/1"));
+    }
+
+    @Test
+    public void testPrefixWildcard() {
+        PathMatcher matcher = matcher("/*", "/api/*", "/api/orders/*");
+
+        assertPath("/api/*", matcher, "/api");
+        assertPath("/api/*", matcher, "/api/customers/1");
+        assertPath("/api/orders/*", matcher, "/api/orders");
+        assertPath("/api/orders/*", matcher, "/api/orders/1/items");
+        assertPath("/*", matcher, "/apix");
+        assertPath("/*", matcher, "/");
+    }
+
+    @Test
+    public void testSuffix() {
+        PathMatcher matcher = matcher("/*", "/*.html", "/static/*", "/static/*.css");
+
+        assertPath("/*.html", matcher, "/index.html");
+        assertPath("/static/*.css", matcher, "/static/css/main.css");
+        assertPath("/static/*", matcher, "/static/index.html");
+        assertPath("/*", matcher, "/main.css");
+    }
+
+    @Test
+    public void testTemplate() {
+        PathMatcher matcher = matcher("/api/*", "/api/orders/{id}", "/api/orders/{id}/items", "/api/orders/new");
+
+        assertPath("/api/orders/{id}", matcher, "/api/orders/1");
+        assertPath("/api/orders/{id}/items", matcher, "/api/orders/1/items");
+        assertPath("/api/orders/new", matcher, "/api/orders/new");
+        assertPath("/api/orders/{id}", matcher, "/api/orders/1/payments");
+        assertPath("/api/*", matcher, "/api/orders");
+    }
+
+    @Test
+    public void testUriWithoutLeadingSlash() {
+        PathMatcher matcher = matcher("/api/orders");
+
+        assertPath("/api/orders", matcher, "api/orders");
+        assertNull(matcher("/api/*").matches(""));
+    }
+
+    @Test
+    public void testManyPaths() {
+        List<String> paths = new ArrayList<>();
+
+        for (int i = 0; i < 5000; i++) {
+            paths.add("/api/resource-" + i + "/{id}");
+        }
+        paths.add("/api/*");
+
+        PathMatcher matcher = matcher(paths.toArray(new String[paths.size()]));
+
+        assertPath("/api/resource-4999/{id}", matcher, "/api/resource-4999/1");
+        assertPath("/api/*", matcher, "/api/resource-5000/1");
+    }
+
+    @Test
+    public void testPathCache() {
+        PathCache cache = new PathCache(2, 1000);
+        PathConfig first = pathConfig("/api/orders/1");
+        PathConfig second = pathConfig("/api/orders/2");
+
+        cache.put("/api/orders/1", first);
+        cache.put("/api/orders/2", second);
+        assertEquals(first, cache.get("/api/orders/1"));
+
+        // least recently used entry is removed
+        cache.put("/api/orders/3", pathConfig("/api/orders/3"));
+        assertEquals(2, cache.size());
+        assertNull(cache.get("/api/orders/2"));
+        assertEquals(first, cache.get("/api/orders/1"));
+
+        cache.remove("/api/orders/1");
+        assertNull(cache.get("/api/orders/1"));
+
+        Time.setOffset(2);
+        try {
+            assertNull(cache.get("/api/orders/3"));
+            assertEquals(0, cache.size());
+        } finally {
+            Time.setOffset(0);
+        }
+    }
+
+    private void assertPath(String expected, PathMatcher matcher, String uri) {
+        PathConfig config = matcher.matches(uri);
+        assertEquals(expected, config == null ? null : config.getPath());
+    }
+
+    private PathMatcher matcher(String... paths) {
+        List<PathConfig> configs = new ArrayList<>();
+
+        for (String path : Arrays.asList(paths)) {
+            configs.add(pathConfig(path));
+        }
+
+        return new PathMatcher(configs);
+    }
+
+    private PathConfig pathConfig(String path) {
+        PathConfig config = new PathConfig();
+        config.setPath(path);
+        return config;
+    }
+}
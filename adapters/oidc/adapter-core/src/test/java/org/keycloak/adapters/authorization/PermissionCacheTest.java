@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keycloak.adapters.authorization;
+
+import org.junit.Test;
+import org.keycloak.common.util.Time;
+import org.keycloak.representations.AccessToken;
+import org.keycloak.representations.adapters.config.PolicyEnforcerConfig.PathConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PermissionCacheTest {
+
+    @Test
+    public void testKey() {
+        PathConfig pathConfig = new PathConfig();
+        pathConfig.setId("resource-id");
+        pathConfig.setPath("/api/orders");
+
+        String key = PermissionCache.createKey(accessToken("user", "session1"), pathConfig, new HashSet<>(Arrays.asList("read", "write")));
+
+        assertEquals(key, PermissionCache.createKey(accessToken("user", "session1"), pathConfig, new HashSet<>(Arrays.asList("write", "read"))));
+        assertNotEquals(key, PermissionCache.createKey(accessToken("user", "session2"), pathConfig, new HashSet<>(Arrays.asList("read", "write"))));
+        assertNotEquals(key, PermissionCache.createKey(accessToken("user", "session1"), pathConfig, new HashSet<>(Arrays.asList("read"))));
+    }
+
+    @Test
+    public void testExpiration() {
+        PermissionCache cache = new PermissionCache(10, 60000);
+
+        AccessToken rpt = new AccessToken();
+        rpt.expiration(Time.currentTime() + 10);
+        cache.put("key1", rpt);
+
+        AccessToken withoutExpiration = new AccessToken();
+        cache.put("key2", withoutExpiration);
+
+        assertSame(rpt, cache.get("key1"));
+        assertSame(withoutExpiration, cache.get("key2"));
+
+        Time.setOffset(20);
+        try {
+            // token expired
+            assertNull(cache.get("key1"));
+            assertSame(withoutExpiration, cache.get("key2"));
+
+            Time.setOffset(61);
+
+            // lifespan elapsed
+            assertNull(cache.get("key2"));
+            assertEquals(0, cache.size());
+        } finally {
+            Time.setOffset(0);
+        }
+    }
+
+    @Test
+    public void testMaxEntries() {
+        PermissionCache cache = new PermissionCache(2, 60000);
+
+        for (int i = 0; i < 5; i++) {
+            cache.put("key" + i, new AccessToken());
+        }
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("key0"));
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        final SingleFlight<String> singleFlight = new SingleFlight<>();
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Thread> waiters = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+
+            results.add(executor.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return singleFlight.execute("key", new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                            calls.incrementAndGet();
+                            started.countDown();
+                            release.await(10, TimeUnit.SECONDS);
+                            return "result";
+                        }
+                    });
+                }
+            }));
+
+            started.await(10, TimeUnit.SECONDS);
+
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        waiters.add(Thread.currentThread());
+                        return singleFlight.execute("key", new Callable<String>() {
+                            @Override
+                            public String call() {
+                                calls.incrementAndGet();
+                                return "other";
+                            }
+                        });
+                    }
+                }));
+            }
+
+            // the other callers only wait if they joined the running call
+            long deadline = System.currentTimeMillis() + 10000;
+            while (!isWaiting(waiters, 4)) {
+                assertTrue("Callers didn't join the running call", System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("result", result.get(10, TimeUnit.SECONDS));
+            }
+
+            assertEquals(1, calls.get());
+
+            // finished calls are not reused
+            assertEquals("next", singleFlight.execute("key", new Callable<String>() {
+                @Override
+                public String call() {
+                    return "next";
+                }
+            }));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Threads blocked in SingleFlight are waiting for the result of the running call
+    private static boolean isWaiting(List<Thread> threads, int count) {
+        if (threads.size() < count) {
+            return false;
+        }
+        for (Thread thread : threads) {
+            if (thread.getState() != Thread.State.WAITING) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private AccessToken accessToken(String subject, String sessionState) {
+        AccessToken token = new AccessToken();
+        token.subject(subject);
+        token.setSessionState(sessionState);
+        return token;
+    }
+}
@@ -17,13 +17,15 @@
  */
 package org.keycloak.authorization.policy.provider.js;
 
+import org.keycloak.authorization.AuthorizationProvider;
 import org.keycloak.authorization.model.Policy;
 import org.keycloak.authorization.policy.evaluation.Evaluation;
 import org.keycloak.authorization.policy.provider.PolicyProvider;
-
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-import javax.script.ScriptException;
+import org.keycloak.models.ScriptModel;
+import org.keycloak.scripting.EvaluatableScriptAdapter;
+import org.keycloak.scripting.Script;
+import org.keycloak.scripting.ScriptExecutionException;
+import org.keycloak.scripting.ScriptingProvider;
 
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
@@ -31,25 +33,36 @@ import javax.script.ScriptException;
 public class JSPolicyProvider implements PolicyProvider {
 
     private final Policy policy;
+    private final AuthorizationProvider authorization;
 
-    public JSPolicyProvider(Policy policy) {
+    public JSPolicyProvider(Policy policy, AuthorizationProvider authorization) {
         this.policy = policy;
+        this.authorization = authorization;
     }
 
     @Override
     public void evaluate(Evaluation evaluation) {
-        ScriptEngineManager manager = new ScriptEngineManager();
-        ScriptEngine engine = manager.getEngineByName("nashorn");
-
-        engine.put("$evaluation", evaluation);
+        ScriptingProvider scripting = authorization.getKeycloakSession().scripting();
+        // the script is compiled once per policy and recompiled only when the code of the policy changes
+        ScriptModel script = new Script(policy.getId(), authorization.getRealm().getId(), policy.getName(), ScriptModel.TEXT_JAVASCRIPT, policy.getConfig().get("code"), policy.getDescription());
 
         try {
-            engine.eval(policy.getConfig().get("code"));
-        } catch (ScriptException e) {
+            EvaluatableScriptAdapter adapter = scripting.prepareEvaluatableScript(script);
+            adapter.eval(bindings -> bindings.put("$evaluation", evaluation));
+        } catch (ScriptExecutionException e) {
             throw new RuntimeException("Error evaluating JS Policy [" + policy.getName() + "].", e);
         }
     }
 
+    /**
+     * Scripts are identity only if the policy is declared pure through the {@code pure} config option, that is, when
+     * the script doesn't depend on the permission being evaluated.
+     */
+    @Override
+    public boolean isIdentityOnly() {
+        return Boolean.parseBoolean(policy.getConfig().get("pure"));
+    }
+
     @Override
     public void close() {
 
@@ -27,7 +27,7 @@ public class JSPolicyProviderFactory implements PolicyProviderFactory {
 
     @Override
     public PolicyProvider create(Policy policy, AuthorizationProvider authorization) {
-        return new JSPolicyProvider(policy);
+        return new JSPolicyProvider(policy, authorization);
     }
 
     @Override
@@ -88,6 +88,11 @@ public class RolePolicyProvider implements PolicyProvider {
         return this.authorization.getKeycloakSession().getContext().getRealm();
     }
 
+    @Override
+    public boolean isIdentityOnly() {
+        return true;
+    }
+
     @Override
     public void close() {
 
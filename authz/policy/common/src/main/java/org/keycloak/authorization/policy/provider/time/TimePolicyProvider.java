@@ -113,6 +113,11 @@ public class TimePolicyProvider implements PolicyProvider {
         return notBefore;
     }
 
+    @Override
+    public boolean isIdentityOnly() {
+        return true;
+    }
+
     @Override
     public void close() {
 
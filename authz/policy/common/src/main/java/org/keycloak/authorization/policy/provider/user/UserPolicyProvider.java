@@ -50,6 +50,11 @@ public class UserPolicyProvider implements PolicyProvider {
         }
     }
 
+    @Override
+    public boolean isIdentityOnly() {
+        return true;
+    }
+
     @Override
     public void close() {
 
@@ -39,6 +39,7 @@ public class RSATokenVerifier {
     private boolean checkTokenType = true;
     private boolean checkActive = true;
     private boolean checkRealmUrl = true;
+    private VerifiedTokenCache verifiedTokenCache;
 
     private JWSInput jws;
     private AccessToken token;
@@ -84,7 +85,29 @@ public class RSATokenVerifier {
         return this;
     }
 
+    /**
+     * Signature of tokens already verified by the same public key isn't verified again. The token is still parsed and
+     * other checks are done for cached tokens too.
+     */
+    public RSATokenVerifier verifiedTokenCache(VerifiedTokenCache verifiedTokenCache) {
+        this.verifiedTokenCache = verifiedTokenCache;
+        return this;
+    }
+
     public RSATokenVerifier parse() throws VerificationException {
+        parseJws();
+
+        if (token == null) {
+            try {
+                token = jws.readJsonContent(AccessToken.class);
+            } catch (JWSInputException e) {
+                throw new VerificationException("Failed to read access token from JWT", e);
+            }
+        }
+        return this;
+    }
+
+    private void parseJws() throws VerificationException {
         if (jws == null) {
             if (tokenString == null) {
                 throw new VerificationException("Token not set");
@@ -95,15 +118,7 @@ public class RSATokenVerifier {
             } catch (JWSInputException e) {
                 throw new VerificationException("Failed to parse JWT", e);
             }
-
-
-            try {
-                token = jws.readJsonContent(AccessToken.class);
-            } catch (JWSInputException e) {
-                throw new VerificationException("Failed to read access token from JWT", e);
-            }
         }
-        return this;
     }
 
     public AccessToken getToken() throws VerificationException {
@@ -112,11 +127,14 @@ public class RSATokenVerifier {
     }
 
     public JWSHeader getHeader() throws VerificationException {
-        parse();
+        parseJws();
         return jws.getHeader();
     }
 
     public RSATokenVerifier verify() throws VerificationException {
+        boolean verified = verifiedTokenCache != null && tokenString != null && publicKey != null
+                && verifiedTokenCache.isVerified(tokenString, publicKey);
+
         parse();
 
         if (publicKey == null) {
@@ -127,7 +145,7 @@ public class RSATokenVerifier {
             throw new VerificationException("Realm URL not set");
         }
 
-        if (!RSAProvider.verify(jws, publicKey)) {
+        if (!verified && !RSAProvider.verify(jws, publicKey)) {
             throw new VerificationException("Invalid token signature");
         }
 
@@ -148,6 +166,10 @@ public class RSATokenVerifier {
             throw new VerificationException("Token is not active");
         }
 
+        if (!verified && verifiedTokenCache != null) {
+            verifiedTokenCache.put(tokenString, publicKey, token);
+        }
+
         return this;
     }
 
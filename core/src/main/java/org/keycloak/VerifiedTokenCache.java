@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak;
+
+import org.keycloak.common.util.Time;
+import org.keycloak.representations.AccessToken;
+
+import java.security.PublicKey;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of access tokens with already verified signature. Tokens are keyed by their signature. A token is
+ * considered verified only for the exact same token string verified with the same public key, and only until it expires.
+ *
+ * <p>Only the outcome of the signature verification is cached. Token instances aren't kept, so every verification
+ * parses its own copy of the token, which can be modified by the caller.</p>
+ */
+public class VerifiedTokenCache {
+
+    private final Map<String, Entry> entries;
+
+    public VerifiedTokenCache(final int maxSize) {
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns {@code true} if the signature of the token was previously verified with given public key and the token
+     * isn't expired yet.
+     */
+    public boolean isVerified(String tokenString, PublicKey publicKey) {
+        String signature = getEncodedSignature(tokenString);
+        if (signature == null) {
+            return false;
+        }
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(signature);
+        }
+
+        if (entry == null || !entry.tokenString.equals(tokenString) || !entry.publicKey.equals(publicKey)) {
+            return false;
+        }
+
+        if (entry.expiration != 0 && Time.currentTime() > entry.expiration) {
+            synchronized (entries) {
+                entries.remove(signature);
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    public void put(String tokenString, PublicKey publicKey, AccessToken token) {
+        String signature = getEncodedSignature(tokenString);
+        if (signature == null) {
+            return;
+        }
+
+        synchronized (entries) {
+            entries.put(signature, new Entry(tokenString, publicKey, token.getExpiration()));
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static String getEncodedSignature(String tokenString) {
+        int index = tokenString.lastIndexOf('.');
+        if (index == -1 || index == tokenString.length() - 1) {
+            return null;
+        }
+        return tokenString.substring(index + 1);
+    }
+
+    private static class Entry {
+
+        private final String tokenString;
+        private final PublicKey publicKey;
+        private final int expiration;
+
+        private Entry(String tokenString, PublicKey publicKey, int expiration) {
+            this.tokenString = tokenString;
+            this.publicKey = publicKey;
+            this.expiration = expiration;
+        }
+    }
+}
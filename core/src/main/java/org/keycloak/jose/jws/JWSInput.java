@@ -41,17 +41,30 @@ public class JWSInput {
     public JWSInput(String wire) throws JWSInputException {
         try {
             this.wireString = wire;
-            String[] parts = wire.split("\\.");
-            if (parts.length < 2 || parts.length > 3) throw new IllegalArgumentException("Parsing error");
-            encodedHeader = parts[0];
-            encodedContent = parts[1];
-            encodedSignatureInput = encodedHeader + '.' + encodedContent;
+
+            // Same parts as wire.split("\\.") would return, trailing empty parts are ignored
+            int end = wire.length();
+            while (end > 0 && wire.charAt(end - 1) == '.') end--;
+
+            int headerEnd = wire.indexOf('.');
+            if (headerEnd == -1 || headerEnd >= end) throw new IllegalArgumentException("Parsing error");
+            int contentEnd = wire.indexOf('.', headerEnd + 1);
+            if (contentEnd == -1 || contentEnd >= end) {
+                contentEnd = end;
+            } else {
+                int signatureEnd = wire.indexOf('.', contentEnd + 1);
+                if (signatureEnd != -1 && signatureEnd < end) throw new IllegalArgumentException("Parsing error");
+            }
+
+            encodedHeader = wire.substring(0, headerEnd);
+            encodedContent = wire.substring(headerEnd + 1, contentEnd);
+            encodedSignatureInput = wire.substring(0, contentEnd);
             content = Base64Url.decode(encodedContent);
-            if (parts.length > 2) {
-                encodedSignature = parts[2];
+            if (contentEnd < end) {
+                encodedSignature = wire.substring(contentEnd + 1, end);
                 signature = Base64Url.decode(encodedSignature);
-
             }
+
             byte[] headerBytes = Base64Url.decode(encodedHeader);
             header = JsonSerialization.readValue(headerBytes, JWSHeader.class);
         } catch (Throwable t) {
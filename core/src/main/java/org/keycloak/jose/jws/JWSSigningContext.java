@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.jose.jws;
+
+import org.keycloak.common.util.Base64;
+import org.keycloak.jose.jws.crypto.RSAProvider;
+import org.keycloak.util.JsonSerialization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Signs many tokens with the same RSA key and header. Produces the same output as {@link JWSBuilder}, but the header is
+ * encoded just once and initialized {@link Signature} instances are pooled and reused.
+ *
+ * <p>Instances are thread-safe.</p>
+ */
+public class JWSSigningContext {
+
+    private static final int DEFAULT_POOL_SIZE = 32;
+
+    // Don't keep huge buffers around after signing an unusually large token
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<ByteArrayOutputStream> BUFFER = new ThreadLocal<ByteArrayOutputStream>() {
+        @Override
+        protected ByteArrayOutputStream initialValue() {
+            return new ByteArrayOutputStream(2048);
+        }
+    };
+
+    private final Algorithm algorithm;
+    private final String kid;
+    private final PrivateKey privateKey;
+    private final byte[] encodedHeader;
+    private final BlockingQueue<Signature> signatures;
+
+    public JWSSigningContext(Algorithm algorithm, String type, String kid, PrivateKey privateKey) {
+        this(algorithm, type, kid, privateKey, DEFAULT_POOL_SIZE);
+    }
+
+    public JWSSigningContext(Algorithm algorithm, String type, String kid, PrivateKey privateKey, int poolSize) {
+        // validates the algorithm
+        RSAProvider.getJavaAlgorithm(algorithm);
+
+        this.algorithm = algorithm;
+        this.kid = kid;
+        this.privateKey = privateKey;
+        this.encodedHeader = new JWSBuilder().type(type).kid(kid).encodeHeader(algorithm).getBytes(StandardCharsets.US_ASCII);
+        this.signatures = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getKid() {
+        return kid;
+    }
+
+    public PrivateKey getPrivateKey() {
+        return privateKey;
+    }
+
+    /**
+     * Checks if this context signs with the given algorithm and key.
+     */
+    public boolean isFor(Algorithm algorithm, String kid, PrivateKey privateKey) {
+        return this.algorithm == algorithm && Objects.equals(this.kid, kid) && this.privateKey.equals(privateKey);
+    }
+
+    public String sign(Object content) {
+        ByteArrayOutputStream buffer = BUFFER.get();
+        buffer.reset();
+        try {
+            JsonSerialization.writeValueToStream(buffer, content);
+            return sign(buffer.toByteArray());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (buffer.size() > MAX_RETAINED_BUFFER_SIZE) {
+                BUFFER.remove();
+            }
+        }
+    }
+
+    public String sign(byte[] content) {
+        byte[] encodedContent = encodeBase64Url(content);
+        int encodedContentLength = unpaddedLength(encodedContent);
+
+        byte[] signingInput = new byte[encodedHeader.length + 1 + encodedContentLength];
+        System.arraycopy(encodedHeader, 0, signingInput, 0, encodedHeader.length);
+        signingInput[encodedHeader.length] = '.';
+        System.arraycopy(encodedContent, 0, signingInput, encodedHeader.length + 1, encodedContentLength);
+
+        byte[] signature = encodeBase64Url(signature(signingInput));
+
+        StringBuilder token = new StringBuilder(signingInput.length + 1 + signature.length);
+        token.append(new String(signingInput, StandardCharsets.US_ASCII));
+        token.append('.');
+        token.append(new String(signature, 0, unpaddedLength(signature), StandardCharsets.US_ASCII));
+        return token.toString();
+    }
+
+    private static byte[] encodeBase64Url(byte[] data) {
+        try {
+            return Base64.encodeBytesToBytes(data, 0, data.length, Base64.URL_SAFE);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static int unpaddedLength(byte[] encoded) {
+        int length = encoded.length;
+        while (length > 0 && encoded[length - 1] == '=') length--;
+        return length;
+    }
+
+    private byte[] signature(byte[] data) {
+        Signature signature = signatures.poll();
+        try {
+            if (signature == null) {
+                signature = RSAProvider.getSignature(algorithm);
+                signature.initSign(privateKey);
+            }
+            signature.update(data);
+            // sign() resets the signature, so it can be reused with the same key
+            byte[] signed = signature.sign();
+            signatures.offer(signature);
+            return signed;
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -29,6 +29,7 @@ public class GlobalRequestResult {
 
     private List<String> successRequests;
     private List<String> failedRequests;
+    private List<String> retriedRequests;
 
     public void addSuccessRequest(String reqUri) {
         if (successRequests == null) {
@@ -44,6 +45,16 @@ public class GlobalRequestResult {
         failedRequests.add(reqUri);
     }
 
+    /**
+     * Marks the request as retried at least once. Retried requests are also reported as successful or failed.
+     */
+    public void addRetriedRequest(String reqUri) {
+        if (retriedRequests == null) {
+            retriedRequests = new ArrayList<String>();
+        }
+        retriedRequests.add(reqUri);
+    }
+
     public void addAllSuccessRequests(List<String> reqUris) {
         if (successRequests == null) {
             successRequests = new ArrayList<String>();
@@ -58,6 +69,13 @@ public class GlobalRequestResult {
         failedRequests.addAll(reqUris);
     }
 
+    public void addAllRetriedRequests(List<String> reqUris) {
+        if (retriedRequests == null) {
+            retriedRequests = new ArrayList<String>();
+        }
+        retriedRequests.addAll(reqUris);
+    }
+
     public void addAll(GlobalRequestResult merged) {
         if (merged.getSuccessRequests() != null && merged.getSuccessRequests().size() > 0) {
             addAllSuccessRequests(merged.getSuccessRequests());
@@ -65,6 +83,9 @@ public class GlobalRequestResult {
         if (merged.getFailedRequests() != null && merged.getFailedRequests().size() > 0) {
             addAllFailedRequests(merged.getFailedRequests());
         }
+        if (merged.getRetriedRequests() != null && merged.getRetriedRequests().size() > 0) {
+            addAllRetriedRequests(merged.getRetriedRequests());
+        }
     }
 
     public List<String> getSuccessRequests() {
@@ -74,4 +95,8 @@ public class GlobalRequestResult {
     public List<String> getFailedRequests() {
         return failedRequests;
     }
+
+    public List<String> getRetriedRequests() {
+        return retriedRequests;
+    }
 }
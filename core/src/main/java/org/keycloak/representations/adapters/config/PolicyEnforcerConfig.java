@@ -57,6 +57,14 @@ public class PolicyEnforcerConfig {
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private String accessDeniedPath;
 
+    @JsonProperty("path-cache")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private PathCacheConfig pathCacheConfig;
+
+    @JsonProperty("permission-cache")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private PermissionCacheConfig permissionCacheConfig;
+
     public Boolean isCreateResources() {
         return this.createResources;
     }
@@ -101,6 +109,22 @@ public class PolicyEnforcerConfig {
         return accessDeniedPath;
     }
 
+    public PathCacheConfig getPathCacheConfig() {
+        return pathCacheConfig;
+    }
+
+    public void setPathCacheConfig(PathCacheConfig pathCacheConfig) {
+        this.pathCacheConfig = pathCacheConfig;
+    }
+
+    public PermissionCacheConfig getPermissionCacheConfig() {
+        return permissionCacheConfig;
+    }
+
+    public void setPermissionCacheConfig(PermissionCacheConfig permissionCacheConfig) {
+        this.permissionCacheConfig = permissionCacheConfig;
+    }
+
     public static class PathConfig {
 
         private String name;
@@ -217,6 +241,63 @@ public class PolicyEnforcerConfig {
         DISABLED
     }
 
+    public static class PathCacheConfig {
+
+        @JsonProperty("max-entries")
+        private int maxEntries = 1000;
+
+        @JsonProperty("lifespan")
+        private long lifespan = 30000;
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        /**
+         * Returns how long, in milliseconds, a resolved path stays in the cache.
+         */
+        public long getLifespan() {
+            return lifespan;
+        }
+
+        public void setLifespan(long lifespan) {
+            this.lifespan = lifespan;
+        }
+    }
+
+    public static class PermissionCacheConfig {
+
+        @JsonProperty("max-entries")
+        private int maxEntries = 1000;
+
+        @JsonProperty("lifespan")
+        private long lifespan = 30000;
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        /**
+         * Returns how long, in milliseconds, permissions obtained from the server are reused. Permissions are never
+         * reused after the authorization token expires.
+         */
+        public long getLifespan() {
+            return lifespan;
+        }
+
+        public void setLifespan(long lifespan) {
+            this.lifespan = lifespan;
+        }
+    }
+
     public static class UmaProtocolConfig {
 
     }
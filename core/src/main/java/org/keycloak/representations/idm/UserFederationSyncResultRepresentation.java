@@ -29,6 +29,9 @@ public class UserFederationSyncResultRepresentation {
     private int removed;
     private int failed;
 
+    private long durationMillis;
+    private int usersPerSecond;
+
     private String status;
 
     public boolean isIgnored() {
@@ -71,6 +74,22 @@ public class UserFederationSyncResultRepresentation {
         this.failed = failed;
     }
 
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public int getUsersPerSecond() {
+        return usersPerSecond;
+    }
+
+    public void setUsersPerSecond(int usersPerSecond) {
+        this.usersPerSecond = usersPerSecond;
+    }
+
     public String getStatus() {
         return status;
     }
@@ -248,5 +248,73 @@ public class RSAVerifierTest {
         }
     }
 
+    @Test
+    public void testVerifiedTokenCache() throws Exception {
+        token.expiration(Time.currentTime() + 100);
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+
+        String encoded = new JWSBuilder()
+                .jsonContent(token)
+                .rsa256(idpPair.getPrivate());
+
+        AccessToken verified = verifyWithCache(encoded, idpPair.getPublic(), cache);
+        Assert.assertEquals(1, cache.size());
+
+        // Every verification gets its own token instance
+        AccessToken cached = verifyWithCache(encoded, idpPair.getPublic(), cache);
+        Assert.assertNotSame(verified, cached);
+        Assert.assertEquals(verified.getSubject(), cached.getSubject());
+        Assert.assertEquals(1, cache.size());
+
+        // Cached token isn't used for other key
+        try {
+            verifyWithCache(encoded, badPair.getPublic(), cache);
+            Assert.fail();
+        } catch (VerificationException ignored) {
+        }
+
+        // Cached token isn't used for other content with the same signature
+        token.subject("CN=Other");
+        String other = new JWSBuilder()
+                .jsonContent(token)
+                .rsa256(idpPair.getPrivate());
+        String tampered = other.substring(0, other.lastIndexOf('.')) + encoded.substring(encoded.lastIndexOf('.'));
+        try {
+            verifyWithCache(tampered, idpPair.getPublic(), cache);
+            Assert.fail();
+        } catch (VerificationException ignored) {
+        }
+
+        // Expired token is removed from the cache
+        Time.setOffset(200);
+        try {
+            verifyWithCache(encoded, idpPair.getPublic(), cache);
+            Assert.fail();
+        } catch (VerificationException ignored) {
+        } finally {
+            Time.setOffset(0);
+        }
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testVerifiedTokenCacheMaxSize() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2);
+
+        for (int i = 0; i < 5; i++) {
+            token.id("token-" + i);
+            String encoded = new JWSBuilder()
+                    .jsonContent(token)
+                    .rsa256(idpPair.getPrivate());
+            verifyWithCache(encoded, idpPair.getPublic(), cache);
+        }
+
+        Assert.assertEquals(2, cache.size());
+    }
+
+    private AccessToken verifyWithCache(String encoded, PublicKey publicKey, VerifiedTokenCache cache) throws VerificationException {
+        return RSATokenVerifier.create(encoded).publicKey(publicKey).realmUrl("http://localhost:8080/auth/realm")
+                .verifiedTokenCache(cache).verify().getToken();
+    }
 
 }
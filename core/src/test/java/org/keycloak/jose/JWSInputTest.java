@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.jose;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.keycloak.jose.jws.Algorithm;
+import org.keycloak.jose.jws.JWSBuilder;
+import org.keycloak.jose.jws.JWSInput;
+import org.keycloak.jose.jws.JWSInputException;
+
+public class JWSInputTest {
+
+    @Test
+    public void testParts() throws Exception {
+        String encoded = new JWSBuilder().type("JWT").content("content".getBytes("UTF-8")).none();
+        String[] parts = encoded.split("\\.");
+
+        JWSInput input = new JWSInput(encoded);
+        Assert.assertEquals(parts[0], input.getEncodedHeader());
+        Assert.assertEquals(parts[1], input.getEncodedContent());
+        Assert.assertEquals(parts[0] + "." + parts[1], input.getEncodedSignatureInput());
+        Assert.assertEquals(Algorithm.none, input.getHeader().getAlgorithm());
+        Assert.assertEquals("content", input.readContentAsString());
+
+        input = new JWSInput(parts[0] + "." + parts[1] + ".c2ln");
+        Assert.assertEquals(parts[1], input.getEncodedContent());
+        Assert.assertEquals("c2ln", input.getEncodedSignature());
+        Assert.assertEquals("sig", new String(input.getSignature(), "UTF-8"));
+    }
+
+    @Test
+    public void testTrailingDots() throws Exception {
+        String encoded = new JWSBuilder().content("content".getBytes("UTF-8")).none();
+        String[] parts = encoded.split("\\.");
+
+        JWSInput input = new JWSInput(parts[0] + "." + parts[1] + "..");
+        Assert.assertEquals(parts[1], input.getEncodedContent());
+        Assert.assertNull(input.getEncodedSignature());
+        Assert.assertNull(input.getSignature());
+    }
+
+    @Test
+    public void testInvalid() throws Exception {
+        String encoded = new JWSBuilder().content("content".getBytes("UTF-8")).none();
+        String[] parts = encoded.split("\\.");
+
+        assertInvalid(parts[0]);
+        assertInvalid(parts[0] + ".");
+        assertInvalid(parts[0] + "." + parts[1] + ".sig.other");
+        assertInvalid("...");
+        assertInvalid("bm90LWpzb24.content");
+
+        // Malformed content or signature is rejected when parsing, not when reading them
+        assertInvalid(parts[0] + ".#$%");
+        assertInvalid(parts[0] + "." + parts[1] + ".#$%");
+    }
+
+    private void assertInvalid(String wire) {
+        try {
+            new JWSInput(wire);
+            Assert.fail("Expected invalid token: " + wire);
+        } catch (JWSInputException expected) {
+        }
+    }
+
+}
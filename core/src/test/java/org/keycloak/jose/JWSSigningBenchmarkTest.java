@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.jose;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.keycloak.jose.jws.Algorithm;
+import org.keycloak.jose.jws.JWSBuilder;
+import org.keycloak.jose.jws.JWSSigningContext;
+import org.keycloak.representations.AccessToken;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares throughput of signing tokens with new {@link JWSBuilder} for each token and with shared
+ * {@link JWSSigningContext}, both single threaded and concurrently.
+ *
+ * Not executed during build. Run manually.
+ */
+@Ignore
+public class JWSSigningBenchmarkTest {
+
+    private static final int WARMUP_TOKENS = 2000;
+    private static final int TOKENS = 20000;
+    private static final int THREADS = 8;
+
+    @Test
+    public void benchmark() throws Exception {
+        KeyPair keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        final PrivateKey privateKey = keyPair.getPrivate();
+        final AccessToken token = createToken();
+        final JWSSigningContext signingContext = new JWSSigningContext(Algorithm.RS256, "JWT", "kid1", privateKey);
+
+        Callable<String> builder = new Callable<String>() {
+            @Override
+            public String call() {
+                return new JWSBuilder().type("JWT").kid("kid1").jsonContent(token).rsa256(privateKey);
+            }
+        };
+        Callable<String> context = new Callable<String>() {
+            @Override
+            public String call() {
+                return signingContext.sign(token);
+            }
+        };
+
+        for (int threads : new int[] { 1, THREADS }) {
+            run(builder, threads, WARMUP_TOKENS);
+            run(context, threads, WARMUP_TOKENS);
+
+            System.out.println(String.format("Threads: %d, tokens/sec with JWSBuilder: %d, with JWSSigningContext: %d",
+                    threads, run(builder, threads, TOKENS), run(context, threads, TOKENS)));
+        }
+    }
+
+    private long run(final Callable<String> signer, final int threads, final int tokens) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int i = 0; i < tokens / threads; i++) {
+                            signer.call();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            return tokens * 1000000000L / (System.nanoTime() - start);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private AccessToken createToken() {
+        AccessToken token = new AccessToken();
+        token.id("7d1f4a3c-2a5b-4f0e-9d5c-1b8f3e6a9c21");
+        token.subject("f2b1c6e4-8a1d-4c3b-9e7f-5d2a0b4c6e8f");
+        token.issuer("http://localhost:8080/auth/realms/test");
+        token.issuedFor("test-app");
+        token.expiration(1000);
+        token.addAccess("test-app").addRole("customer-user");
+        return token;
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.jose;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.keycloak.jose.jws.Algorithm;
+import org.keycloak.jose.jws.JWSBuilder;
+import org.keycloak.jose.jws.JWSInput;
+import org.keycloak.jose.jws.JWSSigningContext;
+import org.keycloak.jose.jws.crypto.RSAProvider;
+import org.keycloak.representations.AccessToken;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class JWSSigningContextTest {
+
+    private static KeyPair keyPair;
+
+    @BeforeClass
+    public static void generateKeys() throws Exception {
+        keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+    }
+
+    @Test
+    public void testSameOutputAsBuilder() throws Exception {
+        AccessToken token = createToken();
+        JWSSigningContext signingContext = new JWSSigningContext(Algorithm.RS256, "JWT", "kid1", keyPair.getPrivate());
+
+        String expected = new JWSBuilder().type("JWT").kid("kid1").jsonContent(token).rsa256(keyPair.getPrivate());
+
+        // RSA PKCS#1 v1.5 signatures are deterministic, so also the signature part must match
+        Assert.assertEquals(expected, signingContext.sign(token));
+        Assert.assertEquals(expected, signingContext.sign(token));
+
+        JWSInput input = new JWSInput(signingContext.sign(token));
+        Assert.assertTrue(RSAProvider.verify(input, keyPair.getPublic()));
+        Assert.assertEquals("kid1", input.getHeader().getKeyId());
+        Assert.assertEquals("JWT", input.getHeader().getType());
+        Assert.assertEquals(token.getId(), input.readJsonContent(AccessToken.class).getId());
+    }
+
+    @Test
+    public void testWithoutKid() throws Exception {
+        AccessToken token = createToken();
+        JWSSigningContext signingContext = new JWSSigningContext(Algorithm.RS512, "JWT", null, keyPair.getPrivate());
+
+        Assert.assertEquals(new JWSBuilder().type("JWT").jsonContent(token).rsa512(keyPair.getPrivate()), signingContext.sign(token));
+        Assert.assertTrue(signingContext.isFor(Algorithm.RS512, null, keyPair.getPrivate()));
+        Assert.assertFalse(signingContext.isFor(Algorithm.RS512, "kid1", keyPair.getPrivate()));
+        Assert.assertFalse(signingContext.isFor(Algorithm.RS256, null, keyPair.getPrivate()));
+    }
+
+    @Test
+    public void testConcurrentSigning() throws Exception {
+        final JWSSigningContext signingContext = new JWSSigningContext(Algorithm.RS256, "JWT", "kid1", keyPair.getPrivate(), 2);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            List<AccessToken> tokens = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                final AccessToken token = createToken();
+                tokens.add(token);
+                futures.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return signingContext.sign(token);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                JWSInput input = new JWSInput(futures.get(i).get());
+                Assert.assertTrue(RSAProvider.verify(input, keyPair.getPublic()));
+                Assert.assertEquals(tokens.get(i).getId(), input.readJsonContent(AccessToken.class).getId());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private AccessToken createToken() {
+        AccessToken token = new AccessToken();
+        token.id(UUID.randomUUID().toString());
+        token.subject("user");
+        token.issuer("http://localhost:8080/auth/realms/test");
+        token.expiration(1000);
+        return token;
+    }
+
+}
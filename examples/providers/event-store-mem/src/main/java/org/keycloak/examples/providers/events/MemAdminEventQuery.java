@@ -23,6 +23,7 @@ import org.keycloak.events.admin.OperationType;
 import org.keycloak.events.admin.ResourceType;
 
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -183,8 +184,29 @@ public class MemAdminEventQuery implements AdminEventQuery {
         return this;
     }
 
+    @Override
+    public AdminEventQuery after(long time, String id) {
+        Iterator<AdminEvent> itr = this.adminEvents.iterator();
+        while (itr.hasNext()) {
+            AdminEvent next = itr.next();
+            if (!(next.getTime() < time || (next.getTime() == time && next.getId().compareTo(id) < 0))) {
+                itr.remove();
+            }
+        }
+        return this;
+    }
+
     @Override
     public List<AdminEvent> getResultList() {
+        // Same order as the other stores, newest first and by id for events with the same time
+        Collections.sort(adminEvents, new Comparator<AdminEvent>() {
+            @Override
+            public int compare(AdminEvent e1, AdminEvent e2) {
+                int result = Long.compare(e2.getTime(), e1.getTime());
+                return result != 0 ? result : e2.getId().compareTo(e1.getId());
+            }
+        });
+
         if (adminEvents.size() < first) {
             return Collections.emptyList();
         }
@@ -22,6 +22,7 @@ import org.keycloak.events.EventQuery;
 import org.keycloak.events.EventType;
 
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -137,8 +138,29 @@ public class MemEventQuery implements EventQuery {
         return this;
     }
 
+    @Override
+    public EventQuery after(long time, String id) {
+        Iterator<Event> itr = this.events.iterator();
+        while (itr.hasNext()) {
+            Event next = itr.next();
+            if (!(next.getTime() < time || (next.getTime() == time && next.getId().compareTo(id) < 0))) {
+                itr.remove();
+            }
+        }
+        return this;
+    }
+
     @Override
     public List<Event> getResultList() {
+        // Same order as the other stores, newest first and by id for events with the same time
+        Collections.sort(events, new Comparator<Event>() {
+            @Override
+            public int compare(Event e1, Event e2) {
+                int result = Long.compare(e2.getTime(), e1.getTime());
+                return result != 0 ? result : e2.getId().compareTo(e1.getId());
+            }
+        });
+
         if (events.size() < first) {
             return Collections.emptyList();
         }
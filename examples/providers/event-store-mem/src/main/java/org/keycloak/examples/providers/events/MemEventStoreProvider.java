@@ -29,6 +29,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 /**
  * @author <a href="mailto:sthorger@redhat.com">Stian Thorgersen</a>
@@ -86,7 +87,12 @@ public class MemEventStoreProvider implements EventStoreProvider {
     @Override
     public void onEvent(Event event) {
         if (excludedEvents == null || !excludedEvents.contains(event.getType())) {
-            events.add(0, event);
+            // Ids are needed for keyset pagination
+            Event stored = event.clone();
+            if (stored.getId() == null) {
+                stored.setId(UUID.randomUUID().toString());
+            }
+            events.add(0, stored);
         }
     }
 
@@ -128,7 +134,11 @@ public class MemEventStoreProvider implements EventStoreProvider {
     @Override
     public void onEvent(AdminEvent adminEvent, boolean includeRepresentation) {
         if (excludedOperations == null || !excludedOperations.contains(adminEvent.getOperationType())) {
-            adminEvents.add(0, adminEvent);
+            AdminEvent stored = adminEvent.clone();
+            if (stored.getId() == null) {
+                stored.setId(UUID.randomUUID().toString());
+            }
+            adminEvents.add(0, stored);
         }
     }
 
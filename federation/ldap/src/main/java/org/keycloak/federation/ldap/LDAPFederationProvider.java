@@ -303,14 +303,21 @@ public class LDAPFederationProvider implements UserFederationProvider {
     }
 
     protected UserModel importUserFromLDAP(KeycloakSession session, RealmModel realm, LDAPObject ldapUser) {
+        Set<UserFederationMapperModel> federationMappers = realm.getUserFederationMappersByFederationProvider(getModel().getId());
+        return importUserFromLDAP(session, realm, ldapUser, sortMappersDesc(federationMappers));
+    }
+
+    /**
+     * Same as {@link #importUserFromLDAP(KeycloakSession, RealmModel, LDAPObject)}, but with the mappers already sorted
+     * by {@link #sortMappersDesc(Collection)}. Used by sync to avoid sorting mappers for every imported user.
+     */
+    protected UserModel importUserFromLDAP(KeycloakSession session, RealmModel realm, LDAPObject ldapUser, List<UserFederationMapperModel> sortedMappers) {
         String ldapUsername = LDAPUtils.getUsername(ldapUser, ldapIdentityStore.getConfig());
         LDAPUtils.checkUuid(ldapUser, ldapIdentityStore.getConfig());
 
         UserModel imported = session.userStorage().addUser(realm, ldapUsername);
         imported.setEnabled(true);
 
-        Set<UserFederationMapperModel> federationMappers = realm.getUserFederationMappersByFederationProvider(getModel().getId());
-        List<UserFederationMapperModel> sortedMappers = sortMappersDesc(federationMappers);
         for (UserFederationMapperModel mapperModel : sortedMappers) {
             if (logger.isTraceEnabled()) {
                 logger.tracef("Using mapper %s during import user from LDAP", mapperModel);
@@ -19,6 +19,7 @@ package org.keycloak.federation.ldap;
 
 import org.jboss.logging.Logger;
 import org.keycloak.Config;
+import org.keycloak.common.util.Time;
 import org.keycloak.federation.kerberos.CommonKerberosConfig;
 import org.keycloak.federation.kerberos.impl.KerberosServerSubjectAuthenticator;
 import org.keycloak.federation.kerberos.impl.KerberosUsernamePasswordAuthenticator;
@@ -51,10 +52,21 @@ import org.keycloak.models.UserFederationValidatingProviderFactory;
 import org.keycloak.models.UserModel;
 import org.keycloak.models.utils.KeycloakModelUtils;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author <a href="mailto:mposolda@redhat.com">Marek Posolda</a>
@@ -65,8 +77,14 @@ public class LDAPFederationProviderFactory extends UserFederationEventAwareProvi
     private static final Logger logger = Logger.getLogger(LDAPFederationProviderFactory.class);
     public static final String PROVIDER_NAME = LDAPConstants.LDAP_PROVIDER;
 
+    public static final int DEFAULT_SYNC_WORKERS = 1;
+    public static final int DEFAULT_SYNC_TRANSACTION_SIZE = 100;
+
     private LDAPIdentityStoreRegistry ldapStoreRegistry;
 
+    private int syncWorkers;
+    private int syncTransactionSize;
+
     @Override
     public UserFederationProvider create(KeycloakSession session) {
         throw new IllegalAccessError("Illegal to call this method");
@@ -88,6 +106,8 @@ public class LDAPFederationProviderFactory extends UserFederationEventAwareProvi
     @Override
     public void init(Config.Scope config) {
         this.ldapStoreRegistry = new LDAPIdentityStoreRegistry();
+        this.syncWorkers = Math.max(1, config.getInt("syncWorkers", DEFAULT_SYNC_WORKERS));
+        this.syncTransactionSize = Math.max(1, config.getInt("syncTransactionSize", DEFAULT_SYNC_TRANSACTION_SIZE));
     }
 
     @Override
@@ -236,7 +256,7 @@ public class LDAPFederationProviderFactory extends UserFederationEventAwareProvi
 
         // TODO: Remove all existing keycloak users, which have federation links, but are not in LDAP. Perhaps don't check users, which were just added or updated during this sync?
 
-        logger.infof("Sync all users finished: %s", syncResult.getStatus());
+        logger.infof("Sync all users finished: %s, %d users/s", syncResult.getStatus(), syncResult.getUsersPerSecond());
         return syncResult;
     }
 
@@ -256,7 +276,7 @@ public class LDAPFederationProviderFactory extends UserFederationEventAwareProvi
         userQuery.addWhereCondition(orCondition);
         UserFederationSyncResult result = syncImpl(sessionFactory, userQuery, realmId, model);
 
-        logger.infof("Sync changed users finished: %s", result.getStatus());
+        logger.infof("Sync changed users finished: %s, %d users/s", result.getStatus(), result.getUsersPerSecond());
         return result;
     }
 
@@ -282,28 +302,36 @@ public class LDAPFederationProviderFactory extends UserFederationEventAwareProvi
 
     protected UserFederationSyncResult syncImpl(KeycloakSessionFactory sessionFactory, LDAPQuery userQuery, final String realmId, final UserFederationProviderModel fedModel) {
 
-        final UserFederationSyncResult syncResult = new UserFederationSyncResult();
-
-        LDAPConfig ldapConfig = new LDAPConfig(fedModel.getConfig());
-        boolean pagination = ldapConfig.isPagination();
-        if (pagination) {
-            int pageSize = ldapConfig.getBatchSizeForSync();
-
-            boolean nextPage = true;
-            while (nextPage) {
-                userQuery.setLimit(pageSize);
+        long start = Time.currentTimeMillis();
+        List<UserFederationMapperModel> sortedMappers = getSortedMappers(sessionFactory, realmId, fedModel);
+        UsersSyncPipeline pipeline = new UsersSyncPipeline(sessionFactory, realmId, fedModel, sortedMappers);
+        try {
+            LDAPConfig ldapConfig = new LDAPConfig(fedModel.getConfig());
+            boolean pagination = ldapConfig.isPagination();
+            if (pagination) {
+                int pageSize = ldapConfig.getBatchSizeForSync();
+
+                boolean nextPage = true;
+                while (nextPage) {
+                    userQuery.setLimit(pageSize);
+                    final List<LDAPObject> users = userQuery.getResultList();
+                    nextPage = userQuery.getPaginationContext() != null;
+
+                    // Next page is read from LDAP while the workers import this one
+                    pipeline.submit(users);
+                }
+            } else {
+                // LDAP pagination not available. Read everything at once, but still import in batches
                 final List<LDAPObject> users = userQuery.getResultList();
-                nextPage = userQuery.getPaginationContext() != null;
-                UserFederationSyncResult currentPageSync = importLdapUsers(sessionFactory, realmId, fedModel, users);
-                syncResult.add(currentPageSync);
+                pipeline.submit(users);
             }
-        } else {
-            // LDAP pagination not available. Do everything in single transaction
-            final List<LDAPObject> users = userQuery.getResultList();
-            UserFederationSyncResult currentSync = importLdapUsers(sessionFactory, realmId, fedModel, users);
-            syncResult.add(currentSync);
+            pipeline.await();
+        } finally {
+            pipeline.close();
         }
 
+        UserFederationSyncResult syncResult = pipeline.getResult();
+        syncResult.setDurationMillis(Time.currentTimeMillis() - start);
         return syncResult;
     }
 
@@ -326,7 +354,94 @@ public class LDAPFederationProviderFactory extends UserFederationEventAwareProvi
         return queryHolder.query;
     }
 
-    protected UserFederationSyncResult importLdapUsers(KeycloakSessionFactory sessionFactory, final String realmId, final UserFederationProviderModel fedModel, List<LDAPObject> ldapUsers) {
+    private List<UserFederationMapperModel> getSortedMappers(KeycloakSessionFactory sessionFactory, final String realmId, final UserFederationProviderModel model) {
+        class MappersHolder {
+            List<UserFederationMapperModel> mappers;
+        }
+
+        final MappersHolder mappersHolder = new MappersHolder();
+        KeycloakModelUtils.runJobInTransaction(sessionFactory, new KeycloakSessionTask() {
+
+            @Override
+            public void run(KeycloakSession session) {
+                LDAPFederationProvider ldapFedProvider = getInstance(session, model);
+                RealmModel realm = session.realms().getRealm(realmId);
+                Set<UserFederationMapperModel> federationMappers = realm.getUserFederationMappersByFederationProvider(model.getId());
+                mappersHolder.mappers = ldapFedProvider.sortMappersDesc(federationMappers);
+            }
+
+        });
+        return mappersHolder.mappers;
+    }
+
+    /**
+     * Imports the users in a single transaction. Existing users are loaded with one query. If the transaction fails, the
+     * users are imported again one by one with {@link #importLdapUsers(KeycloakSessionFactory, String, UserFederationProviderModel, List, List)},
+     * so that a single broken user doesn't fail the whole batch.
+     */
+    protected UserFederationSyncResult importLdapUsersBatch(KeycloakSessionFactory sessionFactory, final String realmId, final UserFederationProviderModel fedModel,
+                                                           final List<UserFederationMapperModel> sortedMappers, List<LDAPObject> ldapUsers) {
+        final UserFederationSyncResult syncResult = new UserFederationSyncResult();
+
+        // Users without username or LDAP_ID can't be imported. Skip them before any write is done
+        LDAPConfig ldapConfig = new LDAPConfig(fedModel.getConfig());
+        final List<LDAPObject> validUsers = new ArrayList<>(ldapUsers.size());
+        final List<String> usernames = new ArrayList<>(ldapUsers.size());
+        for (LDAPObject ldapUser : ldapUsers) {
+            try {
+                String username = LDAPUtils.getUsername(ldapUser, ldapConfig);
+                LDAPUtils.checkUuid(ldapUser, ldapConfig);
+                validUsers.add(ldapUser);
+                usernames.add(username.toLowerCase());
+            } catch (ModelException me) {
+                logger.error("Failed during import user from LDAP", me);
+                syncResult.increaseFailed();
+            }
+        }
+        if (validUsers.isEmpty()) {
+            return syncResult;
+        }
+
+        final UserFederationSyncResult batchResult = new UserFederationSyncResult();
+        try {
+            KeycloakModelUtils.runJobInTransaction(sessionFactory, new KeycloakSessionTask() {
+
+                @Override
+                public void run(KeycloakSession session) {
+                    LDAPFederationProvider ldapFedProvider = getInstance(session, fedModel);
+                    RealmModel currentRealm = session.realms().getRealm(realmId);
+
+                    Map<String, UserModel> existingUsers = new HashMap<>();
+                    for (UserModel user : session.userStorage().getUsersByUsernames(usernames, currentRealm)) {
+                        existingUsers.put(user.getUsername().toLowerCase(), user);
+                    }
+
+                    for (int i = 0; i < validUsers.size(); i++) {
+                        String username = usernames.get(i);
+                        UserModel imported = importLdapUser(session, ldapFedProvider, currentRealm, fedModel, sortedMappers, validUsers.get(i),
+                                username, existingUsers.get(username), batchResult);
+                        if (imported != null) {
+                            existingUsers.put(username, imported);
+                        }
+                    }
+
+                    if (session.getTransactionManager().getRollbackOnly()) {
+                        throw new ModelException("Transaction marked for rollback");
+                    }
+                }
+
+            });
+            syncResult.add(batchResult);
+        } catch (ModelException me) {
+            logger.debugf(me, "Failed to import %d users from LDAP in one transaction. Importing them one by one", validUsers.size());
+            syncResult.add(importLdapUsers(sessionFactory, realmId, fedModel, sortedMappers, validUsers));
+        }
+
+        return syncResult;
+    }
+
+    protected UserFederationSyncResult importLdapUsers(KeycloakSessionFactory sessionFactory, final String realmId, final UserFederationProviderModel fedModel,
+                                                       final List<UserFederationMapperModel> sortedMappers, List<LDAPObject> ldapUsers) {
         final UserFederationSyncResult syncResult = new UserFederationSyncResult();
 
         class BooleanHolder {
@@ -350,32 +465,9 @@ public class LDAPFederationProviderFactory extends UserFederationEventAwareProvi
                         exists.value = true;
                         LDAPUtils.checkUuid(ldapUser, ldapFedProvider.getLdapIdentityStore().getConfig());
                         UserModel currentUser = session.userStorage().getUserByUsername(username, currentRealm);
+                        exists.value = currentUser != null;
 
-                        if (currentUser == null) {
-
-                            // Add new user to Keycloak
-                            exists.value = false;
-                            ldapFedProvider.importUserFromLDAP(session, currentRealm, ldapUser);
-                            syncResult.increaseAdded();
-
-                        } else {
-                            if ((fedModel.getId().equals(currentUser.getFederationLink())) && (ldapUser.getUuid().equals(currentUser.getFirstAttribute(LDAPConstants.LDAP_ID)))) {
-
-                                // Update keycloak user
-                                Set<UserFederationMapperModel> federationMappers = currentRealm.getUserFederationMappersByFederationProvider(fedModel.getId());
-                                List<UserFederationMapperModel> sortedMappers = ldapFedProvider.sortMappersDesc(federationMappers);
-                                for (UserFederationMapperModel mapperModel : sortedMappers) {
-                                    LDAPFederationMapper ldapMapper = ldapFedProvider.getMapper(mapperModel);
-                                    ldapMapper.onImportUserFromLDAP(mapperModel, ldapFedProvider, ldapUser, currentUser, currentRealm, false);
-                                }
-
-                                logger.debugf("Updated user from LDAP: %s", currentUser.getUsername());
-                                syncResult.increaseUpdated();
-                            } else {
-                                logger.warnf("User '%s' is not updated during sync as he already exists in Keycloak database but is not linked to federation provider '%s'", username, fedModel.getDisplayName());
-                                syncResult.increaseFailed();
-                            }
-                        }
+                        importLdapUser(session, ldapFedProvider, currentRealm, fedModel, sortedMappers, ldapUser, username, currentUser, syncResult);
                     }
 
                 });
@@ -413,6 +505,123 @@ public class LDAPFederationProviderFactory extends UserFederationEventAwareProvi
         return syncResult;
     }
 
+    /**
+     * @return the new user if it was imported to Keycloak, otherwise null
+     */
+    private UserModel importLdapUser(KeycloakSession session, LDAPFederationProvider ldapFedProvider, RealmModel currentRealm, UserFederationProviderModel fedModel,
+                                     List<UserFederationMapperModel> sortedMappers, LDAPObject ldapUser, String username, UserModel currentUser, UserFederationSyncResult syncResult) {
+        if (currentUser == null) {
+
+            // Add new user to Keycloak
+            UserModel imported = ldapFedProvider.importUserFromLDAP(session, currentRealm, ldapUser, sortedMappers);
+            syncResult.increaseAdded();
+            return imported;
+
+        } else {
+            if ((fedModel.getId().equals(currentUser.getFederationLink())) && (ldapUser.getUuid().equals(currentUser.getFirstAttribute(LDAPConstants.LDAP_ID)))) {
+
+                // Update keycloak user
+                for (UserFederationMapperModel mapperModel : sortedMappers) {
+                    LDAPFederationMapper ldapMapper = ldapFedProvider.getMapper(mapperModel);
+                    ldapMapper.onImportUserFromLDAP(mapperModel, ldapFedProvider, ldapUser, currentUser, currentRealm, false);
+                }
+
+                logger.debugf("Updated user from LDAP: %s", currentUser.getUsername());
+                syncResult.increaseUpdated();
+            } else {
+                logger.warnf("User '%s' is not updated during sync as he already exists in Keycloak database but is not linked to federation provider '%s'", username, fedModel.getDisplayName());
+                syncResult.increaseFailed();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Splits the users read from LDAP into batches of {@link #syncTransactionSize} and imports them on a pool of
+     * {@link #syncWorkers} threads while LDAP is being read. The queue of the pool is bounded and once it's full, the
+     * reading thread imports the batch itself, so at most a few pages are held in memory.
+     */
+    private class UsersSyncPipeline {
+
+        private final KeycloakSessionFactory sessionFactory;
+        private final String realmId;
+        private final UserFederationProviderModel fedModel;
+        private final List<UserFederationMapperModel> sortedMappers;
+
+        private final UserFederationSyncResult result = new UserFederationSyncResult();
+        private final ThreadPoolExecutor executor;
+        private final LinkedList<Future<?>> pending = new LinkedList<>();
+
+        UsersSyncPipeline(KeycloakSessionFactory sessionFactory, String realmId, UserFederationProviderModel fedModel, List<UserFederationMapperModel> sortedMappers) {
+            this.sessionFactory = sessionFactory;
+            this.realmId = realmId;
+            this.fedModel = fedModel;
+            this.sortedMappers = sortedMappers;
+
+            final AtomicInteger threadCounter = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(syncWorkers, syncWorkers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(syncWorkers), new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "keycloak-ldap-sync-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+
+        void submit(List<LDAPObject> ldapUsers) {
+            for (int i = 0; i < ldapUsers.size(); i += syncTransactionSize) {
+                final List<LDAPObject> batch = ldapUsers.subList(i, Math.min(i + syncTransactionSize, ldapUsers.size()));
+                pending.add(executor.submit(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        UserFederationSyncResult batchResult = importLdapUsersBatch(sessionFactory, realmId, fedModel, sortedMappers, batch);
+                        synchronized (result) {
+                            result.add(batchResult);
+                        }
+                    }
+
+                }));
+
+                // Fail fast if some already finished batch failed
+                while (!pending.isEmpty() && pending.getFirst().isDone()) {
+                    get(pending.removeFirst());
+                }
+            }
+        }
+
+        void await() {
+            while (!pending.isEmpty()) {
+                get(pending.removeFirst());
+            }
+        }
+
+        UserFederationSyncResult getResult() {
+            return result;
+        }
+
+        void close() {
+            executor.shutdownNow();
+        }
+
+        private void get(Future<?> future) {
+            try {
+                future.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new ModelException("Interrupted during sync of users from LDAP", ie);
+            } catch (ExecutionException ee) {
+                if (ee.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ee.getCause();
+                }
+                throw new ModelException("Failed to sync users from LDAP", ee.getCause());
+            }
+        }
+    }
+
     protected SPNEGOAuthenticator createSPNEGOAuthenticator(String spnegoToken, CommonKerberosConfig kerberosConfig) {
         KerberosServerSubjectAuthenticator kerberosAuth = createKerberosSubjectAuthenticator(kerberosConfig);
         return new SPNEGOAuthenticator(kerberosConfig, kerberosAuth, spnegoToken);
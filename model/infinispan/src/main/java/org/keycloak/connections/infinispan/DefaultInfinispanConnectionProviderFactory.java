@@ -34,6 +34,7 @@ import org.jboss.logging.Logger;
 import org.keycloak.Config;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.KeycloakSessionFactory;
+import org.keycloak.models.sessions.infinispan.marshalling.SessionExternalizers;
 
 import javax.naming.InitialContext;
 
@@ -133,6 +134,7 @@ public class DefaultInfinispanConnectionProviderFactory implements InfinispanCon
             gcb.transport().defaultTransport();
         }
         gcb.globalJmxStatistics().allowDuplicateDomains(allowDuplicateJMXDomains);
+        SessionExternalizers.register(gcb);
 
         cacheManager = new DefaultCacheManager(gcb.build());
         containerManaged = false;
@@ -33,11 +33,13 @@ import org.keycloak.representations.idm.authorization.DecisionStrategy;
 import org.keycloak.representations.idm.authorization.Logic;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -46,6 +48,9 @@ import java.util.stream.Collectors;
 public class CachedPolicyStore implements PolicyStore {
 
     private static final String POLICY_ID_CACHE_PREFIX = "policy-id-";
+    private static final String POLICY_BY_RESOURCE_CACHE_PREFIX = "policy-by-rsc-";
+    private static final String POLICY_BY_RESOURCE_TYPE_CACHE_PREFIX = "policy-by-rsc-type-";
+    private static final String POLICY_BY_SCOPE_CACHE_PREFIX = "policy-by-scope-";
 
     private final Cache<String, List> cache;
     private final KeycloakSession session;
@@ -71,26 +76,41 @@ public class CachedPolicyStore implements PolicyStore {
 
     @Override
     public void delete(String id) {
+        CachedPolicy cached = getCachedPolicy(id);
+        Set<String> indexKeys = cached != null ? getIndexCacheKeys(cached) : Collections.emptySet();
+
         getDelegate().delete(id);
-        this.transaction.whenCommit(() -> cache.remove(getCacheKeyForPolicy(id)));
+        this.transaction.whenCommit(() -> {
+            cache.remove(getCacheKeyForPolicy(id));
+            indexKeys.forEach(cache::remove);
+        });
     }
 
     @Override
     public Policy findById(String id) {
-        String cacheKeyForPolicy = getCacheKeyForPolicy(id);
-        List<CachedPolicy> cached = this.cache.get(cacheKeyForPolicy);
+        CachedPolicy cached = getCachedPolicy(id);
+
+        if (cached == null) {
+            return null;
+        }
+
+        return createAdapter(cached);
+    }
+
+    private CachedPolicy getCachedPolicy(String id) {
+        List<CachedPolicy> cached = this.cache.get(getCacheKeyForPolicy(id));
 
         if (cached == null) {
             Policy policy = getDelegate().findById(id);
 
             if (policy != null) {
-                return createAdapter(updatePolicyCache(policy));
+                return updatePolicyCache(policy);
             }
 
             return null;
         }
 
-        return createAdapter(cached.get(0));
+        return cached.get(0);
     }
 
     @Override
@@ -110,77 +130,79 @@ public class CachedPolicyStore implements PolicyStore {
 
     @Override
     public List<Policy> findByResource(String resourceId) {
-        List<Policy> cache = new ArrayList<>();
+        return findByIndex(getCacheKeyForResourcePolicies(resourceId), () -> getDelegate().findByResource(resourceId));
+    }
 
-        for (Entry entry : this.cache.entrySet()) {
-            String cacheKey = (String) entry.getKey();
+    @Override
+    public List<Policy> findByResourceType(String resourceType, String resourceServerId) {
+        return findByIndex(getCacheKeyForResourceTypePolicies(resourceType, resourceServerId), () -> getDelegate().findByResourceType(resourceType, resourceServerId));
+    }
 
-            if (cacheKey.startsWith(POLICY_ID_CACHE_PREFIX)) {
-                List<CachedPolicy> value = (List<CachedPolicy>) entry.getValue();
-                CachedPolicy policy = value.get(0);
+    @Override
+    public List<Policy> findByScopeIds(List<String> scopeIds, String resourceServerId) {
+        Map<String, Policy> policies = new LinkedHashMap<>();
 
-                if (policy.getResourcesIds().contains(resourceId)) {
-                    cache.add(findById(policy.getId()));
-                }
+        // scopes belong to a single resource server, so the index is keyed just by scope
+        for (String scopeId : scopeIds) {
+            for (Policy policy : findByIndex(getCacheKeyForScopePolicies(scopeId), () -> getDelegate().findByScopeIds(Collections.singletonList(scopeId), resourceServerId))) {
+                policies.putIfAbsent(policy.getId(), policy);
             }
         }
 
-        if (cache.isEmpty()) {
-            getDelegate().findByResource(resourceId).forEach(policy -> cache.add(findById(updatePolicyCache(policy).getId())));
-        }
-
-        return cache;
+        return new ArrayList<>(policies.values());
     }
 
-    @Override
-    public List<Policy> findByResourceType(String resourceType, String resourceServerId) {
-        List<Policy> cache = new ArrayList<>();
-
-        for (Entry entry : this.cache.entrySet()) {
-            String cacheKey = (String) entry.getKey();
+    /**
+     * Returns policies by the ids cached under the given index key. If the ids are not cached yet, they are loaded by
+     * the given loader and cached, including when no policy is found.
+     */
+    private List<Policy> findByIndex(String indexKey, Supplier<List<Policy>> loader) {
+        List<String> cachedIds = this.cache.get(indexKey);
 
-            if (cacheKey.startsWith(POLICY_ID_CACHE_PREFIX)) {
-                List<CachedPolicy> value = (List<CachedPolicy>) entry.getValue();
-                CachedPolicy policy = value.get(0);
+        if (cachedIds == null) {
+            cachedIds = new ArrayList<>();
 
-                if (policy.getResourceServerId().equals(resourceServerId) && policy.getConfig().getOrDefault("defaultResourceType", "").equals(resourceType)) {
-                    cache.add(findById(policy.getId()));
-                }
+            for (Policy policy : loader.get()) {
+                cachedIds.add(updatePolicyCache(policy).getId());
             }
+
+            this.cache.put(indexKey, cachedIds);
         }
 
-        if (cache.isEmpty()) {
-            getDelegate().findByResourceType(resourceType, resourceServerId).forEach(policy -> cache.add(findById(updatePolicyCache(policy).getId())));
+        List<Policy> policies = new ArrayList<>();
+
+        for (String id : cachedIds) {
+            Policy policy = findById(id);
+
+            if (policy != null) {
+                policies.add(policy);
+            }
         }
 
-        return cache;
+        return policies;
     }
 
-    @Override
-    public List<Policy> findByScopeIds(List<String> scopeIds, String resourceServerId) {
-        List<Policy> cache = new ArrayList<>();
+    /**
+     * Returns the keys of all the indexes, where the given policy is referenced.
+     */
+    private Set<String> getIndexCacheKeys(CachedPolicy policy) {
+        Set<String> keys = new HashSet<>();
 
-        for (Entry entry : this.cache.entrySet()) {
-            String cacheKey = (String) entry.getKey();
-
-            if (cacheKey.startsWith(POLICY_ID_CACHE_PREFIX)) {
-                List<CachedPolicy> value = (List<CachedPolicy>) entry.getValue();
-                CachedPolicy policy = value.get(0);
+        for (String resourceId : policy.getResourcesIds()) {
+            keys.add(getCacheKeyForResourcePolicies(resourceId));
+        }
 
-                for (String scopeId : policy.getScopesIds()) {
-                    if (scopeIds.contains(scopeId)) {
-                        cache.add(findById(policy.getId()));
-                        break;
-                    }
-                }
-            }
+        for (String scopeId : policy.getScopesIds()) {
+            keys.add(getCacheKeyForScopePolicies(scopeId));
         }
 
-        if (cache.isEmpty()) {
-            getDelegate().findByScopeIds(scopeIds, resourceServerId).forEach(policy -> cache.add(findById(updatePolicyCache(policy).getId())));
+        String resourceType = policy.getConfig() != null ? policy.getConfig().get("defaultResourceType") : null;
+
+        if (resourceType != null) {
+            keys.add(getCacheKeyForResourceTypePolicies(resourceType, policy.getResourceServerId()));
         }
 
-        return cache;
+        return keys;
     }
 
     @Override
@@ -197,6 +219,18 @@ public class CachedPolicyStore implements PolicyStore {
         return POLICY_ID_CACHE_PREFIX + policyId;
     }
 
+    static String getCacheKeyForResourcePolicies(String resourceId) {
+        return POLICY_BY_RESOURCE_CACHE_PREFIX + resourceId;
+    }
+
+    static String getCacheKeyForResourceTypePolicies(String resourceType, String resourceServerId) {
+        return POLICY_BY_RESOURCE_TYPE_CACHE_PREFIX + resourceServerId + "-" + resourceType;
+    }
+
+    static String getCacheKeyForScopePolicies(String scopeId) {
+        return POLICY_BY_SCOPE_CACHE_PREFIX + scopeId;
+    }
+
     private StoreFactory getStoreFactory() {
         if (this.storeFactory == null) {
             this.storeFactory = this.session.getProvider(StoreFactory.class);
@@ -394,7 +428,13 @@ public class CachedPolicyStore implements PolicyStore {
                 if (this.updated == null) {
                     this.updated = getDelegate().findById(getId());
                     if (this.updated == null) throw new IllegalStateException("Not found in database");
-                    transaction.whenCommit(() -> cache.remove(getCacheKeyForPolicy(getId())));
+                    // indexes referencing the policy before and after the update are invalidated
+                    Set<String> indexKeys = getIndexCacheKeys(cached);
+                    transaction.whenCommit(() -> {
+                        cache.remove(getCacheKeyForPolicy(getId()));
+                        indexKeys.addAll(getIndexCacheKeys(cached));
+                        indexKeys.forEach(cache::remove);
+                    });
                 }
 
                 return this.updated;
@@ -85,6 +85,7 @@ public class CachedResourceStore implements ResourceStore {
         }
 
         getDelegate().delete(id);
+        this.transaction.whenCommit(() -> cache.remove(CachedPolicyStore.getCacheKeyForResourcePolicies(id)));
     }
 
     @Override
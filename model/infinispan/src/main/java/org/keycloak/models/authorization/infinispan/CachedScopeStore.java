@@ -65,7 +65,10 @@ public class CachedScopeStore implements ScopeStore {
     @Override
     public void delete(String id) {
         getDelegate().delete(id);
-        this.transaction.whenCommit(() -> cache.remove(getCacheKeyForScope(id)));
+        this.transaction.whenCommit(() -> {
+            cache.remove(getCacheKeyForScope(id));
+            cache.remove(CachedPolicyStore.getCacheKeyForScopePolicies(id));
+        });
     }
 
     @Override
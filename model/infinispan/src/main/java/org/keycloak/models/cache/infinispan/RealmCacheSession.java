@@ -37,9 +37,13 @@ import org.keycloak.models.cache.infinispan.entities.CachedRealm;
 import org.keycloak.models.cache.infinispan.entities.CachedRealmRole;
 import org.keycloak.models.cache.infinispan.entities.CachedRole;
 import org.keycloak.models.cache.infinispan.entities.ClientListQuery;
+import org.keycloak.models.cache.infinispan.entities.ClientScopedRolesQuery;
 import org.keycloak.models.cache.infinispan.entities.RealmListQuery;
+import org.keycloak.models.cache.infinispan.entities.RealmRedirectUrisQuery;
 import org.keycloak.models.cache.infinispan.entities.RoleListQuery;
+import org.keycloak.models.utils.ClientWebOrigins;
 import org.keycloak.models.utils.KeycloakModelUtils;
+import org.keycloak.models.utils.RedirectUriMatcher;
 
 import java.util.HashMap;
 import java.util.HashSet;
@@ -110,8 +114,11 @@ import java.util.Set;
 public class RealmCacheSession implements CacheRealmProvider {
     protected static final Logger logger = Logger.getLogger(RealmCacheSession.class);
     public static final String REALM_CLIENTS_QUERY_SUFFIX = ".realm.clients";
+    public static final String REALM_REDIRECT_URIS_QUERY_SUFFIX = ".realm.redirect-uris";
     public static final String ROLES_QUERY_SUFFIX = ".roles";
     public static final String ROLE_BY_NAME_QUERY_SUFFIX = ".role.by-name";
+    public static final String ROLE_CLOSURE_QUERY_SUFFIX = ".role.closure";
+    public static final String CLIENT_SCOPED_ROLES_QUERY_SUFFIX = ".client.scoped-roles";
     protected RealmCacheManager cache;
     protected KeycloakSession session;
     protected RealmProvider delegate;
@@ -358,6 +365,7 @@ public class RealmCacheSession implements CacheRealmProvider {
     public RealmModel createRealm(String name) {
         RealmModel realm = getDelegate().createRealm(name);
         registerRealmInvalidation(realm.getId());
+        invalidations.add(getRealmsQueryCacheKey());
         return realm;
     }
 
@@ -365,6 +373,7 @@ public class RealmCacheSession implements CacheRealmProvider {
     public RealmModel createRealm(String id, String name) {
         RealmModel realm =  getDelegate().createRealm(id, name);
         registerRealmInvalidation(realm.getId());
+        invalidations.add(getRealmsQueryCacheKey());
         return realm;
     }
 
@@ -421,15 +430,41 @@ public class RealmCacheSession implements CacheRealmProvider {
         return "realm.query.by.name." + name;
     }
 
+    public String getRealmsQueryCacheKey() {
+        return "realm.query.all";
+    }
+
     @Override
-    public List<RealmModel> getRealms() {
-        // Retrieve realms from backend
-        List<RealmModel> backendRealms = getDelegate().getRealms();
+    public List<String> getRealmIds() {
+        String cacheKey = getRealmsQueryCacheKey();
+        if (invalidations.contains(cacheKey)) {
+            return getDelegate().getRealmIds();
+        }
+
+        RealmListQuery query = cache.get(cacheKey, RealmListQuery.class);
+        if (query != null) {
+            logger.tracev("realm ids cache hit");
+            return new LinkedList<>(query.getRealms());
+        }
+
+        Long loaded = cache.getCurrentRevision(cacheKey);
+        List<String> ids = getDelegate().getRealmIds();
+        query = new RealmListQuery(loaded, cacheKey, new HashSet<>(ids));
+        cache.addRevisioned(query, startupRevision);
+        return ids;
+    }
 
+    @Override
+    public List<RealmModel> getRealms() {
         // Return cache delegates to ensure cache invalidated during write operations
         List<RealmModel> cachedRealms = new LinkedList<RealmModel>();
-        for (RealmModel realm : backendRealms) {
-            RealmModel cached = getRealm(realm.getId());
+        for (String id : getRealmIds()) {
+            RealmModel cached = getRealm(id);
+            if (cached == null) {
+                // Realm removed after the list was cached
+                invalidations.add(getRealmsQueryCacheKey());
+                continue;
+            }
             cachedRealms.add(cached);
         }
         return cachedRealms;
@@ -441,7 +476,9 @@ public class RealmCacheSession implements CacheRealmProvider {
         if (realm == null) return false;
 
         invalidations.add(getRealmClientsQueryCacheKey(id));
+        invalidations.add(getRealmRedirectUrisCacheKey(id));
         invalidations.add(getRealmByNameCacheKey(realm.getName()));
+        invalidations.add(getRealmsQueryCacheKey());
         cache.invalidateObject(id);
         cache.realmRemoval(id, invalidations);
         return getDelegate().removeRealm(id);
@@ -450,6 +487,7 @@ public class RealmCacheSession implements CacheRealmProvider {
     protected void invalidateClient(RealmModel realm, ClientModel client) {
         invalidateClient(client.getId());
         invalidations.add(getRealmClientsQueryCacheKey(realm.getId()));
+        invalidations.add(getRealmRedirectUrisCacheKey(realm.getId()));
         invalidations.add(getClientByClientIdCacheKey(client.getClientId(), realm));
         listInvalidations.add(realm.getId());
     }
@@ -481,6 +519,10 @@ public class RealmCacheSession implements CacheRealmProvider {
         return realm + REALM_CLIENTS_QUERY_SUFFIX;
     }
 
+    private String getRealmRedirectUrisCacheKey(String realm) {
+        return realm + REALM_REDIRECT_URIS_QUERY_SUFFIX;
+    }
+
     private String getGroupsQueryCacheKey(String realm) {
         return realm + ".groups";
     }
@@ -496,6 +538,14 @@ public class RealmCacheSession implements CacheRealmProvider {
         return container + "." + name + ROLES_QUERY_SUFFIX;
     }
 
+    private String getRoleClosureCacheKey(String role) {
+        return role + ROLE_CLOSURE_QUERY_SUFFIX;
+    }
+
+    private String getClientScopedRolesCacheKey(String client, Set<String> roleMappings) {
+        return client + "." + Integer.toHexString(roleMappings.hashCode()) + CLIENT_SCOPED_ROLES_QUERY_SUFFIX;
+    }
+
     @Override
     public List<ClientModel> getClients(RealmModel realm) {
         String cacheKey = getRealmClientsQueryCacheKey(realm.getId());
@@ -753,6 +803,147 @@ public class RealmCacheSession implements CacheRealmProvider {
         return adapter;
     }
 
+    /**
+     * Returns ids of the role and all the roles it contains, directly or through other composite roles. The result is
+     * cached and invalidated when any of these roles changes.
+     */
+    Set<String> getCompositeRoleIds(RealmModel realm, RoleModel role) {
+        String cacheKey = getRoleClosureCacheKey(role.getId());
+        boolean queryDB = invalidations.contains(cacheKey) || invalidations.contains(role.getId());
+        if (queryDB) {
+            return KeycloakModelUtils.getCompositeRoleIds(role);
+        }
+
+        RoleListQuery query = cache.get(cacheKey, RoleListQuery.class);
+        if (query != null) {
+            logger.tracev("getCompositeRoleIds cache hit: {0}", role.getName());
+            return query.getRoles();
+        }
+
+        Long loaded = cache.getCurrentRevision(cacheKey);
+        Set<String> ids = KeycloakModelUtils.getCompositeRoleIds(role);
+        // don't cache the closure computed from roles updated in this transaction
+        if (!containsInvalidated(ids)) {
+            query = new RoleListQuery(loaded, cacheKey, realm, ids);
+            logger.tracev("adding composite role ids cache miss: role {0} key {1}", role.getName(), cacheKey);
+            cache.addRevisioned(query, startupRevision);
+        }
+        return ids;
+    }
+
+    @Override
+    public Set<RoleModel> getClientScopedRoles(ClientModel client, Set<RoleModel> roleMappings) {
+        if (KeycloakModelUtils.hasFullScope(client)) {
+            return roleMappings;
+        }
+
+        RealmModel realm = client.getRealm();
+        ClientTemplateModel template = client.useTemplateScope() ? client.getClientTemplate() : null;
+        String templateId = template == null ? null : template.getId();
+        Set<String> roleMappingIds = new HashSet<>();
+        for (RoleModel role : roleMappings) roleMappingIds.add(role.getId());
+
+        String cacheKey = getClientScopedRolesCacheKey(client.getId(), roleMappingIds);
+        boolean queryDB = invalidations.contains(cacheKey) || invalidations.contains(client.getId())
+                || (templateId != null && invalidations.contains(templateId));
+
+        if (!queryDB) {
+            ClientScopedRolesQuery query = cache.get(cacheKey, ClientScopedRolesQuery.class);
+            // the key contains only hash of the role mappings
+            if (query != null && query.getRoleMappings().equals(roleMappingIds)) {
+                logger.tracev("getClientScopedRoles cache hit: {0}", client.getClientId());
+                Set<RoleModel> roles = new HashSet<>();
+                for (String id : query.getScopedRoles()) {
+                    RoleModel role = session.realms().getRoleById(id, realm);
+                    if (role == null) {
+                        invalidations.add(cacheKey);
+                        return KeycloakModelUtils.getClientScopedRoles(client, roleMappings);
+                    }
+                    roles.add(role);
+                }
+                return roles;
+            }
+        }
+
+        Long loaded = cache.getCurrentRevision(cacheKey);
+        Set<RoleModel> scopeMappings = KeycloakModelUtils.getClientScopeMappings(client);
+        Set<RoleModel> scopedRoles = KeycloakModelUtils.getScopedRoles(roleMappings, scopeMappings);
+        if (queryDB) {
+            return scopedRoles;
+        }
+
+        Set<String> involved = new HashSet<>();
+        for (RoleModel role : roleMappings) involved.addAll(getCompositeRoleIds(realm, role));
+        for (RoleModel role : scopeMappings) involved.addAll(getCompositeRoleIds(realm, role));
+        if (!containsInvalidated(involved)) {
+            Set<String> scopedRoleIds = new HashSet<>();
+            for (RoleModel role : scopedRoles) scopedRoleIds.add(role.getId());
+            ClientScopedRolesQuery query = new ClientScopedRolesQuery(loaded, cacheKey, realm, client.getId(), templateId, roleMappingIds, involved, scopedRoleIds);
+            logger.tracev("adding client scoped roles cache miss: client {0} key {1}", client.getClientId(), cacheKey);
+            cache.addRevisioned(query, startupRevision);
+        }
+        return scopedRoles;
+    }
+
+    @Override
+    public RedirectUriMatcher getRedirectUriMatcher(ClientModel client) {
+        if (!invalidations.contains(client.getId())) {
+            CachedClient cached = cache.get(client.getId(), CachedClient.class);
+            if (cached != null) {
+                return cached.getRedirectUriMatcher();
+            }
+        }
+        return RedirectUriMatcher.create(client);
+    }
+
+    @Override
+    public ClientWebOrigins getWebOrigins(ClientModel client) {
+        if (!invalidations.contains(client.getId())) {
+            CachedClient cached = cache.get(client.getId(), CachedClient.class);
+            if (cached != null) {
+                return cached.getResolvedWebOrigins();
+            }
+        }
+        return ClientWebOrigins.create(client);
+    }
+
+    @Override
+    public RedirectUriMatcher getRealmRedirectUriMatcher(RealmModel realm) {
+        String cacheKey = getRealmRedirectUrisCacheKey(realm.getId());
+        boolean queryDB = invalidations.contains(cacheKey) || listInvalidations.contains(realm.getId());
+
+        if (!queryDB) {
+            RealmRedirectUrisQuery query = cache.get(cacheKey, RealmRedirectUrisQuery.class);
+            if (query != null) {
+                logger.tracev("getRealmRedirectUriMatcher cache hit: {0}", realm.getName());
+                return query.getMatcher();
+            }
+        }
+
+        Long loaded = cache.getCurrentRevision(cacheKey);
+        List<ClientModel> clients = getClients(realm);
+        RedirectUriMatcher matcher = RedirectUriMatcher.create(clients);
+        if (queryDB) {
+            return matcher;
+        }
+
+        Set<String> ids = new HashSet<>();
+        for (ClientModel client : clients) ids.add(client.getId());
+        if (!containsInvalidated(ids)) {
+            RealmRedirectUrisQuery query = new RealmRedirectUrisQuery(loaded, cacheKey, realm, ids, matcher);
+            logger.tracev("adding realm redirect uris cache miss: realm {0} key {1}", realm.getName(), cacheKey);
+            cache.addRevisioned(query, startupRevision);
+        }
+        return matcher;
+    }
+
+    private boolean containsInvalidated(Set<String> ids) {
+        for (String id : ids) {
+            if (invalidations.contains(id)) return true;
+        }
+        return false;
+    }
+
     @Override
     public GroupModel getGroupById(String id, RealmModel realm) {
         CachedGroup cached = cache.get(id, CachedGroup.class);
@@ -174,8 +174,11 @@ public class RoleAdapter implements RoleModel {
         if (this.equals(role)) return true;
         if (!isComposite()) return false;
 
-        Set<RoleModel> visited = new HashSet<RoleModel>();
-        return KeycloakModelUtils.searchFor(role, this, visited);
+        if (isUpdated()) {
+            Set<RoleModel> visited = new HashSet<RoleModel>();
+            return KeycloakModelUtils.searchFor(role, this, visited);
+        }
+        return cacheSession.getCompositeRoleIds(realm, this).contains(role.getId());
     }
 
     @Override
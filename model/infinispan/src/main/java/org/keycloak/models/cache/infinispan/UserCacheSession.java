@@ -45,6 +45,7 @@ import org.keycloak.models.cache.infinispan.entities.CachedUserConsents;
 import org.keycloak.models.cache.infinispan.entities.UserListQuery;
 import org.keycloak.storage.UserStorageProvider;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -197,6 +198,34 @@ public class UserCacheSession implements UserCache {
         return adapter;
     }
 
+    @Override
+    public List<UserModel> getUsersByIds(Collection<String> ids, RealmModel realm) {
+        List<UserModel> users = new LinkedList<>();
+
+        // Revisions need to be read before users are loaded from the delegate
+        Map<String, Long> toLoad = new HashMap<>();
+        for (String id : ids) {
+            if (isRegisteredForInvalidation(realm, id) || managedUsers.containsKey(id) || cache.get(id, CachedUser.class) != null) {
+                UserModel user = getUserById(id, realm);
+                if (user != null) users.add(user);
+            } else {
+                toLoad.put(id, cache.getCurrentRevision(id));
+            }
+        }
+        if (toLoad.isEmpty()) return users;
+
+        logger.tracev("loading {0} not cached users", toLoad.size());
+        for (UserModel delegate : getDelegate().getUsersByIds(toLoad.keySet(), realm)) {
+            CachedUser cached = new CachedUser(toLoad.get(delegate.getId()), realm, delegate);
+            cache.addRevisioned(cached, startupRevision);
+            UserAdapter adapter = new UserAdapter(cached, this, session, realm);
+            onCache(realm, adapter, delegate);
+            managedUsers.put(delegate.getId(), adapter);
+            users.add(adapter);
+        }
+        return users;
+    }
+
     public String getUserByUsernameCacheKey(String realmId, String username) {
         return realmId + ".username." + username;
     }
@@ -261,6 +290,50 @@ public class UserCacheSession implements UserCache {
         }
     }
 
+    @Override
+    public List<UserModel> getUsersByUsernames(Collection<String> usernames, RealmModel realm) {
+        List<UserModel> users = new LinkedList<>();
+        if (realmInvalidations.contains(realm.getId())) {
+            return getDelegate().getUsersByUsernames(usernames, realm);
+        }
+
+        // Revisions need to be read before users are loaded from the delegate
+        Map<String, Long> toLoad = new HashMap<>();
+        for (String username : usernames) {
+            username = username.toLowerCase();
+            String cacheKey = getUserByUsernameCacheKey(realm.getId(), username);
+            if (invalidations.contains(cacheKey) || cache.get(cacheKey, UserListQuery.class) != null) {
+                UserModel user = getUserByUsername(username, realm);
+                if (user != null) users.add(user);
+            } else {
+                toLoad.put(username, cache.getCurrentRevision(cacheKey));
+            }
+        }
+        if (toLoad.isEmpty()) return users;
+
+        logger.tracev("loading {0} not cached users by username", toLoad.size());
+        for (UserModel model : getDelegate().getUsersByUsernames(toLoad.keySet(), realm)) {
+            String userId = model.getId();
+            Long loaded = toLoad.get(model.getUsername().toLowerCase());
+            if (loaded == null) {
+                users.add(model);
+                continue;
+            }
+            String cacheKey = getUserByUsernameCacheKey(realm.getId(), model.getUsername().toLowerCase());
+            cache.addRevisioned(new UserListQuery(loaded, cacheKey, realm, userId), startupRevision);
+            if (invalidations.contains(userId)) {
+                users.add(model);
+            } else if (managedUsers.containsKey(userId)) {
+                users.add(managedUsers.get(userId));
+            } else {
+                UserAdapter adapter = getUserAdapter(realm, userId, loaded, model);
+                managedUsers.put(userId, adapter);
+                users.add(adapter);
+            }
+        }
+        return users;
+    }
+
     protected UserAdapter getUserAdapter(RealmModel realm, String userId, Long loaded, UserModel delegate) {
         CachedUser cached = cache.get(userId, CachedUser.class);
         boolean wasCached = cached != null;
@@ -21,6 +21,8 @@ import org.keycloak.models.ClientModel;
 import org.keycloak.models.ProtocolMapperModel;
 import org.keycloak.models.RealmModel;
 import org.keycloak.models.RoleModel;
+import org.keycloak.models.utils.ClientWebOrigins;
+import org.keycloak.models.utils.RedirectUriMatcher;
 
 import java.util.HashMap;
 import java.util.HashSet;
@@ -70,6 +72,8 @@ public class CachedClient extends AbstractRevisioned implements InRealm {
     protected boolean useTemplateScope;
     protected boolean useTemplateConfig;
     protected boolean useTemplateMappers;
+    private transient volatile RedirectUriMatcher redirectUriMatcher;
+    private transient volatile ClientWebOrigins resolvedWebOrigins;
 
     public CachedClient(Long revision, RealmModel realm, ClientModel model) {
         super(revision, model.getId());
@@ -137,6 +141,24 @@ public class CachedClient extends AbstractRevisioned implements InRealm {
         return redirectUris;
     }
 
+    public RedirectUriMatcher getRedirectUriMatcher() {
+        RedirectUriMatcher matcher = redirectUriMatcher;
+        if (matcher == null) {
+            matcher = RedirectUriMatcher.create(rootUrl, redirectUris);
+            redirectUriMatcher = matcher;
+        }
+        return matcher;
+    }
+
+    public ClientWebOrigins getResolvedWebOrigins() {
+        ClientWebOrigins origins = resolvedWebOrigins;
+        if (origins == null) {
+            origins = ClientWebOrigins.create(rootUrl, redirectUris, webOrigins);
+            resolvedWebOrigins = origins;
+        }
+        return origins;
+    }
+
     public boolean isEnabled() {
         return enabled;
     }
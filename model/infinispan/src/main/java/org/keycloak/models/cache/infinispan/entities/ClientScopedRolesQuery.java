@@ -0,0 +1,75 @@
+package org.keycloak.models.cache.infinispan.entities;
+
+import org.keycloak.models.RealmModel;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Roles available to a client for a set of role mappings of a user.
+ *
+ * Invalidated when the client, its template or any of the roles involved in the computation changes. These are the
+ * role mappings and the scope of the client together with all the roles they contain.
+ */
+public class ClientScopedRolesQuery extends AbstractRevisioned implements RoleQuery, ClientQuery, ClientTemplateQuery {
+    private final String realm;
+    private final String realmName;
+    private final Set<String> clients;
+    private final Set<String> templates;
+    private final Set<String> roleMappings;
+    private final Set<String> roles;
+    private final Set<String> scopedRoles;
+
+    public ClientScopedRolesQuery(Long revisioned, String id, RealmModel realm, String client, String template, Set<String> roleMappings, Set<String> roles, Set<String> scopedRoles) {
+        super(revisioned, id);
+        this.realm = realm.getId();
+        this.realmName = realm.getName();
+        this.clients = Collections.singleton(client);
+        this.templates = template == null ? Collections.emptySet() : Collections.singleton(template);
+        this.roleMappings = roleMappings;
+        this.roles = roles;
+        this.scopedRoles = scopedRoles;
+    }
+
+    @Override
+    public String getRealm() {
+        return realm;
+    }
+
+    @Override
+    public Set<String> getClients() {
+        return clients;
+    }
+
+    @Override
+    public Set<String> getTemplates() {
+        return templates;
+    }
+
+    /**
+     * Role mappings of the user the scoped roles were computed for
+     */
+    public Set<String> getRoleMappings() {
+        return roleMappings;
+    }
+
+    /**
+     * All the roles involved in the computation of the scoped roles
+     */
+    @Override
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    public Set<String> getScopedRoles() {
+        return scopedRoles;
+    }
+
+    @Override
+    public String toString() {
+        return "ClientScopedRolesQuery{" +
+                "id='" + getId() + "'" +
+                "realmName='" + realmName + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,48 @@
+package org.keycloak.models.cache.infinispan.entities;
+
+import org.keycloak.models.RealmModel;
+import org.keycloak.models.utils.RedirectUriMatcher;
+
+import java.util.Set;
+
+/**
+ * Compiled redirect URIs of all clients of a realm.
+ *
+ * Invalidated when any client of the realm is added, removed or changed.
+ */
+public class RealmRedirectUrisQuery extends AbstractRevisioned implements ClientQuery {
+    private final String realm;
+    private final String realmName;
+    private final Set<String> clients;
+    private final RedirectUriMatcher matcher;
+
+    public RealmRedirectUrisQuery(Long revisioned, String id, RealmModel realm, Set<String> clients, RedirectUriMatcher matcher) {
+        super(revisioned, id);
+        this.realm = realm.getId();
+        this.realmName = realm.getName();
+        this.clients = clients;
+        this.matcher = matcher;
+    }
+
+    @Override
+    public String getRealm() {
+        return realm;
+    }
+
+    @Override
+    public Set<String> getClients() {
+        return clients;
+    }
+
+    public RedirectUriMatcher getMatcher() {
+        return matcher;
+    }
+
+    @Override
+    public String toString() {
+        return "RealmRedirectUrisQuery{" +
+                "id='" + getId() + "'" +
+                "realmName='" + realmName + '\'' +
+                '}';
+    }
+}
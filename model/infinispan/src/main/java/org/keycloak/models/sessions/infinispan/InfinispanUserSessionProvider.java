@@ -18,7 +18,6 @@
 package org.keycloak.models.sessions.infinispan;
 
 import org.infinispan.Cache;
-import org.infinispan.CacheStream;
 import org.jboss.logging.Logger;
 import org.keycloak.common.util.Time;
 import org.keycloak.models.ClientInitialAccessModel;
@@ -41,10 +40,10 @@ import org.keycloak.models.sessions.infinispan.entities.LoginFailureEntity;
 import org.keycloak.models.sessions.infinispan.entities.LoginFailureKey;
 import org.keycloak.models.sessions.infinispan.entities.SessionEntity;
 import org.keycloak.models.sessions.infinispan.entities.UserSessionEntity;
+import org.keycloak.models.sessions.infinispan.index.SessionIndex;
 import org.keycloak.models.sessions.infinispan.stream.ClientInitialAccessPredicate;
 import org.keycloak.models.sessions.infinispan.stream.ClientRegistrationTrustedHostPredicate;
 import org.keycloak.models.sessions.infinispan.stream.ClientSessionPredicate;
-import org.keycloak.models.sessions.infinispan.stream.Comparators;
 import org.keycloak.models.sessions.infinispan.stream.Mappers;
 import org.keycloak.models.sessions.infinispan.stream.SessionPredicate;
 import org.keycloak.models.sessions.infinispan.stream.UserLoginFailurePredicate;
@@ -60,9 +59,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.Stream;
 
 /**
  * @author <a href="mailto:sthorger@redhat.com">Stian Thorgersen</a>
@@ -75,14 +72,18 @@ public class InfinispanUserSessionProvider implements UserSessionProvider {
     protected final Cache<String, SessionEntity> sessionCache;
     protected final Cache<String, SessionEntity> offlineSessionCache;
     protected final Cache<LoginFailureKey, LoginFailureEntity> loginFailureCache;
+    protected final SessionIndex sessionIndex;
+    protected final SessionIndex offlineSessionIndex;
     protected final InfinispanKeycloakTransaction tx;
 
     public InfinispanUserSessionProvider(KeycloakSession session, Cache<String, SessionEntity> sessionCache, Cache<String, SessionEntity> offlineSessionCache,
-                                         Cache<LoginFailureKey, LoginFailureEntity> loginFailureCache) {
+                                         Cache<LoginFailureKey, LoginFailureEntity> loginFailureCache, SessionIndex sessionIndex, SessionIndex offlineSessionIndex) {
         this.session = session;
         this.sessionCache = sessionCache;
         this.offlineSessionCache = offlineSessionCache;
         this.loginFailureCache = loginFailureCache;
+        this.sessionIndex = sessionIndex;
+        this.offlineSessionIndex = offlineSessionIndex;
         this.tx = new InfinispanKeycloakTransaction();
 
         session.getTransactionManager().enlistAfterCompletion(tx);
@@ -92,6 +93,37 @@ public class InfinispanUserSessionProvider implements UserSessionProvider {
         return offline ? offlineSessionCache : sessionCache;
     }
 
+    protected SessionIndex getIndex(boolean offline) {
+        return offline ? offlineSessionIndex : sessionIndex;
+    }
+
+    /**
+     * Loads sessions with given ids, which were returned by the index. Index may be briefly behind the cache, so the
+     * sessions are checked again with the predicate.
+     */
+    protected List<SessionEntity> getSessionEntities(Set<String> ids, Predicate<Map.Entry<String, SessionEntity>> predicate, boolean offline) {
+        List<SessionEntity> entities = new LinkedList<>();
+        if (ids.isEmpty()) {
+            return entities;
+        }
+
+        Map<String, SessionEntity> loaded = getCache(offline).getAdvancedCache().getAll(ids);
+        for (Map.Entry<String, SessionEntity> entry : loaded.entrySet()) {
+            if (entry.getValue() != null && predicate.test(entry)) {
+                entities.add(entry.getValue());
+            }
+        }
+
+        // Sessions evicted from the cache don't fire removed event, so they would be returned by the index forever
+        SessionIndex index = getIndex(offline);
+        for (String id : ids) {
+            if (loaded.get(id) == null) {
+                index.removeStale(id);
+            }
+        }
+        return entities;
+    }
+
     @Override
     public ClientSessionModel createClientSession(RealmModel realm, ClientModel client) {
         String id = KeycloakModelUtils.generateId();
@@ -184,30 +216,30 @@ public class InfinispanUserSessionProvider implements UserSessionProvider {
         return wrap(realm, entity, offline);
     }
 
-    protected List<UserSessionModel> getUserSessions(RealmModel realm, Predicate<Map.Entry<String, SessionEntity>> predicate, boolean offline) {
-        CacheStream<Map.Entry<String, SessionEntity>> cacheStream = getCache(offline).entrySet().stream();
-        Iterator<Map.Entry<String, SessionEntity>> itr = cacheStream.filter(predicate).iterator();
+    protected List<UserSessionModel> getUserSessions(RealmModel realm, Set<String> ids, Predicate<Map.Entry<String, SessionEntity>> predicate, boolean offline) {
         List<UserSessionModel> sessions = new LinkedList<>();
-        while (itr.hasNext()) {
-            UserSessionEntity e = (UserSessionEntity) itr.next().getValue();
-            sessions.add(wrap(realm, e, offline));
+        for (SessionEntity e : getSessionEntities(ids, predicate, offline)) {
+            sessions.add(wrap(realm, (UserSessionEntity) e, offline));
         }
         return sessions;
     }
 
     @Override
     public List<UserSessionModel> getUserSessions(final RealmModel realm, UserModel user) {
-        return getUserSessions(realm, UserSessionPredicate.create(realm.getId()).user(user.getId()), false);
+        Set<String> ids = sessionIndex.getUserSessionsByUser(realm.getId(), user.getId());
+        return getUserSessions(realm, ids, UserSessionPredicate.create(realm.getId()).user(user.getId()), false);
     }
 
     @Override
     public List<UserSessionModel> getUserSessionByBrokerUserId(RealmModel realm, String brokerUserId) {
-        return getUserSessions(realm, UserSessionPredicate.create(realm.getId()).brokerUserId(brokerUserId), false);
+        Set<String> ids = sessionIndex.getUserSessionsByBrokerUserId(realm.getId(), brokerUserId);
+        return getUserSessions(realm, ids, UserSessionPredicate.create(realm.getId()).brokerUserId(brokerUserId), false);
     }
 
     @Override
     public UserSessionModel getUserSessionByBrokerSessionId(RealmModel realm, String brokerSessionId) {
-        List<UserSessionModel> userSessions = getUserSessions(realm, UserSessionPredicate.create(realm.getId()).brokerSessionId(brokerSessionId), false);
+        Set<String> ids = sessionIndex.getUserSessionsByBrokerSessionId(realm.getId(), brokerSessionId);
+        List<UserSessionModel> userSessions = getUserSessions(realm, ids, UserSessionPredicate.create(realm.getId()).brokerSessionId(brokerSessionId), false);
         return userSessions.isEmpty() ? null : userSessions.get(0);
     }
 
@@ -222,41 +254,24 @@ public class InfinispanUserSessionProvider implements UserSessionProvider {
     }
 
     protected List<UserSessionModel> getUserSessions(final RealmModel realm, ClientModel client, int firstResult, int maxResults, final boolean offline) {
-        final Cache<String, SessionEntity> cache = getCache(offline);
-
-        Iterator<UserSessionTimestamp> itr = cache.entrySet().stream()
-                .filter(ClientSessionPredicate.create(realm.getId()).client(client.getId()).requireUserSession())
-                .map(Mappers.clientSessionToUserSessionTimestamp())
-                .iterator();
-
-        Map<String, UserSessionTimestamp> m = new HashMap<>();
-        while(itr.hasNext()) {
-            UserSessionTimestamp next = itr.next();
-            if (!m.containsKey(next.getUserSessionId()) || m.get(next.getUserSessionId()).getClientSessionTimestamp() < next.getClientSessionTimestamp()) {
-                m.put(next.getUserSessionId(), next);
-            }
-        }
-
-        Stream<UserSessionTimestamp> stream = new LinkedList<>(m.values()).stream().sorted(Comparators.userSessionTimestamp());
-
-        if (firstResult > 0) {
-            stream = stream.skip(firstResult);
+        List<UserSessionTimestamp> page = getIndex(offline).getUserSessionsByClient(realm.getId(), client.getId(), firstResult, maxResults);
+        if (page.isEmpty()) {
+            return new LinkedList<>();
         }
 
-        if (maxResults > 0) {
-            stream = stream.limit(maxResults);
+        Set<String> ids = new HashSet<>();
+        for (UserSessionTimestamp userSessionTimestamp : page) {
+            ids.add(userSessionTimestamp.getUserSessionId());
         }
+        Map<String, SessionEntity> entities = getCache(offline).getAdvancedCache().getAll(ids);
 
-        final List<UserSessionModel> sessions = new LinkedList<>();
-        stream.forEach(new Consumer<UserSessionTimestamp>() {
-            @Override
-            public void accept(UserSessionTimestamp userSessionTimestamp) {
-                SessionEntity entity = cache.get(userSessionTimestamp.getUserSessionId());
-                if (entity != null) {
-                    sessions.add(wrap(realm, (UserSessionEntity) entity, offline));
-                }
+        List<UserSessionModel> sessions = new LinkedList<>();
+        for (UserSessionTimestamp userSessionTimestamp : page) {
+            SessionEntity entity = entities.get(userSessionTimestamp.getUserSessionId());
+            if (entity != null) {
+                sessions.add(wrap(realm, (UserSessionEntity) entity, offline));
             }
-        });
+        }
 
         return sessions;
     }
@@ -267,7 +282,17 @@ public class InfinispanUserSessionProvider implements UserSessionProvider {
     }
 
     protected long getUserSessionsCount(RealmModel realm, ClientModel client, boolean offline) {
-        return getCache(offline).entrySet().stream().filter(ClientSessionPredicate.create(realm.getId()).client(client.getId()).requireUserSession()).map(Mappers.clientSessionToUserSessionId()).distinct().count();
+        return getIndex(offline).getUserSessionsCountByClient(realm.getId(), client.getId());
+    }
+
+    @Override
+    public long getActiveUserSessions(RealmModel realm) {
+        return sessionIndex.getUserSessionsCount(realm.getId());
+    }
+
+    @Override
+    public Map<String, Long> getActiveClientSessionStats(RealmModel realm, boolean offline) {
+        return getIndex(offline).getUserSessionsCountByClients(realm.getId());
     }
 
     @Override
@@ -284,12 +309,9 @@ public class InfinispanUserSessionProvider implements UserSessionProvider {
     }
 
     protected void removeUserSessions(RealmModel realm, UserModel user, boolean offline) {
-        Cache<String, SessionEntity> cache = getCache(offline);
-
-        Iterator<SessionEntity> itr = cache.entrySet().stream().filter(UserSessionPredicate.create(realm.getId()).user(user.getId())).map(Mappers.sessionEntity()).iterator();
-        while (itr.hasNext()) {
-            UserSessionEntity userSessionEntity = (UserSessionEntity) itr.next();
-            removeUserSession(realm, userSessionEntity, offline);
+        Set<String> ids = getIndex(offline).getUserSessionsByUser(realm.getId(), user.getId());
+        for (SessionEntity entity : getSessionEntities(ids, UserSessionPredicate.create(realm.getId()).user(user.getId()), offline)) {
+            removeUserSession(realm, (UserSessionEntity) entity, offline);
         }
     }
 
@@ -306,10 +328,11 @@ public class InfinispanUserSessionProvider implements UserSessionProvider {
         int expired = Time.currentTime() - realm.getSsoSessionMaxLifespan();
         int expiredRefresh = Time.currentTime() - realm.getSsoSessionIdleTimeout();
 
-        Iterator<Map.Entry<String, SessionEntity>> itr = sessionCache.entrySet().stream().filter(UserSessionPredicate.create(realm.getId()).expired(expired, expiredRefresh)).iterator();
+        Set<String> ids = sessionIndex.getUserSessionsStartedBefore(realm.getId(), expired);
+        ids.addAll(sessionIndex.getUserSessionsRefreshedBefore(realm.getId(), expiredRefresh));
 
-        while (itr.hasNext()) {
-            UserSessionEntity entity = (UserSessionEntity) itr.next().getValue();
+        for (SessionEntity userSession : getSessionEntities(ids, UserSessionPredicate.create(realm.getId()).expired(expired, expiredRefresh), false)) {
+            UserSessionEntity entity = (UserSessionEntity) userSession;
             tx.remove(sessionCache, entity.getId());
 
             if (entity.getClientSessions() != null) {
@@ -323,9 +346,9 @@ public class InfinispanUserSessionProvider implements UserSessionProvider {
     private void removeExpiredClientSessions(RealmModel realm) {
         int expiredDettachedClientSession = Time.currentTime() - RealmInfoUtil.getDettachedClientSessionLifespan(realm);
 
-        Iterator<Map.Entry<String, SessionEntity>> itr = sessionCache.entrySet().stream().filter(ClientSessionPredicate.create(realm.getId()).expiredRefresh(expiredDettachedClientSession).requireNullUserSession()).iterator();
-        while (itr.hasNext()) {
-            tx.remove(sessionCache, itr.next().getKey());
+        Set<String> ids = sessionIndex.getDetachedClientSessionsBefore(realm.getId(), expiredDettachedClientSession);
+        for (SessionEntity entity : getSessionEntities(ids, ClientSessionPredicate.create(realm.getId()).expiredRefresh(expiredDettachedClientSession).requireNullUserSession(), false)) {
+            tx.remove(sessionCache, entity.getId());
         }
     }
 
@@ -333,9 +356,9 @@ public class InfinispanUserSessionProvider implements UserSessionProvider {
         UserSessionPersisterProvider persister = session.getProvider(UserSessionPersisterProvider.class);
         int expiredOffline = Time.currentTime() - realm.getOfflineSessionIdleTimeout();
 
-        Iterator<Map.Entry<String, SessionEntity>> itr = offlineSessionCache.entrySet().stream().filter(UserSessionPredicate.create(realm.getId()).expired(null, expiredOffline)).iterator();
-        while (itr.hasNext()) {
-            UserSessionEntity entity = (UserSessionEntity) itr.next().getValue();
+        Set<String> ids = offlineSessionIndex.getUserSessionsRefreshedBefore(realm.getId(), expiredOffline);
+        for (SessionEntity userSession : getSessionEntities(ids, UserSessionPredicate.create(realm.getId()).expired(null, expiredOffline), true)) {
+            UserSessionEntity entity = (UserSessionEntity) userSession;
             tx.remove(offlineSessionCache, entity.getId());
 
             persister.removeUserSession(entity.getId(), true);
@@ -350,18 +373,20 @@ public class InfinispanUserSessionProvider implements UserSessionProvider {
         UserSessionPersisterProvider persister = session.getProvider(UserSessionPersisterProvider.class);
         int expiredOffline = Time.currentTime() - realm.getOfflineSessionIdleTimeout();
 
-        Iterator<String> itr = offlineSessionCache.entrySet().stream().filter(ClientSessionPredicate.create(realm.getId()).expiredRefresh(expiredOffline)).map(Mappers.sessionId()).iterator();
-        while (itr.hasNext()) {
-            String sessionId = itr.next();
+        Set<String> ids = offlineSessionIndex.getClientSessionsBefore(realm.getId(), expiredOffline);
+        for (SessionEntity entity : getSessionEntities(ids, ClientSessionPredicate.create(realm.getId()).expiredRefresh(expiredOffline), true)) {
+            String sessionId = entity.getId();
             tx.remove(offlineSessionCache, sessionId);
             persister.removeClientSession(sessionId, true);
         }
     }
 
     private void removeExpiredClientInitialAccess(RealmModel realm) {
-        Iterator<String> itr = sessionCache.entrySet().stream().filter(ClientInitialAccessPredicate.create(realm.getId()).expired(Time.currentTime())).map(Mappers.sessionId()).iterator();
-        while (itr.hasNext()) {
-            tx.remove(sessionCache, itr.next());
+        int currentTime = Time.currentTime();
+
+        Set<String> ids = sessionIndex.getClientInitialAccessExpiredBefore(realm.getId(), currentTime);
+        for (SessionEntity entity : getSessionEntities(ids, ClientInitialAccessPredicate.create(realm.getId()).expired(currentTime), false)) {
+            tx.remove(sessionCache, entity.getId());
         }
     }
 
@@ -425,9 +450,9 @@ public class InfinispanUserSessionProvider implements UserSessionProvider {
     private void onClientRemoved(RealmModel realm, ClientModel client, boolean offline) {
         Cache<String, SessionEntity> cache = getCache(offline);
 
-        Iterator<Map.Entry<String, SessionEntity>> itr = cache.entrySet().stream().filter(ClientSessionPredicate.create(realm.getId()).client(client.getId())).iterator();
-        while (itr.hasNext()) {
-            ClientSessionEntity entity = (ClientSessionEntity) itr.next().getValue();
+        Set<String> ids = getIndex(offline).getClientSessionsByClient(realm.getId(), client.getId());
+        for (SessionEntity clientSession : getSessionEntities(ids, ClientSessionPredicate.create(realm.getId()).client(client.getId()), offline)) {
+            ClientSessionEntity entity = (ClientSessionEntity) clientSession;
             ClientSessionAdapter adapter = wrap(realm, entity, offline);
             adapter.setUserSession(null);
 
@@ -610,11 +635,11 @@ public class InfinispanUserSessionProvider implements UserSessionProvider {
 
     @Override
     public List<ClientSessionModel> getOfflineClientSessions(RealmModel realm, UserModel user) {
-        Iterator<Map.Entry<String, SessionEntity>> itr = offlineSessionCache.entrySet().stream().filter(UserSessionPredicate.create(realm.getId()).user(user.getId())).iterator();
+        Set<String> ids = offlineSessionIndex.getUserSessionsByUser(realm.getId(), user.getId());
         List<ClientSessionModel> clientSessions = new LinkedList<>();
 
-        while(itr.hasNext()) {
-            UserSessionEntity entity = (UserSessionEntity) itr.next().getValue();
+        for (SessionEntity userSession : getSessionEntities(ids, UserSessionPredicate.create(realm.getId()).user(user.getId()), true)) {
+            UserSessionEntity entity = (UserSessionEntity) userSession;
             Set<String> currClientSessions = entity.getClientSessions();
             for (String clientSessionId : currClientSessions) {
                 ClientSessionEntity cls = (ClientSessionEntity) offlineSessionCache.get(clientSessionId);
@@ -638,6 +663,11 @@ public class InfinispanUserSessionProvider implements UserSessionProvider {
         return getUserSessionsCount(realm, client, true);
     }
 
+    @Override
+    public long getOfflineSessionsCount(RealmModel realm) {
+        return offlineSessionIndex.getUserSessionsCount(realm.getId());
+    }
+
     @Override
     public List<UserSessionModel> getOfflineUserSessions(RealmModel realm, ClientModel client, int first, int max) {
         return getUserSessions(realm, client, first, max, true);
@@ -29,6 +29,7 @@ import org.keycloak.models.UserSessionProviderFactory;
 import org.keycloak.models.sessions.infinispan.entities.LoginFailureEntity;
 import org.keycloak.models.sessions.infinispan.entities.LoginFailureKey;
 import org.keycloak.models.sessions.infinispan.entities.SessionEntity;
+import org.keycloak.models.sessions.infinispan.index.SessionIndex;
 import org.keycloak.models.sessions.infinispan.initializer.InfinispanUserSessionInitializer;
 import org.keycloak.models.sessions.infinispan.initializer.OfflineUserSessionLoader;
 import org.keycloak.models.utils.KeycloakModelUtils;
@@ -44,6 +45,12 @@ public class InfinispanUserSessionProviderFactory implements UserSessionProvider
 
     private Config.Scope config;
 
+    private volatile SessionIndex sessionIndex;
+    private volatile SessionIndex offlineSessionIndex;
+
+    private Cache<String, SessionEntity> indexedCache;
+    private Cache<String, SessionEntity> indexedOfflineSessionsCache;
+
     @Override
     public UserSessionProvider create(KeycloakSession session) {
         InfinispanConnectionProvider connections = session.getProvider(InfinispanConnectionProvider.class);
@@ -51,7 +58,30 @@ public class InfinispanUserSessionProviderFactory implements UserSessionProvider
         Cache<String, SessionEntity> offlineSessionsCache = connections.getCache(InfinispanConnectionProvider.OFFLINE_SESSION_CACHE_NAME);
         Cache<LoginFailureKey, LoginFailureEntity> loginFailures = connections.getCache(InfinispanConnectionProvider.LOGIN_FAILURE_CACHE_NAME);
 
-        return new InfinispanUserSessionProvider(session, cache, offlineSessionsCache, loginFailures);
+        lazyInit(cache, offlineSessionsCache);
+
+        return new InfinispanUserSessionProvider(session, cache, offlineSessionsCache, loginFailures, sessionIndex, offlineSessionIndex);
+    }
+
+    private void lazyInit(Cache<String, SessionEntity> cache, Cache<String, SessionEntity> offlineSessionsCache) {
+        if (offlineSessionIndex == null) {
+            synchronized (this) {
+                if (offlineSessionIndex == null) {
+                    SessionIndex index = new SessionIndex();
+                    cache.addListener(index);
+                    sessionIndex = index;
+
+                    SessionIndex offlineIndex = new SessionIndex();
+                    offlineSessionsCache.addListener(offlineIndex);
+                    offlineSessionIndex = offlineIndex;
+
+                    indexedCache = cache;
+                    indexedOfflineSessionsCache = offlineSessionsCache;
+
+                    log.debug("Registered session indexes");
+                }
+            }
+        }
     }
 
     @Override
@@ -102,6 +132,19 @@ public class InfinispanUserSessionProviderFactory implements UserSessionProvider
 
     @Override
     public void close() {
+        synchronized (this) {
+            if (offlineSessionIndex != null) {
+                indexedCache.removeListener(sessionIndex);
+                indexedOfflineSessionsCache.removeListener(offlineSessionIndex);
+
+                sessionIndex = null;
+                offlineSessionIndex = null;
+                indexedCache = null;
+                indexedOfflineSessionsCache = null;
+
+                log.debug("Unregistered session indexes");
+            }
+        }
     }
 
     @Override
@@ -17,7 +17,9 @@
 
 package org.keycloak.models.sessions.infinispan.entities;
 
+import org.infinispan.commons.marshall.SerializeWith;
 import org.keycloak.models.ClientSessionModel;
+import org.keycloak.models.sessions.infinispan.marshalling.ClientSessionEntityExternalizer;
 
 import java.util.HashMap;
 import java.util.HashSet;
@@ -27,6 +29,7 @@ import java.util.Set;
 /**
  * @author <a href="mailto:sthorger@redhat.com">Stian Thorgersen</a>
  */
+@SerializeWith(ClientSessionEntityExternalizer.class)
 public class ClientSessionEntity extends SessionEntity {
 
     private String client;
@@ -17,11 +17,15 @@
 
 package org.keycloak.models.sessions.infinispan.entities;
 
+import org.infinispan.commons.marshall.SerializeWith;
+import org.keycloak.models.sessions.infinispan.marshalling.LoginFailureEntityExternalizer;
+
 import java.io.Serializable;
 
 /**
  * @author <a href="mailto:sthorger@redhat.com">Stian Thorgersen</a>
  */
+@SerializeWith(LoginFailureEntityExternalizer.class)
 public class LoginFailureEntity implements Serializable {
 
     private String userId;
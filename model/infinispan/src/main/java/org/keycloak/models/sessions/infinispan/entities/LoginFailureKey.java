@@ -17,11 +17,15 @@
 
 package org.keycloak.models.sessions.infinispan.entities;
 
+import org.infinispan.commons.marshall.SerializeWith;
+import org.keycloak.models.sessions.infinispan.marshalling.LoginFailureKeyExternalizer;
+
 import java.io.Serializable;
 
 /**
  * @author <a href="mailto:sthorger@redhat.com">Stian Thorgersen</a>
  */
+@SerializeWith(LoginFailureKeyExternalizer.class)
 public class LoginFailureKey implements Serializable {
 
     private final String realm;
@@ -32,6 +36,14 @@ public class LoginFailureKey implements Serializable {
         this.userId = userId;
     }
 
+    public String getRealm() {
+        return realm;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -17,7 +17,9 @@
 
 package org.keycloak.models.sessions.infinispan.entities;
 
+import org.infinispan.commons.marshall.SerializeWith;
 import org.keycloak.models.UserSessionModel;
+import org.keycloak.models.sessions.infinispan.marshalling.UserSessionEntityExternalizer;
 
 import java.util.Map;
 import java.util.Set;
@@ -25,6 +27,7 @@ import java.util.Set;
 /**
  * @author <a href="mailto:sthorger@redhat.com">Stian Thorgersen</a>
  */
+@SerializeWith(UserSessionEntityExternalizer.class)
 public class UserSessionEntity extends SessionEntity {
 
     private String user;
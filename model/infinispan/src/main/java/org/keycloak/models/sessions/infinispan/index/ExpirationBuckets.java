@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.models.sessions.infinispan.index;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Ids of sessions per realm, grouped into buckets by a timestamp (eg. lastSessionRefresh). Sessions, which may be expired
+ * at some time, are found by visiting just the buckets up to that time instead of all the sessions of the realm.
+ *
+ * Bucket containing the given time contains sessions, which may not be expired yet, so callers need to re-check sessions.
+ */
+class ExpirationBuckets {
+
+    private final int bucketSeconds;
+
+    private final Map<String, NavigableMap<Integer, Set<String>>> buckets = new ConcurrentHashMap<>();
+
+    ExpirationBuckets(int bucketSeconds) {
+        this.bucketSeconds = bucketSeconds;
+    }
+
+    int add(String realm, int time, String id) {
+        int bucket = bucket(time);
+        buckets.computeIfAbsent(realm, r -> new ConcurrentSkipListMap<>())
+                .compute(bucket, (b, ids) -> {
+                    if (ids == null) {
+                        ids = ConcurrentHashMap.newKeySet();
+                    }
+                    ids.add(id);
+                    return ids;
+                });
+        return bucket;
+    }
+
+    void remove(String realm, int bucket, String id) {
+        NavigableMap<Integer, Set<String>> realmBuckets = buckets.get(realm);
+        if (realmBuckets != null) {
+            realmBuckets.computeIfPresent(bucket, (b, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    Set<String> getUpTo(String realm, int time) {
+        Set<String> result = new HashSet<>();
+        NavigableMap<Integer, Set<String>> realmBuckets = buckets.get(realm);
+        if (realmBuckets != null) {
+            for (Set<String> ids : realmBuckets.headMap(bucket(time), true).values()) {
+                result.addAll(ids);
+            }
+        }
+        return result;
+    }
+
+    private int bucket(int time) {
+        return Math.floorDiv(time, bucketSeconds);
+    }
+
+}
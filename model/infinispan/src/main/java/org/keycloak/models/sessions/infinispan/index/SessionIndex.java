@@ -0,0 +1,420 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.models.sessions.infinispan.index;
+
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryCreated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryExpired;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryRemoved;
+import org.infinispan.notifications.cachelistener.event.CacheEntryCreatedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryExpiredEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryModifiedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryRemovedEvent;
+import org.jboss.logging.Logger;
+import org.keycloak.models.sessions.infinispan.UserSessionTimestamp;
+import org.keycloak.models.sessions.infinispan.entities.ClientInitialAccessEntity;
+import org.keycloak.models.sessions.infinispan.entities.ClientSessionEntity;
+import org.keycloak.models.sessions.infinispan.entities.SessionEntity;
+import org.keycloak.models.sessions.infinispan.entities.UserSessionEntity;
+import org.keycloak.models.sessions.infinispan.stream.Comparators;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary indexes over a sessions cache. Lookups of user sessions by user, broker session or broker user and of client
+ * sessions by client don't need to stream through the whole cache anymore.
+ *
+ * The index is maintained from cache events, so it reflects what was actually committed to the cache by the transaction
+ * of {@link org.keycloak.models.sessions.infinispan.InfinispanUserSessionProvider} on this node as well as on the other
+ * cluster nodes. It is registered as clustered listener with the current state included, so it
+ * is populated with the sessions already present in the cache when it is registered.
+ *
+ * Sessions are also grouped into time buckets by the timestamps relevant for expiration, so that removing expired
+ * sessions needs to visit just the sessions, which could have expired since the last run.
+ *
+ * Index may be briefly behind the cache, so callers are expected to load the sessions by returned ids and re-check them.
+ * Entries removed without a removed or expired event, like evicted ones, stay in the index until a caller finds out
+ * they are gone and calls {@link #removeStale(String)}.
+ */
+@Listener(clustered = true, includeCurrentState = true)
+public class SessionIndex {
+
+    private static final Logger log = Logger.getLogger(SessionIndex.class);
+
+    public static final int EXPIRATION_BUCKET_SECONDS = 60;
+
+    // Ties are ordered by user session id, so that pages are stable
+    private static final Comparator<UserSessionTimestamp> USER_SESSION_TIMESTAMP_COMPARATOR = Comparators.userSessionTimestamp()
+            .thenComparing(UserSessionTimestamp::getUserSessionId);
+
+    private final Map<String, Set<String>> userSessionsByRealm = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> userSessionsByUser = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> userSessionsByBrokerSessionId = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> userSessionsByBrokerUserId = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> clientSessionsByClient = new ConcurrentHashMap<>();
+
+    // realm -> client -> userSession -> clientSession -> clientSession timestamp
+    private final Map<String, Map<String, Map<String, Map<String, Integer>>>> userSessionsByClient = new ConcurrentHashMap<>();
+
+    private final ExpirationBuckets userSessionsByStarted = new ExpirationBuckets(EXPIRATION_BUCKET_SECONDS);
+    private final ExpirationBuckets userSessionsByLastRefresh = new ExpirationBuckets(EXPIRATION_BUCKET_SECONDS);
+    private final ExpirationBuckets clientSessionsByTimestamp = new ExpirationBuckets(EXPIRATION_BUCKET_SECONDS);
+    private final ExpirationBuckets detachedClientSessionsByTimestamp = new ExpirationBuckets(EXPIRATION_BUCKET_SECONDS);
+    private final ExpirationBuckets clientInitialAccessByExpiration = new ExpirationBuckets(EXPIRATION_BUCKET_SECONDS);
+
+    // Keys under which every session is currently indexed. Needed as entity may be already changed in-place when we receive the event
+    private final Map<String, List<IndexedKey>> indexed = new ConcurrentHashMap<>();
+
+    public Set<String> getUserSessionsByUser(String realm, String user) {
+        return get(userSessionsByUser, realm, user);
+    }
+
+    public Set<String> getUserSessionsByBrokerSessionId(String realm, String brokerSessionId) {
+        return get(userSessionsByBrokerSessionId, realm, brokerSessionId);
+    }
+
+    public Set<String> getUserSessionsByBrokerUserId(String realm, String brokerUserId) {
+        return get(userSessionsByBrokerUserId, realm, brokerUserId);
+    }
+
+    public Set<String> getClientSessionsByClient(String realm, String client) {
+        return get(clientSessionsByClient, realm, client);
+    }
+
+    public int getUserSessionsCount(String realm) {
+        Set<String> ids = userSessionsByRealm.get(realm);
+        return ids != null ? ids.size() : 0;
+    }
+
+    /**
+     * Count of user sessions with at least one client session of given client.
+     */
+    public int getUserSessionsCountByClient(String realm, String client) {
+        Map<String, Map<String, Integer>> userSessions = getUserSessionsByClient(realm, client);
+        return userSessions != null ? userSessions.size() : 0;
+    }
+
+    /**
+     * Counts of user sessions per client of given realm. Key is client id. Clients without any user session are not included.
+     */
+    public Map<String, Long> getUserSessionsCountByClients(String realm) {
+        Map<String, Map<String, Map<String, Integer>>> clients = userSessionsByClient.get(realm);
+        if (clients == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Long> counts = new HashMap<>();
+        for (Map.Entry<String, Map<String, Map<String, Integer>>> entry : clients.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                counts.put(entry.getKey(), (long) entry.getValue().size());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * User sessions with at least one client session of given client, ordered by the latest client session timestamp of
+     * each user session. Just {@code firstResult + maxResults} candidates are kept in memory during the computation.
+     *
+     * @param firstResult first result to return. Ignored if less than 1
+     * @param maxResults max count of results. All results are returned if less than 1
+     */
+    public List<UserSessionTimestamp> getUserSessionsByClient(String realm, String client, int firstResult, int maxResults) {
+        Map<String, Map<String, Integer>> userSessions = getUserSessionsByClient(realm, client);
+        if (userSessions == null) {
+            return Collections.emptyList();
+        }
+
+        Comparator<UserSessionTimestamp> comparator = USER_SESSION_TIMESTAMP_COMPARATOR;
+        int first = firstResult > 0 ? firstResult : 0;
+        int limit = maxResults > 0 ? first + maxResults : Integer.MAX_VALUE;
+
+        // Max-heap holding the "limit" smallest candidates
+        PriorityQueue<UserSessionTimestamp> heap = new PriorityQueue<>(11, comparator.reversed());
+        for (Map.Entry<String, Map<String, Integer>> entry : userSessions.entrySet()) {
+            Integer timestamp = null;
+            for (Integer clientSessionTimestamp : entry.getValue().values()) {
+                if (timestamp == null || clientSessionTimestamp > timestamp) {
+                    timestamp = clientSessionTimestamp;
+                }
+            }
+            if (timestamp == null) {
+                continue;
+            }
+
+            UserSessionTimestamp candidate = new UserSessionTimestamp(entry.getKey(), timestamp);
+            if (heap.size() < limit) {
+                heap.add(candidate);
+            } else if (comparator.compare(candidate, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+
+        List<UserSessionTimestamp> result = new ArrayList<>(heap);
+        result.sort(comparator);
+        return first < result.size() ? result.subList(first, result.size()) : Collections.emptyList();
+    }
+
+    private Map<String, Map<String, Integer>> getUserSessionsByClient(String realm, String client) {
+        Map<String, Map<String, Map<String, Integer>>> clients = userSessionsByClient.get(realm);
+        return clients != null ? clients.get(client) : null;
+    }
+
+    /**
+     * User sessions started at or before given time. May contain some sessions started shortly after it too.
+     */
+    public Set<String> getUserSessionsStartedBefore(String realm, int time) {
+        return userSessionsByStarted.getUpTo(realm, time);
+    }
+
+    /**
+     * User sessions last refreshed at or before given time. May contain some sessions refreshed shortly after it too.
+     */
+    public Set<String> getUserSessionsRefreshedBefore(String realm, int time) {
+        return userSessionsByLastRefresh.getUpTo(realm, time);
+    }
+
+    /**
+     * Client sessions with timestamp at or before given time. May contain some sessions with timestamp shortly after it too.
+     */
+    public Set<String> getClientSessionsBefore(String realm, int time) {
+        return clientSessionsByTimestamp.getUpTo(realm, time);
+    }
+
+    /**
+     * Client sessions without user session with timestamp at or before given time. May contain some sessions with timestamp
+     * shortly after it too. Client sessions attached to user session are expired together with the user session, so they are
+     * not included.
+     */
+    public Set<String> getDetachedClientSessionsBefore(String realm, int time) {
+        return detachedClientSessionsByTimestamp.getUpTo(realm, time);
+    }
+
+    /**
+     * Client initial access, which expire at or before given time or don't have any remaining count.
+     */
+    public Set<String> getClientInitialAccessExpiredBefore(String realm, int time) {
+        return clientInitialAccessByExpiration.getUpTo(realm, time);
+    }
+
+    @CacheEntryCreated
+    public void created(CacheEntryCreatedEvent<String, SessionEntity> event) {
+        if (!event.isPre()) {
+            update(event.getKey(), event.getValue());
+        }
+    }
+
+    @CacheEntryModified
+    public void modified(CacheEntryModifiedEvent<String, SessionEntity> event) {
+        if (!event.isPre()) {
+            update(event.getKey(), event.getValue());
+        }
+    }
+
+    @CacheEntryRemoved
+    public void removed(CacheEntryRemovedEvent<String, SessionEntity> event) {
+        if (!event.isPre()) {
+            update(event.getKey(), null);
+        }
+    }
+
+    @CacheEntryExpired
+    public void expired(CacheEntryExpiredEvent<String, SessionEntity> event) {
+        update(event.getKey(), null);
+    }
+
+    /**
+     * Removes session, which isn't in the cache anymore, from the index.
+     */
+    public void removeStale(String id) {
+        update(id, null);
+    }
+
+    public void update(String id, SessionEntity entity) {
+        indexed.compute(id, (key, previous) -> {
+            if (previous != null) {
+                for (IndexedKey indexedKey : previous) {
+                    indexedKey.remove(id);
+                }
+            }
+
+            List<IndexedKey> current = index(id, entity);
+            if (log.isTraceEnabled()) {
+                log.tracef("Indexed session %s under %s", id, current);
+            }
+            return current;
+        });
+    }
+
+    private List<IndexedKey> index(String id, SessionEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+
+        List<IndexedKey> keys = new LinkedList<>();
+        if (entity instanceof UserSessionEntity) {
+            UserSessionEntity userSession = (UserSessionEntity) entity;
+            add(keys, userSessionsByRealm, userSession.getRealm(), id);
+            add(keys, userSessionsByUser, userSession.getRealm(), userSession.getUser(), id);
+            add(keys, userSessionsByBrokerSessionId, userSession.getRealm(), userSession.getBrokerSessionId(), id);
+            add(keys, userSessionsByBrokerUserId, userSession.getRealm(), userSession.getBrokerUserId(), id);
+            add(keys, userSessionsByStarted, userSession.getRealm(), userSession.getStarted(), id);
+            add(keys, userSessionsByLastRefresh, userSession.getRealm(), userSession.getLastSessionRefresh(), id);
+        } else if (entity instanceof ClientSessionEntity) {
+            ClientSessionEntity clientSession = (ClientSessionEntity) entity;
+            add(keys, clientSessionsByClient, clientSession.getRealm(), clientSession.getClient(), id);
+            add(keys, clientSessionsByTimestamp, clientSession.getRealm(), clientSession.getTimestamp(), id);
+            if (clientSession.getUserSession() == null) {
+                add(keys, detachedClientSessionsByTimestamp, clientSession.getRealm(), clientSession.getTimestamp(), id);
+            }
+            add(keys, userSessionsByClient, clientSession.getRealm(), clientSession.getClient(), clientSession.getUserSession(), clientSession.getTimestamp(), id);
+        } else if (entity instanceof ClientInitialAccessEntity) {
+            ClientInitialAccessEntity initialAccess = (ClientInitialAccessEntity) entity;
+            if (initialAccess.getRemainingCount() <= 0) {
+                add(keys, clientInitialAccessByExpiration, initialAccess.getRealm(), initialAccess.getTimestamp(), id);
+            } else if (initialAccess.getExpiration() > 0) {
+                add(keys, clientInitialAccessByExpiration, initialAccess.getRealm(), initialAccess.getTimestamp() + initialAccess.getExpiration(), id);
+            }
+        }
+
+        return keys.isEmpty() ? null : keys;
+    }
+
+    private static void add(List<IndexedKey> keys, Map<String, Set<String>> index, String realm, String value, String id) {
+        if (realm == null || value == null) {
+            return;
+        }
+
+        add(keys, index, key(realm, value), id);
+    }
+
+    private static void add(List<IndexedKey> keys, Map<String, Set<String>> index, String key, String id) {
+        if (key == null) {
+            return;
+        }
+
+        index.compute(key, (k, ids) -> {
+            if (ids == null) {
+                ids = ConcurrentHashMap.newKeySet();
+            }
+            ids.add(id);
+            return ids;
+        });
+        keys.add(new IndexedKey(key) {
+            @Override
+            void remove(String sessionId) {
+                SessionIndex.remove(index, key, sessionId);
+            }
+        });
+    }
+
+    private static void add(List<IndexedKey> keys, ExpirationBuckets buckets, String realm, int time, String id) {
+        if (realm == null) {
+            return;
+        }
+
+        int bucket = buckets.add(realm, time, id);
+        keys.add(new IndexedKey(realm + "::" + bucket) {
+            @Override
+            void remove(String sessionId) {
+                buckets.remove(realm, bucket, sessionId);
+            }
+        });
+    }
+
+    private static void add(List<IndexedKey> keys, Map<String, Map<String, Map<String, Map<String, Integer>>>> index, String realm, String client,
+                            String userSession, int timestamp, String id) {
+        if (realm == null || client == null || userSession == null) {
+            return;
+        }
+
+        index.compute(realm, (r, clients) -> {
+            if (clients == null) {
+                clients = new ConcurrentHashMap<>();
+            }
+            clients.compute(client, (c, userSessions) -> {
+                if (userSessions == null) {
+                    userSessions = new ConcurrentHashMap<>();
+                }
+                userSessions.computeIfAbsent(userSession, u -> new ConcurrentHashMap<>()).put(id, timestamp);
+                return userSessions;
+            });
+            return clients;
+        });
+        keys.add(new IndexedKey(key(realm, client) + "::" + userSession) {
+            @Override
+            void remove(String sessionId) {
+                index.computeIfPresent(realm, (r, clients) -> {
+                    clients.computeIfPresent(client, (c, userSessions) -> {
+                        userSessions.computeIfPresent(userSession, (u, clientSessions) -> {
+                            clientSessions.remove(sessionId);
+                            return clientSessions.isEmpty() ? null : clientSessions;
+                        });
+                        return userSessions.isEmpty() ? null : userSessions;
+                    });
+                    return clients.isEmpty() ? null : clients;
+                });
+            }
+        });
+    }
+
+    private static void remove(Map<String, Set<String>> index, String key, String id) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static Set<String> get(Map<String, Set<String>> index, String realm, String value) {
+        Set<String> ids = index.get(key(realm, value));
+        return ids != null ? new HashSet<>(ids) : Collections.emptySet();
+    }
+
+    private static String key(String realm, String value) {
+        return realm + "::" + value;
+    }
+
+    private abstract static class IndexedKey {
+
+        private final String key;
+
+        private IndexedKey(String key) {
+            this.key = key;
+        }
+
+        abstract void remove(String id);
+
+        @Override
+        public String toString() {
+            return key;
+        }
+    }
+
+}
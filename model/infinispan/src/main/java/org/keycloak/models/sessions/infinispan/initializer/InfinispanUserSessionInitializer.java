@@ -29,12 +29,15 @@ import org.keycloak.models.KeycloakSessionTask;
 import org.keycloak.models.utils.KeycloakModelUtils;
 
 import java.io.Serializable;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Startup initialization for reading persistent userSessions/clientSessions to be filled into infinispan/memory . In cluster,
@@ -48,6 +51,8 @@ public class InfinispanUserSessionInitializer {
 
     private static final String STATE_KEY_PREFIX = "distributed::";
 
+    private static final long WORKER_POLL_INTERVAL_MS = 100;
+
     private static final Logger log = Logger.getLogger(InfinispanUserSessionInitializer.class);
 
     private final KeycloakSessionFactory sessionFactory;
@@ -166,39 +171,65 @@ public class InfinispanUserSessionInitializer {
         ExecutorService executorService = distributed ? new DefaultExecutorService(workCache, localExecutor) : localExecutor;
 
         int errors = 0;
+        int finishedSinceSave = 0;
+
+        // Segments are submitted to workers as soon as some worker finishes, so fast workers don't wait for the slowest one
+        Map<Integer, Future<WorkerResult>> futures = new LinkedHashMap<>();
 
         try {
             while (!state.isFinished()) {
                 int nodesCount = transport==null ? 1 : transport.getMembers().size();
                 int distributedWorkersCount = processors * nodesCount;
 
-                log.debugf("Starting next iteration with %d workers", distributedWorkersCount);
+                if (futures.size() < distributedWorkersCount) {
+                    for (Integer segment : state.getUnfinishedSegments(distributedWorkersCount + futures.size())) {
+                        if (futures.size() >= distributedWorkersCount) {
+                            break;
+                        }
+                        if (futures.containsKey(segment)) {
+                            continue;
+                        }
 
-                List<Integer> segments = state.getUnfinishedSegments(distributedWorkersCount);
+                        if (log.isTraceEnabled()) {
+                            log.tracef("Submitting segment %d", segment);
+                        }
 
-                if (log.isTraceEnabled()) {
-                    log.trace("unfinished segments for this iteration: " + segments);
-                }
+                        SessionInitializerWorker worker = new SessionInitializerWorker();
+                        worker.setWorkerEnvironment(segment, state.getSegmentsCount(), sessionsPerSegment, sessionLoader);
+                        if (!distributed) {
+                            worker.setEnvironment(workCache, null);
+                        }
 
-                List<Future<WorkerResult>> futures = new LinkedList<>();
-                for (Integer segment : segments) {
-                    SessionInitializerWorker worker = new SessionInitializerWorker();
-                    worker.setWorkerEnvironment(segment, sessionsPerSegment, sessionLoader);
-                    if (!distributed) {
-                        worker.setEnvironment(workCache, null);
+                        futures.put(segment, executorService.submit(worker));
                     }
+                }
 
-                    Future<WorkerResult> future = executorService.submit(worker);
-                    futures.add(future);
+                // Wait for the oldest submitted segment for a while, then collect all finished segments
+                if (!futures.isEmpty()) {
+                    try {
+                        futures.values().iterator().next().get(WORKER_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException | ExecutionException e) {
+                        // Handled below
+                    } catch (InterruptedException ie) {
+                        errors++;
+                        log.error("Interruped exception when waiting for future. Errors: " + errors, ie);
+                    }
                 }
 
-                for (Future<WorkerResult> future : futures) {
+                for (Iterator<Future<WorkerResult>> itr = futures.values().iterator(); itr.hasNext(); ) {
+                    Future<WorkerResult> future = itr.next();
+                    if (!future.isDone()) {
+                        continue;
+                    }
+                    itr.remove();
+
                     try {
                         WorkerResult result = future.get();
 
                         if (result.getSuccess()) {
                             int computedSegment = result.getSegment();
                             state.markSegmentFinished(computedSegment);
+                            finishedSinceSave++;
                         } else {
                             if (log.isTraceEnabled()) {
                                 log.tracef("Segment %d failed to compute", result.getSegment());
@@ -217,10 +248,14 @@ public class InfinispanUserSessionInitializer {
                     throw new RuntimeException("Maximum count of worker errors occured. Limit was " + maxErrors + ". See server.log for details");
                 }
 
-                saveStateToCache(state);
+                // Push the state after each "round" worth of segments, so other nodes can take over if coordinator fails
+                if (finishedSinceSave >= distributedWorkersCount || state.isFinished()) {
+                    finishedSinceSave = 0;
+                    saveStateToCache(state);
 
-                if (log.isDebugEnabled()) {
-                    log.debug("New initializer state pushed. The state is: " + state.printState());
+                    if (log.isDebugEnabled()) {
+                        log.debug("New initializer state pushed. The state is: " + state.printState());
+                    }
                 }
             }
         } finally {
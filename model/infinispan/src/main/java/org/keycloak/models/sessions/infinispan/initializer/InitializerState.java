@@ -52,6 +52,10 @@ public class InitializerState extends SessionEntity {
         updateLowestUnfinishedSegment();
     }
 
+    public int getSegmentsCount() {
+        return segments.size();
+    }
+
     // Return true just if computation is entirely finished (all segments are true)
     public boolean isFinished() {
         return lowestUnfinishedSegment == -1;
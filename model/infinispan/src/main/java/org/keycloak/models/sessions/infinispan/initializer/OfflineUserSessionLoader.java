@@ -53,27 +53,49 @@ public class OfflineUserSessionLoader implements SessionLoader {
     }
 
     @Override
-    public boolean loadSessions(KeycloakSession session, int first, int max) {
+    public boolean loadSessions(KeycloakSession session, int segment, int segmentsCount, int sessionsPerPage) {
+        String lastSessionId = getSegmentBound(segment, segmentsCount);
+        String upperBoundSessionId = getSegmentBound(segment + 1, segmentsCount);
+
         if (log.isTraceEnabled()) {
-            log.tracef("Loading sessions - first: %d, max: %d", first, max);
+            log.tracef("Loading sessions - segment: %d, after: %s, up to: %s", segment, lastSessionId, upperBoundSessionId);
         }
 
         UserSessionPersisterProvider persister = session.getProvider(UserSessionPersisterProvider.class);
-        List<UserSessionModel> sessions = persister.loadUserSessions(first, max, true);
 
-        for (UserSessionModel persistentSession : sessions) {
+        boolean remaining = true;
+        while (remaining) {
+            List<UserSessionModel> sessions = persister.loadUserSessions(lastSessionId, upperBoundSessionId, sessionsPerPage, true);
+
+            for (UserSessionModel persistentSession : sessions) {
 
-            // Save to memory/infinispan
-            UserSessionModel offlineUserSession = session.sessions().importUserSession(persistentSession, true);
+                // Save to memory/infinispan
+                UserSessionModel offlineUserSession = session.sessions().importUserSession(persistentSession, true);
+
+                for (ClientSessionModel persistentClientSession : persistentSession.getClientSessions()) {
+                    ClientSessionModel offlineClientSession = session.sessions().importClientSession(persistentClientSession, true);
+                    offlineClientSession.setUserSession(offlineUserSession);
+                }
+            }
 
-            for (ClientSessionModel persistentClientSession : persistentSession.getClientSessions()) {
-                ClientSessionModel offlineClientSession = session.sessions().importClientSession(persistentClientSession, true);
-                offlineClientSession.setUserSession(offlineUserSession);
+            remaining = sessions.size() == sessionsPerPage;
+            if (remaining) {
+                lastSessionId = sessions.get(sessions.size() - 1).getId();
             }
         }
 
         return true;
     }
 
+    // Segments split the space of (UUID) session IDs to the ranges of same size. Segment i contains IDs greater than bound(i)
+    // and lower or equal to bound(i+1). First segment is unbounded from below and last segment is unbounded from above, so all IDs are covered
+    static String getSegmentBound(int segment, int segmentsCount) {
+        if (segment <= 0 || segment >= segmentsCount) {
+            return null;
+        }
+
+        long bound = (segment * 0x100000000L) / segmentsCount;
+        return String.format("%08x", bound);
+    }
 
 }
@@ -36,13 +36,15 @@ public class SessionInitializerWorker implements DistributedCallable<String, Ser
     private static final Logger log = Logger.getLogger(SessionInitializerWorker.class);
 
     private int segment;
+    private int segmentsCount;
     private int sessionsPerSegment;
     private SessionLoader sessionLoader;
 
     private transient Cache<String, Serializable> workCache;
 
-    public void setWorkerEnvironment(int segment, int sessionsPerSegment, SessionLoader sessionLoader) {
+    public void setWorkerEnvironment(int segment, int segmentsCount, int sessionsPerSegment, SessionLoader sessionLoader) {
         this.segment = segment;
+        this.segmentsCount = segmentsCount;
         this.sessionsPerSegment = sessionsPerSegment;
         this.sessionLoader = sessionLoader;
     }
@@ -64,14 +66,11 @@ public class SessionInitializerWorker implements DistributedCallable<String, Ser
             return InfinispanUserSessionInitializer.WorkerResult.create(segment, false);
         }
 
-        final int first = segment * sessionsPerSegment;
-        final int max = sessionsPerSegment;
-
         KeycloakModelUtils.runJobInTransaction(sessionFactory, new KeycloakSessionTask() {
 
             @Override
             public void run(KeycloakSession session) {
-                sessionLoader.loadSessions(session, first, max);
+                sessionLoader.loadSessions(session, segment, segmentsCount, sessionsPerSegment);
             }
 
         });
@@ -30,5 +30,6 @@ public interface SessionLoader extends Serializable {
 
     int getSessionsCount(KeycloakSession session);
 
-    boolean loadSessions(KeycloakSession session, int first, int max);
+    // Load all sessions of the given segment. Sessions are loaded in pages of "sessionsPerPage" sessions
+    boolean loadSessions(KeycloakSession session, int segment, int segmentsCount, int sessionsPerPage);
 }
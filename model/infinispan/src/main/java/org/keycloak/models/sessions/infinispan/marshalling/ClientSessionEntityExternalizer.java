@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.models.sessions.infinispan.marshalling;
+
+import org.infinispan.commons.marshall.AdvancedExternalizer;
+import org.keycloak.models.ClientSessionModel;
+import org.keycloak.models.sessions.infinispan.entities.ClientSessionEntity;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Externalizer of {@link ClientSessionEntity}.
+ */
+public class ClientSessionEntityExternalizer implements AdvancedExternalizer<ClientSessionEntity> {
+
+    private static final int VERSION_1 = 1;
+
+    @Override
+    public Set<Class<? extends ClientSessionEntity>> getTypeClasses() {
+        return Collections.<Class<? extends ClientSessionEntity>>singleton(ClientSessionEntity.class);
+    }
+
+    @Override
+    public Integer getId() {
+        return SessionExternalizers.CLIENT_SESSION_ENTITY;
+    }
+
+    @Override
+    public void writeObject(ObjectOutput output, ClientSessionEntity entity) throws IOException {
+        KeycloakMarshallUtil.writeVersion(output, VERSION_1);
+        KeycloakMarshallUtil.writeSessionEntity(output, entity);
+
+        KeycloakMarshallUtil.writeString(output, entity.getClient());
+        KeycloakMarshallUtil.writeString(output, entity.getUserSession());
+        KeycloakMarshallUtil.writeString(output, entity.getAuthMethod());
+        KeycloakMarshallUtil.writeString(output, entity.getRedirectUri());
+        output.writeInt(entity.getTimestamp());
+        KeycloakMarshallUtil.writeString(output, entity.getAction());
+        KeycloakMarshallUtil.writeString(output, entity.getAuthUserId());
+        KeycloakMarshallUtil.writeStringCollection(output, entity.getRoles());
+        KeycloakMarshallUtil.writeStringCollection(output, entity.getProtocolMappers());
+        KeycloakMarshallUtil.writeStringMap(output, entity.getNotes());
+        KeycloakMarshallUtil.writeStringMap(output, entity.getUserSessionNotes());
+        KeycloakMarshallUtil.writeEnumMap(output, entity.getAuthenticatorStatus());
+        KeycloakMarshallUtil.writeStringCollection(output, entity.getRequiredActions());
+    }
+
+    @Override
+    public ClientSessionEntity readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+        KeycloakMarshallUtil.readVersion(input, VERSION_1, ClientSessionEntity.class);
+        ClientSessionEntity entity = new ClientSessionEntity();
+        KeycloakMarshallUtil.readSessionEntity(input, entity);
+
+        entity.setClient(KeycloakMarshallUtil.readString(input));
+        entity.setUserSession(KeycloakMarshallUtil.readString(input));
+        entity.setAuthMethod(KeycloakMarshallUtil.readString(input));
+        entity.setRedirectUri(KeycloakMarshallUtil.readString(input));
+        entity.setTimestamp(input.readInt());
+        entity.setAction(KeycloakMarshallUtil.readString(input));
+        entity.setAuthUserId(KeycloakMarshallUtil.readString(input));
+        entity.setRoles(KeycloakMarshallUtil.readStringSet(input));
+        entity.setProtocolMappers(KeycloakMarshallUtil.readStringSet(input));
+        entity.setNotes(KeycloakMarshallUtil.readStringMap(input));
+        entity.setUserSessionNotes(KeycloakMarshallUtil.readStringMap(input));
+        entity.setAuthenticatorStatus(KeycloakMarshallUtil.readEnumMap(input, ClientSessionModel.ExecutionStatus.class));
+
+        Set<String> requiredActions = KeycloakMarshallUtil.readStringSet(input);
+        if (requiredActions != null) {
+            entity.getRequiredActions().addAll(requiredActions);
+        }
+        return entity;
+    }
+
+}
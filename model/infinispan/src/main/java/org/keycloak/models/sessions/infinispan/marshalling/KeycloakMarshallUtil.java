@@ -0,0 +1,259 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.models.sessions.infinispan.marshalling;
+
+import org.keycloak.models.sessions.infinispan.entities.SessionEntity;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Helpers for the compact binary format of session entities. Counters and differences are written as varints, strings in the canonical
+ * UUID format (which is the case of almost all IDs) as 16 bytes and other strings as length-prefixed UTF-8. Null
+ * strings, collections and maps are preserved.
+ */
+public class KeycloakMarshallUtil {
+
+    private static final byte NULL_STRING = 0;
+    private static final byte UUID_STRING = 1;
+    private static final byte UTF8_STRING = 2;
+
+    private static final int UUID_LENGTH = 36;
+
+    public static void writeVersion(ObjectOutput output, int version) throws IOException {
+        output.writeByte(version);
+    }
+
+    public static int readVersion(ObjectInput input, int maxVersion, Class<?> type) throws IOException {
+        int version = input.readUnsignedByte();
+        if (version < 1 || version > maxVersion) {
+            throw new IOException("Unsupported version " + version + " of " + type.getSimpleName() + ". Maximum supported version is " + maxVersion);
+        }
+        return version;
+    }
+
+    public static void writeSessionEntity(ObjectOutput output, SessionEntity entity) throws IOException {
+        writeString(output, entity.getId());
+        writeString(output, entity.getRealm());
+    }
+
+    public static void readSessionEntity(ObjectInput input, SessionEntity entity) throws IOException {
+        entity.setId(readString(input));
+        entity.setRealm(readString(input));
+    }
+
+    public static void writeString(ObjectOutput output, String str) throws IOException {
+        if (str == null) {
+            output.writeByte(NULL_STRING);
+        } else if (isCanonicalUUID(str)) {
+            UUID uuid = UUID.fromString(str);
+            output.writeByte(UUID_STRING);
+            output.writeLong(uuid.getMostSignificantBits());
+            output.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+            output.writeByte(UTF8_STRING);
+            writeVarInt(output, bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    public static String readString(ObjectInput input) throws IOException {
+        byte type = input.readByte();
+        switch (type) {
+            case NULL_STRING:
+                return null;
+            case UUID_STRING:
+                return new UUID(input.readLong(), input.readLong()).toString();
+            case UTF8_STRING:
+                byte[] bytes = new byte[readVarInt(input)];
+                input.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            default:
+                throw new IOException("Unknown type of string: " + type);
+        }
+    }
+
+    // Just lowercase UUIDs with leading zeros are decoded back to the same string
+    static boolean isCanonicalUUID(String str) {
+        if (str.length() != UUID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            char c = str.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static <E extends Enum<E>> void writeEnum(ObjectOutput output, E value) throws IOException {
+        writeString(output, value == null ? null : value.name());
+    }
+
+    public static <E extends Enum<E>> E readEnum(ObjectInput input, Class<E> enumType) throws IOException {
+        String name = readString(input);
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(enumType, name);
+        } catch (IllegalArgumentException iae) {
+            throw new IOException("Unknown value " + name + " of " + enumType.getSimpleName(), iae);
+        }
+    }
+
+    public static void writeStringCollection(ObjectOutput output, Collection<String> collection) throws IOException {
+        if (collection == null) {
+            writeVarInt(output, 0);
+            return;
+        }
+        writeVarInt(output, collection.size() + 1);
+        for (String str : collection) {
+            writeString(output, str);
+        }
+    }
+
+    public static Set<String> readStringSet(ObjectInput input) throws IOException {
+        int size = readVarInt(input) - 1;
+        if (size < 0) {
+            return null;
+        }
+        Set<String> set = new HashSet<>(capacity(size));
+        for (int i = 0; i < size; i++) {
+            set.add(readString(input));
+        }
+        return set;
+    }
+
+    public static void writeStringMap(ObjectOutput output, Map<String, String> map) throws IOException {
+        if (map == null) {
+            writeVarInt(output, 0);
+            return;
+        }
+        writeVarInt(output, map.size() + 1);
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            writeString(output, entry.getKey());
+            writeString(output, entry.getValue());
+        }
+    }
+
+    public static Map<String, String> readStringMap(ObjectInput input) throws IOException {
+        int size = readVarInt(input) - 1;
+        if (size < 0) {
+            return null;
+        }
+        Map<String, String> map = new HashMap<>(capacity(size));
+        for (int i = 0; i < size; i++) {
+            map.put(readString(input), readString(input));
+        }
+        return map;
+    }
+
+    public static <E extends Enum<E>> void writeEnumMap(ObjectOutput output, Map<String, E> map) throws IOException {
+        if (map == null) {
+            writeVarInt(output, 0);
+            return;
+        }
+        writeVarInt(output, map.size() + 1);
+        for (Map.Entry<String, E> entry : map.entrySet()) {
+            writeString(output, entry.getKey());
+            writeEnum(output, entry.getValue());
+        }
+    }
+
+    public static <E extends Enum<E>> Map<String, E> readEnumMap(ObjectInput input, Class<E> enumType) throws IOException {
+        int size = readVarInt(input) - 1;
+        if (size < 0) {
+            return null;
+        }
+        Map<String, E> map = new HashMap<>(capacity(size));
+        for (int i = 0; i < size; i++) {
+            map.put(readString(input), readEnum(input, enumType));
+        }
+        return map;
+    }
+
+    private static int capacity(int size) {
+        return Math.max((int) (size / 0.75f) + 1, 16);
+    }
+
+    public static void writeVarInt(ObjectOutput output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    public static int readVarInt(ObjectInput input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    public static void writeVarLong(ObjectOutput output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+
+    public static long readVarLong(ObjectInput input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varlong");
+    }
+
+    // Zigzag encoding, so small negative values are written in few bytes too
+    public static void writeSignedVarInt(ObjectOutput output, int value) throws IOException {
+        writeVarInt(output, (value << 1) ^ (value >> 31));
+    }
+
+    public static int readSignedVarInt(ObjectInput input) throws IOException {
+        int value = readVarInt(input);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.models.sessions.infinispan.marshalling;
+
+import org.infinispan.commons.marshall.AdvancedExternalizer;
+import org.keycloak.models.sessions.infinispan.entities.LoginFailureEntity;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Externalizer of {@link LoginFailureEntity}.
+ */
+public class LoginFailureEntityExternalizer implements AdvancedExternalizer<LoginFailureEntity> {
+
+    private static final int VERSION_1 = 1;
+
+    @Override
+    public Set<Class<? extends LoginFailureEntity>> getTypeClasses() {
+        return Collections.<Class<? extends LoginFailureEntity>>singleton(LoginFailureEntity.class);
+    }
+
+    @Override
+    public Integer getId() {
+        return SessionExternalizers.LOGIN_FAILURE_ENTITY;
+    }
+
+    @Override
+    public void writeObject(ObjectOutput output, LoginFailureEntity entity) throws IOException {
+        KeycloakMarshallUtil.writeVersion(output, VERSION_1);
+
+        KeycloakMarshallUtil.writeString(output, entity.getUserId());
+        KeycloakMarshallUtil.writeString(output, entity.getRealm());
+        KeycloakMarshallUtil.writeVarInt(output, entity.getFailedLoginNotBefore());
+        KeycloakMarshallUtil.writeVarInt(output, entity.getNumFailures());
+        KeycloakMarshallUtil.writeVarLong(output, entity.getLastFailure());
+        KeycloakMarshallUtil.writeString(output, entity.getLastIPFailure());
+    }
+
+    @Override
+    public LoginFailureEntity readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+        KeycloakMarshallUtil.readVersion(input, VERSION_1, LoginFailureEntity.class);
+        LoginFailureEntity entity = new LoginFailureEntity();
+
+        entity.setUserId(KeycloakMarshallUtil.readString(input));
+        entity.setRealm(KeycloakMarshallUtil.readString(input));
+        entity.setFailedLoginNotBefore(KeycloakMarshallUtil.readVarInt(input));
+        entity.setNumFailures(KeycloakMarshallUtil.readVarInt(input));
+        entity.setLastFailure(KeycloakMarshallUtil.readVarLong(input));
+        entity.setLastIPFailure(KeycloakMarshallUtil.readString(input));
+        return entity;
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.models.sessions.infinispan.marshalling;
+
+import org.infinispan.commons.marshall.AdvancedExternalizer;
+import org.keycloak.models.sessions.infinispan.entities.LoginFailureKey;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Externalizer of {@link LoginFailureKey}.
+ */
+public class LoginFailureKeyExternalizer implements AdvancedExternalizer<LoginFailureKey> {
+
+    private static final int VERSION_1 = 1;
+
+    @Override
+    public Set<Class<? extends LoginFailureKey>> getTypeClasses() {
+        return Collections.<Class<? extends LoginFailureKey>>singleton(LoginFailureKey.class);
+    }
+
+    @Override
+    public Integer getId() {
+        return SessionExternalizers.LOGIN_FAILURE_KEY;
+    }
+
+    @Override
+    public void writeObject(ObjectOutput output, LoginFailureKey key) throws IOException {
+        KeycloakMarshallUtil.writeVersion(output, VERSION_1);
+
+        KeycloakMarshallUtil.writeString(output, key.getRealm());
+        KeycloakMarshallUtil.writeString(output, key.getUserId());
+    }
+
+    @Override
+    public LoginFailureKey readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+        KeycloakMarshallUtil.readVersion(input, VERSION_1, LoginFailureKey.class);
+
+        String realm = KeycloakMarshallUtil.readString(input);
+        String userId = KeycloakMarshallUtil.readString(input);
+        return new LoginFailureKey(realm, userId);
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.models.sessions.infinispan.marshalling;
+
+import org.infinispan.commons.marshall.AdvancedExternalizer;
+import org.keycloak.models.sessions.infinispan.entities.SessionEntity;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Externalizer of plain {@link SessionEntity}. Subclasses have their own externalizers.
+ */
+public class SessionEntityExternalizer implements AdvancedExternalizer<SessionEntity> {
+
+    private static final int VERSION_1 = 1;
+
+    @Override
+    public Set<Class<? extends SessionEntity>> getTypeClasses() {
+        return Collections.<Class<? extends SessionEntity>>singleton(SessionEntity.class);
+    }
+
+    @Override
+    public Integer getId() {
+        return SessionExternalizers.SESSION_ENTITY;
+    }
+
+    @Override
+    public void writeObject(ObjectOutput output, SessionEntity entity) throws IOException {
+        KeycloakMarshallUtil.writeVersion(output, VERSION_1);
+        KeycloakMarshallUtil.writeSessionEntity(output, entity);
+    }
+
+    @Override
+    public SessionEntity readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+        KeycloakMarshallUtil.readVersion(input, VERSION_1, SessionEntity.class);
+        SessionEntity entity = new SessionEntity();
+        KeycloakMarshallUtil.readSessionEntity(input, entity);
+        return entity;
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.models.sessions.infinispan.marshalling;
+
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.configuration.global.SerializationConfigurationBuilder;
+
+/**
+ * IDs and registration of the {@link org.infinispan.commons.marshall.AdvancedExternalizer}s for session entities.
+ * Externalizers are also referenced from entities with {@link org.infinispan.commons.marshall.SerializeWith}, so the
+ * compact format is used with container managed cache container as well.
+ */
+public class SessionExternalizers {
+
+    // IDs below 2000 are reserved by Infinispan
+    public static final int SESSION_ENTITY = 65500;
+    public static final int USER_SESSION_ENTITY = 65501;
+    public static final int CLIENT_SESSION_ENTITY = 65502;
+    public static final int LOGIN_FAILURE_ENTITY = 65503;
+    public static final int LOGIN_FAILURE_KEY = 65504;
+
+    public static void register(GlobalConfigurationBuilder gcb) {
+        SerializationConfigurationBuilder serialization = gcb.serialization();
+        serialization.addAdvancedExternalizer(SESSION_ENTITY, new SessionEntityExternalizer());
+        serialization.addAdvancedExternalizer(USER_SESSION_ENTITY, new UserSessionEntityExternalizer());
+        serialization.addAdvancedExternalizer(CLIENT_SESSION_ENTITY, new ClientSessionEntityExternalizer());
+        serialization.addAdvancedExternalizer(LOGIN_FAILURE_ENTITY, new LoginFailureEntityExternalizer());
+        serialization.addAdvancedExternalizer(LOGIN_FAILURE_KEY, new LoginFailureKeyExternalizer());
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.models.sessions.infinispan.marshalling;
+
+import org.infinispan.commons.marshall.AdvancedExternalizer;
+import org.keycloak.models.UserSessionModel;
+import org.keycloak.models.sessions.infinispan.entities.UserSessionEntity;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Externalizer of {@link UserSessionEntity}. Last refresh is written as varint difference from the start of the session, which is usually small.
+ */
+public class UserSessionEntityExternalizer implements AdvancedExternalizer<UserSessionEntity> {
+
+    private static final int VERSION_1 = 1;
+
+    @Override
+    public Set<Class<? extends UserSessionEntity>> getTypeClasses() {
+        return Collections.<Class<? extends UserSessionEntity>>singleton(UserSessionEntity.class);
+    }
+
+    @Override
+    public Integer getId() {
+        return SessionExternalizers.USER_SESSION_ENTITY;
+    }
+
+    @Override
+    public void writeObject(ObjectOutput output, UserSessionEntity entity) throws IOException {
+        KeycloakMarshallUtil.writeVersion(output, VERSION_1);
+        KeycloakMarshallUtil.writeSessionEntity(output, entity);
+
+        KeycloakMarshallUtil.writeString(output, entity.getUser());
+        KeycloakMarshallUtil.writeString(output, entity.getLoginUsername());
+        KeycloakMarshallUtil.writeString(output, entity.getIpAddress());
+        KeycloakMarshallUtil.writeString(output, entity.getAuthMethod());
+        KeycloakMarshallUtil.writeString(output, entity.getBrokerSessionId());
+        KeycloakMarshallUtil.writeString(output, entity.getBrokerUserId());
+        output.writeBoolean(entity.isRememberMe());
+        output.writeInt(entity.getStarted());
+        KeycloakMarshallUtil.writeSignedVarInt(output, entity.getLastSessionRefresh() - entity.getStarted());
+        KeycloakMarshallUtil.writeEnum(output, entity.getState());
+        KeycloakMarshallUtil.writeStringCollection(output, entity.getClientSessions());
+        KeycloakMarshallUtil.writeStringMap(output, entity.getNotes());
+    }
+
+    @Override
+    public UserSessionEntity readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+        KeycloakMarshallUtil.readVersion(input, VERSION_1, UserSessionEntity.class);
+        UserSessionEntity entity = new UserSessionEntity();
+        KeycloakMarshallUtil.readSessionEntity(input, entity);
+
+        entity.setUser(KeycloakMarshallUtil.readString(input));
+        entity.setLoginUsername(KeycloakMarshallUtil.readString(input));
+        entity.setIpAddress(KeycloakMarshallUtil.readString(input));
+        entity.setAuthMethod(KeycloakMarshallUtil.readString(input));
+        entity.setBrokerSessionId(KeycloakMarshallUtil.readString(input));
+        entity.setBrokerUserId(KeycloakMarshallUtil.readString(input));
+        entity.setRememberMe(input.readBoolean());
+        entity.setStarted(input.readInt());
+        entity.setLastSessionRefresh(entity.getStarted() + KeycloakMarshallUtil.readSignedVarInt(input));
+        entity.setState(KeycloakMarshallUtil.readEnum(input, UserSessionModel.State.class));
+        entity.setClientSessions(KeycloakMarshallUtil.readStringSet(input));
+        entity.setNotes(KeycloakMarshallUtil.readStringMap(input));
+        return entity;
+    }
+
+}
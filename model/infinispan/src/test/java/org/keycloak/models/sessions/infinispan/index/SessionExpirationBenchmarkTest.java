@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.models.sessions.infinispan.index;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.jboss.logging.Logger;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.keycloak.models.sessions.infinispan.entities.ClientSessionEntity;
+import org.keycloak.models.sessions.infinispan.entities.SessionEntity;
+import org.keycloak.models.sessions.infinispan.entities.UserSessionEntity;
+import org.keycloak.models.sessions.infinispan.stream.ClientSessionPredicate;
+import org.keycloak.models.sessions.infinispan.stream.UserSessionPredicate;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Compares the cost of one expiration tick done with full cache scan and with {@link SessionIndex} for growing count of
+ * sessions. Every active user session has an attached client session, which is older than the detached client session
+ * lifespan. Count of expired user sessions and detached client sessions in each tick is same, so the indexed tick should
+ * stay flat.
+ *
+ * Not executed during build. Run manually.
+ */
+@Ignore
+public class SessionExpirationBenchmarkTest {
+
+    private static final Logger logger = Logger.getLogger(SessionExpirationBenchmarkTest.class);
+
+    private static final int EXPIRED_PER_TICK = 1000;
+    private static final int TICKS = 20;
+
+    private static final int CURRENT_TIME = 1000000;
+    private static final int IDLE_TIMEOUT = 1800;
+    private static final int TICK_INTERVAL = 900;
+
+    @Test
+    public void benchmark() {
+        for (int sessions : new int[] { 10000, 100000, 1000000 }) {
+            runBenchmark(sessions);
+        }
+    }
+
+    private void runBenchmark(int sessionsCount) {
+        GlobalConfigurationBuilder gcb = new GlobalConfigurationBuilder();
+        gcb.globalJmxStatistics().allowDuplicateDomains(true);
+        DefaultCacheManager cacheManager = new DefaultCacheManager(gcb.build());
+        cacheManager.defineConfiguration("sessions", new ConfigurationBuilder().build());
+        Cache<String, SessionEntity> cache = cacheManager.getCache("sessions");
+
+        try {
+            SessionIndex index = new SessionIndex();
+            cache.addListener(index);
+
+            // Active sessions, which won't expire during the benchmark. Their client sessions are older than any cutoff
+            for (int i = 0; i < sessionsCount; i++) {
+                putUserSession(cache, "active-" + i, CURRENT_TIME);
+                putClientSession(cache, "active-client-" + i, "active-" + i, CURRENT_TIME - IDLE_TIMEOUT - (TICKS + 1) * TICK_INTERVAL);
+            }
+
+            // Sessions and detached client sessions expiring in every tick
+            for (int tick = 0; tick < TICKS; tick++) {
+                for (int i = 0; i < EXPIRED_PER_TICK; i++) {
+                    int timestamp = CURRENT_TIME - IDLE_TIMEOUT - (TICKS - tick) * TICK_INTERVAL;
+                    putUserSession(cache, "expired-" + tick + "-" + i, timestamp);
+                    putClientSession(cache, "expired-client-" + tick + "-" + i, null, timestamp);
+                }
+            }
+
+            long userSessionsScanTime = 0;
+            long userSessionsIndexTime = 0;
+            long clientSessionsScanTime = 0;
+            long clientSessionsIndexTime = 0;
+            for (int tick = 0; tick < TICKS; tick++) {
+                int expiredRefresh = CURRENT_TIME - IDLE_TIMEOUT - (TICKS - tick) * TICK_INTERVAL;
+
+                UserSessionPredicate userSessionPredicate = UserSessionPredicate.create("realm").expired(null, expiredRefresh);
+                userSessionsScanTime += scan(cache, userSessionPredicate);
+                userSessionsIndexTime += expireIndexed(cache, index.getUserSessionsRefreshedBefore("realm", expiredRefresh), userSessionPredicate);
+
+                ClientSessionPredicate clientSessionPredicate = ClientSessionPredicate.create("realm").expiredRefresh(expiredRefresh).requireNullUserSession();
+                clientSessionsScanTime += scan(cache, clientSessionPredicate);
+                clientSessionsIndexTime += expireIndexed(cache, index.getDetachedClientSessionsBefore("realm", expiredRefresh), clientSessionPredicate);
+            }
+
+            logger.infof("Sessions: %d, avg tick with cache scan: %d us, avg tick with index (including removal): %d us",
+                    sessionsCount, userSessionsScanTime / TICKS / 1000, userSessionsIndexTime / TICKS / 1000);
+            logger.infof("Detached client sessions with %d attached ones: avg tick with cache scan: %d us, avg tick with index (including removal): %d us",
+                    sessionsCount, clientSessionsScanTime / TICKS / 1000, clientSessionsIndexTime / TICKS / 1000);
+        } finally {
+            cacheManager.stop();
+        }
+    }
+
+    private long scan(Cache<String, SessionEntity> cache, Predicate<Map.Entry<String, SessionEntity>> predicate) {
+        long start = System.nanoTime();
+        int scanned = 0;
+        Iterator<Map.Entry<String, SessionEntity>> itr = cache.entrySet().stream().filter(predicate).iterator();
+        while (itr.hasNext()) {
+            itr.next();
+            scanned++;
+        }
+        long time = System.nanoTime() - start;
+
+        if (scanned != EXPIRED_PER_TICK) {
+            throw new IllegalStateException("Expected " + EXPIRED_PER_TICK + " expired sessions, scan found " + scanned);
+        }
+        return time;
+    }
+
+    private long expireIndexed(Cache<String, SessionEntity> cache, Set<String> ids, Predicate<Map.Entry<String, SessionEntity>> predicate) {
+        long start = System.nanoTime();
+        int found = 0;
+        for (Map.Entry<String, SessionEntity> entry : cache.getAdvancedCache().getAll(ids).entrySet()) {
+            if (predicate.test(entry)) {
+                cache.remove(entry.getKey());
+                found++;
+            }
+        }
+        long time = System.nanoTime() - start;
+
+        if (ids.size() != EXPIRED_PER_TICK || found != EXPIRED_PER_TICK) {
+            throw new IllegalStateException("Expected " + EXPIRED_PER_TICK + " expired sessions, index returned " + ids.size() + " and found " + found);
+        }
+        return time;
+    }
+
+    private void putUserSession(Cache<String, SessionEntity> cache, String id, int lastSessionRefresh) {
+        UserSessionEntity entity = new UserSessionEntity();
+        entity.setId(id);
+        entity.setRealm("realm");
+        entity.setUser(id);
+        entity.setStarted(lastSessionRefresh);
+        entity.setLastSessionRefresh(lastSessionRefresh);
+        cache.put(id, entity);
+    }
+
+    private void putClientSession(Cache<String, SessionEntity> cache, String id, String userSession, int timestamp) {
+        ClientSessionEntity entity = new ClientSessionEntity();
+        entity.setId(id);
+        entity.setRealm("realm");
+        entity.setClient("client");
+        entity.setUserSession(userSession);
+        entity.setTimestamp(timestamp);
+        cache.put(id, entity);
+    }
+
+}
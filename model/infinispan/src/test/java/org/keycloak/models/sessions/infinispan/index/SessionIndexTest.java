@@ -0,0 +1,263 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.models.sessions.infinispan.index;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.Flag;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.models.sessions.infinispan.UserSessionTimestamp;
+import org.keycloak.models.sessions.infinispan.entities.ClientSessionEntity;
+import org.keycloak.models.sessions.infinispan.entities.SessionEntity;
+import org.keycloak.models.sessions.infinispan.entities.UserSessionEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class SessionIndexTest {
+
+    private DefaultCacheManager cacheManager;
+    private Cache<String, SessionEntity> cache;
+
+    @Before
+    public void before() {
+        GlobalConfigurationBuilder gcb = new GlobalConfigurationBuilder();
+        gcb.globalJmxStatistics().allowDuplicateDomains(true);
+        cacheManager = new DefaultCacheManager(gcb.build());
+        cacheManager.defineConfiguration("sessions", new ConfigurationBuilder().build());
+        cache = cacheManager.getCache("sessions");
+    }
+
+    @After
+    public void after() {
+        cacheManager.stop();
+    }
+
+    @Test
+    public void testIndexUpdatedFromCache() {
+        SessionIndex index = new SessionIndex();
+        cache.addListener(index);
+
+        cache.put("us1", userSession("us1", "realm1", "user1", "broker-session1", "broker-user1"));
+        cache.put("us2", userSession("us2", "realm1", "user1", null, null));
+        cache.put("us3", userSession("us3", "realm2", "user1", null, null));
+        cache.put("cs1", clientSession("cs1", "realm1", "client1", "us1"));
+
+        assertIds(index.getUserSessionsByUser("realm1", "user1"), "us1", "us2");
+        assertIds(index.getUserSessionsByUser("realm2", "user1"), "us3");
+        assertIds(index.getUserSessionsByBrokerSessionId("realm1", "broker-session1"), "us1");
+        assertIds(index.getUserSessionsByBrokerUserId("realm1", "broker-user1"), "us1");
+        assertIds(index.getClientSessionsByClient("realm1", "client1"), "cs1");
+        assertIds(index.getClientSessionsByClient("realm2", "client1"));
+
+        cache.replace("cs1", clientSession("cs1", "realm1", "client2", null));
+        assertIds(index.getClientSessionsByClient("realm1", "client1"));
+        assertIds(index.getClientSessionsByClient("realm1", "client2"), "cs1");
+
+        cache.remove("us1");
+        cache.remove("cs1");
+        assertIds(index.getUserSessionsByUser("realm1", "user1"), "us2");
+        assertIds(index.getUserSessionsByBrokerSessionId("realm1", "broker-session1"));
+        assertIds(index.getClientSessionsByClient("realm1", "client2"));
+    }
+
+    @Test
+    public void testIndexIncludesCurrentState() {
+        cache.put("us1", userSession("us1", "realm1", "user1", null, null));
+        cache.put("cs1", clientSession("cs1", "realm1", "client1", "us1"));
+
+        SessionIndex index = new SessionIndex();
+        cache.addListener(index);
+
+        assertIds(index.getUserSessionsByUser("realm1", "user1"), "us1");
+        assertIds(index.getClientSessionsByClient("realm1", "client1"), "cs1");
+    }
+
+    @Test
+    public void testExpirationBuckets() {
+        SessionIndex index = new SessionIndex();
+        cache.addListener(index);
+
+        UserSessionEntity us1 = userSession("us1", "realm1", "user1", null, null);
+        us1.setStarted(1000);
+        us1.setLastSessionRefresh(1000);
+        cache.put("us1", us1);
+
+        UserSessionEntity us2 = userSession("us2", "realm1", "user1", null, null);
+        us2.setStarted(1000);
+        us2.setLastSessionRefresh(5000);
+        cache.put("us2", us2);
+
+        ClientSessionEntity cs1 = clientSession("cs1", "realm1", "client1", null);
+        cs1.setTimestamp(2000);
+        cache.put("cs1", cs1);
+
+        ClientSessionEntity cs2 = clientSession("cs2", "realm1", "client1", "us1");
+        cs2.setTimestamp(2000);
+        cache.put("cs2", cs2);
+
+        assertIds(index.getUserSessionsStartedBefore("realm1", 999 - SessionIndex.EXPIRATION_BUCKET_SECONDS));
+        assertIds(index.getUserSessionsStartedBefore("realm1", 1000), "us1", "us2");
+        assertIds(index.getUserSessionsRefreshedBefore("realm1", 1000), "us1");
+        assertIds(index.getUserSessionsRefreshedBefore("realm2", 1000));
+        assertIds(index.getClientSessionsBefore("realm1", 1500));
+        assertIds(index.getClientSessionsBefore("realm1", 2000), "cs1", "cs2");
+        assertIds(index.getDetachedClientSessionsBefore("realm1", 2000), "cs1");
+
+        // Attaching and detaching moves the client session in or out of detached sessions
+        cs1 = clientSession("cs1", "realm1", "client1", "us2");
+        cs1.setTimestamp(2000);
+        cache.replace("cs1", cs1);
+        cs2 = clientSession("cs2", "realm1", "client1", null);
+        cs2.setTimestamp(2000);
+        cache.replace("cs2", cs2);
+
+        assertIds(index.getClientSessionsBefore("realm1", 2000), "cs1", "cs2");
+        assertIds(index.getDetachedClientSessionsBefore("realm1", 2000), "cs2");
+
+        // Refresh moves the session to the other bucket
+        UserSessionEntity refreshed = userSession("us1", "realm1", "user1", null, null);
+        refreshed.setStarted(1000);
+        refreshed.setLastSessionRefresh(6000);
+        cache.replace("us1", refreshed);
+
+        assertIds(index.getUserSessionsRefreshedBefore("realm1", 1000));
+        assertIds(index.getUserSessionsRefreshedBefore("realm1", 6000), "us1", "us2");
+
+        cache.remove("us2");
+        assertIds(index.getUserSessionsStartedBefore("realm1", 1000), "us1");
+    }
+
+    @Test
+    public void testRemoveStale() {
+        SessionIndex index = new SessionIndex();
+        cache.addListener(index);
+
+        cache.put("us1", userSession("us1", "realm1", "user1", null, null));
+        cache.put("us2", userSession("us2", "realm1", "user1", null, null));
+
+        // Removed without notification, like evicted entry
+        cache.getAdvancedCache().withFlags(Flag.SKIP_LISTENER_NOTIFICATION).remove("us1");
+        assertIds(index.getUserSessionsByUser("realm1", "user1"), "us1", "us2");
+        Assert.assertEquals(2, index.getUserSessionsCount("realm1"));
+
+        index.removeStale("us1");
+        assertIds(index.getUserSessionsByUser("realm1", "user1"), "us2");
+        Assert.assertEquals(1, index.getUserSessionsCount("realm1"));
+    }
+
+    @Test
+    public void testUserSessionsByClientPaging() {
+        SessionIndex index = new SessionIndex();
+        cache.addListener(index);
+
+        for (int i = 0; i < 10; i++) {
+            ClientSessionEntity clientSession = clientSession("cs" + i, "realm1", "client1", "us" + i);
+            clientSession.setTimestamp(1000 - i);
+            cache.put(clientSession.getId(), clientSession);
+        }
+
+        // Second client session of us9 with the latest timestamp moves it to the end
+        ClientSessionEntity clientSession = clientSession("cs-latest", "realm1", "client1", "us9");
+        clientSession.setTimestamp(2000);
+        cache.put(clientSession.getId(), clientSession);
+
+        // Detached client session isn't counted
+        cache.put("cs-detached", clientSession("cs-detached", "realm1", "client1", null));
+
+        Assert.assertEquals(10, index.getUserSessionsCountByClient("realm1", "client1"));
+        Assert.assertEquals(0, index.getUserSessionsCountByClient("realm1", "client2"));
+
+        List<UserSessionTimestamp> page = index.getUserSessionsByClient("realm1", "client1", 0, 3);
+        assertUserSessions(page, "us8", "us7", "us6");
+
+        page = index.getUserSessionsByClient("realm1", "client1", 7, 5);
+        assertUserSessions(page, "us1", "us0", "us9");
+        Assert.assertEquals(2000, page.get(2).getClientSessionTimestamp());
+
+        page = index.getUserSessionsByClient("realm1", "client1", 10, 5);
+        Assert.assertTrue(page.isEmpty());
+
+        Assert.assertEquals(10, index.getUserSessionsByClient("realm1", "client1", -1, -1).size());
+
+        cache.remove("cs-latest");
+        cache.remove("cs9");
+        Assert.assertEquals(9, index.getUserSessionsCountByClient("realm1", "client1"));
+        assertUserSessions(index.getUserSessionsByClient("realm1", "client1", 8, 5), "us0");
+    }
+
+    @Test
+    public void testUserSessionsCountByClients() {
+        SessionIndex index = new SessionIndex();
+        cache.addListener(index);
+
+        cache.put("cs1", clientSession("cs1", "realm1", "client1", "us1"));
+        cache.put("cs2", clientSession("cs2", "realm1", "client1", "us2"));
+        cache.put("cs3", clientSession("cs3", "realm1", "client2", "us1"));
+        cache.put("cs4", clientSession("cs4", "realm2", "client1", "us3"));
+
+        Map<String, Long> counts = index.getUserSessionsCountByClients("realm1");
+        Assert.assertEquals(2, counts.size());
+        Assert.assertEquals(Long.valueOf(2), counts.get("client1"));
+        Assert.assertEquals(Long.valueOf(1), counts.get("client2"));
+        Assert.assertEquals(Long.valueOf(1), index.getUserSessionsCountByClients("realm2").get("client1"));
+
+        cache.remove("cs4");
+        Assert.assertTrue(index.getUserSessionsCountByClients("realm2").isEmpty());
+        Assert.assertTrue(index.getUserSessionsCountByClients("realm3").isEmpty());
+    }
+
+    private void assertUserSessions(List<UserSessionTimestamp> page, String... expected) {
+        Assert.assertEquals(expected.length, page.size());
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i], page.get(i).getUserSessionId());
+        }
+    }
+
+    private void assertIds(Set<String> ids, String... expected) {
+        Assert.assertEquals(expected.length, ids.size());
+        for (String id : expected) {
+            Assert.assertTrue(ids.contains(id));
+        }
+    }
+
+    private UserSessionEntity userSession(String id, String realm, String user, String brokerSessionId, String brokerUserId) {
+        UserSessionEntity entity = new UserSessionEntity();
+        entity.setId(id);
+        entity.setRealm(realm);
+        entity.setUser(user);
+        entity.setBrokerSessionId(brokerSessionId);
+        entity.setBrokerUserId(brokerUserId);
+        return entity;
+    }
+
+    private ClientSessionEntity clientSession(String id, String realm, String client, String userSession) {
+        ClientSessionEntity entity = new ClientSessionEntity();
+        entity.setId(id);
+        entity.setRealm(realm);
+        entity.setClient(client);
+        entity.setUserSession(userSession);
+        return entity;
+    }
+}
@@ -53,6 +53,26 @@ public class InitializerStateTest {
         Assert.assertTrue(state.isFinished());
     }
 
+    @Test
+    public void testSegmentBounds() {
+        Assert.assertNull(OfflineUserSessionLoader.getSegmentBound(0, 1));
+        Assert.assertNull(OfflineUserSessionLoader.getSegmentBound(1, 1));
+
+        Assert.assertNull(OfflineUserSessionLoader.getSegmentBound(0, 4));
+        Assert.assertEquals("40000000", OfflineUserSessionLoader.getSegmentBound(1, 4));
+        Assert.assertEquals("80000000", OfflineUserSessionLoader.getSegmentBound(2, 4));
+        Assert.assertEquals("c0000000", OfflineUserSessionLoader.getSegmentBound(3, 4));
+        Assert.assertNull(OfflineUserSessionLoader.getSegmentBound(4, 4));
+
+        // Bounds are increasing, so the segments don't overlap
+        String previous = OfflineUserSessionLoader.getSegmentBound(1, 1000);
+        for (int i = 2; i < 1000; i++) {
+            String bound = OfflineUserSessionLoader.getSegmentBound(i, 1000);
+            Assert.assertTrue(bound.compareTo(previous) > 0);
+            previous = bound;
+        }
+    }
+
     private void assertContains(List<Integer> segments, int expectedLength, int... expected) {
         Assert.assertEquals(segments.size(), expectedLength);
         for (int i : expected) {
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.models.sessions.infinispan.marshalling;
+
+import org.infinispan.commons.marshall.Externalizer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.keycloak.models.ClientSessionModel;
+import org.keycloak.models.UserSessionModel;
+import org.keycloak.models.sessions.infinispan.entities.ClientSessionEntity;
+import org.keycloak.models.sessions.infinispan.entities.LoginFailureEntity;
+import org.keycloak.models.sessions.infinispan.entities.LoginFailureKey;
+import org.keycloak.models.sessions.infinispan.entities.SessionEntity;
+import org.keycloak.models.sessions.infinispan.entities.UserSessionEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.UUID;
+
+public class SessionExternalizersTest {
+
+    @Test
+    public void testUserSession() throws Exception {
+        UserSessionEntity entity = createUserSession();
+
+        UserSessionEntity read = roundTrip(new UserSessionEntityExternalizer(), entity);
+        Assert.assertEquals(entity.getId(), read.getId());
+        Assert.assertEquals(entity.getRealm(), read.getRealm());
+        Assert.assertEquals(entity.getUser(), read.getUser());
+        Assert.assertEquals(entity.getLoginUsername(), read.getLoginUsername());
+        Assert.assertEquals(entity.getIpAddress(), read.getIpAddress());
+        Assert.assertEquals(entity.getAuthMethod(), read.getAuthMethod());
+        Assert.assertEquals(entity.getBrokerSessionId(), read.getBrokerSessionId());
+        Assert.assertNull(read.getBrokerUserId());
+        Assert.assertTrue(read.isRememberMe());
+        Assert.assertEquals(entity.getStarted(), read.getStarted());
+        Assert.assertEquals(entity.getLastSessionRefresh(), read.getLastSessionRefresh());
+        Assert.assertEquals(UserSessionModel.State.LOGGED_IN, read.getState());
+        Assert.assertEquals(entity.getClientSessions(), read.getClientSessions());
+        Assert.assertEquals(entity.getNotes(), read.getNotes());
+    }
+
+    @Test
+    public void testUserSessionNulls() throws Exception {
+        UserSessionEntity entity = new UserSessionEntity();
+        entity.setStarted(1000);
+        entity.setLastSessionRefresh(500);
+
+        UserSessionEntity read = roundTrip(new UserSessionEntityExternalizer(), entity);
+        Assert.assertNull(read.getId());
+        Assert.assertNull(read.getRealm());
+        Assert.assertNull(read.getUser());
+        Assert.assertNull(read.getState());
+        Assert.assertNull(read.getClientSessions());
+        Assert.assertNull(read.getNotes());
+        Assert.assertEquals(1000, read.getStarted());
+        Assert.assertEquals(500, read.getLastSessionRefresh());
+
+        entity.setClientSessions(new HashSet<String>());
+        entity.setNotes(new HashMap<String, String>());
+        read = roundTrip(new UserSessionEntityExternalizer(), entity);
+        Assert.assertTrue(read.getClientSessions().isEmpty());
+        Assert.assertTrue(read.getNotes().isEmpty());
+    }
+
+    @Test
+    public void testClientSession() throws Exception {
+        ClientSessionEntity entity = createClientSession();
+
+        ClientSessionEntity read = roundTrip(new ClientSessionEntityExternalizer(), entity);
+        Assert.assertEquals(entity.getId(), read.getId());
+        Assert.assertEquals(entity.getRealm(), read.getRealm());
+        Assert.assertEquals(entity.getClient(), read.getClient());
+        Assert.assertEquals(entity.getUserSession(), read.getUserSession());
+        Assert.assertEquals(entity.getAuthMethod(), read.getAuthMethod());
+        Assert.assertEquals(entity.getRedirectUri(), read.getRedirectUri());
+        Assert.assertEquals(entity.getTimestamp(), read.getTimestamp());
+        Assert.assertEquals(entity.getAction(), read.getAction());
+        Assert.assertNull(read.getAuthUserId());
+        Assert.assertEquals(entity.getRoles(), read.getRoles());
+        Assert.assertNull(read.getProtocolMappers());
+        Assert.assertEquals(entity.getNotes(), read.getNotes());
+        Assert.assertEquals(entity.getUserSessionNotes(), read.getUserSessionNotes());
+        Assert.assertEquals(entity.getAuthenticatorStatus(), read.getAuthenticatorStatus());
+        Assert.assertEquals(entity.getRequiredActions(), read.getRequiredActions());
+    }
+
+    @Test
+    public void testLoginFailure() throws Exception {
+        LoginFailureEntity entity = new LoginFailureEntity();
+        entity.setUserId(UUID.randomUUID().toString());
+        entity.setRealm("master");
+        entity.setFailedLoginNotBefore(1480000000);
+        entity.setNumFailures(3);
+        entity.setLastFailure(1480000000123L);
+        entity.setLastIPFailure("127.0.0.1");
+
+        LoginFailureEntity read = roundTrip(new LoginFailureEntityExternalizer(), entity);
+        Assert.assertEquals(entity.getUserId(), read.getUserId());
+        Assert.assertEquals(entity.getRealm(), read.getRealm());
+        Assert.assertEquals(entity.getFailedLoginNotBefore(), read.getFailedLoginNotBefore());
+        Assert.assertEquals(entity.getNumFailures(), read.getNumFailures());
+        Assert.assertEquals(entity.getLastFailure(), read.getLastFailure());
+        Assert.assertEquals(entity.getLastIPFailure(), read.getLastIPFailure());
+
+        LoginFailureKey key = new LoginFailureKey("master", entity.getUserId());
+        Assert.assertEquals(key, roundTrip(new LoginFailureKeyExternalizer(), key));
+    }
+
+    @Test
+    public void testSessionEntity() throws Exception {
+        SessionEntity entity = new SessionEntity();
+        entity.setId("some-id");
+        entity.setRealm(UUID.randomUUID().toString());
+
+        SessionEntity read = roundTrip(new SessionEntityExternalizer(), entity);
+        Assert.assertEquals(entity.getId(), read.getId());
+        Assert.assertEquals(entity.getRealm(), read.getRealm());
+    }
+
+    @Test
+    public void testStrings() throws Exception {
+        // Just canonical UUIDs are coded as UUID, others are kept as they are
+        for (String str : Arrays.asList("", "master", "\u017elu\u0165ou\u010dk\u00fd k\u016f\u0148", UUID.randomUUID().toString(),
+                "6E8BC430-9C3A-11D9-9669-0800200C9A66", "6e8bc430-9c3a-11d9-9669-0800200c9a6", "6e8bc430x9c3a-11d9-9669-0800200c9a66")) {
+            SessionEntity entity = new SessionEntity();
+            entity.setId(str);
+            Assert.assertEquals(str, roundTrip(new SessionEntityExternalizer(), entity).getId());
+        }
+
+        Assert.assertTrue(KeycloakMarshallUtil.isCanonicalUUID("6e8bc430-9c3a-11d9-9669-0800200c9a66"));
+        Assert.assertFalse(KeycloakMarshallUtil.isCanonicalUUID("6E8BC430-9C3A-11D9-9669-0800200C9A66"));
+
+        // Long string, which doesn't fit to writeUTF
+        char[] chars = new char[100000];
+        Arrays.fill(chars, 'x');
+        UserSessionEntity entity = new UserSessionEntity();
+        entity.setNotes(new HashMap<String, String>());
+        entity.getNotes().put("long", new String(chars));
+        Assert.assertEquals(entity.getNotes(), roundTrip(new UserSessionEntityExternalizer(), entity).getNotes());
+    }
+
+    @Test
+    public void testVarInts() throws Exception {
+        for (int value : new int[] { 0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1, -64, -65, Integer.MIN_VALUE }) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream output = new ObjectOutputStream(bytes);
+            KeycloakMarshallUtil.writeVarInt(output, value);
+            KeycloakMarshallUtil.writeSignedVarInt(output, value);
+            KeycloakMarshallUtil.writeVarLong(output, value);
+            KeycloakMarshallUtil.writeVarLong(output, value * 1000L);
+            output.close();
+
+            ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+            Assert.assertEquals(value, KeycloakMarshallUtil.readVarInt(input));
+            Assert.assertEquals(value, KeycloakMarshallUtil.readSignedVarInt(input));
+            Assert.assertEquals(value, KeycloakMarshallUtil.readVarLong(input));
+            Assert.assertEquals(value * 1000L, KeycloakMarshallUtil.readVarLong(input));
+        }
+    }
+
+    // Version 1 of the format written "by hand". Must be always readable by newer versions of the externalizers
+    @Test
+    public void testVersion1Compatibility() throws Exception {
+        UUID userId = UUID.fromString("6e8bc430-9c3a-11d9-9669-0800200c9a66");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream output = new ObjectOutputStream(bytes);
+        output.writeByte(1);
+
+        // realm as UTF-8 string
+        byte[] realm = "master".getBytes(StandardCharsets.UTF_8);
+        output.writeByte(2);
+        output.writeByte(realm.length);
+        output.write(realm);
+
+        // userId as UUID
+        output.writeByte(1);
+        output.writeLong(userId.getMostSignificantBits());
+        output.writeLong(userId.getLeastSignificantBits());
+        output.close();
+
+        ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        LoginFailureKey key = new LoginFailureKeyExternalizer().readObject(input);
+        Assert.assertEquals(new LoginFailureKey("master", userId.toString()), key);
+
+        // Format of the current version is still the same
+        Assert.assertArrayEquals(bytes.toByteArray(), write(new LoginFailureKeyExternalizer(), key));
+    }
+
+    @Test
+    public void testUnsupportedVersion() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream output = new ObjectOutputStream(bytes);
+        output.writeByte(99);
+        output.close();
+
+        try {
+            new UserSessionEntityExternalizer().readObject(new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            Assert.fail("Not expected to read unknown version");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void testSmallerThanJavaSerialization() throws Exception {
+        UserSessionEntity userSession = createUserSession();
+        Assert.assertTrue(write(new UserSessionEntityExternalizer(), userSession).length < serialize(userSession).length / 2);
+
+        ClientSessionEntity clientSession = createClientSession();
+        Assert.assertTrue(write(new ClientSessionEntityExternalizer(), clientSession).length < serialize(clientSession).length / 2);
+    }
+
+    static UserSessionEntity createUserSession() {
+        UserSessionEntity entity = new UserSessionEntity();
+        entity.setId(UUID.randomUUID().toString());
+        entity.setRealm(UUID.randomUUID().toString());
+        entity.setUser(UUID.randomUUID().toString());
+        entity.setLoginUsername("john-doh@localhost");
+        entity.setIpAddress("127.0.0.1");
+        entity.setAuthMethod("openid-connect");
+        entity.setBrokerSessionId("broker-session");
+        entity.setRememberMe(true);
+        entity.setStarted(1480000000);
+        entity.setLastSessionRefresh(1480000300);
+        entity.setState(UserSessionModel.State.LOGGED_IN);
+        entity.setClientSessions(new HashSet<>(Arrays.asList(UUID.randomUUID().toString(), UUID.randomUUID().toString())));
+
+        Map<String, String> notes = new HashMap<>();
+        notes.put("AUTH_TIME", "1480000000");
+        notes.put("KC_DEVICE_NOTE", "some-device");
+        entity.setNotes(notes);
+        return entity;
+    }
+
+    static ClientSessionEntity createClientSession() {
+        ClientSessionEntity entity = new ClientSessionEntity();
+        entity.setId(UUID.randomUUID().toString());
+        entity.setRealm(UUID.randomUUID().toString());
+        entity.setClient(UUID.randomUUID().toString());
+        entity.setUserSession(UUID.randomUUID().toString());
+        entity.setAuthMethod("openid-connect");
+        entity.setRedirectUri("http://localhost:8180/app/auth");
+        entity.setTimestamp(1480000000);
+        entity.setAction("CODE_TO_TOKEN");
+        entity.setRoles(new HashSet<>(Arrays.asList(UUID.randomUUID().toString(), UUID.randomUUID().toString(), UUID.randomUUID().toString())));
+
+        Map<String, String> notes = new HashMap<>();
+        notes.put("scope", "openid");
+        notes.put("state", "123456");
+        entity.setNotes(notes);
+        entity.setUserSessionNotes(new HashMap<String, String>());
+        entity.getAuthenticatorStatus().put(UUID.randomUUID().toString(), ClientSessionModel.ExecutionStatus.SUCCESS);
+        entity.getAuthenticatorStatus().put(UUID.randomUUID().toString(), ClientSessionModel.ExecutionStatus.ATTEMPTED);
+        entity.getRequiredActions().add("UPDATE_PASSWORD");
+        return entity;
+    }
+
+    static <T> byte[] write(Externalizer<T> externalizer, T object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream output = new ObjectOutputStream(bytes);
+        externalizer.writeObject(output, object);
+        output.close();
+        return bytes.toByteArray();
+    }
+
+    static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream output = new ObjectOutputStream(bytes);
+        output.writeObject(object);
+        output.close();
+        return bytes.toByteArray();
+    }
+
+    static <T> T roundTrip(Externalizer<T> externalizer, T object) throws Exception {
+        ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(write(externalizer, object)));
+        return externalizer.readObject(input);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.models.sessions.infinispan.marshalling;
+
+import org.infinispan.commons.marshall.Externalizer;
+import org.jboss.logging.Logger;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.keycloak.models.sessions.infinispan.entities.ClientSessionEntity;
+import org.keycloak.models.sessions.infinispan.entities.UserSessionEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ObjectInputStream;
+
+/**
+ * Compares size and speed of Java serialization with the session externalizers.
+ *
+ * Not executed during build. Run manually.
+ */
+@Ignore
+public class SessionSerializationBenchmarkTest {
+
+    private static final Logger logger = Logger.getLogger(SessionSerializationBenchmarkTest.class);
+
+    private static final int WARMUP_ITERATIONS = 20000;
+    private static final int ITERATIONS = 200000;
+
+    @Test
+    public void benchmarkUserSession() throws Exception {
+        benchmark("UserSessionEntity", SessionExternalizersTest.createUserSession(), new UserSessionEntityExternalizer());
+    }
+
+    @Test
+    public void benchmarkClientSession() throws Exception {
+        benchmark("ClientSessionEntity", SessionExternalizersTest.createClientSession(), new ClientSessionEntityExternalizer());
+    }
+
+    private <T> void benchmark(String name, T entity, Externalizer<T> externalizer) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            javaRoundTrip(entity);
+            SessionExternalizersTest.roundTrip(externalizer, entity);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            javaRoundTrip(entity);
+        }
+        long javaTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            SessionExternalizersTest.roundTrip(externalizer, entity);
+        }
+        long externalizerTime = System.nanoTime() - start;
+
+        logger.infof("%s - Java serialization: %d bytes, %d ns per round trip. Externalizer: %d bytes, %d ns per round trip", name,
+                SessionExternalizersTest.serialize(entity).length, javaTime / ITERATIONS,
+                SessionExternalizersTest.write(externalizer, entity).length, externalizerTime / ITERATIONS);
+    }
+
+    private Object javaRoundTrip(Object entity) throws Exception {
+        ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(SessionExternalizersTest.serialize(entity)));
+        return input.readObject();
+    }
+
+}
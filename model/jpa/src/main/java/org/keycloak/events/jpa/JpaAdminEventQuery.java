@@ -139,13 +139,22 @@ public class JpaAdminEventQuery implements AdminEventQuery {
         return this;
     }
 
+    @Override
+    public AdminEventQuery after(long time, String id) {
+        predicates.add(cb.or(
+                cb.lessThan(root.<Long>get("time"), time),
+                cb.and(cb.equal(root.get("time"), time), cb.lessThan(root.<String>get("id"), id))
+        ));
+        return this;
+    }
+
     @Override
     public List<AdminEvent> getResultList() {
         if (!predicates.isEmpty()) {
             cq.where(cb.and(predicates.toArray(new Predicate[predicates.size()])));
         }
 
-        cq.orderBy(cb.desc(root.get("time")));
+        cq.orderBy(cb.desc(root.get("time")), cb.desc(root.get("id")));
 
         TypedQuery<AdminEventEntity> query = em.createQuery(cq);
 
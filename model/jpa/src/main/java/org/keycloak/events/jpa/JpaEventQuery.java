@@ -112,13 +112,22 @@ public class JpaEventQuery implements EventQuery {
         return this;
     }
 
+    @Override
+    public EventQuery after(long time, String id) {
+        predicates.add(cb.or(
+                cb.lessThan(root.<Long>get("time"), time),
+                cb.and(cb.equal(root.get("time"), time), cb.lessThan(root.<String>get("id"), id))
+        ));
+        return this;
+    }
+
     @Override
     public List<Event> getResultList() {
         if (!predicates.isEmpty()) {
             cq.where(cb.and(predicates.toArray(new Predicate[predicates.size()])));
         }
 
-        cq.orderBy(cb.desc(root.get("time")));
+        cq.orderBy(cb.desc(root.get("time")), cb.desc(root.get("id")));
 
         TypedQuery<EventEntity> query = em.createQuery(cq);
 
@@ -19,7 +19,9 @@ package org.keycloak.events.jpa;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.Session;
 import org.jboss.logging.Logger;
+import org.keycloak.connections.jpa.util.JpaUtils;
 import org.keycloak.events.Event;
 import org.keycloak.events.EventQuery;
 import org.keycloak.events.EventStoreProvider;
@@ -32,6 +34,8 @@ import org.keycloak.events.admin.ResourceType;
 
 import javax.persistence.EntityManager;
 import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -45,6 +49,9 @@ public class JpaEventStoreProvider implements EventStoreProvider {
     };
     private static final Logger logger = Logger.getLogger(JpaEventStoreProvider.class);
 
+    // Some databases limit count of parameters in the IN clause
+    private static final int MAX_IDS_IN_QUERY = 1000;
+
     private EntityManager em;
 
     public JpaEventStoreProvider(EntityManager em) {
@@ -71,11 +78,57 @@ public class JpaEventStoreProvider implements EventStoreProvider {
         em.createQuery("delete from EventEntity where realmId = :realmId and time < :time").setParameter("realmId", realmId).setParameter("time", olderThan).executeUpdate();
     }
 
+    @Override
+    public int clear(String realmId, long olderThan, int maxResults) {
+        List<String> ids = em.createQuery("select e.id from EventEntity e where e.realmId = :realmId and e.time < :time", String.class)
+                .setParameter("realmId", realmId)
+                .setParameter("time", olderThan)
+                .setMaxResults(maxResults)
+                .getResultList();
+
+        for (int i = 0; i < ids.size(); i += MAX_IDS_IN_QUERY) {
+            em.createQuery("delete from EventEntity where id in :ids")
+                    .setParameter("ids", ids.subList(i, Math.min(i + MAX_IDS_IN_QUERY, ids.size())))
+                    .executeUpdate();
+        }
+        return ids.size();
+    }
+
     @Override
     public void onEvent(Event event) {
         em.persist(convertEvent(event));
     }
 
+    /**
+     * Inserts the events with a single JDBC batch instead of persisting entity by entity.
+     */
+    @Override
+    public void onEvents(List<Event> events) {
+        String table = JpaUtils.getTableNameForNativeQuery("EVENT_ENTITY", em);
+        String sql = "insert into " + table + " (ID, EVENT_TIME, TYPE, REALM_ID, CLIENT_ID, USER_ID, SESSION_ID, IP_ADDRESS, ERROR, DETAILS_JSON) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        em.flush();
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (Event event : events) {
+                    EventEntity entity = convertEvent(event);
+                    statement.setString(1, entity.getId());
+                    statement.setLong(2, entity.getTime());
+                    statement.setString(3, entity.getType());
+                    statement.setString(4, entity.getRealmId());
+                    statement.setString(5, entity.getClientId());
+                    statement.setString(6, entity.getUserId());
+                    statement.setString(7, entity.getSessionId());
+                    statement.setString(8, entity.getIpAddress());
+                    statement.setString(9, entity.getError());
+                    statement.setString(10, entity.getDetailsJson());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
     @Override
     public AdminEventQuery createAdminQuery() {
         return new JpaAdminEventQuery(em);
@@ -101,6 +154,38 @@ public class JpaEventStoreProvider implements EventStoreProvider {
         em.persist(convertAdminEvent(event, includeRepresentation));
     }
 
+    /**
+     * Inserts the admin events with a single JDBC batch instead of persisting entity by entity.
+     */
+    @Override
+    public void onAdminEvents(List<AdminEvent> events, boolean includeRepresentation) {
+        String table = JpaUtils.getTableNameForNativeQuery("ADMIN_EVENT_ENTITY", em);
+        String sql = "insert into " + table + " (ID, ADMIN_EVENT_TIME, REALM_ID, OPERATION_TYPE, RESOURCE_TYPE, AUTH_REALM_ID, AUTH_CLIENT_ID, AUTH_USER_ID, IP_ADDRESS, RESOURCE_PATH, REPRESENTATION, ERROR) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        em.flush();
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (AdminEvent event : events) {
+                    AdminEventEntity entity = convertAdminEvent(event, includeRepresentation);
+                    statement.setString(1, entity.getId());
+                    statement.setLong(2, entity.getTime());
+                    statement.setString(3, entity.getRealmId());
+                    statement.setString(4, entity.getOperationType());
+                    statement.setString(5, entity.getResourceType());
+                    statement.setString(6, entity.getAuthRealmId());
+                    statement.setString(7, entity.getAuthClientId());
+                    statement.setString(8, entity.getAuthUserId());
+                    statement.setString(9, entity.getAuthIpAddress());
+                    statement.setString(10, entity.getResourcePath());
+                    statement.setString(11, entity.getRepresentation());
+                    statement.setString(12, entity.getError());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
     @Override
     public void close() {
     }
@@ -126,6 +211,7 @@ public class JpaEventStoreProvider implements EventStoreProvider {
 
     static Event convertEvent(EventEntity eventEntity) {
         Event event = new Event();
+        event.setId(eventEntity.getId());
         event.setTime(eventEntity.getTime());
         event.setType(EventType.valueOf(eventEntity.getType()));
         event.setRealmId(eventEntity.getRealmId());
@@ -166,6 +252,7 @@ public class JpaEventStoreProvider implements EventStoreProvider {
 
     static AdminEvent convertAdminEvent(AdminEventEntity adminEventEntity) {
         AdminEvent adminEvent = new AdminEvent();
+        adminEvent.setId(adminEventEntity.getId());
         adminEvent.setTime(adminEventEntity.getTime());
         adminEvent.setRealmId(adminEventEntity.getRealmId());
         setAuthDetails(adminEvent, adminEventEntity);
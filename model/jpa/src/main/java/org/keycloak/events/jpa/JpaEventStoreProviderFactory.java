@@ -19,6 +19,8 @@ package org.keycloak.events.jpa;
 
 import org.keycloak.Config;
 import org.keycloak.connections.jpa.JpaConnectionProvider;
+import org.keycloak.events.AsyncEventStoreProvider;
+import org.keycloak.events.AsyncEventStoreWriter;
 import org.keycloak.events.EventStoreProvider;
 import org.keycloak.events.EventStoreProviderFactory;
 import org.keycloak.models.KeycloakSession;
@@ -31,23 +33,35 @@ public class JpaEventStoreProviderFactory implements EventStoreProviderFactory {
 
     public static final String ID = "jpa";
 
+    private Config.Scope config;
+    private AsyncEventStoreWriter asyncWriter;
+
     @Override
     public EventStoreProvider create(KeycloakSession session) {
+        EventStoreProvider store = createStore(session);
+        return asyncWriter != null ? new AsyncEventStoreProvider(store, asyncWriter) : store;
+    }
+
+    protected EventStoreProvider createStore(KeycloakSession session) {
         JpaConnectionProvider connection = session.getProvider(JpaConnectionProvider.class);
         return new JpaEventStoreProvider(connection.getEntityManager());
     }
 
     @Override
     public void init(Config.Scope config) {
+        this.config = config;
     }
 
     @Override
     public void postInit(KeycloakSessionFactory factory) {
-
+        asyncWriter = AsyncEventStoreWriter.create(config, factory, this::createStore);
     }
 
     @Override
     public void close() {
+        if (asyncWriter != null) {
+            asyncWriter.close();
+        }
     }
 
     @Override
@@ -95,8 +95,7 @@ public class JpaRealmProvider implements RealmProvider {
 
     @Override
     public List<RealmModel> getRealms() {
-        TypedQuery<String> query = em.createNamedQuery("getAllRealmIds", String.class);
-        List<String> entities = query.getResultList();
+        List<String> entities = getRealmIds();
         List<RealmModel> realms = new ArrayList<RealmModel>();
         for (String id : entities) {
             RealmModel realm = session.realms().getRealm(id);
@@ -106,6 +105,12 @@ public class JpaRealmProvider implements RealmProvider {
         return realms;
     }
 
+    @Override
+    public List<String> getRealmIds() {
+        TypedQuery<String> query = em.createNamedQuery("getAllRealmIds", String.class);
+        return query.getResultList();
+    }
+
     @Override
     public RealmModel getRealmByName(String name) {
         TypedQuery<String> query = em.createNamedQuery("getRealmIdByName", String.class);
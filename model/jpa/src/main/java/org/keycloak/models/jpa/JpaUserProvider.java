@@ -71,6 +71,9 @@ public class JpaUserProvider implements UserProvider, UserCredentialStore {
     private static final String FIRST_NAME = "firstName";
     private static final String LAST_NAME = "lastName";
 
+    // Some databases limit count of parameters in the IN clause
+    private static final int MAX_IDS_IN_QUERY = 1000;
+
     private final KeycloakSession session;
     protected EntityManager em;
 
@@ -474,6 +477,21 @@ public class JpaUserProvider implements UserProvider, UserCredentialStore {
         return new UserAdapter(session, realm, em, entities.get(0));
     }
 
+    @Override
+    public List<UserModel> getUsersByIds(Collection<String> ids, RealmModel realm) {
+        List<UserModel> users = new LinkedList<>();
+        List<String> idList = new ArrayList<>(ids);
+        for (int i = 0; i < idList.size(); i += MAX_IDS_IN_QUERY) {
+            TypedQuery<UserEntity> query = em.createNamedQuery("getRealmUsersByIds", UserEntity.class);
+            query.setParameter("ids", idList.subList(i, Math.min(i + MAX_IDS_IN_QUERY, idList.size())));
+            query.setParameter("realmId", realm.getId());
+            for (UserEntity entity : query.getResultList()) {
+                users.add(new UserAdapter(session, realm, em, entity));
+            }
+        }
+        return users;
+    }
+
     @Override
     public UserModel getUserByUsername(String username, RealmModel realm) {
         TypedQuery<UserEntity> query = em.createNamedQuery("getRealmUserByUsername", UserEntity.class);
@@ -484,6 +502,24 @@ public class JpaUserProvider implements UserProvider, UserCredentialStore {
         return new UserAdapter(session, realm, em, results.get(0));
     }
 
+    @Override
+    public List<UserModel> getUsersByUsernames(Collection<String> usernames, RealmModel realm) {
+        List<UserModel> users = new LinkedList<>();
+        List<String> usernameList = new ArrayList<>(usernames.size());
+        for (String username : usernames) {
+            usernameList.add(username.toLowerCase());
+        }
+        for (int i = 0; i < usernameList.size(); i += MAX_IDS_IN_QUERY) {
+            TypedQuery<UserEntity> query = em.createNamedQuery("getRealmUsersByUsernames", UserEntity.class);
+            query.setParameter("usernames", usernameList.subList(i, Math.min(i + MAX_IDS_IN_QUERY, usernameList.size())));
+            query.setParameter("realmId", realm.getId());
+            for (UserEntity entity : query.getResultList()) {
+                users.add(new UserAdapter(session, realm, em, entity));
+            }
+        }
+        return users;
+    }
+
     @Override
     public UserModel getUserByEmail(String email, RealmModel realm) {
         TypedQuery<UserEntity> query = em.createNamedQuery("getRealmUserByEmail", UserEntity.class);
@@ -34,8 +34,12 @@ import javax.persistence.EntityManager;
 import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author <a href="mailto:mposolda@redhat.com">Marek Posolda</a>
@@ -190,60 +194,152 @@ public class JpaUserSessionPersisterProvider implements UserSessionPersisterProv
     public List<UserSessionModel> loadUserSessions(int firstResult, int maxResults, boolean offline) {
         String offlineStr = offlineToString(offline);
 
-        TypedQuery<PersistentUserSessionEntity> query = em.createNamedQuery("findUserSessions", PersistentUserSessionEntity.class);
+        while (true) {
+            TypedQuery<PersistentUserSessionEntity> query = em.createNamedQuery("findUserSessions", PersistentUserSessionEntity.class);
+            query.setParameter("offline", offlineStr);
+
+            if (firstResult != -1) {
+                query.setFirstResult(firstResult);
+            }
+            if (maxResults != -1) {
+                query.setMaxResults(maxResults);
+            }
+
+            List<UserSessionModel> result = new ArrayList<>();
+            Set<String> removedUserIds = toAdapters(query.getResultList(), result);
+
+            // Case when some users were deleted in the meantime. Removing their sessions shifts the page, so it needs to be loaded again
+            if (!removedUserIds.isEmpty()) {
+                onUsersRemoved(removedUserIds);
+                continue;
+            }
+
+            loadClientSessions(result, offlineStr);
+            return result;
+        }
+    }
+
+    @Override
+    public List<UserSessionModel> loadUserSessions(String lastUserSessionId, String upperBoundUserSessionId, int maxResults, boolean offline) {
+        String offlineStr = offlineToString(offline);
+
+        List<UserSessionModel> result = new ArrayList<>();
+        Set<String> removedUserIds = new HashSet<>();
+        String lastId = lastUserSessionId;
+        boolean remaining = true;
+
+        // Sessions of deleted users are skipped, so more queries may be needed to fill the page
+        while (remaining && result.size() < maxResults) {
+            int pageSize = maxResults - result.size();
+            List<PersistentUserSessionEntity> entities = findUserSessions(offlineStr, lastId, upperBoundUserSessionId, pageSize);
+            remaining = entities.size() == pageSize;
+            if (!entities.isEmpty()) {
+                lastId = entities.get(entities.size() - 1).getUserSessionId();
+            }
+
+            removedUserIds.addAll(toAdapters(entities, result));
+        }
+
+        if (!removedUserIds.isEmpty()) {
+            onUsersRemoved(removedUserIds);
+        }
+
+        loadClientSessions(result, offlineStr);
+        return result;
+    }
+
+    private List<PersistentUserSessionEntity> findUserSessions(String offlineStr, String lastUserSessionId, String upperBoundUserSessionId, int maxResults) {
+        StringBuilder queryStr = new StringBuilder("select sess from PersistentUserSessionEntity sess where sess.offline = :offline");
+        if (lastUserSessionId != null) {
+            queryStr.append(" and sess.userSessionId > :lastUserSessionId");
+        }
+        if (upperBoundUserSessionId != null) {
+            queryStr.append(" and sess.userSessionId <= :upperBoundUserSessionId");
+        }
+        queryStr.append(" order by sess.userSessionId");
+
+        TypedQuery<PersistentUserSessionEntity> query = em.createQuery(queryStr.toString(), PersistentUserSessionEntity.class);
         query.setParameter("offline", offlineStr);
+        if (lastUserSessionId != null) {
+            query.setParameter("lastUserSessionId", lastUserSessionId);
+        }
+        if (upperBoundUserSessionId != null) {
+            query.setParameter("upperBoundUserSessionId", upperBoundUserSessionId);
+        }
+        query.setMaxResults(maxResults);
+        return query.getResultList();
+    }
 
-        if (firstResult != -1) {
-            query.setFirstResult(firstResult);
+    // Adds adapters for the userSessions to the result. Users are looked up in bulk. Returns IDs of users, which don't exist anymore
+    private Set<String> toAdapters(List<PersistentUserSessionEntity> entities, List<UserSessionModel> result) {
+        Map<String, Set<String>> userIdsByRealm = new HashMap<>();
+        for (PersistentUserSessionEntity entity : entities) {
+            userIdsByRealm.computeIfAbsent(entity.getRealmId(), realmId -> new HashSet<>()).add(entity.getUserId());
         }
-        if (maxResults != -1) {
-            query.setMaxResults(maxResults);
+
+        Map<String, RealmModel> realms = new HashMap<>();
+        Map<String, UserModel> users = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : userIdsByRealm.entrySet()) {
+            RealmModel realm = session.realms().getRealm(entry.getKey());
+            realms.put(entry.getKey(), realm);
+            for (UserModel user : session.users().getUsersByIds(entry.getValue(), realm)) {
+                users.put(user.getId(), user);
+            }
         }
 
-        List<PersistentUserSessionEntity> results = query.getResultList();
-        List<UserSessionModel> result = new ArrayList<>();
-        List<String> userSessionIds = new ArrayList<>();
-        for (PersistentUserSessionEntity entity : results) {
-            RealmModel realm = session.realms().getRealm(entity.getRealmId());
-            UserModel user = session.users().getUserById(entity.getUserId(), realm);
+        Set<String> removedUserIds = new HashSet<>();
+        for (PersistentUserSessionEntity entity : entities) {
+            UserModel user = users.get(entity.getUserId());
 
             // Case when user was deleted in the meantime
             if (user == null) {
-                onUserRemoved(realm, entity.getUserId());
-                return loadUserSessions(firstResult, maxResults, offline);
+                removedUserIds.add(entity.getUserId());
+                continue;
             }
 
-            result.add(toAdapter(realm, user, entity));
-            userSessionIds.add(entity.getUserSessionId());
+            result.add(toAdapter(realms.get(entity.getRealmId()), user, entity));
         }
+        return removedUserIds;
+    }
+
+    private void onUsersRemoved(Set<String> userIds) {
+        int num = em.createNamedQuery("deleteClientSessionsByUsers").setParameter("userIds", userIds).executeUpdate();
+        num = em.createNamedQuery("deleteUserSessionsByUsers").setParameter("userIds", userIds).executeUpdate();
+    }
 
-        if (!userSessionIds.isEmpty()) {
-            TypedQuery<PersistentClientSessionEntity> query2 = em.createNamedQuery("findClientSessionsByUserSessions", PersistentClientSessionEntity.class);
-            query2.setParameter("userSessionIds", userSessionIds);
-            query2.setParameter("offline", offlineStr);
-            List<PersistentClientSessionEntity> clientSessions = query2.getResultList();
-
-            // Assume both userSessions and clientSessions ordered by userSessionId
-            int j = 0;
-            for (UserSessionModel ss : result) {
-                PersistentUserSessionAdapter userSession = (PersistentUserSessionAdapter) ss;
-                List<ClientSessionModel> currentClientSessions = userSession.getClientSessions(); // This is empty now and we want to fill it
-
-                boolean next = true;
-                while (next && j < clientSessions.size()) {
-                    PersistentClientSessionEntity clientSession = clientSessions.get(j);
-                    if (clientSession.getUserSessionId().equals(userSession.getId())) {
-                        PersistentClientSessionAdapter clientSessAdapter = toAdapter(userSession.getRealm(), userSession, clientSession);
-                        currentClientSessions.add(clientSessAdapter);
-                        j++;
-                    } else {
-                        next = false;
-                    }
+    private void loadClientSessions(List<UserSessionModel> result, String offlineStr) {
+        if (result.isEmpty()) {
+            return;
+        }
+
+        List<String> userSessionIds = new ArrayList<>();
+        for (UserSessionModel userSession : result) {
+            userSessionIds.add(userSession.getId());
+        }
+
+        TypedQuery<PersistentClientSessionEntity> query = em.createNamedQuery("findClientSessionsByUserSessions", PersistentClientSessionEntity.class);
+        query.setParameter("userSessionIds", userSessionIds);
+        query.setParameter("offline", offlineStr);
+        List<PersistentClientSessionEntity> clientSessions = query.getResultList();
+
+        // Assume both userSessions and clientSessions ordered by userSessionId
+        int j = 0;
+        for (UserSessionModel ss : result) {
+            PersistentUserSessionAdapter userSession = (PersistentUserSessionAdapter) ss;
+            List<ClientSessionModel> currentClientSessions = userSession.getClientSessions(); // This is empty now and we want to fill it
+
+            boolean next = true;
+            while (next && j < clientSessions.size()) {
+                PersistentClientSessionEntity clientSession = clientSessions.get(j);
+                if (clientSession.getUserSessionId().equals(userSession.getId())) {
+                    PersistentClientSessionAdapter clientSessAdapter = toAdapter(userSession.getRealm(), userSession, clientSession);
+                    currentClientSessions.add(clientSessAdapter);
+                    j++;
+                } else {
+                    next = false;
                 }
             }
         }
-
-        return result;
     }
 
     private PersistentUserSessionAdapter toAdapter(RealmModel realm, UserModel user, PersistentUserSessionEntity entity) {
@@ -76,5 +76,10 @@ public class Update2_3_0 extends Update {
 
             realms.update(new BasicDBObject().append("_id", realmId), realm);
         }
+
+        ensureIndex("events", new String[]{"realmId", "time"}, false, false);
+        ensureIndex("events", new String[]{"realmId", "userId", "time"}, false, false);
+        ensureIndex("events", new String[]{"realmId", "clientId", "time"}, false, false);
+        ensureIndex("adminEvents", new String[]{"realmId", "time"}, false, false);
     }
 }
@@ -17,9 +17,11 @@
 
 package org.keycloak.events.mongo;
 
+import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
+import org.bson.types.ObjectId;
 import org.keycloak.events.admin.AdminEvent;
 import org.keycloak.events.admin.AdminEventQuery;
 import org.keycloak.events.admin.OperationType;
@@ -128,9 +130,22 @@ public class MongoAdminEventQuery implements AdminEventQuery{
         return this;
     }
 
+    @Override
+    public AdminEventQuery after(long time, String id) {
+        if (!ObjectId.isValid(id)) {
+            throw new IllegalArgumentException("Invalid event id: " + id);
+        }
+
+        BasicDBList or = new BasicDBList();
+        or.add(new BasicDBObject("time", new BasicDBObject("$lt", time)));
+        or.add(new BasicDBObject("time", time).append("_id", new BasicDBObject("$lt", new ObjectId(id))));
+        query.put("$or", or);
+        return this;
+    }
+
     @Override
     public List<AdminEvent> getResultList() {
-        DBCursor cur = audit.find(query).sort(new BasicDBObject("time", -1));
+        DBCursor cur = audit.find(query).sort(new BasicDBObject("time", -1).append("_id", -1));
         if (firstResult != null) {
             cur.skip(firstResult);
         }
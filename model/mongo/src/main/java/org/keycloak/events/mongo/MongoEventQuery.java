@@ -17,9 +17,11 @@
 
 package org.keycloak.events.mongo;
 
+import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
+import org.bson.types.ObjectId;
 import org.keycloak.events.Event;
 import org.keycloak.events.EventQuery;
 import org.keycloak.events.EventType;
@@ -105,9 +107,22 @@ public class MongoEventQuery implements EventQuery {
         return this;
     }
 
+    @Override
+    public EventQuery after(long time, String id) {
+        if (!ObjectId.isValid(id)) {
+            throw new IllegalArgumentException("Invalid event id: " + id);
+        }
+
+        BasicDBList or = new BasicDBList();
+        or.add(new BasicDBObject("time", new BasicDBObject("$lt", time)));
+        or.add(new BasicDBObject("time", time).append("_id", new BasicDBObject("$lt", new ObjectId(id))));
+        query.put("$or", or);
+        return this;
+    }
+
     @Override
     public List<Event> getResultList() {
-        DBCursor cur = audit.find(query).sort(new BasicDBObject("time", -1));
+        DBCursor cur = audit.find(query).sort(new BasicDBObject("time", -1).append("_id", -1));
         if (firstResult != null) {
             cur.skip(firstResult);
         }
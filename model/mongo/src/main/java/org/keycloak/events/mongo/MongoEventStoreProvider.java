@@ -19,6 +19,7 @@ package org.keycloak.events.mongo;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import org.keycloak.events.Event;
 import org.keycloak.events.EventQuery;
@@ -31,6 +32,8 @@ import org.keycloak.events.admin.OperationType;
 import org.keycloak.events.admin.ResourceType;
 
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -69,6 +72,28 @@ public class MongoEventStoreProvider implements EventStoreProvider {
         events.remove(q);
     }
 
+    @Override
+    public int clear(String realmId, long olderThan, int maxResults) {
+        BasicDBObject q = new BasicDBObject();
+        q.put("realmId", realmId);
+        q.put("time", new BasicDBObject("$lt", olderThan));
+
+        List<Object> ids = new LinkedList<Object>();
+        DBCursor cur = events.find(q, new BasicDBObject("_id", 1)).limit(maxResults);
+        try {
+            while (cur.hasNext()) {
+                ids.add(cur.next().get("_id"));
+            }
+        } finally {
+            cur.close();
+        }
+
+        if (!ids.isEmpty()) {
+            events.remove(new BasicDBObject("_id", new BasicDBObject("$in", ids)));
+        }
+        return ids.size();
+    }
+
     @Override
     public void onEvent(Event event) {
         events.insert(convertEvent(event));
@@ -130,6 +155,7 @@ public class MongoEventStoreProvider implements EventStoreProvider {
 
     static Event convertEvent(BasicDBObject o) {
         Event event = new Event();
+        event.setId(o.get("_id").toString());
         event.setTime(o.getLong("time"));
         event.setType(EventType.valueOf(o.getString("type")));
         event.setRealmId(o.getString("realmId"));
@@ -169,6 +195,7 @@ public class MongoEventStoreProvider implements EventStoreProvider {
     
     static AdminEvent convertAdminEvent(BasicDBObject o) {
         AdminEvent adminEvent = new AdminEvent();
+        adminEvent.setId(o.get("_id").toString());
         adminEvent.setTime(o.getLong("time"));
         adminEvent.setRealmId(o.getString("realmId"));
         adminEvent.setOperationType(OperationType.valueOf(o.getString("operationType")));
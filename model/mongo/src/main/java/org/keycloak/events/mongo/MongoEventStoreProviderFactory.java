@@ -22,6 +22,8 @@ import com.mongodb.WriteConcern;
 import org.jboss.logging.Logger;
 import org.keycloak.Config;
 import org.keycloak.connections.mongo.MongoConnectionProvider;
+import org.keycloak.events.AsyncEventStoreProvider;
+import org.keycloak.events.AsyncEventStoreWriter;
 import org.keycloak.events.EventStoreProvider;
 import org.keycloak.events.EventStoreProviderFactory;
 import org.keycloak.models.KeycloakSession;
@@ -36,8 +38,16 @@ public class MongoEventStoreProviderFactory implements EventStoreProviderFactory
 
     public static final String ID = "mongo";
 
+    private Config.Scope config;
+    private AsyncEventStoreWriter asyncWriter;
+
     @Override
     public EventStoreProvider create(KeycloakSession session) {
+        EventStoreProvider store = createStore(session);
+        return asyncWriter != null ? new AsyncEventStoreProvider(store, asyncWriter) : store;
+    }
+
+    protected EventStoreProvider createStore(KeycloakSession session) {
         MongoConnectionProvider connection = session.getProvider(MongoConnectionProvider.class);
 
         DBCollection collection = connection.getDB().getCollection("events");
@@ -51,15 +61,19 @@ public class MongoEventStoreProviderFactory implements EventStoreProviderFactory
 
     @Override
     public void init(Config.Scope config) {
+        this.config = config;
     }
 
     @Override
     public void postInit(KeycloakSessionFactory factory) {
-
+        asyncWriter = AsyncEventStoreWriter.create(config, factory, this::createStore);
     }
 
     @Override
     public void close() {
+        if (asyncWriter != null) {
+            asyncWriter.close();
+        }
     }
 
     @Override
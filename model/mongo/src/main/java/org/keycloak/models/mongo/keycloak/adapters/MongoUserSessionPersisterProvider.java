@@ -42,8 +42,12 @@ import org.keycloak.models.session.UserSessionPersisterProvider;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author <a href="mailto:mposolda@redhat.com">Marek Posolda</a>
@@ -280,23 +284,94 @@ public class MongoUserSessionPersisterProvider implements UserSessionPersisterPr
 
         Class<? extends MongoUserSessionEntity> clazz = offline ? MongoOfflineUserSessionEntity.class : MongoOnlineUserSessionEntity.class;
 
-        List<? extends MongoUserSessionEntity> entities = getMongoStore().loadEntities(clazz, query, sort, firstResult, maxResults, invocationContext);
+        while (true) {
+            List<? extends MongoUserSessionEntity> entities = getMongoStore().loadEntities(clazz, query, sort, firstResult, maxResults, invocationContext);
+
+            List<UserSessionModel> results = new LinkedList<>();
+            Set<String> removedUserIds = toAdapters(entities, results);
+
+            // Case when some users were deleted in the meantime. Removing their sessions shifts the page, so it needs to be loaded again
+            if (removedUserIds.isEmpty()) {
+                return results;
+            }
+            onUsersRemoved(removedUserIds);
+        }
+    }
+
+    @Override
+    public List<UserSessionModel> loadUserSessions(String lastUserSessionId, String upperBoundUserSessionId, int maxResults, boolean offline) {
+        DBObject sort = new BasicDBObject("_id", 1);
+        Class<? extends MongoUserSessionEntity> clazz = offline ? MongoOfflineUserSessionEntity.class : MongoOnlineUserSessionEntity.class;
 
         List<UserSessionModel> results = new LinkedList<>();
+        Set<String> removedUserIds = new HashSet<>();
+        String lastId = lastUserSessionId;
+        boolean remaining = true;
+
+        // Sessions of deleted users are skipped, so more queries may be needed to fill the page
+        while (remaining && results.size() < maxResults) {
+            QueryBuilder queryBuilder = new QueryBuilder();
+            if (lastId != null) {
+                queryBuilder.and("_id").greaterThan(lastId);
+            }
+            if (upperBoundUserSessionId != null) {
+                queryBuilder.and("_id").lessThanEquals(upperBoundUserSessionId);
+            }
+
+            int pageSize = maxResults - results.size();
+            List<? extends MongoUserSessionEntity> entities = getMongoStore().loadEntities(clazz, queryBuilder.get(), sort, 0, pageSize, invocationContext);
+            remaining = entities.size() == pageSize;
+            if (!entities.isEmpty()) {
+                lastId = entities.get(entities.size() - 1).getId();
+            }
+
+            removedUserIds.addAll(toAdapters(entities, results));
+        }
+
+        if (!removedUserIds.isEmpty()) {
+            onUsersRemoved(removedUserIds);
+        }
+        return results;
+    }
+
+    // Adds adapters for the userSessions to the results. Users are looked up in bulk. Returns IDs of users, which don't exist anymore
+    private Set<String> toAdapters(List<? extends MongoUserSessionEntity> entities, List<UserSessionModel> results) {
+        Map<String, Set<String>> userIdsByRealm = new HashMap<>();
+        for (MongoUserSessionEntity entity : entities) {
+            userIdsByRealm.computeIfAbsent(entity.getRealmId(), realmId -> new HashSet<>()).add(entity.getUserId());
+        }
+
+        Map<String, RealmModel> realms = new HashMap<>();
+        Map<String, UserModel> users = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : userIdsByRealm.entrySet()) {
+            RealmModel realm = session.realms().getRealm(entry.getKey());
+            realms.put(entry.getKey(), realm);
+            for (UserModel user : session.users().getUsersByIds(entry.getValue(), realm)) {
+                users.put(user.getId(), user);
+            }
+        }
+
+        Set<String> removedUserIds = new HashSet<>();
         for (MongoUserSessionEntity entity : entities) {
-            RealmModel realm = session.realms().getRealm(entity.getRealmId());
-            UserModel user = session.users().getUserById(entity.getUserId(), realm);
+            UserModel user = users.get(entity.getUserId());
 
             // Case when user was deleted in the meantime
             if (user == null) {
-                onUserRemoved(realm, entity.getUserId());
-                return loadUserSessions(firstResult, maxResults, offline);
+                removedUserIds.add(entity.getUserId());
+                continue;
             }
 
-            PersistentUserSessionAdapter userSession = toAdapter(realm, user, entity);
-            results.add(userSession);
+            results.add(toAdapter(realms.get(entity.getRealmId()), user, entity));
         }
-        return results;
+        return removedUserIds;
+    }
+
+    private void onUsersRemoved(Set<String> userIds) {
+        DBObject query = new QueryBuilder()
+                .and("userId").in(userIds)
+                .get();
+        getMongoStore().removeEntities(MongoOnlineUserSessionEntity.class, query, false, invocationContext);
+        getMongoStore().removeEntities(MongoOfflineUserSessionEntity.class, query, false, invocationContext);
     }
 
     private PersistentUserSessionAdapter toAdapter(RealmModel realm, UserModel user, PersistentUserSessionEntity entity) {
@@ -102,4 +102,9 @@ public class DefaultEvaluation implements Evaluation {
             deny();
         }
     }
+
+    void replay(Effect effect) {
+        this.effect = effect;
+        this.decision.onDecision(this);
+    }
 }
@@ -31,6 +31,7 @@ import org.keycloak.authorization.store.PolicyStore;
 import org.keycloak.authorization.store.StoreFactory;
 import org.keycloak.representations.idm.authorization.PolicyEnforcementMode;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -58,6 +59,25 @@ public class DefaultPolicyEvaluator implements PolicyEvaluator {
 
     @Override
     public void evaluate(ResourcePermission permission, EvaluationContext executionContext, Decision decision) {
+        evaluate(permission, executionContext, decision, new RequestCache());
+    }
+
+    /**
+     * Returns a {@link PolicyEvaluator} for evaluating all the permissions of a single authorization request.
+     *
+     * <p>The returned evaluator creates a {@link PolicyProvider} only once per policy and evaluates the policies whose
+     * outcome doesn't depend on the permission being evaluated (see {@link PolicyProvider#isIdentityOnly()}) only
+     * once, replaying their outcome for the other permissions. It is not thread-safe and must not be reused across
+     * requests.
+     *
+     * @return a request scoped {@link PolicyEvaluator}
+     */
+    public PolicyEvaluator forRequest() {
+        RequestCache cache = new RequestCache();
+        return (permission, executionContext, decision) -> evaluate(permission, executionContext, decision, cache);
+    }
+
+    private void evaluate(ResourcePermission permission, EvaluationContext executionContext, Decision decision, RequestCache cache) {
         ResourceServer resourceServer = permission.getResourceServer();
 
         if (PolicyEnforcementMode.DISABLED.equals(resourceServer.getPolicyEnforcementMode())) {
@@ -68,7 +88,7 @@ public class DefaultPolicyEvaluator implements PolicyEvaluator {
         StoreFactory storeFactory = this.authorization.getStoreFactory();
         PolicyStore policyStore = storeFactory.getPolicyStore();
         AtomicInteger policiesCount = new AtomicInteger(0);
-        Consumer<Policy> consumer = createDecisionConsumer(permission, executionContext, decision, policiesCount);
+        Consumer<Policy> consumer = createDecisionConsumer(permission, executionContext, decision, policiesCount, cache);
         Resource resource = permission.getResource();
 
         if (resource != null) {
@@ -79,7 +99,7 @@ public class DefaultPolicyEvaluator implements PolicyEvaluator {
             }
 
             if (resource.getType() != null) {
-                policyStore.findByResourceType(resource.getType(), resourceServer.getId()).forEach(consumer);
+                cache.policiesByResourceType.computeIfAbsent(resource.getType(), type -> policyStore.findByResourceType(type, resourceServer.getId())).forEach(consumer);
             }
 
             if (permission.getScopes().isEmpty() && !resource.getScopes().isEmpty()) {
@@ -96,26 +116,40 @@ public class DefaultPolicyEvaluator implements PolicyEvaluator {
         }
     }
 
-    private  Consumer<Policy> createDecisionConsumer(ResourcePermission permission, EvaluationContext executionContext, Decision decision, AtomicInteger policiesCount) {
+    private  Consumer<Policy> createDecisionConsumer(ResourcePermission permission, EvaluationContext executionContext, Decision decision, AtomicInteger policiesCount, RequestCache cache) {
         return (parentPolicy) -> {
-            if (hasRequestedScopes(permission, parentPolicy)) {
+            if (hasRequestedScopes(permission, parentPolicy, cache)) {
                 for (Policy associatedPolicy : parentPolicy.getAssociatedPolicies()) {
-                    PolicyProviderFactory providerFactory = policyProviders.get(associatedPolicy.getType());
+                    PolicyProvider policyProvider = cache.policyProviders.computeIfAbsent(associatedPolicy.getId(), id -> createPolicyProvider(associatedPolicy));
 
-                    if (providerFactory == null) {
-                        throw new RuntimeException("Could not find a policy provider for policy type [" + associatedPolicy.getType() + "].");
-                    }
+                    if (policyProvider.isIdentityOnly()) {
+                        List<Decision.Effect> effects = cache.effects.get(associatedPolicy.getId());
 
-                    PolicyProvider policyProvider = providerFactory.create(associatedPolicy, this.authorization);
+                        if (effects != null) {
+                            DefaultEvaluation evaluation = createEvaluation(permission, executionContext, decision, parentPolicy, associatedPolicy);
 
-                    if (policyProvider == null) {
-                        throw new RuntimeException("Unknown parentPolicy provider for type [" + associatedPolicy.getType() + "].");
-                    }
+                            for (Decision.Effect effect : effects) {
+                                evaluation.replay(effect);
+                            }
+                        } else {
+                            List<Decision.Effect> recorded = new ArrayList<>();
+                            Decision<DefaultEvaluation> recorder = recordedEvaluation -> {
+                                recorded.add(recordedEvaluation.getEffect());
+                                decision.onDecision(recordedEvaluation);
+                            };
+                            DefaultEvaluation evaluation = createEvaluation(permission, executionContext, recorder, parentPolicy, associatedPolicy);
 
-                    DefaultEvaluation evaluation = createEvaluation(permission, executionContext, decision, parentPolicy, associatedPolicy);
+                            policyProvider.evaluate(evaluation);
+                            evaluation.denyIfNoEffect();
 
-                    policyProvider.evaluate(evaluation);
-                    evaluation.denyIfNoEffect();
+                            cache.effects.put(associatedPolicy.getId(), recorded);
+                        }
+                    } else {
+                        DefaultEvaluation evaluation = createEvaluation(permission, executionContext, decision, parentPolicy, associatedPolicy);
+
+                        policyProvider.evaluate(evaluation);
+                        evaluation.denyIfNoEffect();
+                    }
 
                     policiesCount.incrementAndGet();
                 }
@@ -123,11 +157,27 @@ public class DefaultPolicyEvaluator implements PolicyEvaluator {
         };
     }
 
+    private PolicyProvider createPolicyProvider(Policy policy) {
+        PolicyProviderFactory providerFactory = policyProviders.get(policy.getType());
+
+        if (providerFactory == null) {
+            throw new RuntimeException("Could not find a policy provider for policy type [" + policy.getType() + "].");
+        }
+
+        PolicyProvider policyProvider = providerFactory.create(policy, this.authorization);
+
+        if (policyProvider == null) {
+            throw new RuntimeException("Unknown parentPolicy provider for type [" + policy.getType() + "].");
+        }
+
+        return policyProvider;
+    }
+
     private DefaultEvaluation createEvaluation(ResourcePermission permission, EvaluationContext executionContext, Decision decision, Policy parentPolicy, Policy associatedPolicy) {
         return new DefaultEvaluation(permission, executionContext, parentPolicy, associatedPolicy, decision);
     }
 
-    private boolean hasRequestedScopes(final ResourcePermission permission, final Policy policy) {
+    private boolean hasRequestedScopes(final ResourcePermission permission, final Policy policy, RequestCache cache) {
         if (permission.getScopes().isEmpty()) {
             return true;
         }
@@ -161,7 +211,7 @@ public class DefaultPolicyEvaluator implements PolicyEvaluator {
                 String type = resource.getType();
 
                 if (type != null) {
-                    List<Resource> resourcesByType = authorization.getStoreFactory().getResourceStore().findByType(type);
+                    List<Resource> resourcesByType = cache.resourcesByType.computeIfAbsent(type, authorization.getStoreFactory().getResourceStore()::findByType);
 
                     for (Resource resourceType : resourcesByType) {
                         if (resourceType.getOwner().equals(resource.getResourceServer().getClientId())) {
@@ -186,4 +236,15 @@ public class DefaultPolicyEvaluator implements PolicyEvaluator {
 
         return false;
     }
+
+    /**
+     * State shared by the evaluation of all the permissions of a single authorization request.
+     */
+    private static class RequestCache {
+
+        private final Map<String, PolicyProvider> policyProviders = new HashMap<>();
+        private final Map<String, List<Decision.Effect>> effects = new HashMap<>();
+        private final Map<String, List<Policy>> policiesByResourceType = new HashMap<>();
+        private final Map<String, List<Resource>> resourcesByType = new HashMap<>();
+    }
 }
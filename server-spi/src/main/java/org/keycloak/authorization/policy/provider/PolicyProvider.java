@@ -26,4 +26,15 @@ import org.keycloak.provider.Provider;
 public interface PolicyProvider extends Provider {
 
     void evaluate(Evaluation evaluation);
+
+    /**
+     * Indicates whether the outcome of this provider depends only on the identity and the time of the evaluation, but
+     * not on the permission being evaluated. Such providers are evaluated just once per authorization request and their
+     * outcome is reused for all the permissions of the request.
+     *
+     * @return {@code true} if the outcome doesn't depend on the permission. Otherwise, {@code false}
+     */
+    default boolean isIdentityOnly() {
+        return false;
+    }
 }
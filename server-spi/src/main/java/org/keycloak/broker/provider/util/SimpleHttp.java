@@ -17,47 +17,72 @@
 
 package org.keycloak.broker.provider.util;
 
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLSocketFactory;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+import org.jboss.logging.Logger;
+import org.keycloak.connections.httpclient.HttpClientProvider;
+import org.keycloak.models.KeycloakSession;
+
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.StringWriter;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
-import java.util.zip.GZIPInputStream;
 
 /**
+ * Requests are sent with the pooled {@link HttpClient} of {@link HttpClientProvider}, so connections (and TLS sessions)
+ * to identity providers are kept alive and reused, and the truststore configured for the server is used.
+ *
  * @author <a href="mailto:sthorger@redhat.com">Stian Thorgersen</a>
  * @author Vlastimil Elias (velias at redhat dot com)
  */
 public class SimpleHttp {
 
+    private static final Logger logger = Logger.getLogger(SimpleHttp.class);
 
-    private String url;
-    private String method;
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
+    public static final int DEFAULT_SOCKET_TIMEOUT_MILLIS = 30000;
+
+    private final HttpClient client;
+    private final String url;
+    private final String method;
     private Map<String, String> headers;
     private Map<String, String> params;
 
-    private SSLSocketFactory sslFactory;
-    private HostnameVerifier hostnameVerifier;
+    private int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+    private int socketTimeoutMillis = DEFAULT_SOCKET_TIMEOUT_MILLIS;
 
-    protected SimpleHttp(String url, String method) {
+    protected SimpleHttp(String url, String method, HttpClient client) {
         this.url = url;
         this.method = method;
+        this.client = client;
+    }
+
+    public static SimpleHttp doGet(String url, KeycloakSession session) {
+        return doGet(url, session.getProvider(HttpClientProvider.class).getHttpClient());
+    }
+
+    public static SimpleHttp doGet(String url, HttpClient client) {
+        return new SimpleHttp(url, "GET", client);
     }
 
-    public static SimpleHttp doGet(String url) {
-        return new SimpleHttp(url, "GET");
+    public static SimpleHttp doPost(String url, KeycloakSession session) {
+        return doPost(url, session.getProvider(HttpClientProvider.class).getHttpClient());
     }
 
-    public static SimpleHttp doPost(String url) {
-        return new SimpleHttp(url, "POST");
+    public static SimpleHttp doPost(String url, HttpClient client) {
+        return new SimpleHttp(url, "POST", client);
     }
 
     public SimpleHttp header(String name, String value) {
@@ -76,206 +101,108 @@ public class SimpleHttp {
         return this;
     }
 
-    public SimpleHttp sslFactory(SSLSocketFactory factory) {
-        sslFactory = factory;
+    /**
+     * Timeout for establishing the connection and for obtaining a connection from the pool. Zero means no timeout.
+     */
+    public SimpleHttp connectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
         return this;
     }
 
-    public SimpleHttp hostnameVerifier(HostnameVerifier verifier) {
-        hostnameVerifier = verifier;
+    /**
+     * Timeout for waiting for data. Zero means no timeout.
+     */
+    public SimpleHttp socketTimeoutMillis(int socketTimeoutMillis) {
+        this.socketTimeoutMillis = socketTimeoutMillis;
         return this;
     }
 
+    /**
+     * @return the response body
+     * @throws IOException if the request fails or the server returns an error status
+     */
     public String asString() throws IOException {
-        boolean get = method.equals("GET");
-        boolean post = method.equals("POST");
-
-        StringBuilder sb = new StringBuilder();
-        if (get) {
-            sb.append(url);
-        }
-
-        if (params != null) {
-            boolean f = true;
-            for (Map.Entry<String, String> p : params.entrySet()) {
-                if (f) {
-                    f = false;
-                    if (get) {
-                        sb.append("?");
-                    }
-                } else {
-                    sb.append("&");
-                }
-                sb.append(URLEncoder.encode(p.getKey(), "UTF-8"));
-                sb.append("=");
-                sb.append(URLEncoder.encode(p.getValue(), "UTF-8"));
-            }
-        }
-
-        if (get) {
-            url = sb.toString();
-        }
-
-        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-        setupTruststoreIfApplicable(connection);
-        OutputStream os = null;
-        InputStream is = null;
-
+        HttpRequestBase request = createRequest();
+        long start = System.currentTimeMillis();
+        HttpResponse response = client.execute(request);
+        HttpEntity entity = response.getEntity();
         try {
-            connection.setRequestMethod(method);
-
-            if (headers != null) {
-                for (Map.Entry<String, String> h : headers.entrySet()) {
-                    connection.setRequestProperty(h.getKey(), h.getValue());
-                }
-            }
-
-            if (post) {
-                String data = sb.toString();
-
-                connection.setDoOutput(true);
-                connection.setRequestMethod("POST");
-                connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-                connection.setRequestProperty("Content-Length", String.valueOf(data.length()));
-
-                os = connection.getOutputStream();
-                os.write(data.getBytes());
-            } else {
-                connection.setDoOutput(false);
+            int status = response.getStatusLine().getStatusCode();
+            logResponse(request, status, start);
+            if (status >= 400) {
+                throw new IOException("Server returned HTTP response code: " + status + " from " + request.getURI().getHost());
             }
-
-            String ce = connection.getHeaderField("Content-Encoding");
-            is = connection.getInputStream();
-            if ("gzip".equals(ce)) {
-              is = new GZIPInputStream(is);
-	          }
-            return toString(is);
+            return entity != null ? EntityUtils.toString(entity, StandardCharsets.UTF_8) : null;
         } finally {
-            if (os != null) {
-                try {
-                    os.close();
-                } catch (IOException e) {
-                }
-            }
-
-            if (is != null) {
-                try {
-                    is.close();
-                } catch (IOException e) {
-                }
-            }
-            if (connection != null) {
-                try {
-                    connection.disconnect();
-                } catch (Exception e) {
-                }
-            }
+            EntityUtils.consumeQuietly(entity);
         }
     }
 
     public int asStatus() throws IOException {
-        boolean get = method.equals("GET");
-        boolean post = method.equals("POST");
-
-        StringBuilder sb = new StringBuilder();
-        if (get) {
-            sb.append(url);
+        HttpRequestBase request = createRequest();
+        long start = System.currentTimeMillis();
+        HttpResponse response = client.execute(request);
+        try {
+            int status = response.getStatusLine().getStatusCode();
+            logResponse(request, status, start);
+            return status;
+        } finally {
+            EntityUtils.consumeQuietly(response.getEntity());
         }
+    }
 
-        if (params != null) {
-            boolean f = true;
-            for (Map.Entry<String, String> p : params.entrySet()) {
-                if (f) {
-                    f = false;
-                    if (get) {
-                        sb.append("?");
-                    }
-                } else {
-                    sb.append("&");
+    private HttpRequestBase createRequest() throws IOException {
+        HttpRequestBase request;
+        if (method.equals("POST")) {
+            HttpPost post = new HttpPost(url);
+            List<NameValuePair> formParams = new LinkedList<>();
+            if (params != null) {
+                for (Map.Entry<String, String> p : params.entrySet()) {
+                    formParams.add(new BasicNameValuePair(p.getKey(), p.getValue()));
                 }
-                sb.append(URLEncoder.encode(p.getKey(), "UTF-8"));
-                sb.append("=");
-                sb.append(URLEncoder.encode(p.getValue(), "UTF-8"));
             }
+            post.setEntity(new UrlEncodedFormEntity(formParams, StandardCharsets.UTF_8));
+            request = post;
+        } else {
+            request = new HttpGet(appendParameters(url));
         }
 
-        if (get) {
-            url = sb.toString();
-        }
-
-        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-        setupTruststoreIfApplicable(connection);
-        OutputStream os = null;
-        InputStream is = null;
-
-        try {
-            connection.setRequestMethod(method);
-
-            if (headers != null) {
-                for (Map.Entry<String, String> h : headers.entrySet()) {
-                    connection.setRequestProperty(h.getKey(), h.getValue());
-                }
-            }
-
-            if (post) {
-                String data = sb.toString();
-
-                connection.setDoOutput(true);
-                connection.setRequestMethod("POST");
-                connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-                connection.setRequestProperty("Content-Length", String.valueOf(data.length()));
-
-                os = connection.getOutputStream();
-                os.write(data.getBytes());
-            } else {
-                connection.setDoOutput(false);
-            }
-
-            is = connection.getInputStream();
-            return connection.getResponseCode();
-        } finally {
-            if (os != null) {
-                try {
-                    os.close();
-                } catch (IOException e) {
-                }
-            }
-
-            if (is != null) {
-                try {
-                    is.close();
-                } catch (IOException e) {
-                }
-            }
-            if (connection != null) {
-                try {
-                    connection.disconnect();
-                } catch (Exception e) {
-                }
+        if (headers != null) {
+            for (Map.Entry<String, String> h : headers.entrySet()) {
+                request.setHeader(h.getKey(), h.getValue());
             }
         }
-    }
-
-    private String toString(InputStream is) throws IOException {
-        InputStreamReader reader = new InputStreamReader(is);
 
-        StringWriter writer = new StringWriter();
+        request.setConfig(RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMillis)
+                .setConnectionRequestTimeout(connectTimeoutMillis)
+                .setSocketTimeout(socketTimeoutMillis)
+                .build());
+        return request;
+    }
 
-        char[] buffer = new char[1024 * 4];
-        for (int n = reader.read(buffer); n != -1; n = reader.read(buffer)) {
-            writer.write(buffer, 0, n);
+    private String appendParameters(String url) throws IOException {
+        if (params == null) {
+            return url;
         }
 
-        return writer.toString();
+        StringBuilder sb = new StringBuilder(url);
+        boolean f = true;
+        for (Map.Entry<String, String> p : params.entrySet()) {
+            sb.append(f ? "?" : "&");
+            f = false;
+            sb.append(URLEncoder.encode(p.getKey(), "UTF-8"));
+            sb.append("=");
+            sb.append(URLEncoder.encode(p.getValue(), "UTF-8"));
+        }
+        return sb.toString();
     }
 
-    private void setupTruststoreIfApplicable(HttpURLConnection connection) {
-        if (connection instanceof HttpsURLConnection && sslFactory != null) {
-            HttpsURLConnection con = (HttpsURLConnection) connection;
-            con.setSSLSocketFactory(sslFactory);
-            if (hostnameVerifier != null) {
-                con.setHostnameVerifier(hostnameVerifier);
-            }
+    private void logResponse(HttpRequestBase request, int status, long start) {
+        // only the host is logged, urls may contain tokens
+        if (logger.isDebugEnabled()) {
+            logger.debugf("%s %s returned %d in %d ms", method, request.getURI().getHost(), status, System.currentTimeMillis() - start);
         }
     }
+
 }
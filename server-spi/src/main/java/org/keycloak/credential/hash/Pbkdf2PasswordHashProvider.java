@@ -27,12 +27,23 @@ import org.keycloak.models.UserCredentialModel;
 
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.KeySpec;
+import java.util.Arrays;
 
 /**
+ * PBKDF2 (RFC 2898) password hashing. HMAC is computed directly on the digest, which is keyed just once per password
+ * and then only cloned for every iteration, so the padded key isn't hashed again in each iteration like {@code Mac}
+ * does. Derived keys are the same as from {@code SecretKeyFactory} "PBKDF2WithHmacSHA1" (or SHA256, SHA512), which
+ * is used as fallback if the digest of the security provider can't be cloned.
+ *
  * @author <a href="mailto:me@tsudot.com">Kunal Kerkar</a>
  */
 public class Pbkdf2PasswordHashProvider implements PasswordHashProviderFactory, PasswordHashProvider {
@@ -42,12 +53,34 @@ public class Pbkdf2PasswordHashProvider implements PasswordHashProviderFactory,
     private static final String PBKDF2_ALGORITHM = "PBKDF2WithHmacSHA1";
     private static final int DERIVED_KEY_SIZE = 512;
 
+    private static final SecureRandom secureRandom = new SecureRandom();
+
+    private final String providerId;
+    private final String pbkdf2Algorithm;
+    private final int digestBlockSize;
+    private final ThreadLocal<MessageDigest> digests;
+    private final ThreadLocal<SecretKeyFactory> secretKeyFactories;
+    private final boolean digestCloneable;
+
+    public Pbkdf2PasswordHashProvider() {
+        this(ID, PBKDF2_ALGORITHM, "SHA-1", 64);
+    }
+
+    protected Pbkdf2PasswordHashProvider(String providerId, String pbkdf2Algorithm, String digestAlgorithm, int digestBlockSize) {
+        this.providerId = providerId;
+        this.pbkdf2Algorithm = pbkdf2Algorithm;
+        this.digestBlockSize = digestBlockSize;
+        this.digests = ThreadLocal.withInitial(() -> getInstance(() -> MessageDigest.getInstance(digestAlgorithm)));
+        this.secretKeyFactories = ThreadLocal.withInitial(() -> getInstance(() -> SecretKeyFactory.getInstance(pbkdf2Algorithm)));
+        this.digestCloneable = isCloneable(digests.get());
+    }
+
     public CredentialModel encode(String rawPassword, int iterations) {
         byte[] salt = getSalt();
         String encodedPassword = encode(rawPassword, iterations, salt);
 
         CredentialModel credentials = new CredentialModel();
-        credentials.setAlgorithm(ID);
+        credentials.setAlgorithm(providerId);
         credentials.setType(UserCredentialModel.PASSWORD);
         credentials.setSalt(salt);
         credentials.setHashIterations(iterations);
@@ -57,7 +90,7 @@ public class Pbkdf2PasswordHashProvider implements PasswordHashProviderFactory,
 
     @Override
     public boolean policyCheck(PasswordPolicy policy, CredentialModel credential) {
-        return credential.getHashIterations() == policy.getHashIterations() && ID.equals(credential.getAlgorithm());
+        return credential.getHashIterations() == policy.getHashIterations() && providerId.equals(credential.getAlgorithm());
     }
 
     @Override
@@ -65,7 +98,7 @@ public class Pbkdf2PasswordHashProvider implements PasswordHashProviderFactory,
         byte[] salt = getSalt();
         String encodedPassword = encode(rawPassword, policy.getHashIterations(), salt);
 
-        credential.setAlgorithm(ID);
+        credential.setAlgorithm(providerId);
         credential.setType(UserCredentialModel.PASSWORD);
         credential.setSalt(salt);
         credential.setHashIterations(policy.getHashIterations());
@@ -75,7 +108,19 @@ public class Pbkdf2PasswordHashProvider implements PasswordHashProviderFactory,
 
     @Override
     public boolean verify(String rawPassword, CredentialModel credential) {
-        return encode(rawPassword, credential.getHashIterations(), credential.getSalt()).equals(credential.getValue());
+        if (credential.getValue() == null) {
+            return false;
+        }
+
+        byte[] expected;
+        try {
+            expected = Base64.decode(credential.getValue());
+        } catch (IOException e) {
+            return false;
+        }
+        byte[] key = deriveKey(rawPassword, credential.getSalt(), credential.getHashIterations(), DERIVED_KEY_SIZE / 8);
+        // Constant time comparison
+        return MessageDigest.isEqual(key, expected);
     }
 
     @Override
@@ -96,36 +141,129 @@ public class Pbkdf2PasswordHashProvider implements PasswordHashProviderFactory,
 
     @Override
     public String getId() {
-        return ID;
+        return providerId;
     }
 
     private String encode(String rawPassword, int iterations, byte[] salt) {
-        KeySpec spec = new PBEKeySpec(rawPassword.toCharArray(), salt, iterations, DERIVED_KEY_SIZE);
+        return Base64.encodeBytes(deriveKey(rawPassword, salt, iterations, DERIVED_KEY_SIZE / 8));
+    }
 
+    byte[] deriveKey(String rawPassword, byte[] salt, int iterations, int keyLength) {
         try {
-            byte[] key = getSecretKeyFactory().generateSecret(spec).getEncoded();
-            return Base64.encodeBytes(key);
-        } catch (InvalidKeySpecException e) {
+            if (!digestCloneable) {
+                PBEKeySpec spec = new PBEKeySpec(rawPassword.toCharArray(), salt, iterations, keyLength * 8);
+                return secretKeyFactories.get().generateSecret(spec).getEncoded();
+            }
+
+            MessageDigest digest = digests.get();
+            byte[] password = getPasswordBytes(rawPassword);
+            MessageDigest inner;
+            MessageDigest outer;
+            try {
+                if (password.length > digestBlockSize) {
+                    digest.reset();
+                    byte[] hashed = digest.digest(password);
+                    Arrays.fill(password, (byte) 0);
+                    password = hashed;
+                }
+                inner = keyedDigest(digest, password, (byte) 0x36);
+                outer = keyedDigest(digest, password, (byte) 0x5c);
+            } finally {
+                Arrays.fill(password, (byte) 0);
+            }
+
+            int hashLength = digest.getDigestLength();
+            byte[] key = new byte[keyLength];
+            byte[] u = new byte[hashLength];
+            byte[] t = new byte[hashLength];
+            byte[] blockIndex = new byte[4];
+
+            for (int block = 1, offset = 0; offset < keyLength; block++, offset += hashLength) {
+                blockIndex[0] = (byte) (block >>> 24);
+                blockIndex[1] = (byte) (block >>> 16);
+                blockIndex[2] = (byte) (block >>> 8);
+                blockIndex[3] = (byte) block;
+
+                // U1 = PRF(P, S || INT(i))
+                MessageDigest md = (MessageDigest) inner.clone();
+                md.update(salt);
+                md.update(blockIndex);
+                md.digest(u, 0, hashLength);
+                finishHmac(outer, u, hashLength);
+                System.arraycopy(u, 0, t, 0, hashLength);
+
+                // Uj = PRF(P, Uj-1), T = U1 ^ U2 ^ ... ^ Uc
+                for (int i = 1; i < iterations; i++) {
+                    md = (MessageDigest) inner.clone();
+                    md.update(u);
+                    md.digest(u, 0, hashLength);
+                    finishHmac(outer, u, hashLength);
+                    for (int j = 0; j < hashLength; j++) {
+                        t[j] ^= u[j];
+                    }
+                }
+
+                System.arraycopy(t, 0, key, offset, Math.min(hashLength, keyLength - offset));
+            }
+            return key;
+        } catch (GeneralSecurityException | CloneNotSupportedException e) {
             throw new RuntimeException("Credential could not be encoded", e);
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new RuntimeException(e);
         }
     }
 
-    private byte[] getSalt() {
-        byte[] buffer = new byte[16];
-        SecureRandom secureRandom = new SecureRandom();
-        secureRandom.nextBytes(buffer);
-        return buffer;
+    private MessageDigest keyedDigest(MessageDigest digest, byte[] password, byte pad) throws CloneNotSupportedException {
+        byte[] block = new byte[digestBlockSize];
+        for (int i = 0; i < block.length; i++) {
+            block[i] = (byte) ((i < password.length ? password[i] : 0) ^ pad);
+        }
+        digest.reset();
+        digest.update(block);
+        Arrays.fill(block, (byte) 0);
+        return (MessageDigest) digest.clone();
+    }
+
+    // Outer hash of HMAC: H(K ^ opad || inner hash)
+    private static void finishHmac(MessageDigest outer, byte[] u, int hashLength) throws CloneNotSupportedException, DigestException {
+        MessageDigest md = (MessageDigest) outer.clone();
+        md.update(u);
+        md.digest(u, 0, hashLength);
     }
 
-    private SecretKeyFactory getSecretKeyFactory() {
+    private static byte[] getPasswordBytes(String rawPassword) {
+        ByteBuffer encoded = StandardCharsets.UTF_8.encode(CharBuffer.wrap(rawPassword));
+        byte[] password = new byte[encoded.remaining()];
+        encoded.get(password);
+        if (encoded.hasArray()) {
+            Arrays.fill(encoded.array(), (byte) 0);
+        }
+        return password;
+    }
+
+    private static boolean isCloneable(MessageDigest digest) {
         try {
-            return SecretKeyFactory.getInstance(PBKDF2_ALGORITHM);
+            digest.clone();
+            return true;
+        } catch (CloneNotSupportedException e) {
+            return false;
+        }
+    }
+
+    private <T> T getInstance(AlgorithmLookup<T> lookup) {
+        try {
+            return lookup.getInstance();
         } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("PBKDF2 algorithm not found", e);
+            throw new RuntimeException("PBKDF2 algorithm not found: " + pbkdf2Algorithm, e);
         }
     }
 
+    private interface AlgorithmLookup<T> {
+        T getInstance() throws NoSuchAlgorithmException;
+    }
+
+    private static byte[] getSalt() {
+        byte[] buffer = new byte[16];
+        secureRandom.nextBytes(buffer);
+        return buffer;
+    }
+
 }
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.credential.hash;
+
+/**
+ * PBKDF2 with HMAC-SHA256 as the pseudorandom function.
+ */
+public class Pbkdf2Sha256PasswordHashProvider extends Pbkdf2PasswordHashProvider {
+
+    public static final String ID = "pbkdf2-sha256";
+
+    public Pbkdf2Sha256PasswordHashProvider() {
+        super(ID, "PBKDF2WithHmacSHA256", "SHA-256", 64);
+    }
+
+}
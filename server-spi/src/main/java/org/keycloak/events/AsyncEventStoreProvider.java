@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.events;
+
+import org.keycloak.events.admin.AdminEvent;
+import org.keycloak.events.admin.AdminEventQuery;
+
+/**
+ * Event store, which hands the new events to {@link AsyncEventStoreWriter} and delegates everything else to the
+ * synchronous event store.
+ */
+public class AsyncEventStoreProvider implements EventStoreProvider {
+
+    private final EventStoreProvider delegate;
+    private final AsyncEventStoreWriter writer;
+
+    public AsyncEventStoreProvider(EventStoreProvider delegate, AsyncEventStoreWriter writer) {
+        this.delegate = delegate;
+        this.writer = writer;
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        writer.onEvent(event);
+    }
+
+    @Override
+    public void onEvent(AdminEvent event, boolean includeRepresentation) {
+        writer.onEvent(event, includeRepresentation);
+    }
+
+    @Override
+    public EventQuery createQuery() {
+        return delegate.createQuery();
+    }
+
+    @Override
+    public AdminEventQuery createAdminQuery() {
+        return delegate.createAdminQuery();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public void clear(String realmId) {
+        delegate.clear(realmId);
+    }
+
+    @Override
+    public void clear(String realmId, long olderThan) {
+        delegate.clear(realmId, olderThan);
+    }
+
+    @Override
+    public int clear(String realmId, long olderThan, int maxResults) {
+        return delegate.clear(realmId, olderThan, maxResults);
+    }
+
+    @Override
+    public void clearAdmin() {
+        delegate.clearAdmin();
+    }
+
+    @Override
+    public void clearAdmin(String realmId) {
+        delegate.clearAdmin(realmId);
+    }
+
+    @Override
+    public void clearAdmin(String realmId, long olderThan) {
+        delegate.clearAdmin(realmId, olderThan);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.events;
+
+import org.jboss.logging.Logger;
+import org.keycloak.Config;
+import org.keycloak.events.admin.AdminEvent;
+import org.keycloak.models.KeycloakSession;
+import org.keycloak.models.KeycloakSessionFactory;
+import org.keycloak.models.utils.KeycloakModelUtils;
+import org.keycloak.models.utils.PreShutdownEvent;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Stores events asynchronously, so saving of events doesn't add to the latency of user requests. Events are put to a
+ * bounded queue and stored in batches by a background thread in its own transaction, when batch is full or when flush
+ * interval elapses. When the queue is full, the caller waits for "blockTimeout" and then the event is dropped.
+ * Remaining events are flushed at shutdown.
+ * <p>
+ * Enabled with "async" option of the event store provider. Other options are "asyncQueueSize", "asyncBatchSize",
+ * "asyncFlushInterval" (ms) and "asyncBlockTimeout" (ms).
+ */
+public class AsyncEventStoreWriter {
+
+    private static final Logger logger = Logger.getLogger(AsyncEventStoreWriter.class);
+
+    private static final long SHUTDOWN_TIMEOUT = 30000;
+    private static final long DROPPED_LOG_INTERVAL = 60000;
+
+    private final KeycloakSessionFactory sessionFactory;
+    private final Function<KeycloakSession, EventStoreProvider> storeFactory;
+    private final BlockingQueue<QueuedEvent> queue;
+    private final int batchSize;
+    private final long flushInterval;
+    private final long blockTimeout;
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long lastDroppedLog;
+
+    /**
+     * Creates and starts the writer if "async" option is enabled in the config of the event store provider.
+     *
+     * @param config config of the event store provider factory
+     * @param sessionFactory
+     * @param storeFactory creates the synchronous event store, which is used by background thread to store the events
+     * @return started writer or null if async storing isn't enabled
+     */
+    public static AsyncEventStoreWriter create(Config.Scope config, KeycloakSessionFactory sessionFactory, Function<KeycloakSession, EventStoreProvider> storeFactory) {
+        if (!config.getBoolean("async", false)) {
+            return null;
+        }
+
+        AsyncEventStoreWriter writer = new AsyncEventStoreWriter(sessionFactory, storeFactory, config.getInt("asyncQueueSize", 10000),
+                config.getInt("asyncBatchSize", 100), config.getLong("asyncFlushInterval", 1000L), config.getLong("asyncBlockTimeout", 0L));
+
+        // Flush before other providers (e.g. connection to the DB) are closed
+        sessionFactory.register(event -> {
+            if (event instanceof PreShutdownEvent) {
+                writer.close();
+            }
+        });
+
+        writer.start();
+        return writer;
+    }
+
+    public AsyncEventStoreWriter(KeycloakSessionFactory sessionFactory, Function<KeycloakSession, EventStoreProvider> storeFactory,
+                                 int queueSize, int batchSize, long flushInterval, long blockTimeout) {
+        this.sessionFactory = sessionFactory;
+        this.storeFactory = storeFactory;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.blockTimeout = blockTimeout;
+        this.worker = new Thread(this::run, "keycloak-event-store-writer");
+        this.worker.setDaemon(true);
+    }
+
+    public void start() {
+        logger.debugf("Starting async event store writer. Queue size: %d, batch size: %d, flush interval: %d ms", queue.remainingCapacity(), batchSize, flushInterval);
+        worker.start();
+    }
+
+    public void onEvent(Event event) {
+        enqueue(new QueuedEvent(event.clone(), null, false));
+    }
+
+    public void onEvent(AdminEvent event, boolean includeRepresentation) {
+        enqueue(new QueuedEvent(null, event.clone(), includeRepresentation));
+    }
+
+    private void enqueue(QueuedEvent event) {
+        boolean added = false;
+        if (running) {
+            try {
+                added = blockTimeout > 0 ? queue.offer(event, blockTimeout, TimeUnit.MILLISECONDS) : queue.offer(event);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (added) {
+            queued.incrementAndGet();
+        } else {
+            long count = dropped.incrementAndGet();
+            long now = System.currentTimeMillis();
+            if (now - lastDroppedLog > DROPPED_LOG_INTERVAL) {
+                lastDroppedLog = now;
+                logger.warnf("Event store queue is full or writer is stopped. Event dropped. Total dropped events: %d", count);
+            }
+        }
+    }
+
+    private void run() {
+        List<QueuedEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                QueuedEvent first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Wait until the batch is full, but not longer than flush interval since the first event
+                long deadline = System.currentTimeMillis() + flushInterval;
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    QueuedEvent next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+            } catch (InterruptedException ie) {
+                // Stopped. Remaining events are flushed in next iterations
+            }
+
+            if (!batch.isEmpty()) {
+                storeBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void storeBatch(List<QueuedEvent> batch) {
+        List<Event> events = new LinkedList<>();
+        List<AdminEvent> adminEvents = new LinkedList<>();
+        List<AdminEvent> adminEventsWithRepresentation = new LinkedList<>();
+        for (QueuedEvent queuedEvent : batch) {
+            if (queuedEvent.event != null) {
+                events.add(queuedEvent.event);
+            } else if (queuedEvent.includeRepresentation) {
+                adminEventsWithRepresentation.add(queuedEvent.adminEvent);
+            } else {
+                adminEvents.add(queuedEvent.adminEvent);
+            }
+        }
+
+        try {
+            store(events, adminEvents, adminEventsWithRepresentation);
+            stored.addAndGet(batch.size());
+        } catch (Throwable t) {
+            long count = failed.addAndGet(batch.size());
+            logger.errorf(t, "Failed to store batch of %d events. Total failed events: %d", batch.size(), count);
+        }
+    }
+
+    protected void store(final List<Event> events, final List<AdminEvent> adminEvents, final List<AdminEvent> adminEventsWithRepresentation) {
+        KeycloakModelUtils.runJobInTransaction(sessionFactory, session -> {
+            EventStoreProvider store = storeFactory.apply(session);
+            if (!events.isEmpty()) {
+                store.onEvents(events);
+            }
+            if (!adminEvents.isEmpty()) {
+                store.onAdminEvents(adminEvents, false);
+            }
+            if (!adminEventsWithRepresentation.isEmpty()) {
+                store.onAdminEvents(adminEventsWithRepresentation, true);
+            }
+        });
+    }
+
+    /**
+     * Stops accepting new events and waits until the queued events are stored.
+     */
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        worker.interrupt();
+
+        try {
+            worker.join(SHUTDOWN_TIMEOUT);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (worker.isAlive() || !queue.isEmpty()) {
+            logger.warnf("Async event store writer didn't flush all events in %d ms. Lost events: %d", SHUTDOWN_TIMEOUT, queue.size());
+        }
+        logger.debugf("Async event store writer stopped. Queued: %d, stored: %d, dropped: %d, failed: %d", getQueued(), getStored(), getDropped(), getFailed());
+    }
+
+    public long getQueued() {
+        return queued.get();
+    }
+
+    public long getStored() {
+        return stored.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private static class QueuedEvent {
+
+        private final Event event;
+        private final AdminEvent adminEvent;
+        private final boolean includeRepresentation;
+
+        private QueuedEvent(Event event, AdminEvent adminEvent, boolean includeRepresentation) {
+            this.event = event;
+            this.adminEvent = adminEvent;
+            this.includeRepresentation = includeRepresentation;
+        }
+    }
+
+}
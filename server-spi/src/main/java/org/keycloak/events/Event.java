@@ -25,6 +25,8 @@ import java.util.Map;
  */
 public class Event {
 
+    private String id;
+
     private long time;
 
     private EventType type;
@@ -43,6 +45,19 @@ public class Event {
 
     private Map<String, String> details;
 
+    /**
+     * Returns the id of the event. Set only on events loaded from the event store.
+     *
+     * @return
+     */
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
     public long getTime() {
         return time;
     }
@@ -117,6 +132,7 @@ public class Event {
 
     public Event clone() {
         Event clone = new Event();
+        clone.id = id;
         clone.time = time;
         clone.type = type;
         clone.realmId = realmId;
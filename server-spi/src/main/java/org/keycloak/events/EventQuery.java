@@ -43,6 +43,21 @@ public interface EventQuery {
 
     public EventQuery maxResults(int results);
 
+    /**
+     * Used for keyset pagination. Returns only events following the given event in the result order (newest first),
+     * which is usually the last event of the previous page. Unlike {@link #firstResult(int)}, the preceding events
+     * don't need to be skipped by the database, so the cost of a page doesn't grow with its position.
+     *
+     * @param time time of the last event of previous page
+     * @param id id of the last event of previous page
+     * @return
+     * @throws IllegalArgumentException if the id isn't a valid event id for the store
+     * @throws UnsupportedOperationException if the store doesn't support keyset pagination
+     */
+    default EventQuery after(long time, String id) {
+        throw new UnsupportedOperationException("Keyset pagination not supported by " + getClass().getName());
+    }
+
     public List<Event> getResultList();
 
 }
@@ -17,8 +17,11 @@
 
 package org.keycloak.events;
 
+import org.keycloak.events.admin.AdminEvent;
 import org.keycloak.events.admin.AdminEventQuery;
 
+import java.util.List;
+
 /**
  * @author <a href="mailto:sthorger@redhat.com">Stian Thorgersen</a>
  */
@@ -34,10 +37,52 @@ public interface EventStoreProvider extends EventListenerProvider {
 
     public void clear(String realmId, long olderThan);
 
+    /**
+     * Removes at most maxResults events of the realm older than olderThan. Allows to remove large amount of expired
+     * events in more short transactions instead of one long one.
+     *
+     * The default implementation doesn't remove in chunks. It delegates to {@link #clear(String, long)}, so all the
+     * expired events are removed at once, and returns 0. Providers should override it to limit the removal.
+     *
+     * @param realmId
+     * @param olderThan
+     * @param maxResults
+     * @return count of removed events. Less than maxResults means there are no more events to remove
+     */
+    default int clear(String realmId, long olderThan, int maxResults) {
+        clear(realmId, olderThan);
+        return 0;
+    }
+
     public void clearAdmin();
 
     public void clearAdmin(String realmId);
 
     public void clearAdmin(String realmId, long olderThan);
 
+    /**
+     * Stores more events at once. Used by {@link AsyncEventStoreWriter}. Providers should override this if they can
+     * store the events in a batch.
+     *
+     * @param events
+     */
+    default void onEvents(List<Event> events) {
+        for (Event event : events) {
+            onEvent(event);
+        }
+    }
+
+    /**
+     * Stores more admin events at once. Used by {@link AsyncEventStoreWriter}. Providers should override this if they
+     * can store the events in a batch.
+     *
+     * @param events
+     * @param includeRepresentation
+     */
+    default void onAdminEvents(List<AdminEvent> events, boolean includeRepresentation) {
+        for (AdminEvent event : events) {
+            onEvent(event, includeRepresentation);
+        }
+    }
+
 }
@@ -22,6 +22,8 @@ package org.keycloak.events.admin;
  */
 public class AdminEvent {
 
+    private String id;
+
     private long time;
     
     private String realmId;
@@ -41,6 +43,19 @@ public class AdminEvent {
 
     private String error;
     
+    /**
+     * Returns the id of the event. Set only on events loaded from the event store.
+     *
+     * @return
+     */
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
     /**
      * Returns the time of the event
      *
@@ -150,4 +165,18 @@ public class AdminEvent {
     public void setResourceType(ResourceType resourceType) {
         this.resourceType = resourceType;
     }
+
+    public AdminEvent clone() {
+        AdminEvent clone = new AdminEvent();
+        clone.id = id;
+        clone.time = time;
+        clone.realmId = realmId;
+        clone.authDetails = authDetails != null ? authDetails.clone() : null;
+        clone.resourceType = resourceType;
+        clone.operationType = operationType;
+        clone.resourcePath = resourcePath;
+        clone.representation = representation;
+        clone.error = error;
+        return clone;
+    }
 }
@@ -117,6 +117,21 @@ public interface AdminEventQuery {
      */
     AdminEventQuery firstResult(int first);
 
+    /**
+     * Used for keyset pagination. Returns only events following the given event in the result order (newest first),
+     * which is usually the last event of the previous page. Unlike {@link #firstResult(int)}, the preceding events
+     * don't need to be skipped by the database, so the cost of a page doesn't grow with its position.
+     *
+     * @param time time of the last event of previous page
+     * @param id id of the last event of previous page
+     * @return <code>this</code> for method chaining
+     * @throws IllegalArgumentException if the id isn't a valid event id for the store
+     * @throws UnsupportedOperationException if the store doesn't support keyset pagination
+     */
+    default AdminEventQuery after(long time, String id) {
+        throw new UnsupportedOperationException("Keyset pagination not supported by " + getClass().getName());
+    }
+
     /**
      * Use for pagination
      * 
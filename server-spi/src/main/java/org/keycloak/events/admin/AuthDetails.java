@@ -62,4 +62,13 @@ public class AuthDetails {
         this.ipAddress = ipAddress;
     }
 
+    public AuthDetails clone() {
+        AuthDetails clone = new AuthDetails();
+        clone.realmId = realmId;
+        clone.clientId = clientId;
+        clone.userId = userId;
+        clone.ipAddress = ipAddress;
+        return clone;
+    }
+
 }
@@ -20,6 +20,7 @@ package org.keycloak.models;
 import org.keycloak.migration.MigrationModel;
 import org.keycloak.provider.Provider;
 
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
@@ -88,6 +89,21 @@ public interface RealmProvider extends Provider {
 
 
     List<RealmModel> getRealms();
+
+    /**
+     * Ids of all realms. Callers that only need to iterate realms, like scheduled tasks, should use this instead of
+     * {@link #getRealms()} to avoid loading all realms. Providers should override this if they can load just the ids.
+     *
+     * @return
+     */
+    default List<String> getRealmIds() {
+        List<String> ids = new LinkedList<>();
+        for (RealmModel realm : getRealms()) {
+            ids.add(realm.getId());
+        }
+        return ids;
+    }
+
     boolean removeRealm(String id);
     void close();
 }
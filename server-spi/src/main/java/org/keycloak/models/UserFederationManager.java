@@ -23,6 +23,7 @@ import org.keycloak.models.utils.KeycloakModelUtils;
 import org.keycloak.services.managers.UserManager;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
@@ -215,6 +216,18 @@ public class UserFederationManager implements UserProvider {
         return user;
     }
 
+    @Override
+    public List<UserModel> getUsersByIds(Collection<String> ids, RealmModel realm) {
+        List<UserModel> users = new LinkedList<>();
+        for (UserModel user : session.userStorage().getUsersByIds(ids, realm)) {
+            user = validateAndProxyUser(realm, user);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
     @Override
     public List<UserModel> getGroupMembers(RealmModel realm, final GroupModel group, int firstResult, int maxResults) {
         // Not very effective. For the page X, it is loading also all previous pages 0..X-1 . Improve if needed...
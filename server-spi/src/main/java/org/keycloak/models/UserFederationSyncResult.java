@@ -29,6 +29,8 @@ public class UserFederationSyncResult {
     private int removed;
     private int failed;
 
+    private long durationMillis;
+
     public boolean isIgnored() {
         return ignored;
     }
@@ -69,6 +71,24 @@ public class UserFederationSyncResult {
         this.failed = failed;
     }
 
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * @return number of added, updated and failed users processed per second or 0 if the duration of the sync is unknown
+     */
+    public int getUsersPerSecond() {
+        if (durationMillis <= 0) {
+            return 0;
+        }
+        return (int) ((added + updated + failed) * 1000L / durationMillis);
+    }
+
     public void increaseAdded() {
         added++;
     }
@@ -85,6 +105,9 @@ public class UserFederationSyncResult {
         failed++;
     }
 
+    /**
+     * Adds counters of the other result. The duration is not added as partial results may be computed concurrently.
+     */
     public void add(UserFederationSyncResult other) {
         added += other.added;
         updated += other.updated;
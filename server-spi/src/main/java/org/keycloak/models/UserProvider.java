@@ -23,6 +23,8 @@ import org.keycloak.storage.user.UserLookupProvider;
 import org.keycloak.storage.user.UserQueryProvider;
 import org.keycloak.storage.user.UserRegistrationProvider;
 
+import java.util.Collection;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
@@ -49,6 +51,43 @@ public interface UserProvider extends Provider,
     void updateConsent(RealmModel realm, UserModel user, UserConsentModel consent);
     boolean revokeConsentForClient(RealmModel realm, UserModel user, String clientInternalId);
 
+    /**
+     * Bulk variant of {@link #getUserById(String, RealmModel)}. Users, which don't exist, are skipped in the result and
+     * the order of the result is unspecified. Providers should override this if they can lookup more users at once.
+     *
+     * @param ids
+     * @param realm
+     * @return
+     */
+    default List<UserModel> getUsersByIds(Collection<String> ids, RealmModel realm) {
+        List<UserModel> users = new LinkedList<>();
+        for (String id : ids) {
+            UserModel user = getUserById(id, realm);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Bulk variant of {@link #getUserByUsername(String, RealmModel)}. Users, which don't exist, are skipped in the result
+     * and the order of the result is unspecified. Providers should override this if they can lookup more users at once.
+     *
+     * @param usernames
+     * @param realm
+     * @return
+     */
+    default List<UserModel> getUsersByUsernames(Collection<String> usernames, RealmModel realm) {
+        List<UserModel> users = new LinkedList<>();
+        for (String username : usernames) {
+            UserModel user = getUserByUsername(username, realm);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
 
     UserModel getServiceAccount(ClientModel client);
     List<UserModel> getUsers(RealmModel realm, boolean includeServiceAccounts);
@@ -20,6 +20,7 @@ package org.keycloak.models;
 import org.keycloak.provider.Provider;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author <a href="mailto:bill@burkecentral.com">Bill Burke</a>
@@ -40,6 +41,12 @@ public interface UserSessionProvider extends Provider {
     UserSessionModel getUserSessionByBrokerSessionId(RealmModel realm, String brokerSessionId);
 
     long getActiveUserSessions(RealmModel realm, ClientModel client);
+
+    // Count of all active user sessions in the realm
+    long getActiveUserSessions(RealmModel realm);
+
+    // Key is id of the client, value is count of active (or offline) user sessions of that client. Clients without sessions are not included
+    Map<String, Long> getActiveClientSessionStats(RealmModel realm, boolean offline);
     void removeUserSession(RealmModel realm, UserSessionModel session);
     void removeUserSessions(RealmModel realm, UserModel user);
 
@@ -71,6 +78,9 @@ public interface UserSessionProvider extends Provider {
     void removeOfflineClientSession(RealmModel realm, String clientSessionId);
 
     long getOfflineSessionsCount(RealmModel realm, ClientModel client);
+
+    // Count of all offline user sessions in the realm
+    long getOfflineSessionsCount(RealmModel realm);
     List<UserSessionModel> getOfflineUserSessions(RealmModel realm, ClientModel client, int first, int max);
 
     // Triggered by persister during pre-load
@@ -17,7 +17,14 @@
 
 package org.keycloak.models.cache;
 
+import org.keycloak.models.ClientModel;
+import org.keycloak.models.RealmModel;
 import org.keycloak.models.RealmProvider;
+import org.keycloak.models.RoleModel;
+import org.keycloak.models.utils.ClientWebOrigins;
+import org.keycloak.models.utils.RedirectUriMatcher;
+
+import java.util.Set;
 
 /**
  * @author <a href="mailto:bill@burkecentral.com">Bill Burke</a>
@@ -35,4 +42,26 @@ public interface CacheRealmProvider extends RealmProvider {
     void registerRoleInvalidation(String id);
 
     void registerGroupInvalidation(String id);
+
+    /**
+     * Same as {@link org.keycloak.models.utils.KeycloakModelUtils#getClientScopedRoles(ClientModel, Set)}, but the result
+     * is cached per client and set of role mappings until any of the involved roles, the client or its template changes.
+     */
+    Set<RoleModel> getClientScopedRoles(ClientModel client, Set<RoleModel> roleMappings);
+
+    /**
+     * Same as {@link RedirectUriMatcher#create(ClientModel)}, but the matcher is cached with the client until it changes.
+     */
+    RedirectUriMatcher getRedirectUriMatcher(ClientModel client);
+
+    /**
+     * Same as {@link ClientWebOrigins#create(ClientModel)}, but the web origins are cached with the client until it changes.
+     */
+    ClientWebOrigins getWebOrigins(ClientModel client);
+
+    /**
+     * Same as {@link RedirectUriMatcher#create(java.util.Collection)} for all clients of the realm, but the matcher is
+     * cached until any client of the realm is added, removed or changed.
+     */
+    RedirectUriMatcher getRealmRedirectUriMatcher(RealmModel realm);
 }
@@ -119,6 +119,11 @@ public class DisabledUserSessionPersisterProvider implements UserSessionPersiste
         return Collections.emptyList();
     }
 
+    @Override
+    public List<UserSessionModel> loadUserSessions(String lastUserSessionId, String upperBoundUserSessionId, int maxResults, boolean offline) {
+        return Collections.emptyList();
+    }
+
     @Override
     public int getUserSessionsCount(boolean offline) {
         return 0;
@@ -58,6 +58,10 @@ public interface UserSessionPersisterProvider extends Provider {
     // Called during startup. For each userSession, it loads also clientSessions
     List<UserSessionModel> loadUserSessions(int firstResult, int maxResults, boolean offline);
 
+    // Called during startup. Keyset variant of the above, which loads userSessions ordered by ID with ID greater than "lastUserSessionId"
+    // and lower or equal to "upperBoundUserSessionId". Null bound is not applied. Returns less than "maxResults" userSessions just if there are no more userSessions in the range
+    List<UserSessionModel> loadUserSessions(String lastUserSessionId, String upperBoundUserSessionId, int maxResults, boolean offline);
+
     int getUserSessionsCount(boolean offline);
 
 }
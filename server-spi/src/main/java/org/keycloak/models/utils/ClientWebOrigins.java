@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.models.utils;
+
+import org.keycloak.common.util.UriUtils;
+import org.keycloak.models.ClientModel;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolved web origins of a client. Web origin {@code +} is replaced with the origins of the valid redirect URIs.
+ * <p>
+ * Relative redirect URIs of clients without root URL are resolved against the origin of the current request, so the
+ * resolved web origins are kept per request origin.
+ */
+public class ClientWebOrigins {
+
+    public static final String INCLUDE_REDIRECTS = "+";
+
+    private static final int MAX_REQUEST_ORIGINS = 16;
+
+    private final Set<String> webOrigins;
+    private final Set<String> redirectOrigins;
+    private final boolean relativeRedirects;
+    private final Set<String> allowedOrigins;
+    private final boolean allowedRequestOrigin;
+    private final ConcurrentMap<String, Set<String>> allowedOriginsByRequestOrigin = new ConcurrentHashMap<>();
+
+    private ClientWebOrigins(String rootUrl, Collection<String> redirectUris, Collection<String> webOrigins) {
+        this.webOrigins = Collections.unmodifiableSet(new HashSet<>(webOrigins));
+
+        boolean hasRootUrl = rootUrl != null && !rootUrl.isEmpty();
+        Set<String> redirectOrigins = new HashSet<>();
+        Set<String> httpRedirectOrigins = new HashSet<>();
+        boolean relativeRedirects = false;
+        for (String redirectUri : redirectUris) {
+            addRedirectOrigin(redirectUri, redirectOrigins, httpRedirectOrigins);
+            if (redirectUri.startsWith("/")) {
+                if (hasRootUrl) {
+                    addRedirectOrigin(rootUrl + redirectUri, redirectOrigins, httpRedirectOrigins);
+                } else {
+                    relativeRedirects = true;
+                }
+            }
+        }
+        this.redirectOrigins = redirectOrigins;
+        this.relativeRedirects = relativeRedirects;
+
+        if (webOrigins.contains(INCLUDE_REDIRECTS)) {
+            Set<String> allowedOrigins = new HashSet<>(webOrigins);
+            allowedOrigins.remove(INCLUDE_REDIRECTS);
+            allowedOrigins.addAll(httpRedirectOrigins);
+            this.allowedOrigins = Collections.unmodifiableSet(allowedOrigins);
+            this.allowedRequestOrigin = relativeRedirects;
+        } else {
+            this.allowedOrigins = this.webOrigins;
+            this.allowedRequestOrigin = false;
+        }
+    }
+
+    private static void addRedirectOrigin(String redirectUri, Set<String> redirectOrigins, Set<String> httpRedirectOrigins) {
+        String origin = UriUtils.getOrigin(redirectUri);
+        redirectOrigins.add(origin);
+        if (redirectUri.startsWith("http://") || redirectUri.startsWith("https://")) {
+            httpRedirectOrigins.add(origin);
+        }
+    }
+
+    public static ClientWebOrigins create(String rootUrl, Collection<String> redirectUris, Collection<String> webOrigins) {
+        return new ClientWebOrigins(rootUrl, redirectUris, webOrigins);
+    }
+
+    public static ClientWebOrigins create(ClientModel client) {
+        return create(client.getRootUrl(), client.getRedirectUris(), client.getWebOrigins());
+    }
+
+    /**
+     * Web origins allowed for tokens issued to the client. The returned set is shared and can't be modified.
+     *
+     * @param requestOrigin scheme, host and port of the current request
+     * @return
+     */
+    public Set<String> getAllowedOrigins(String requestOrigin) {
+        if (!allowedRequestOrigin || allowedOrigins.contains(requestOrigin)) {
+            return allowedOrigins;
+        }
+
+        Set<String> origins = allowedOriginsByRequestOrigin.get(requestOrigin);
+        if (origins == null) {
+            origins = new HashSet<>(allowedOrigins);
+            origins.add(requestOrigin);
+            origins = Collections.unmodifiableSet(origins);
+            // the request origin comes from the Host header, so don't keep an unlimited number of them
+            if (allowedOriginsByRequestOrigin.size() < MAX_REQUEST_ORIGINS) {
+                allowedOriginsByRequestOrigin.putIfAbsent(requestOrigin, origins);
+            }
+        }
+        return origins;
+    }
+
+    /**
+     * Checks if the origin is one of the configured web origins or the origin of one of the valid redirect URIs.
+     *
+     * @param origin the origin to check
+     * @param requestOrigin scheme, host and port of the current request
+     * @return
+     */
+    public boolean isValidOrigin(String origin, String requestOrigin) {
+        if (webOrigins.contains("*") || webOrigins.contains(origin) || redirectOrigins.contains(origin)) {
+            return true;
+        }
+        return relativeRedirects && origin.equals(requestOrigin);
+    }
+
+}
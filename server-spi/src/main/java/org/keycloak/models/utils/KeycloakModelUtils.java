@@ -200,6 +200,94 @@ public final class KeycloakModelUtils {
         return false;
     }
 
+    /**
+     * Returns ids of the given role and all the roles it contains, directly or through other composite roles.
+     *
+     * @param role role to expand
+     * @return ids of all roles the given role has
+     */
+    public static Set<String> getCompositeRoleIds(RoleModel role) {
+        Set<String> ids = new HashSet<>();
+        addCompositeRoleIds(role, ids);
+        return ids;
+    }
+
+    private static void addCompositeRoleIds(RoleModel role, Set<String> ids) {
+        if (!ids.add(role.getId())) return;
+        if (!role.isComposite()) return;
+        for (RoleModel contained : role.getComposites()) {
+            addCompositeRoleIds(contained, ids);
+        }
+    }
+
+    /**
+     * Checks if the client (or its template, if the client uses the template scope) has full scope allowed.
+     */
+    public static boolean hasFullScope(ClientModel client) {
+        ClientTemplateModel template = client.getClientTemplate();
+        boolean useTemplateScope = template != null && client.useTemplateScope();
+        return (useTemplateScope && template.isFullScopeAllowed()) || client.isFullScopeAllowed();
+    }
+
+    /**
+     * Returns the roles the scope of the client consists of. That are the scope mappings of the client and of its
+     * template (if the client uses the template scope) and the roles of the client itself.
+     */
+    public static Set<RoleModel> getClientScopeMappings(ClientModel client) {
+        Set<RoleModel> scopeMappings = new HashSet<>();
+        ClientTemplateModel template = client.getClientTemplate();
+        if (template != null && client.useTemplateScope()) {
+            scopeMappings.addAll(template.getScopeMappings());
+        }
+        scopeMappings.addAll(client.getRoles());
+        scopeMappings.addAll(client.getScopeMappings());
+        return scopeMappings;
+    }
+
+    /**
+     * Returns the roles from the given role mappings of a user, which are available to the client. If the client doesn't
+     * have full scope, these are the roles from the scope of the client (or roles contained in them), which the user has.
+     *
+     * @param client client the roles are requested for
+     * @param roleMappings roles mapped to the user, including the roles of the user's groups
+     * @return roles available to the client
+     */
+    public static Set<RoleModel> getClientScopedRoles(ClientModel client, Set<RoleModel> roleMappings) {
+        if (hasFullScope(client)) {
+            return roleMappings;
+        }
+        return getScopedRoles(roleMappings, getClientScopeMappings(client));
+    }
+
+    /**
+     * Returns the roles from the given scope mappings (or roles contained in them), which are contained in any of the given
+     * role mappings. Roles contained in a role, which is added to the result, are not added themselves.
+     */
+    public static Set<RoleModel> getScopedRoles(Set<RoleModel> roleMappings, Set<RoleModel> scopeMappings) {
+        Set<RoleModel> scopedRoles = new HashSet<>();
+        for (RoleModel role : roleMappings) {
+            // The outcome for a scope role depends only on the role, so the visited roles can be shared by all scope mappings
+            Set<RoleModel> visited = new HashSet<>();
+            for (RoleModel scope : scopeMappings) {
+                applyScope(role, scope, visited, scopedRoles);
+            }
+        }
+        return scopedRoles;
+    }
+
+    private static void applyScope(RoleModel role, RoleModel scope, Set<RoleModel> visited, Set<RoleModel> requested) {
+        if (!visited.add(scope)) return;
+        if (role.hasRole(scope)) {
+            requested.add(scope);
+            return;
+        }
+        if (!scope.isComposite()) return;
+
+        for (RoleModel contained : scope.getComposites()) {
+            applyScope(role, contained, visited, requested);
+        }
+    }
+
     /**
      * Try to find user by username or email
      *
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.models.utils;
+
+import org.keycloak.models.ClientModel;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiled form of the valid redirect URIs of one or more clients. Exact redirect URIs are kept in a hash set and
+ * wildcard redirect URIs in a prefix trie, so the cost of a match doesn't depend on the number of redirect URIs.
+ * <p>
+ * Relative redirect URIs of clients without root URL are resolved against the origin of the current request, so they
+ * are kept apart and matched against the redirect URI with the origin stripped off.
+ */
+public class RedirectUriMatcher implements Serializable {
+
+    private final Patterns absolute = new Patterns(2);
+    private final Patterns relative = new Patterns(1);
+    private int size;
+
+    public static RedirectUriMatcher create(String rootUrl, Collection<String> redirectUris) {
+        RedirectUriMatcher matcher = new RedirectUriMatcher();
+        matcher.add(rootUrl, redirectUris);
+        return matcher;
+    }
+
+    public static RedirectUriMatcher create(ClientModel client) {
+        return create(client.getRootUrl(), client.getRedirectUris());
+    }
+
+    public static RedirectUriMatcher create(Collection<ClientModel> clients) {
+        RedirectUriMatcher matcher = new RedirectUriMatcher();
+        for (ClientModel client : clients) {
+            matcher.add(client.getRootUrl(), client.getRedirectUris());
+        }
+        return matcher;
+    }
+
+    private void add(String rootUrl, Collection<String> redirectUris) {
+        boolean hasRootUrl = rootUrl != null && !rootUrl.isEmpty();
+        for (String redirectUri : redirectUris) {
+            // relative urls are valid as they are too
+            absolute.add(redirectUri);
+            if (redirectUri.startsWith("/")) {
+                if (hasRootUrl) {
+                    absolute.add(rootUrl + redirectUri);
+                } else {
+                    relative.add(redirectUri);
+                }
+            }
+            size++;
+        }
+    }
+
+    /**
+     * @return true if there are no valid redirect URIs at all
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks the redirect URI against the valid redirect URIs.
+     *
+     * @param redirectUri the redirect URI with lower cased hostname
+     * @param origin scheme, host and port of the current request, relative redirect URIs of clients without root URL
+     *               are resolved against it
+     * @return
+     */
+    public boolean matches(String redirectUri, String origin) {
+        if (absolute.matches(redirectUri)) return true;
+        return !relative.isEmpty() && origin != null && redirectUri.startsWith(origin)
+                && relative.matches(redirectUri.substring(origin.length()));
+    }
+
+    private static class Patterns implements Serializable {
+
+        // wildcard "http://host/path/*" also matches "http://host/path", but the trailing '/' is only stripped off if
+        // something remains. Relative patterns are always prefixed with the origin, so there it can be stripped off
+        // from "/*" too
+        private final int minTrimLength;
+        private final Set<String> exact = new HashSet<>();
+        private final Set<String> trimmed = new HashSet<>();
+        private final Node wildcards = new Node("");
+
+        private Patterns(int minTrimLength) {
+            this.minTrimLength = minTrimLength;
+        }
+
+        private void add(String pattern) {
+            if (pattern.endsWith("*") && !pattern.contains("?")) {
+                String prefix = pattern.substring(0, pattern.length() - 1);
+                wildcards.insert(prefix);
+                if (prefix.length() >= minTrimLength && prefix.charAt(prefix.length() - 1) == '/') {
+                    trimmed.add(prefix.substring(0, prefix.length() - 1));
+                }
+            } else {
+                exact.add(pattern);
+            }
+        }
+
+        private boolean isEmpty() {
+            return exact.isEmpty() && wildcards.isLeaf() && !wildcards.terminal;
+        }
+
+        private boolean matches(String redirectUri) {
+            if (exact.contains(redirectUri)) return true;
+            // we don't check the query component when wildcards are effective
+            int query = redirectUri.indexOf('?');
+            String r = query == -1 ? redirectUri : redirectUri.substring(0, query);
+            return wildcards.hasPrefixOf(r) || trimmed.contains(r);
+        }
+    }
+
+    /**
+     * Node of a radix trie, every node holds the segment of the key leading to it from the parent node
+     */
+    private static class Node implements Serializable {
+
+        private String segment;
+        private boolean terminal;
+        private Map<Character, Node> children;
+
+        private Node(String segment) {
+            this.segment = segment;
+        }
+
+        private boolean isLeaf() {
+            return children == null;
+        }
+
+        private Node child(char c) {
+            return children == null ? null : children.get(c);
+        }
+
+        private void addChild(Node child) {
+            if (children == null) children = new HashMap<>();
+            children.put(child.segment.charAt(0), child);
+        }
+
+        private void insert(String key) {
+            Node node = this;
+            int i = 0;
+            while (i < key.length()) {
+                Node child = node.child(key.charAt(i));
+                if (child == null) {
+                    child = new Node(key.substring(i));
+                    child.terminal = true;
+                    node.addChild(child);
+                    return;
+                }
+
+                String segment = child.segment;
+                int common = 1;
+                while (common < segment.length() && i + common < key.length() && segment.charAt(common) == key.charAt(i + common)) {
+                    common++;
+                }
+
+                if (common < segment.length()) {
+                    // split the child at the end of the common part
+                    Node split = new Node(segment.substring(0, common));
+                    child.segment = segment.substring(common);
+                    split.addChild(child);
+                    node.addChild(split);
+                    child = split;
+                }
+
+                node = child;
+                i += common;
+            }
+            node.terminal = true;
+        }
+
+        private boolean hasPrefixOf(String s) {
+            Node node = this;
+            int i = 0;
+            while (true) {
+                if (node.terminal) return true;
+                if (i == s.length()) return false;
+                node = node.child(s.charAt(i));
+                if (node == null || !s.startsWith(node.segment, i)) return false;
+                i += node.segment.length();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keycloak.scripting;
+
+import org.keycloak.models.ScriptModel;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptException;
+
+/**
+ * Wraps a {@link ScriptModel} compiled into a {@link CompiledScript}, which can be evaluated many times and concurrently.
+ * <p>Every evaluation gets its own {@link Bindings}, so state of one evaluation isn't visible to the others.</p>
+ */
+public class EvaluatableScriptAdapter {
+
+    /**
+     * Holds the {@link ScriptModel}
+     */
+    private final ScriptModel scriptModel;
+
+    /**
+     * Holds the compiled script code.
+     */
+    private final CompiledScript compiledScript;
+
+    /**
+     * Creates a new {@link EvaluatableScriptAdapter} instance.
+     *
+     * @param scriptModel    must not be {@literal null}
+     * @param compiledScript must not be {@literal null}
+     */
+    public EvaluatableScriptAdapter(ScriptModel scriptModel, CompiledScript compiledScript) {
+
+        if (scriptModel == null) {
+            throw new IllegalArgumentException("scriptModel must not be null");
+        }
+
+        if (compiledScript == null) {
+            throw new IllegalArgumentException("compiledScript must not be null");
+        }
+
+        this.scriptModel = scriptModel;
+        this.compiledScript = compiledScript;
+    }
+
+    /**
+     * Evaluates the script with new {@link Bindings} populated by the given {@link ScriptBindingsConfigurer}.
+     *
+     * @param bindingsConfigurer must not be {@literal null}
+     * @return the result of the script evaluation
+     */
+    public Object eval(ScriptBindingsConfigurer bindingsConfigurer) throws ScriptExecutionException {
+
+        Bindings bindings = compiledScript.getEngine().createBindings();
+        bindingsConfigurer.configureBindings(bindings);
+
+        try {
+            return compiledScript.eval(bindings);
+        } catch (ScriptException e) {
+            throw new ScriptExecutionException(scriptModel, e);
+        }
+    }
+
+    public ScriptModel getScriptModel() {
+        return scriptModel;
+    }
+}
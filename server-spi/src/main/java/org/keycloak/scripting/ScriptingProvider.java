@@ -38,6 +38,16 @@ public interface ScriptingProvider extends Provider {
      */
     InvocableScriptAdapter prepareInvocableScript(ScriptModel scriptModel, ScriptBindingsConfigurer bindingsConfigurer);
 
+    /**
+     * Returns an {@link EvaluatableScriptAdapter} based on the given {@link ScriptModel}.
+     * <p>The script code is compiled just once and the compiled form is reused as long as the code of the script with the
+     * same id doesn't change. Scripts without id are identified by their code.</p>
+     *
+     * @param scriptModel the scriptModel to compile
+     * @return
+     */
+    EvaluatableScriptAdapter prepareEvaluatableScript(ScriptModel scriptModel);
+
     /**
      * Creates a new {@link ScriptModel} instance.
      *
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.services.managers;
+
+import org.keycloak.models.KeycloakSession;
+import org.keycloak.provider.Provider;
+import org.keycloak.representations.adapters.action.GlobalRequestResult;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Sends admin actions (logout, push not-before, test availability) to the management URLs of clients in the background.
+ */
+public interface BackchannelRequestDispatcher extends Provider {
+
+    /**
+     * Posts the token to all URLs without waiting for the responses. The same token is sent to every URL. Failed
+     * requests are retried and reported as failed once all retries are exhausted. Requests are neither sent nor retried
+     * after the token expired, as the adapter would reject it anyway.
+     *
+     * @param session
+     * @param urls
+     * @param token
+     * @param expiration time in seconds when the token expires
+     * @return future completed when all requests are finished
+     */
+    Future<GlobalRequestResult> send(KeycloakSession session, List<String> urls, String token, int expiration);
+
+    /**
+     * @return true if backchannel logout of user sessions should wait until all requests are finished
+     */
+    boolean isSynchronousLogout();
+}
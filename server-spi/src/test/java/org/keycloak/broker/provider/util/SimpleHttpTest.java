@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.keycloak.broker.provider.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SimpleHttpTest {
+
+    private HttpServer server;
+    private CloseableHttpClient client;
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<>());
+
+    @Before
+    public void before() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            String body = exchange.getRequestMethod() + " " + exchange.getRequestURI().getRawQuery() + " "
+                    + exchange.getRequestHeaders().getFirst("X-Test") + " " + readBody(exchange);
+            respond(exchange, 200, body);
+        });
+        server.createContext("/error", exchange -> {
+            readBody(exchange);
+            respond(exchange, 500, "error");
+        });
+        server.createContext("/slow", exchange -> {
+            readBody(exchange);
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "slow");
+        });
+        server.start();
+        client = HttpClients.createDefault();
+    }
+
+    @After
+    public void after() throws IOException {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testGet() throws IOException {
+        String response = SimpleHttp.doGet(url("/echo"), client).param("a", "b c").header("X-Test", "test").asString();
+        Assert.assertEquals("GET a=b+c test ", response);
+    }
+
+    @Test
+    public void testPost() throws IOException {
+        String response = SimpleHttp.doPost(url("/echo"), client).param("a", "bä").asString();
+        Assert.assertEquals("POST null null a=b%C3%A4", response);
+    }
+
+    @Test
+    public void testConnectionsReused() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(200, SimpleHttp.doGet(url("/echo"), client).asStatus());
+        }
+        Assert.assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void testStatus() throws IOException {
+        Assert.assertEquals(500, SimpleHttp.doGet(url("/error"), client).asStatus());
+        Assert.assertEquals(404, SimpleHttp.doGet(url("/missing"), client).asStatus());
+    }
+
+    @Test(expected = IOException.class)
+    public void testErrorStatusAsString() throws IOException {
+        SimpleHttp.doGet(url("/error"), client).asString();
+    }
+
+    @Test(expected = IOException.class)
+    public void testSocketTimeout() throws IOException {
+        SimpleHttp.doGet(url("/slow"), client).socketTimeoutMillis(100).asString();
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (InputStream is = exchange.getRequestBody()) {
+            byte[] buffer = new byte[1024];
+            for (int n = is.read(buffer); n != -1; n = is.read(buffer)) {
+                os.write(buffer, 0, n);
+            }
+        }
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.credential.hash;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares hashes per second and per core of the PBKDF2 providers with {@link SecretKeyFactory}. Runs with one thread
+ * per core, so the result per core is the total divided by count of cores.
+ *
+ * Not executed during build. Run manually.
+ */
+@Ignore
+public class Pbkdf2PasswordHashBenchmarkTest {
+
+    private static final int ITERATIONS = 20000;
+    private static final long WARMUP_MILLIS = 5000;
+    private static final long DURATION_MILLIS = 10000;
+
+    private static final byte[] SALT = new byte[16];
+
+    @Test
+    public void benchmark() throws Exception {
+        benchmark("SecretKeyFactory PBKDF2WithHmacSHA1", () -> secretKeyFactory("PBKDF2WithHmacSHA1"));
+        benchmark("pbkdf2", new Pbkdf2PasswordHashProvider());
+
+        benchmark("SecretKeyFactory PBKDF2WithHmacSHA256", () -> secretKeyFactory("PBKDF2WithHmacSHA256"));
+        benchmark("pbkdf2-sha256", new Pbkdf2Sha256PasswordHashProvider());
+
+        benchmark("SecretKeyFactory PBKDF2WithHmacSHA512", () -> secretKeyFactory("PBKDF2WithHmacSHA512"));
+        benchmark("pbkdf2-sha512", new Pbkdf2Sha512PasswordHashProvider());
+    }
+
+    private void benchmark(String name, Pbkdf2PasswordHashProvider provider) throws Exception {
+        benchmark(name, () -> provider.deriveKey("password", SALT, ITERATIONS, 64));
+    }
+
+    private void benchmark(String name, Runnable hash) throws Exception {
+        run(hash, WARMUP_MILLIS);
+        long count = run(hash, DURATION_MILLIS);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        long perSecond = count * 1000 / DURATION_MILLIS;
+        System.out.println(String.format("%s, %d iterations: %d hashes/s, %d hashes/s per core", name, ITERATIONS, perSecond, perSecond / cores));
+    }
+
+    private long run(Runnable hash, long millis) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        AtomicLong count = new AtomicLong();
+        long end = System.currentTimeMillis() + millis;
+
+        ExecutorService executor = Executors.newFixedThreadPool(cores);
+        for (int i = 0; i < cores; i++) {
+            executor.submit(() -> {
+                while (System.currentTimeMillis() < end) {
+                    hash.run();
+                    count.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(millis * 2, TimeUnit.MILLISECONDS);
+        return count.get();
+    }
+
+    private static void secretKeyFactory(String algorithm) {
+        try {
+            SecretKeyFactory.getInstance(algorithm).generateSecret(new PBEKeySpec("password".toCharArray(), SALT, ITERATIONS, 512)).getEncoded();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.credential.hash;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.keycloak.credential.CredentialModel;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.util.Random;
+
+public class Pbkdf2PasswordHashProviderTest {
+
+    private static final String[] PASSWORDS = { "", "password", "p\u00e4ssw\u00f6rd\u20ac\ud83d\ude00", new String(new char[200]).replace('\0', 'x') };
+
+    @Test
+    public void testSameKeysAsSecretKeyFactory() throws Exception {
+        assertSameKeys(new Pbkdf2PasswordHashProvider(), "PBKDF2WithHmacSHA1");
+        assertSameKeys(new Pbkdf2Sha256PasswordHashProvider(), "PBKDF2WithHmacSHA256");
+        assertSameKeys(new Pbkdf2Sha512PasswordHashProvider(), "PBKDF2WithHmacSHA512");
+    }
+
+    @Test
+    public void testVerify() {
+        for (Pbkdf2PasswordHashProvider provider : new Pbkdf2PasswordHashProvider[] { new Pbkdf2PasswordHashProvider(), new Pbkdf2Sha256PasswordHashProvider(), new Pbkdf2Sha512PasswordHashProvider() }) {
+            CredentialModel credential = provider.encode("password", 100);
+            Assert.assertEquals(provider.getId(), credential.getAlgorithm());
+            Assert.assertEquals(100, credential.getHashIterations());
+
+            Assert.assertTrue(provider.verify("password", credential));
+            Assert.assertFalse(provider.verify("Password", credential));
+            Assert.assertFalse(provider.verify("", credential));
+
+            CredentialModel other = provider.encode("password", 100);
+            Assert.assertNotEquals(credential.getValue(), other.getValue());
+            Assert.assertTrue(provider.verify("password", other));
+        }
+    }
+
+    @Test
+    public void testVerifyInvalidValue() {
+        Pbkdf2PasswordHashProvider provider = new Pbkdf2PasswordHashProvider();
+        CredentialModel credential = provider.encode("password", 10);
+
+        credential.setValue(null);
+        Assert.assertFalse(provider.verify("password", credential));
+
+        credential.setValue("not base64!");
+        Assert.assertFalse(provider.verify("password", credential));
+    }
+
+    private void assertSameKeys(Pbkdf2PasswordHashProvider provider, String algorithm) throws Exception {
+        byte[] salt = new byte[16];
+        new Random(1).nextBytes(salt);
+
+        for (String password : PASSWORDS) {
+            for (int iterations : new int[] { 1, 2, 1000 }) {
+                byte[] expected = SecretKeyFactory.getInstance(algorithm).generateSecret(new PBEKeySpec(password.toCharArray(), salt, iterations, 512)).getEncoded();
+                Assert.assertArrayEquals(algorithm + " " + iterations, expected, provider.deriveKey(password, salt, iterations, 64));
+            }
+        }
+    }
+
+}
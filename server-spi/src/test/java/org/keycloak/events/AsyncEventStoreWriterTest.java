@@ -0,0 +1,180 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.events;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.keycloak.events.admin.AdminEvent;
+import org.keycloak.events.admin.AuthDetails;
+import org.keycloak.events.admin.OperationType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class AsyncEventStoreWriterTest {
+
+    @Test
+    public void testBatches() throws Exception {
+        TestWriter writer = new TestWriter(100, 10, 60000, 0);
+        writer.start();
+        try {
+            for (int i = 0; i < 25; i++) {
+                writer.onEvent(createEvent(i));
+            }
+
+            writer.awaitStored(20);
+            Assert.assertEquals(2, writer.batches.size());
+            Assert.assertEquals(10, writer.batches.get(0).size());
+            Assert.assertEquals(10, writer.batches.get(1).size());
+            Assert.assertEquals(0L, writer.batches.get(0).get(0).getTime());
+        } finally {
+            writer.close();
+        }
+
+        // Remaining events are flushed at close
+        Assert.assertEquals(25, writer.storedEvents());
+        Assert.assertEquals(25, writer.getQueued());
+        Assert.assertEquals(25, writer.getStored());
+        Assert.assertEquals(0, writer.getDropped());
+    }
+
+    @Test
+    public void testFlushInterval() throws Exception {
+        TestWriter writer = new TestWriter(100, 10, 100, 0);
+        writer.start();
+        try {
+            writer.onEvent(createEvent(1));
+            writer.onEvent(createAdminEvent(), true);
+            writer.onEvent(createAdminEvent(), false);
+
+            // Not full batch is stored after flush interval
+            writer.awaitStored(3);
+            Assert.assertEquals(1, writer.events.size());
+            Assert.assertEquals(1, writer.adminEvents.size());
+            Assert.assertEquals(1, writer.adminEventsWithRepresentation.size());
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testEventsCopied() throws Exception {
+        TestWriter writer = new TestWriter(100, 10, 100, 0);
+        writer.start();
+        try {
+            Event event = createEvent(1);
+            writer.onEvent(event);
+            event.setTime(2);
+
+            writer.awaitStored(1);
+            Assert.assertEquals(1L, writer.events.get(0).getTime());
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        TestWriter writer = new TestWriter(5, 10, 100, 0);
+
+        // Worker not started, so nothing is taken from the queue
+        for (int i = 0; i < 8; i++) {
+            writer.onEvent(createEvent(i));
+        }
+        Assert.assertEquals(5, writer.getQueued());
+        Assert.assertEquals(3, writer.getDropped());
+        Assert.assertEquals(5, writer.getQueueSize());
+    }
+
+    @Test
+    public void testFailedBatch() throws Exception {
+        TestWriter writer = new TestWriter(100, 10, 100, 0);
+        writer.fail = true;
+        writer.start();
+        try {
+            writer.onEvent(createEvent(1));
+            writer.onEvent(createEvent(2));
+        } finally {
+            writer.close();
+        }
+
+        Assert.assertEquals(2, writer.getFailed());
+        Assert.assertEquals(0, writer.getStored());
+
+        // Closed writer doesn't accept new events
+        writer.onEvent(createEvent(3));
+        Assert.assertEquals(1, writer.getDropped());
+    }
+
+    private static Event createEvent(long time) {
+        Event event = new Event();
+        event.setTime(time);
+        event.setType(EventType.LOGIN);
+        event.setRealmId("realm");
+        event.setDetails(Collections.singletonMap("key", "value"));
+        return event;
+    }
+
+    private static AdminEvent createAdminEvent() {
+        AdminEvent event = new AdminEvent();
+        event.setRealmId("realm");
+        event.setOperationType(OperationType.CREATE);
+        event.setAuthDetails(new AuthDetails());
+        return event;
+    }
+
+    private static class TestWriter extends AsyncEventStoreWriter {
+
+        private final List<List<Event>> batches = Collections.synchronizedList(new ArrayList<>());
+        private final List<Event> events = Collections.synchronizedList(new ArrayList<>());
+        private final List<AdminEvent> adminEvents = Collections.synchronizedList(new ArrayList<>());
+        private final List<AdminEvent> adminEventsWithRepresentation = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean fail;
+
+        private TestWriter(int queueSize, int batchSize, long flushInterval, long blockTimeout) {
+            super(null, null, queueSize, batchSize, flushInterval, blockTimeout);
+        }
+
+        @Override
+        protected void store(List<Event> events, List<AdminEvent> adminEvents, List<AdminEvent> adminEventsWithRepresentation) {
+            if (fail) {
+                throw new RuntimeException("Expected failure");
+            }
+            if (!events.isEmpty()) {
+                batches.add(events);
+            }
+            this.events.addAll(events);
+            this.adminEvents.addAll(adminEvents);
+            this.adminEventsWithRepresentation.addAll(adminEventsWithRepresentation);
+        }
+
+        private int storedEvents() {
+            return events.size() + adminEvents.size() + adminEventsWithRepresentation.size();
+        }
+
+        private void awaitStored(int count) throws InterruptedException {
+            long timeout = System.currentTimeMillis() + 10000;
+            while (storedEvents() < count && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            Assert.assertTrue("Events not stored in time", storedEvents() >= count);
+        }
+    }
+
+}
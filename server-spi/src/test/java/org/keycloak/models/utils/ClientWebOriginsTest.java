@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.keycloak.models.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ClientWebOriginsTest {
+
+    private static final String ORIGIN = "http://localhost:8180";
+
+    @Test
+    public void testWithoutRedirects() {
+        ClientWebOrigins origins = ClientWebOrigins.create(null, Collections.singleton("http://app"), set("http://other"));
+        Assert.assertEquals(set("http://other"), origins.getAllowedOrigins(ORIGIN));
+        Assert.assertTrue(origins.isValidOrigin("http://other", ORIGIN));
+        Assert.assertTrue(origins.isValidOrigin("http://app", ORIGIN));
+        Assert.assertFalse(origins.isValidOrigin("http://evil", ORIGIN));
+    }
+
+    @Test
+    public void testIncludeRedirects() {
+        ClientWebOrigins origins = ClientWebOrigins.create("https://root:8443", Arrays.asList("http://app/callback/*", "/relative", "custom:/app"), set("+", "http://other"));
+        Assert.assertEquals(set("http://other", "http://app", "https://root:8443"), origins.getAllowedOrigins(ORIGIN));
+        Assert.assertTrue(origins.isValidOrigin("https://root:8443", ORIGIN));
+        Assert.assertFalse(origins.isValidOrigin(ORIGIN, ORIGIN));
+    }
+
+    @Test
+    public void testIncludeRelativeRedirects() {
+        ClientWebOrigins origins = ClientWebOrigins.create(null, Arrays.asList("/relative/*", "http://app"), set("+"));
+        Assert.assertEquals(set("http://app", ORIGIN), origins.getAllowedOrigins(ORIGIN));
+        Assert.assertSame(origins.getAllowedOrigins(ORIGIN), origins.getAllowedOrigins(ORIGIN));
+        Assert.assertEquals(set("http://app", "https://host"), origins.getAllowedOrigins("https://host"));
+        Assert.assertTrue(origins.isValidOrigin(ORIGIN, ORIGIN));
+        Assert.assertFalse(origins.isValidOrigin(ORIGIN, "https://host"));
+    }
+
+    @Test
+    public void testWildcard() {
+        ClientWebOrigins origins = ClientWebOrigins.create(null, Collections.<String>emptySet(), set("*"));
+        Assert.assertEquals(set("*"), origins.getAllowedOrigins(ORIGIN));
+        Assert.assertTrue(origins.isValidOrigin("http://any", ORIGIN));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAllowedOriginsNotModifiable() {
+        ClientWebOrigins.create(null, Collections.<String>emptySet(), set("+")).getAllowedOrigins(ORIGIN).add("http://evil");
+    }
+
+    private static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+
+}
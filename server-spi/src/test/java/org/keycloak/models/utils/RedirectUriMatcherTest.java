@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.keycloak.models.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class RedirectUriMatcherTest {
+
+    private static final String ORIGIN = "http://localhost:8180";
+
+    @Test
+    public void testExact() {
+        RedirectUriMatcher matcher = RedirectUriMatcher.create(null, Arrays.asList("http://host/app", "http://host/other?x=1*"));
+        Assert.assertTrue(matcher.matches("http://host/app", ORIGIN));
+        Assert.assertFalse(matcher.matches("http://host/app/", ORIGIN));
+        Assert.assertFalse(matcher.matches("http://host/app?x=1", ORIGIN));
+        Assert.assertTrue(matcher.matches("http://host/other?x=1*", ORIGIN));
+        Assert.assertFalse(matcher.matches("http://host/other?x=12", ORIGIN));
+    }
+
+    @Test
+    public void testWildcard() {
+        RedirectUriMatcher matcher = RedirectUriMatcher.create(null, Arrays.asList("http://host/app/*", "http://host/ap*", "http://other/*"));
+        Assert.assertTrue(matcher.matches("http://host/app/page?x=1", ORIGIN));
+        Assert.assertTrue(matcher.matches("http://host/app", ORIGIN));
+        Assert.assertTrue(matcher.matches("http://host/apx", ORIGIN));
+        Assert.assertTrue(matcher.matches("http://other", ORIGIN));
+        Assert.assertFalse(matcher.matches("http://host/a", ORIGIN));
+        Assert.assertFalse(matcher.matches("http://host/a?http://host/app/", ORIGIN));
+        Assert.assertFalse(matcher.matches("http://otherhost/", ORIGIN));
+    }
+
+    @Test
+    public void testRelative() {
+        RedirectUriMatcher matcher = RedirectUriMatcher.create(null, Collections.singletonList("/app/*"));
+        Assert.assertTrue(matcher.matches("/app/page", ORIGIN));
+        Assert.assertTrue(matcher.matches(ORIGIN + "/app/page", ORIGIN));
+        Assert.assertTrue(matcher.matches(ORIGIN + "/app", ORIGIN));
+        Assert.assertFalse(matcher.matches("http://evil/app/page", ORIGIN));
+
+        matcher = RedirectUriMatcher.create("https://root", Collections.singletonList("/app/*"));
+        Assert.assertTrue(matcher.matches("https://root/app/page", ORIGIN));
+        Assert.assertFalse(matcher.matches(ORIGIN + "/app/page", ORIGIN));
+
+        matcher = RedirectUriMatcher.create(null, Collections.singletonList("/*"));
+        Assert.assertTrue(matcher.matches(ORIGIN, ORIGIN));
+        Assert.assertTrue(matcher.matches(ORIGIN + "/", ORIGIN));
+    }
+
+    @Test
+    public void testEmpty() {
+        Assert.assertTrue(RedirectUriMatcher.create(null, Collections.<String>emptySet()).isEmpty());
+        Assert.assertFalse(RedirectUriMatcher.create(null, Collections.singleton("*")).isEmpty());
+        Assert.assertTrue(RedirectUriMatcher.create(null, Collections.singleton("*")).matches("anything", ORIGIN));
+    }
+
+    @Test
+    public void testSameAsIteratingRedirectUris() {
+        Random random = new Random(1);
+        String[] parts = { "http://", "https://", "host", "hos", ".com", ":8080", "/", "/app", "/a", "?", "x=1", "*", "localhost:8180" };
+        for (int i = 0; i < 200; i++) {
+            String rootUrl = random.nextInt(3) == 0 ? "https://root" : null;
+            Set<String> validRedirects = new HashSet<>();
+            for (int j = random.nextInt(10); j > 0; j--) {
+                validRedirects.add(randomUri(random, parts));
+            }
+
+            RedirectUriMatcher matcher = RedirectUriMatcher.create(rootUrl, validRedirects);
+            for (int j = 0; j < 200; j++) {
+                String redirect = randomUri(random, parts);
+                Assert.assertEquals(validRedirects + " " + redirect, matchesRedirects(rootUrl, validRedirects, redirect), matcher.matches(redirect, ORIGIN));
+            }
+        }
+    }
+
+    private static String randomUri(Random random, String[] parts) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = random.nextInt(6); i >= 0; i--) {
+            sb.append(parts[random.nextInt(parts.length)]);
+        }
+        return sb.toString();
+    }
+
+    // Matching as it is done without a compiled matcher
+    private static boolean matchesRedirects(String rootUrl, Set<String> validRedirects, String redirect) {
+        Set<String> resolved = new HashSet<>();
+        for (String validRedirect : validRedirects) {
+            resolved.add(validRedirect);
+            if (validRedirect.startsWith("/")) {
+                resolved.add((rootUrl != null ? rootUrl : ORIGIN) + validRedirect);
+            }
+        }
+
+        for (String validRedirect : resolved) {
+            if (validRedirect.endsWith("*") && !validRedirect.contains("?")) {
+                String r = redirect.contains("?") ? redirect.substring(0, redirect.indexOf("?")) : redirect;
+                int length = validRedirect.length() - 1;
+                validRedirect = validRedirect.substring(0, length);
+                if (r.startsWith(validRedirect)) return true;
+                if (length - 1 > 0 && validRedirect.charAt(length - 1) == '/') length--;
+                validRedirect = validRedirect.substring(0, length);
+                if (validRedirect.equals(r)) return true;
+            } else if (validRedirect.equals(redirect)) return true;
+        }
+        return false;
+    }
+
+}
@@ -833,7 +833,7 @@ public class AuthenticationProcessor {
         if (remember) {
             event.detail(Details.REMEMBER_ME, "true");
         }
-        TokenManager.attachClientSession(userSession, clientSession);
+        TokenManager.attachClientSession(session, userSession, clientSession);
         event.user(userSession.getUser())
                 .detail(Details.USERNAME, username)
                 .session(userSession);
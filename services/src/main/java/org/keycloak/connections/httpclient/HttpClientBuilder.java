@@ -26,6 +26,7 @@ import org.apache.http.conn.ssl.StrictHostnameVerifier;
 import org.apache.http.conn.ssl.X509HostnameVerifier;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
@@ -35,6 +36,7 @@ import javax.net.ssl.SSLSocket;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import java.io.IOException;
+import java.net.ProxySelector;
 import java.security.KeyManagementException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
@@ -281,7 +283,9 @@ public class HttpClientBuilder {
                     .setSSLSocketFactory(sslsf)
                     .setMaxConnTotal(connectionPoolSize)
                     .setMaxConnPerRoute(maxPooledPerRoute)
-                    .setConnectionTimeToLive(connectionTTL, connectionTTLUnit);
+                    .setConnectionTimeToLive(connectionTTL, connectionTTLUnit)
+                    // Honor http.proxyHost, https.proxyHost and http.nonProxyHosts like HttpURLConnection does
+                    .setRoutePlanner(new SystemDefaultRoutePlanner(ProxySelector.getDefault()));
 
             if (maxConnectionIdleTime > 0) {
                 // Will start background cleaner thread
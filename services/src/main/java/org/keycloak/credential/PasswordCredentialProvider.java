@@ -46,11 +46,21 @@ public class PasswordCredentialProvider implements CredentialProvider, Credentia
     private static final Logger logger = Logger.getLogger(PasswordCredentialProvider.class);
 
     protected KeycloakSession session;
+    protected PasswordCredentialProviderFactory rehashExecutor;
 
     public PasswordCredentialProvider(KeycloakSession session) {
         this.session = session;
     }
 
+    /**
+     * @param rehashExecutor if not null, passwords hashed with outdated algorithm or iterations are re-hashed in background
+     *                       instead of on the request thread
+     */
+    public PasswordCredentialProvider(KeycloakSession session, PasswordCredentialProviderFactory rehashExecutor) {
+        this.session = session;
+        this.rehashExecutor = rehashExecutor;
+    }
+
     protected UserCredentialStore getCredentialStore() {
         return session.userCredentialManager();
     }
@@ -198,13 +208,41 @@ public class PasswordCredentialProvider implements CredentialProvider, Credentia
             return true;
         }
 
-        hash.encode(cred.getValue(), policy, password);
-        getCredentialStore().updateCredential(realm, user, password);
-        session.getUserCache().evict(realm, user);
+        if (rehashExecutor != null) {
+            rehashExecutor.scheduleRehash(realm.getId(), user.getId(), password.getId(), cred.getValue());
+        } else {
+            rehash(realm, user, password, cred.getValue(), policy, hash);
+        }
 
         return true;
     }
 
+    /**
+     * Re-hashes the password according to current password policy of the realm, unless the password was changed or
+     * re-hashed meanwhile.
+     */
+    public void rehash(RealmModel realm, UserModel user, String credentialId, String rawPassword) {
+        CredentialModel password = getCredentialStore().getStoredCredentialById(realm, user, credentialId);
+        if (password == null || !CredentialModel.PASSWORD.equals(password.getType())) {
+            return;
+        }
+        PasswordPolicy policy = realm.getPasswordPolicy();
+        if (policy == null) {
+            return;
+        }
+        PasswordHashProvider hash = getHashProvider(policy);
+        if (hash == null || hash.policyCheck(policy, password)) {
+            return;
+        }
+        rehash(realm, user, password, rawPassword, policy, hash);
+    }
+
+    protected void rehash(RealmModel realm, UserModel user, CredentialModel password, String rawPassword, PasswordPolicy policy, PasswordHashProvider hash) {
+        hash.encode(rawPassword, policy, password);
+        getCredentialStore().updateCredential(realm, user, password);
+        session.getUserCache().evict(realm, user);
+    }
+
     @Override
     public void onCache(RealmModel realm, CachedUserModel user, UserModel delegate) {
         List<CredentialModel> passwords = getCredentialStore().getStoredCredentialsByType(realm, user, CredentialModel.PASSWORD);
@@ -16,7 +16,21 @@
  */
 package org.keycloak.credential;
 
+import org.jboss.logging.Logger;
+import org.keycloak.Config;
 import org.keycloak.models.KeycloakSession;
+import org.keycloak.models.KeycloakSessionFactory;
+import org.keycloak.models.RealmModel;
+import org.keycloak.models.UserModel;
+import org.keycloak.models.utils.KeycloakModelUtils;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author <a href="mailto:bill@burkecentral.com">Bill Burke</a>
@@ -24,9 +38,75 @@ import org.keycloak.models.KeycloakSession;
  */
 public class PasswordCredentialProviderFactory implements CredentialProviderFactory<PasswordCredentialProvider> {
     public static final String PROVIDER_ID="keycloak-password";
+
+    private static final Logger logger = Logger.getLogger(PasswordCredentialProviderFactory.class);
+
+    private KeycloakSessionFactory sessionFactory;
+    private boolean asyncRehash;
+    private int rehashQueueSize;
+    private ExecutorService rehashExecutor;
+    private final Set<String> pendingRehash = ConcurrentHashMap.newKeySet();
+
     @Override
     public PasswordCredentialProvider create(KeycloakSession session) {
-        return new PasswordCredentialProvider(session);
+        return new PasswordCredentialProvider(session, rehashExecutor != null ? this : null);
+    }
+
+    @Override
+    public void init(Config.Scope config) {
+        asyncRehash = config.getBoolean("asyncRehash", false);
+        rehashQueueSize = config.getInt("rehashQueueSize", 1000);
+    }
+
+    @Override
+    public void postInit(KeycloakSessionFactory factory) {
+        sessionFactory = factory;
+        if (asyncRehash) {
+            // Single thread, so re-hashing doesn't take CPU from logins. When queue is full, password is re-hashed on later login
+            rehashExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(rehashQueueSize), runnable -> {
+                Thread thread = new Thread(runnable, "keycloak-password-rehash");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        if (rehashExecutor != null) {
+            rehashExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Re-hashes the password in separate transaction in background. Does nothing if re-hashing of the user's password is
+     * already scheduled or the queue is full.
+     */
+    void scheduleRehash(String realmId, String userId, String credentialId, String rawPassword) {
+        if (!pendingRehash.add(credentialId)) {
+            return;
+        }
+
+        try {
+            rehashExecutor.execute(() -> {
+                try {
+                    KeycloakModelUtils.runJobInTransaction(sessionFactory, session -> {
+                        RealmModel realm = session.realms().getRealm(realmId);
+                        if (realm == null) return;
+                        UserModel user = session.users().getUserById(userId, realm);
+                        if (user == null) return;
+                        new PasswordCredentialProvider(session).rehash(realm, user, credentialId, rawPassword);
+                    });
+                } catch (RuntimeException e) {
+                    logger.warnf(e, "Failed to re-hash password of user %s", userId);
+                } finally {
+                    pendingRehash.remove(credentialId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingRehash.remove(credentialId);
+            logger.debugf("Re-hash queue full, password of user %s will be re-hashed on later login", userId);
+        }
     }
 
     @Override
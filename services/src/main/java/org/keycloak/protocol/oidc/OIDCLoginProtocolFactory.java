@@ -17,12 +17,18 @@
 package org.keycloak.protocol.oidc;
 
 import org.jboss.logging.Logger;
+import org.keycloak.Config;
 import org.keycloak.common.constants.KerberosConstants;
 import org.keycloak.common.util.UriUtils;
 import org.keycloak.events.EventBuilder;
+import org.keycloak.jose.jwk.JSONWebKeySet;
+import org.keycloak.jose.jwk.JWK;
+import org.keycloak.jose.jwk.JWKBuilder;
+import org.keycloak.keys.KeyMetadata;
 import org.keycloak.models.ClientModel;
 import org.keycloak.models.ClientTemplateModel;
 import org.keycloak.models.KeycloakSession;
+import org.keycloak.models.KeycloakSessionFactory;
 import org.keycloak.models.ProtocolMapperModel;
 import org.keycloak.models.RealmModel;
 import org.keycloak.protocol.AbstractLoginProtocolFactory;
@@ -36,13 +42,17 @@ import org.keycloak.protocol.oidc.mappers.UserSessionNoteMapper;
 import org.keycloak.representations.idm.ClientRepresentation;
 import org.keycloak.representations.idm.ClientTemplateRepresentation;
 import org.keycloak.services.ServicesLogger;
+import org.keycloak.services.util.CachedDocument;
 
+import javax.ws.rs.core.CacheControl;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author <a href="mailto:bill@burkecentral.com">Bill Burke</a>
@@ -66,6 +76,71 @@ public class OIDCLoginProtocolFactory extends AbstractLoginProtocolFactory {
     public static final String FULL_NAME_CONSENT_TEXT = "${fullName}";
     public static final String LOCALE_CONSENT_TEXT = "${locale}";
 
+    private final ConcurrentMap<String, CachedDocument> certs = new ConcurrentHashMap<>();
+    private CacheControl certsCacheControl;
+
+    @Override
+    public void init(Config.Scope config) {
+        super.init(config);
+
+        certsCacheControl = new CacheControl();
+        Integer certsMaxAge = config.getInt("certsMaxAge");
+        if (certsMaxAge != null && certsMaxAge > 0) {
+            certsCacheControl.setMaxAge(certsMaxAge);
+        } else {
+            certsCacheControl.setNoCache(true);
+        }
+        certsCacheControl.setNoTransform(false);
+    }
+
+    @Override
+    public void postInit(KeycloakSessionFactory factory) {
+        super.postInit(factory);
+        factory.register(event -> {
+            if (event instanceof RealmModel.RealmRemovedEvent) {
+                String realmId = ((RealmModel.RealmRemovedEvent) event).getRealm().getId();
+                certs.remove(realmId);
+                TokenManager.removeSigningContext(realmId);
+            }
+        });
+    }
+
+    /**
+     * Returns the JSON Web Key Set of the realm. The key set is only rendered again when the active keys change.
+     *
+     * @param session
+     * @param realm
+     * @return
+     */
+    public CachedDocument getCerts(KeycloakSession session, RealmModel realm) {
+        List<KeyMetadata> publicKeys = session.keys().getKeys(realm, false);
+
+        StringBuilder version = new StringBuilder();
+        for (KeyMetadata k : publicKeys) {
+            version.append(k.getKid()).append(' ');
+        }
+
+        CachedDocument document = certs.get(realm.getId());
+        if (document == null || !document.getVersion().equals(version.toString())) {
+            JWK[] keys = new JWK[publicKeys.size()];
+
+            int i = 0;
+            for (KeyMetadata k : publicKeys) {
+                keys[i++] = JWKBuilder.create().kid(k.getKid()).rs256(k.getPublicKey());
+            }
+
+            JSONWebKeySet keySet = new JSONWebKeySet();
+            keySet.setKeys(keys);
+
+            document = CachedDocument.render(version.toString(), keySet);
+            certs.put(realm.getId(), document);
+        }
+        return document;
+    }
+
+    public CacheControl getCertsCacheControl() {
+        return certsCacheControl;
+    }
 
     @Override
     public LoginProtocol create(KeycloakSession session) {
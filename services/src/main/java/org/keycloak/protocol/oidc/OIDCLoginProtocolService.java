@@ -17,22 +17,19 @@
 
 package org.keycloak.protocol.oidc;
 
-import org.jboss.resteasy.annotations.cache.NoCache;
 import org.jboss.resteasy.spi.ResteasyProviderFactory;
 import org.keycloak.events.EventBuilder;
 import org.keycloak.forms.login.LoginFormsProvider;
-import org.keycloak.jose.jwk.JSONWebKeySet;
-import org.keycloak.jose.jwk.JWK;
-import org.keycloak.jose.jwk.JWKBuilder;
-import org.keycloak.keys.KeyMetadata;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.RealmModel;
+import org.keycloak.protocol.LoginProtocol;
 import org.keycloak.protocol.oidc.endpoints.AuthorizationEndpoint;
 import org.keycloak.protocol.oidc.endpoints.LoginStatusIframeEndpoint;
 import org.keycloak.protocol.oidc.endpoints.LogoutEndpoint;
 import org.keycloak.protocol.oidc.endpoints.TokenEndpoint;
 import org.keycloak.protocol.oidc.endpoints.UserInfoEndpoint;
 import org.keycloak.services.resources.RealmsResource;
+import org.keycloak.services.util.CachedDocument;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -44,7 +41,6 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
-import java.util.List;
 
 /**
  * Resource class for the oauth/openid connect token service
@@ -171,19 +167,10 @@ public class OIDCLoginProtocolService {
     @GET
     @Path("certs")
     @Produces(MediaType.APPLICATION_JSON)
-    @NoCache
-    public JSONWebKeySet certs() {
-        List<KeyMetadata> publicKeys = session.keys().getKeys(realm, false);
-        JWK[] keys = new JWK[publicKeys.size()];
-
-        int i = 0;
-        for (KeyMetadata k : publicKeys) {
-            keys[i++] = JWKBuilder.create().kid(k.getKid()).rs256(k.getPublicKey());
-        }
-
-        JSONWebKeySet keySet = new JSONWebKeySet();
-        keySet.setKeys(keys);
-        return keySet;
+    public Response certs() {
+        OIDCLoginProtocolFactory factory = (OIDCLoginProtocolFactory) session.getKeycloakSessionFactory().getProviderFactory(LoginProtocol.class, OIDCLoginProtocol.LOGIN_PROTOCOL);
+        CachedDocument keySet = factory.getCerts(session, realm);
+        return keySet.toResponse(headers, factory.getCertsCacheControl()).build();
     }
 
     @Path("userinfo")
@@ -32,8 +32,11 @@ import org.keycloak.services.Urls;
 import org.keycloak.services.clientregistration.ClientRegistrationService;
 import org.keycloak.services.clientregistration.oidc.OIDCClientRegistrationProviderFactory;
 import org.keycloak.services.resources.RealmsResource;
+import org.keycloak.services.util.CachedDocument;
 import org.keycloak.wellknown.WellKnownProvider;
 
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 import java.util.ArrayList;
@@ -70,9 +73,20 @@ public class OIDCWellKnownProvider implements WellKnownProvider {
     public static final List<String> SCOPES_SUPPORTED= list(OAuth2Constants.SCOPE_OPENID, OAuth2Constants.OFFLINE_ACCESS);
 
     private KeycloakSession session;
+    private OIDCWellKnownProviderFactory factory;
 
-    public OIDCWellKnownProvider(KeycloakSession session) {
+    public OIDCWellKnownProvider(KeycloakSession session, OIDCWellKnownProviderFactory factory) {
         this.session = session;
+        this.factory = factory;
+    }
+
+    @Override
+    public Response.ResponseBuilder getConfigResponse(HttpHeaders headers) {
+        RealmModel realm = session.getContext().getRealm();
+        String baseUri = session.getContext().getUri().getBaseUri().toString();
+
+        CachedDocument document = factory.getDocument(realm, baseUri, this::getConfig);
+        return document.toResponse(headers, factory.getCacheControl());
     }
 
     @Override
@@ -20,9 +20,17 @@ package org.keycloak.protocol.oidc;
 import org.keycloak.Config;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.KeycloakSessionFactory;
+import org.keycloak.models.RealmModel;
+import org.keycloak.services.util.CacheControlUtil;
+import org.keycloak.services.util.CachedDocument;
 import org.keycloak.wellknown.WellKnownProvider;
 import org.keycloak.wellknown.WellKnownProviderFactory;
 
+import javax.ws.rs.core.CacheControl;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
 /**
  * @author <a href="mailto:sthorger@redhat.com">Stian Thorgersen</a>
  */
@@ -30,17 +38,57 @@ public class OIDCWellKnownProviderFactory implements WellKnownProviderFactory {
 
     public static final String PROVIDER_ID = "openid-configuration";
 
+    // The base uri is taken from the request, so only keep a limited number of documents per realm
+    private static final int MAX_BASE_URIS = 16;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, CachedDocument>> documents = new ConcurrentHashMap<>();
+    private Integer cacheMaxAge;
+
     @Override
     public WellKnownProvider create(KeycloakSession session) {
-        return new OIDCWellKnownProvider(session);
+        return new OIDCWellKnownProvider(session, this);
     }
 
     @Override
     public void init(Config.Scope config) {
+        cacheMaxAge = config.getInt("cacheMaxAge");
     }
 
     @Override
     public void postInit(KeycloakSessionFactory factory) {
+        factory.register(event -> {
+            if (event instanceof RealmModel.RealmRemovedEvent) {
+                documents.remove(((RealmModel.RealmRemovedEvent) event).getRealm().getId());
+            }
+        });
+    }
+
+    CachedDocument getDocument(RealmModel realm, String baseUri, Supplier<Object> config) {
+        ConcurrentMap<String, CachedDocument> realmDocuments = documents.computeIfAbsent(realm.getId(), id -> new ConcurrentHashMap<>());
+
+        CachedDocument document = realmDocuments.get(baseUri);
+        if (document == null || !document.getVersion().equals(realm.getName())) {
+            document = CachedDocument.render(realm.getName(), config.get());
+            if (realmDocuments.size() < MAX_BASE_URIS || realmDocuments.containsKey(baseUri)) {
+                realmDocuments.put(baseUri, document);
+            }
+        }
+        return document;
+    }
+
+    CacheControl getCacheControl() {
+        if (cacheMaxAge == null) {
+            return CacheControlUtil.getDefaultCacheControl();
+        }
+
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoTransform(false);
+        if (cacheMaxAge > 0) {
+            cacheControl.setMaxAge(cacheMaxAge);
+        } else {
+            cacheControl.setNoCache(true);
+        }
+        return cacheControl;
     }
 
     @Override
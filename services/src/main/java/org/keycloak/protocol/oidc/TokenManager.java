@@ -26,9 +26,9 @@ import org.keycloak.events.Details;
 import org.keycloak.events.Errors;
 import org.keycloak.events.EventBuilder;
 import org.keycloak.jose.jws.Algorithm;
-import org.keycloak.jose.jws.JWSBuilder;
 import org.keycloak.jose.jws.JWSInput;
 import org.keycloak.jose.jws.JWSInputException;
+import org.keycloak.jose.jws.JWSSigningContext;
 import org.keycloak.jose.jws.crypto.HashProvider;
 import org.keycloak.jose.jws.crypto.RSAProvider;
 import org.keycloak.models.ClientModel;
@@ -40,10 +40,12 @@ import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.KeycloakSessionFactory;
 import org.keycloak.models.ProtocolMapperModel;
 import org.keycloak.models.RealmModel;
+import org.keycloak.models.RealmProvider;
 import org.keycloak.models.RoleModel;
 import org.keycloak.models.UserModel;
 import org.keycloak.models.UserSessionModel;
 import org.keycloak.models.UserSessionProvider;
+import org.keycloak.models.cache.CacheRealmProvider;
 import org.keycloak.models.utils.KeycloakModelUtils;
 import org.keycloak.protocol.ProtocolMapper;
 import org.keycloak.protocol.oidc.mappers.OIDCAccessTokenMapper;
@@ -73,6 +75,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Stateless object that creates tokens and manages oauth access codes
@@ -84,23 +88,12 @@ public class TokenManager {
     private static final Logger logger = Logger.getLogger(TokenManager.class);
     private static final String JWT = "JWT";
 
+    // Signing contexts for the current active key of realms. Replaced when the active key changes
+    private static final ConcurrentMap<String, JWSSigningContext> signingContexts = new ConcurrentHashMap<>();
+
     // Harcoded for now
     Algorithm jwsAlgorithm = Algorithm.RS256;
 
-    public static void applyScope(RoleModel role, RoleModel scope, Set<RoleModel> visited, Set<RoleModel> requested) {
-        if (visited.contains(scope)) return;
-        visited.add(scope);
-        if (role.hasRole(scope)) {
-            requested.add(scope);
-            return;
-        }
-        if (!scope.isComposite()) return;
-
-        for (RoleModel contained : scope.getComposites()) {
-            applyScope(role, contained, visited, requested);
-        }
-    }
-
     public static class TokenValidation {
         public final UserModel user;
         public final UserSessionModel userSession;
@@ -177,7 +170,7 @@ public class TokenManager {
 
         // recreate token.
         String scopeParam = clientSession.getNote(OAuth2Constants.SCOPE);
-        Set<RoleModel> requestedRoles = TokenManager.getAccess(scopeParam, true, clientSession.getClient(), user);
+        Set<RoleModel> requestedRoles = TokenManager.getAccess(session, scopeParam, true, clientSession.getClient(), user);
         AccessToken newToken = createClientAccessToken(session, requestedRoles, realm, client, user, userSession, clientSession);
         verifyAccess(oldToken, newToken);
 
@@ -307,7 +300,7 @@ public class TokenManager {
     }
 
     public AccessToken createClientAccessToken(KeycloakSession session, Set<RoleModel> requestedRoles, RealmModel realm, ClientModel client, UserModel user, UserSessionModel userSession, ClientSessionModel clientSession) {
-        AccessToken token = initToken(realm, client, user, userSession, clientSession, session.getContext().getUri());
+        AccessToken token = initToken(session, realm, client, user, userSession, clientSession, session.getContext().getUri());
         for (RoleModel role : requestedRoles) {
             addComposites(token, role);
         }
@@ -315,7 +308,7 @@ public class TokenManager {
         return token;
     }
 
-    public static void attachClientSession(UserSessionModel session, ClientSessionModel clientSession) {
+    public static void attachClientSession(KeycloakSession keycloakSession, UserSessionModel session, ClientSessionModel clientSession) {
         if (clientSession.getUserSession() != null) {
             return;
         }
@@ -326,7 +319,7 @@ public class TokenManager {
         // todo scope param protocol independent
         String scopeParam = clientSession.getNote(OAuth2Constants.SCOPE);
         ClientModel client = clientSession.getClient();
-        for (RoleModel r : TokenManager.getAccess(scopeParam, true, client, user)) {
+        for (RoleModel r : TokenManager.getAccess(keycloakSession, scopeParam, true, client, user)) {
             requestedRoles.add(r.getId());
         }
         clientSession.setRoles(requestedRoles);
@@ -377,8 +370,8 @@ public class TokenManager {
         addGroupRoles(group.getParent(), roleMappings);
     }
 
-    public static Set<RoleModel> getAccess(String scopeParam, boolean applyScopeParam, ClientModel client, UserModel user) {
-        Set<RoleModel> requestedRoles = new HashSet<RoleModel>();
+    public static Set<RoleModel> getAccess(KeycloakSession session, String scopeParam, boolean applyScopeParam, ClientModel client, UserModel user) {
+        Set<RoleModel> requestedRoles;
 
         Set<RoleModel> mappings = user.getRoleMappings();
         Set<RoleModel> roleMappings = new HashSet<>();
@@ -387,28 +380,15 @@ public class TokenManager {
             addGroupRoles(group, roleMappings);
         }
 
-
-        ClientTemplateModel template = client.getClientTemplate();
-
-        boolean useTemplateScope = template != null && client.useTemplateScope();
-
-        if ( (useTemplateScope && template.isFullScopeAllowed()) || (client.isFullScopeAllowed())) {
+        if (KeycloakModelUtils.hasFullScope(client)) {
             logger.debug("Using full scope for client");
             requestedRoles = roleMappings;
         } else {
-            Set<RoleModel> scopeMappings = new HashSet<>();
-            if (useTemplateScope) {
-                logger.debug("Adding template scope mappings");
-                scopeMappings.addAll(template.getScopeMappings());
-            }
-            scopeMappings.addAll(client.getRoles());
-            Set<RoleModel> clientScopeMappings = client.getScopeMappings();
-            scopeMappings.addAll(clientScopeMappings);
-            for (RoleModel role : roleMappings) {
-                for (RoleModel desiredRole : scopeMappings) {
-                    Set<RoleModel> visited = new HashSet<RoleModel>();
-                    applyScope(role, desiredRole, visited, requestedRoles);
-                }
+            RealmProvider realms = session.realms();
+            if (realms instanceof CacheRealmProvider) {
+                requestedRoles = ((CacheRealmProvider) realms).getClientScopedRoles(client, roleMappings);
+            } else {
+                requestedRoles = KeycloakModelUtils.getClientScopedRoles(client, roleMappings);
             }
         }
         if (applyScopeParam) {
@@ -542,7 +522,7 @@ public class TokenManager {
         }
     }
 
-    protected AccessToken initToken(RealmModel realm, ClientModel client, UserModel user, UserSessionModel session, ClientSessionModel clientSession, UriInfo uriInfo) {
+    protected AccessToken initToken(KeycloakSession keycloakSession, RealmModel realm, ClientModel client, UserModel user, UserSessionModel session, ClientSessionModel clientSession, UriInfo uriInfo) {
         AccessToken token = new AccessToken();
         if (clientSession != null) token.clientSession(clientSession.getId());
         token.id(KeycloakModelUtils.generateId());
@@ -573,7 +553,8 @@ public class TokenManager {
         }
         Set<String> allowedOrigins = client.getWebOrigins();
         if (allowedOrigins != null) {
-            token.setAllowedOrigins(WebOriginsUtils.resolveValidWebOrigins(uriInfo, client));
+            // Resolved origins are shared, protocol mappers may still add to the origins of the token
+            token.setAllowedOrigins(new HashSet<>(WebOriginsUtils.resolveValidWebOrigins(keycloakSession, uriInfo, client)));
         }
         return token;
     }
@@ -616,8 +597,27 @@ public class TokenManager {
     }
 
     public String encodeToken(KeycloakSession session, RealmModel realm, Object token) {
+        return getSigningContext(session, realm).sign(token);
+    }
+
+    private JWSSigningContext getSigningContext(KeycloakSession session, RealmModel realm) {
         KeyManager.ActiveKey activeKey = session.keys().getActiveKey(realm);
-        return new JWSBuilder().type(JWT).kid(activeKey.getKid()).jsonContent(token).sign(jwsAlgorithm, activeKey.getPrivateKey());
+
+        JWSSigningContext signingContext = signingContexts.get(realm.getId());
+        if (signingContext == null || !signingContext.isFor(jwsAlgorithm, activeKey.getKid(), activeKey.getPrivateKey())) {
+            signingContext = new JWSSigningContext(jwsAlgorithm, JWT, activeKey.getKid(), activeKey.getPrivateKey());
+            signingContexts.put(realm.getId(), signingContext);
+        }
+        return signingContext;
+    }
+
+    /**
+     * Drops the signing context of a removed realm, so its private key isn't kept in memory.
+     *
+     * @param realmId
+     */
+    public static void removeSigningContext(String realmId) {
+        signingContexts.remove(realmId);
     }
 
     public AccessTokenResponseBuilder responseBuilder(RealmModel realm, ClientModel client, EventBuilder event, KeycloakSession session, UserSessionModel userSession, ClientSessionModel clientSession) {
@@ -660,7 +660,7 @@ public class TokenManager {
         public AccessTokenResponseBuilder generateAccessToken() {
             UserModel user = userSession.getUser();
             String scopeParam = clientSession.getNote(OIDCLoginProtocol.SCOPE_PARAM);
-            Set<RoleModel> requestedRoles = getAccess(scopeParam, true, client, user);
+            Set<RoleModel> requestedRoles = getAccess(session, scopeParam, true, client, user);
             accessToken = createClientAccessToken(session, requestedRoles, realm, client, user, userSession, clientSession);
             return this;
         }
@@ -724,7 +724,7 @@ public class TokenManager {
 
 
         public AccessTokenResponse build() {
-            KeyManager.ActiveKey activeKey = session.keys().getActiveKey(realm);
+            JWSSigningContext signingContext = getSigningContext(session, realm);
 
             if (accessToken != null) {
                 event.detail(Details.TOKEN_ID, accessToken.getId());
@@ -741,7 +741,7 @@ public class TokenManager {
 
             AccessTokenResponse res = new AccessTokenResponse();
             if (accessToken != null) {
-                String encodedToken = new JWSBuilder().type(JWT).kid(activeKey.getKid()).jsonContent(accessToken).sign(jwsAlgorithm, activeKey.getPrivateKey());
+                String encodedToken = signingContext.sign(accessToken);
                 res.setToken(encodedToken);
                 res.setTokenType("bearer");
                 res.setSessionState(accessToken.getSessionState());
@@ -759,11 +759,11 @@ public class TokenManager {
             }
 
             if (idToken != null) {
-                String encodedToken = new JWSBuilder().type(JWT).kid(activeKey.getKid()).jsonContent(idToken).sign(jwsAlgorithm, activeKey.getPrivateKey());
+                String encodedToken = signingContext.sign(idToken);
                 res.setIdToken(encodedToken);
             }
             if (refreshToken != null) {
-                String encodedToken = new JWSBuilder().type(JWT).kid(activeKey.getKid()).jsonContent(refreshToken).sign(jwsAlgorithm, activeKey.getPrivateKey());
+                String encodedToken = signingContext.sign(refreshToken);
                 res.setRefreshToken(encodedToken);
                 if (refreshToken.getExpiration() != 0) {
                     res.setRefreshExpiresIn(refreshToken.getExpiration() - Time.currentTime());
@@ -20,7 +20,11 @@ package org.keycloak.protocol.oidc.utils;
 import org.jboss.logging.Logger;
 import org.keycloak.models.ClientModel;
 import org.keycloak.models.Constants;
+import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.RealmModel;
+import org.keycloak.models.RealmProvider;
+import org.keycloak.models.cache.CacheRealmProvider;
+import org.keycloak.models.utils.RedirectUriMatcher;
 import org.keycloak.services.Urls;
 
 import javax.ws.rs.core.UriInfo;
@@ -35,13 +39,13 @@ public class RedirectUtils {
 
     private static final Logger logger = Logger.getLogger(RedirectUtils.class);
 
-    public static String verifyRealmRedirectUri(UriInfo uriInfo, String redirectUri, RealmModel realm) {
-        Set<String> validRedirects = getValidateRedirectUris(uriInfo, realm);
+    public static String verifyRealmRedirectUri(KeycloakSession session, UriInfo uriInfo, String redirectUri, RealmModel realm) {
+        RedirectUriMatcher validRedirects = getRealmRedirectUriMatcher(session, realm);
         return verifyRedirectUri(uriInfo, null, redirectUri, realm, validRedirects);
     }
 
-    public static String verifyRedirectUri(UriInfo uriInfo, String redirectUri, RealmModel realm, ClientModel client) {
-        Set<String> validRedirects = client.getRedirectUris();
+    public static String verifyRedirectUri(KeycloakSession session, UriInfo uriInfo, String redirectUri, RealmModel realm, ClientModel client) {
+        RedirectUriMatcher validRedirects = getRedirectUriMatcher(session, client);
         return verifyRedirectUri(uriInfo, client.getRootUrl(), redirectUri, realm, validRedirects);
     }
 
@@ -59,15 +63,23 @@ public class RedirectUtils {
         return resolveValidRedirects;
     }
 
-    private static Set<String> getValidateRedirectUris(UriInfo uriInfo, RealmModel realm) {
-        Set<String> redirects = new HashSet<>();
-        for (ClientModel client : realm.getClients()) {
-            redirects.addAll(resolveValidRedirects(uriInfo, client.getRootUrl(), client.getRedirectUris()));
+    private static RedirectUriMatcher getRealmRedirectUriMatcher(KeycloakSession session, RealmModel realm) {
+        RealmProvider realms = session.realms();
+        if (realms instanceof CacheRealmProvider) {
+            return ((CacheRealmProvider) realms).getRealmRedirectUriMatcher(realm);
         }
-        return redirects;
+        return RedirectUriMatcher.create(realm.getClients());
     }
 
-    private static String verifyRedirectUri(UriInfo uriInfo, String rootUrl, String redirectUri, RealmModel realm, Set<String> validRedirects) {
+    private static RedirectUriMatcher getRedirectUriMatcher(KeycloakSession session, ClientModel client) {
+        RealmProvider realms = session.realms();
+        if (realms instanceof CacheRealmProvider) {
+            return ((CacheRealmProvider) realms).getRedirectUriMatcher(client);
+        }
+        return RedirectUriMatcher.create(client);
+    }
+
+    private static String verifyRedirectUri(UriInfo uriInfo, String rootUrl, String redirectUri, RealmModel realm, RedirectUriMatcher validRedirects) {
         if (redirectUri == null) {
             logger.debug("No Redirect URI parameter specified");
             return null;
@@ -78,9 +90,9 @@ public class RedirectUtils {
             redirectUri = lowerCaseHostname(redirectUri);
 
             String r = redirectUri;
-            Set<String> resolveValidRedirects = resolveValidRedirects(uriInfo, rootUrl, validRedirects);
+            String origin = getOrigin(uriInfo);
 
-            boolean valid = matchesRedirects(resolveValidRedirects, r);
+            boolean valid = validRedirects.matches(r, origin);
 
             if (!valid && r.startsWith(Constants.INSTALLED_APP_URL) && r.indexOf(':', Constants.INSTALLED_APP_URL.length()) >= 0) {
                 int i = r.indexOf(':', Constants.INSTALLED_APP_URL.length());
@@ -95,7 +107,7 @@ public class RedirectUtils {
 
                 r = sb.toString();
 
-                valid = matchesRedirects(resolveValidRedirects, r);
+                valid = validRedirects.matches(r, origin);
             }
             if (valid && redirectUri.startsWith("/")) {
                 redirectUri = relativeToAbsoluteURI(uriInfo, rootUrl, redirectUri);
@@ -121,33 +133,19 @@ public class RedirectUtils {
 
     private static String relativeToAbsoluteURI(UriInfo uriInfo, String rootUrl, String relative) {
         if (rootUrl == null || rootUrl.isEmpty()) {
-            URI baseUri = uriInfo.getBaseUri();
-            String uri = baseUri.getScheme() + "://" + baseUri.getHost();
-            if (baseUri.getPort() != -1) {
-                uri += ":" + baseUri.getPort();
-            }
-            rootUrl = uri;
+            rootUrl = getOrigin(uriInfo);
         }
         relative = rootUrl + relative;
         return relative;
     }
 
-    private static boolean matchesRedirects(Set<String> validRedirects, String redirect) {
-        for (String validRedirect : validRedirects) {
-            if (validRedirect.endsWith("*") && !validRedirect.contains("?")) {
-                // strip off the query component - we don't check them when wildcards are effective
-                String r = redirect.contains("?") ? redirect.substring(0, redirect.indexOf("?")) : redirect;
-                // strip off *
-                int length = validRedirect.length() - 1;
-                validRedirect = validRedirect.substring(0, length);
-                if (r.startsWith(validRedirect)) return true;
-                // strip off trailing '/'
-                if (length - 1 > 0 && validRedirect.charAt(length - 1) == '/') length--;
-                validRedirect = validRedirect.substring(0, length);
-                if (validRedirect.equals(r)) return true;
-            } else if (validRedirect.equals(redirect)) return true;
+    static String getOrigin(UriInfo uriInfo) {
+        URI baseUri = uriInfo.getBaseUri();
+        String uri = baseUri.getScheme() + "://" + baseUri.getHost();
+        if (baseUri.getPort() != -1) {
+            uri += ":" + baseUri.getPort();
         }
-        return false;
+        return uri;
     }
 
 }
@@ -17,8 +17,11 @@
 
 package org.keycloak.protocol.oidc.utils;
 
-import org.keycloak.common.util.UriUtils;
 import org.keycloak.models.ClientModel;
+import org.keycloak.models.KeycloakSession;
+import org.keycloak.models.RealmProvider;
+import org.keycloak.models.cache.CacheRealmProvider;
+import org.keycloak.models.utils.ClientWebOrigins;
 
 import javax.ws.rs.core.UriInfo;
 import java.util.Set;
@@ -28,20 +31,25 @@ import java.util.Set;
  */
 public class WebOriginsUtils {
 
-    public static final String INCLUDE_REDIRECTS = "+";
-
-    public static Set<String> resolveValidWebOrigins(UriInfo uriInfo, ClientModel client) {
-        Set<String> webOrigins = client.getWebOrigins();
-        if (webOrigins != null && webOrigins.contains("+")) {
-            webOrigins.remove(INCLUDE_REDIRECTS);
-            client.getRedirectUris();
-            for (String redirectUri : RedirectUtils.resolveValidRedirects(uriInfo, client.getRootUrl(), client.getRedirectUris())) {
-                if (redirectUri.startsWith("http://") || redirectUri.startsWith("https://")) {
-                    webOrigins.add(UriUtils.getOrigin(redirectUri));
-                }
-            }
+    public static final String INCLUDE_REDIRECTS = ClientWebOrigins.INCLUDE_REDIRECTS;
+
+    /**
+     * Returns the web origins of the client with {@code +} resolved. The returned set is shared and can't be modified.
+     */
+    public static Set<String> resolveValidWebOrigins(KeycloakSession session, UriInfo uriInfo, ClientModel client) {
+        return getWebOrigins(session, client).getAllowedOrigins(RedirectUtils.getOrigin(uriInfo));
+    }
+
+    public static boolean isValidOrigin(KeycloakSession session, UriInfo uriInfo, ClientModel client, String origin) {
+        return getWebOrigins(session, client).isValidOrigin(origin, RedirectUtils.getOrigin(uriInfo));
+    }
+
+    private static ClientWebOrigins getWebOrigins(KeycloakSession session, ClientModel client) {
+        RealmProvider realms = session.realms();
+        if (realms instanceof CacheRealmProvider) {
+            return ((CacheRealmProvider) realms).getWebOrigins(client);
         }
-        return webOrigins;
+        return ClientWebOrigins.create(client);
     }
 
 }
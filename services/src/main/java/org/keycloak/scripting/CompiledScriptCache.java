@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keycloak.scripting;
+
+import org.keycloak.models.ScriptModel;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of {@link CompiledScript compiled scripts} shared by all {@link DefaultScriptingProvider} instances.
+ * <p>Entries are keyed by the id of the script (or by the code for scripts without id) and hold the code they were
+ * compiled from. If the code of a script changes, the script is compiled again and the stale entry is replaced, so the
+ * cache doesn't need to be invalidated when scripts are updated on this or any other node. Least recently used entries
+ * are evicted when the cache is full.</p>
+ */
+class CompiledScriptCache {
+
+    private final ScriptEngineManager scriptEngineManager;
+
+    private final Map<String, CompiledScriptEntry> scripts;
+
+    CompiledScriptCache(ScriptEngineManager scriptEngineManager, int maxEntries) {
+        this.scriptEngineManager = scriptEngineManager;
+        this.scripts = Collections.synchronizedMap(new LinkedHashMap<String, CompiledScriptEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledScriptEntry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    CompiledScript getCompiledScript(ScriptModel script) {
+        String key = script.getId() != null ? script.getId() : script.getMimeType() + ":" + script.getCode();
+
+        CompiledScriptEntry entry = scripts.get(key);
+
+        if (entry == null || !entry.isCompiledFrom(script)) {
+            // Compiled outside of the lock. Concurrent compilation of the same script is harmless, the last one wins
+            entry = new CompiledScriptEntry(script, compile(script));
+            scripts.put(key, entry);
+        }
+
+        return entry.compiledScript;
+    }
+
+    void clear() {
+        scripts.clear();
+    }
+
+    private CompiledScript compile(ScriptModel script) {
+        ScriptEngine engine = scriptEngineManager.getEngineByMimeType(script.getMimeType());
+
+        if (engine == null) {
+            throw new IllegalStateException("Could not find ScriptEngine for script: " + script);
+        }
+
+        if (!(engine instanceof Compilable)) {
+            throw new IllegalStateException("ScriptEngine for script: " + script + " does not support compilation");
+        }
+
+        try {
+            return ((Compilable) engine).compile(script.getCode());
+        } catch (ScriptException se) {
+            throw new ScriptExecutionException(script, se);
+        }
+    }
+
+    private static class CompiledScriptEntry {
+
+        private final String mimeType;
+        private final String code;
+        private final CompiledScript compiledScript;
+
+        private CompiledScriptEntry(ScriptModel script, CompiledScript compiledScript) {
+            this.mimeType = script.getMimeType();
+            this.code = script.getCode();
+            this.compiledScript = compiledScript;
+        }
+
+        private boolean isCompiledFrom(ScriptModel script) {
+            return code.equals(script.getCode()) && mimeType.equals(script.getMimeType());
+        }
+    }
+}
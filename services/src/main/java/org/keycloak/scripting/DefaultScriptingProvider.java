@@ -32,13 +32,20 @@ public class DefaultScriptingProvider implements ScriptingProvider {
 
     private final ScriptEngineManager scriptEngineManager;
 
-    public DefaultScriptingProvider(ScriptEngineManager scriptEngineManager) {
+    private final CompiledScriptCache compiledScriptCache;
+
+    DefaultScriptingProvider(ScriptEngineManager scriptEngineManager, CompiledScriptCache compiledScriptCache) {
 
         if (scriptEngineManager == null) {
             throw new IllegalStateException("scriptEngineManager must not be null!");
         }
 
+        if (compiledScriptCache == null) {
+            throw new IllegalStateException("compiledScriptCache must not be null!");
+        }
+
         this.scriptEngineManager = scriptEngineManager;
+        this.compiledScriptCache = compiledScriptCache;
     }
 
     /**
@@ -68,6 +75,27 @@ public class DefaultScriptingProvider implements ScriptingProvider {
         return new InvocableScriptAdapter(scriptModel, engine);
     }
 
+    /**
+     * Wraps the {@link javax.script.CompiledScript} of the provided {@link ScriptModel} in an {@link EvaluatableScriptAdapter}.
+     * The script is compiled only if it isn't already in the cache of compiled scripts.
+     *
+     * @param scriptModel must not be {@literal null}
+     * @return
+     */
+    @Override
+    public EvaluatableScriptAdapter prepareEvaluatableScript(ScriptModel scriptModel) {
+
+        if (scriptModel == null) {
+            throw new IllegalArgumentException("script must not be null");
+        }
+
+        if (scriptModel.getCode() == null || scriptModel.getCode().trim().isEmpty()) {
+            throw new IllegalArgumentException("script must not be null or empty");
+        }
+
+        return new EvaluatableScriptAdapter(scriptModel, compiledScriptCache.getCompiledScript(scriptModel));
+    }
+
     //TODO allow scripts to be maintained independently of other components, e.g. with dedicated persistence
     //TODO allow script lookup by (scriptId)
     //TODO allow script lookup by (name, realmName)
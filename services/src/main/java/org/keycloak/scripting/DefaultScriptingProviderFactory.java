@@ -29,14 +29,19 @@ public class DefaultScriptingProviderFactory implements ScriptingProviderFactory
 
     static final String ID = "script-based-auth";
 
+    private static final int DEFAULT_MAX_COMPILED_SCRIPTS = 1000;
+
+    private CompiledScriptCache compiledScriptCache;
+
     @Override
     public ScriptingProvider create(KeycloakSession session) {
-        return new DefaultScriptingProvider(ScriptEngineManagerHolder.SCRIPT_ENGINE_MANAGER);
+        return new DefaultScriptingProvider(ScriptEngineManagerHolder.SCRIPT_ENGINE_MANAGER, compiledScriptCache);
     }
 
     @Override
     public void init(Config.Scope config) {
-        //NOOP
+        int maxCompiledScripts = config.getInt("maxCompiledScripts", DEFAULT_MAX_COMPILED_SCRIPTS);
+        compiledScriptCache = new CompiledScriptCache(ScriptEngineManagerHolder.SCRIPT_ENGINE_MANAGER, maxCompiledScripts);
     }
 
     @Override
@@ -46,7 +51,9 @@ public class DefaultScriptingProviderFactory implements ScriptingProviderFactory
 
     @Override
     public void close() {
-        //NOOP
+        if (compiledScriptCache != null) {
+            compiledScriptCache.clear();
+        }
     }
 
     @Override
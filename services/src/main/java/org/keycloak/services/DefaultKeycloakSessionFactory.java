@@ -21,6 +21,7 @@ import org.keycloak.Config;
 import org.keycloak.common.util.MultivaluedHashMap;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.KeycloakSessionFactory;
+import org.keycloak.models.utils.PreShutdownEvent;
 import org.keycloak.provider.EnvironmentDependentProviderFactory;
 import org.keycloak.provider.Provider;
 import org.keycloak.provider.ProviderEvent;
@@ -351,6 +352,7 @@ public class DefaultKeycloakSessionFactory implements KeycloakSessionFactory, Pr
 
     public void close() {
         ProviderManagerRegistry.SINGLETON.setDeployer(null);
+        publish(new PreShutdownEvent());
         for (Map<String, ProviderFactory> factories : factoriesMap.values()) {
             for (ProviderFactory factory : factories.values()) {
                 factory.close();
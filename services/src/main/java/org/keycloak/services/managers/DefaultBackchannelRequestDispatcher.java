@@ -0,0 +1,331 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.services.managers;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.EntityBuilder;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.util.EntityUtils;
+import org.jboss.logging.Logger;
+import org.keycloak.common.util.Time;
+import org.keycloak.connections.httpclient.HttpClientProvider;
+import org.keycloak.models.KeycloakSession;
+import org.keycloak.representations.adapters.action.GlobalRequestResult;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Requests are queued per target host and at most {@code maxRequestsPerHost} of them run at the same time, so a slow
+ * or dead adapter only holds its own requests and never all the worker threads. Each attempt is bounded by
+ * {@code requestTimeoutMillis}. Requests failing with I/O error or 5xx status are retried with exponential backoff,
+ * requests still failing after that are reported as failed. Requests are neither sent nor retried after the token
+ * expired, as the adapter would reject it anyway.
+ */
+public class DefaultBackchannelRequestDispatcher implements BackchannelRequestDispatcher {
+
+    private static final Logger logger = Logger.getLogger(DefaultBackchannelRequestDispatcher.class);
+
+    private final int maxRequestsPerHost;
+    private final int maxPendingRequests;
+    private final RequestConfig requestConfig;
+    private final int retries;
+    private final long retryDelayMillis;
+    private final boolean synchronousLogout;
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final ConcurrentMap<String, Host> hosts = new ConcurrentHashMap<>();
+    private final Set<Batch> batches = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pendingRequests = new AtomicInteger();
+    private volatile boolean closed;
+
+    public DefaultBackchannelRequestDispatcher(int workers, int maxRequestsPerHost, int maxPendingRequests, int requestTimeoutMillis,
+                                               int retries, long retryDelayMillis, boolean synchronousLogout) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.maxPendingRequests = maxPendingRequests;
+        this.requestConfig = RequestConfig.custom()
+                .setConnectTimeout(requestTimeoutMillis)
+                .setConnectionRequestTimeout(requestTimeoutMillis)
+                .setSocketTimeout(requestTimeoutMillis)
+                .build();
+        this.retries = retries;
+        this.retryDelayMillis = retryDelayMillis;
+        this.synchronousLogout = synchronousLogout;
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(workers, r -> {
+            Thread thread = new Thread(r, "keycloak-backchannel-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Future<GlobalRequestResult> send(KeycloakSession session, List<String> urls, String token, int expiration) {
+        return send(session.getProvider(HttpClientProvider.class).getHttpClient(), urls, token, expiration);
+    }
+
+    Future<GlobalRequestResult> send(HttpClient httpClient, List<String> urls, String token, int expiration) {
+        Batch batch = new Batch(urls.size());
+        if (urls.isEmpty()) {
+            return batch.future;
+        }
+
+        batches.add(batch);
+        for (String url : urls) {
+            if (closed || pendingRequests.incrementAndGet() > maxPendingRequests) {
+                if (!closed) pendingRequests.decrementAndGet();
+                logger.warnf("Too many pending backchannel requests. Request to '%s' not sent", url);
+                batch.finished(url, false, false);
+            } else {
+                enqueue(new Request(batch, httpClient, url, token, expiration));
+            }
+        }
+        return batch.future;
+    }
+
+    @Override
+    public boolean isSynchronousLogout() {
+        return synchronousLogout;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    public void shutdown() {
+        closed = true;
+        executor.shutdownNow();
+
+        // Requests waiting for a host or a retry are never sent, complete them with what is known so far
+        for (Batch batch : batches) {
+            batch.complete();
+        }
+    }
+
+    int getHostCount() {
+        return hosts.size();
+    }
+
+    private static String getHost(String url) {
+        try {
+            URI uri = URI.create(url);
+            return uri.getHost() + ":" + uri.getPort();
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    // Hosts are only accessed while holding the lock of their map entry, and removed as soon as they are idle. Hosts
+    // come from management urls of clients, so there may be many of them over time.
+    private void enqueue(Request request) {
+        List<Request> rejected = new LinkedList<>();
+        hosts.compute(request.host, (key, host) -> {
+            if (host == null) {
+                host = new Host();
+            }
+            host.enqueue(request, rejected);
+            return host.isIdle() ? null : host;
+        });
+        done(rejected);
+    }
+
+    private void finished(Request request) {
+        List<Request> rejected = new LinkedList<>();
+        hosts.computeIfPresent(request.host, (key, host) -> {
+            host.finished(rejected);
+            return host.isIdle() ? null : host;
+        });
+        done(rejected);
+    }
+
+    // Completed outside of the map entry lock, as completing a batch runs the callbacks of its future
+    private static void done(List<Request> rejected) {
+        for (Request request : rejected) {
+            request.done(false);
+        }
+    }
+
+    private class Host {
+
+        private final Queue<Request> queue = new LinkedList<>();
+        private int active;
+
+        void enqueue(Request request, List<Request> rejected) {
+            queue.add(request);
+            drain(rejected);
+        }
+
+        void finished(List<Request> rejected) {
+            active--;
+            drain(rejected);
+        }
+
+        boolean isIdle() {
+            return active == 0 && queue.isEmpty();
+        }
+
+        private void drain(List<Request> rejected) {
+            while (active < maxRequestsPerHost && !queue.isEmpty()) {
+                Request request = queue.poll();
+                active++;
+                try {
+                    executor.execute(request);
+                } catch (RejectedExecutionException e) {
+                    active--;
+                    rejected.add(request);
+                }
+            }
+        }
+    }
+
+    private class Request implements Runnable {
+
+        private final Batch batch;
+        private final HttpClient httpClient;
+        private final String url;
+        private final String token;
+        private final int expiration;
+        private final String host;
+        private int attempt;
+
+        Request(Batch batch, HttpClient httpClient, String url, String token, int expiration) {
+            this.batch = batch;
+            this.httpClient = httpClient;
+            this.url = url;
+            this.token = token;
+            this.expiration = expiration;
+            this.host = getHost(url);
+        }
+
+        @Override
+        public void run() {
+            // May have waited for the host too long
+            if (isExpired(0)) {
+                finished(this);
+                logger.warnf("Backchannel request to %s not sent as the token already expired", url);
+                done(false);
+                return;
+            }
+
+            boolean success = false;
+            boolean retry = false;
+            try {
+                int status = post();
+                success = status == 204 || status == 200;
+                retry = status >= 500;
+                logger.debugf("Backchannel request to %s finished with status %d", url, status);
+            } catch (IOException e) {
+                logger.debugf(e, "Backchannel request to %s failed", url);
+                retry = true;
+            } finally {
+                finished(this);
+            }
+
+            if (!success && retry && attempt < retries && !closed && !isExpired(retryDelayMillis << attempt)) {
+                long delay = retryDelayMillis << attempt;
+                attempt++;
+                try {
+                    executor.schedule(() -> enqueue(this), delay, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                }
+            }
+
+            if (!success) {
+                logger.warnf("Backchannel request to %s failed after %d attempts", url, attempt + 1);
+            }
+            done(success);
+        }
+
+        private boolean isExpired(long delayMillis) {
+            return Time.currentTime() + TimeUnit.MILLISECONDS.toSeconds(delayMillis) > expiration;
+        }
+
+        void done(boolean success) {
+            pendingRequests.decrementAndGet();
+            batch.finished(url, success, attempt > 0);
+        }
+
+        private int post() throws IOException {
+            HttpPost request = new HttpPost(url);
+            request.setConfig(requestConfig);
+            request.setEntity(EntityBuilder.create().setText(token).setContentType(ContentType.TEXT_PLAIN).build());
+            HttpResponse response = httpClient.execute(request);
+            try {
+                return response.getStatusLine().getStatusCode();
+            } finally {
+                HttpEntity entity = response.getEntity();
+                if (entity != null) {
+                    EntityUtils.consumeQuietly(entity);
+                }
+            }
+        }
+    }
+
+    private class Batch {
+
+        private final CompletableFuture<GlobalRequestResult> future = new CompletableFuture<>();
+        private final GlobalRequestResult result = new GlobalRequestResult();
+        private int remaining;
+
+        Batch(int requests) {
+            this.remaining = requests;
+            if (requests == 0) {
+                future.complete(result);
+            }
+        }
+
+        synchronized void finished(String url, boolean success, boolean retried) {
+            if (success) {
+                result.addSuccessRequest(url);
+            } else {
+                result.addFailedRequest(url);
+            }
+            if (retried) {
+                result.addRetriedRequest(url);
+            }
+
+            if (--remaining == 0) {
+                complete();
+            }
+        }
+
+        synchronized void complete() {
+            batches.remove(this);
+            future.complete(result);
+        }
+    }
+}
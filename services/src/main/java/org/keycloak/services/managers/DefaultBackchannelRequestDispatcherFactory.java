@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.services.managers;
+
+import org.keycloak.Config;
+import org.keycloak.models.KeycloakSession;
+import org.keycloak.models.KeycloakSessionFactory;
+
+public class DefaultBackchannelRequestDispatcherFactory implements BackchannelRequestDispatcherFactory {
+
+    private DefaultBackchannelRequestDispatcher dispatcher;
+
+    @Override
+    public BackchannelRequestDispatcher create(KeycloakSession session) {
+        return dispatcher;
+    }
+
+    @Override
+    public void init(Config.Scope config) {
+        int workers = config.getInt("workers", 16);
+        int maxRequestsPerHost = config.getInt("maxRequestsPerHost", 4);
+        int maxPendingRequests = config.getInt("maxPendingRequests", 10000);
+        int requestTimeoutMillis = config.getInt("requestTimeoutMillis", 10000);
+        int retries = config.getInt("retries", 2);
+        long retryDelayMillis = config.getLong("retryDelayMillis", 1000L);
+        boolean synchronousLogout = config.getBoolean("synchronousLogout", false);
+        dispatcher = new DefaultBackchannelRequestDispatcher(workers, maxRequestsPerHost, maxPendingRequests, requestTimeoutMillis,
+                retries, retryDelayMillis, synchronousLogout);
+    }
+
+    @Override
+    public void postInit(KeycloakSessionFactory factory) {
+    }
+
+    @Override
+    public void close() {
+        dispatcher.shutdown();
+    }
+
+    @Override
+    public String getId() {
+        return "default";
+    }
+}
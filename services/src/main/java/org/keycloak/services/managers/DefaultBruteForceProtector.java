@@ -29,30 +29,39 @@ import org.keycloak.services.ServicesLogger;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * A single thread will log failures.  This is so that we can avoid concurrent writes as we want an accurate failure count
+ * Failures are logged by worker shards. All failures of one user are handled by the same shard, so there are no concurrent
+ * writes as we want an accurate failure count, but failures of different users are logged in parallel. Failures of the same
+ * user, which are queued in one batch, are logged together with single lookup of the user and the login failure.
  *
  * @author <a href="mailto:bill@burkecentral.com">Bill Burke</a>
  * @version $Revision: 1 $
  */
-public class DefaultBruteForceProtector implements Runnable, BruteForceProtector {
+public class DefaultBruteForceProtector implements BruteForceProtector {
     private static final Logger logger = Logger.getLogger(DefaultBruteForceProtector.class);
 
     protected volatile boolean run = true;
     protected int maxDeltaTimeSeconds = 60 * 60 * 12; // 12 hours
     protected KeycloakSessionFactory factory;
-    protected CountDownLatch shutdownLatch = new CountDownLatch(1);
+    protected final Shard[] shards;
+    protected final long failureWaitMillis;
+    protected final CountDownLatch shutdownLatch;
 
-    protected volatile long failures;
+    protected final AtomicLong failures = new AtomicLong();
     protected volatile long lastFailure;
     protected volatile long totalTime;
 
-    protected LinkedBlockingQueue<LoginEvent> queue = new LinkedBlockingQueue<LoginEvent>();
     public static final int TRANSACTION_SIZE = 20;
+    public static final long DEFAULT_FAILURE_WAIT_MILLIS = 5000;
 
     protected abstract class LoginEvent implements Comparable<LoginEvent> {
         protected final String realmId;
@@ -86,55 +95,83 @@ public class DefaultBruteForceProtector implements Runnable, BruteForceProtector
     }
 
     public DefaultBruteForceProtector(KeycloakSessionFactory factory) {
+        this(factory, Runtime.getRuntime().availableProcessors(), DEFAULT_FAILURE_WAIT_MILLIS);
+    }
+
+    public DefaultBruteForceProtector(KeycloakSessionFactory factory, int shardCount, long failureWaitMillis) {
         this.factory = factory;
+        this.failureWaitMillis = failureWaitMillis;
+        this.shards = new Shard[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard();
+        }
+        this.shutdownLatch = new CountDownLatch(shards.length);
     }
 
     public void failure(KeycloakSession session, LoginEvent event) {
-        logger.debug("failure");
-        RealmModel realm = getRealmModel(session, event);
-        logFailure(event);
+        failures(session, Collections.singletonList(event));
+    }
 
-        String userId = event.userId;
+    /**
+     * Logs failures of one user
+     */
+    protected void failures(KeycloakSession session, List<? extends LoginEvent> events) {
+        logger.debugv("{0} failures", events.size());
+        LoginEvent first = events.get(0);
+        for (LoginEvent event : events) {
+            logFailure(event);
+        }
+
+        RealmModel realm = getRealmModel(session, first);
+        if (realm == null) return;
+
+        String userId = first.userId;
         UserModel user = session.users().getUserById(userId, realm);
-        UserLoginFailureModel userLoginFailure = getUserModel(session, event);
-        if (user != null) {
-            if (userLoginFailure == null) {
-                userLoginFailure = session.sessions().addUserLoginFailure(realm, userId);
-            }
-            userLoginFailure.setLastIPFailure(event.ip);
-            long currentTime = Time.currentTimeMillis();
-            long last = userLoginFailure.getLastFailure();
-            long deltaTime = 0;
-            if (last > 0) {
-                deltaTime = currentTime - last;
-            }
-            userLoginFailure.setLastFailure(currentTime);
-            if (deltaTime > 0) {
-                // if last failure was more than MAX_DELTA clear failures
-                if (deltaTime > (long) realm.getMaxDeltaTimeSeconds() * 1000L) {
-                    userLoginFailure.clearFailures();
-                }
-            }
-            userLoginFailure.incrementFailures();
-            logger.debugv("new num failures: {0}", userLoginFailure.getNumFailures());
+        if (user == null) return;
 
-            int waitSeconds = realm.getWaitIncrementSeconds() *  (userLoginFailure.getNumFailures() / realm.getFailureFactor());
-            logger.debugv("waitSeconds: {0}", waitSeconds);
-            logger.debugv("deltaTime: {0}", deltaTime);
+        UserLoginFailureModel userLoginFailure = getUserModel(session, first);
+        if (userLoginFailure == null) {
+            userLoginFailure = session.sessions().addUserLoginFailure(realm, userId);
+        }
+        for (LoginEvent event : events) {
+            failure(realm, userLoginFailure, event);
+        }
+    }
 
-            if (waitSeconds == 0) {
-                if (last > 0 && deltaTime < realm.getQuickLoginCheckMilliSeconds()) {
-                    logger.debugv("quick login, set min wait seconds");
-                    waitSeconds = realm.getMinimumQuickLoginWaitSeconds();
-                }
+    protected void failure(RealmModel realm, UserLoginFailureModel userLoginFailure, LoginEvent event) {
+        userLoginFailure.setLastIPFailure(event.ip);
+        long currentTime = Time.currentTimeMillis();
+        long last = userLoginFailure.getLastFailure();
+        long deltaTime = 0;
+        if (last > 0) {
+            deltaTime = currentTime - last;
+        }
+        userLoginFailure.setLastFailure(currentTime);
+        if (deltaTime > 0) {
+            // if last failure was more than MAX_DELTA clear failures
+            if (deltaTime > (long) realm.getMaxDeltaTimeSeconds() * 1000L) {
+                userLoginFailure.clearFailures();
             }
-            if (waitSeconds > 0) {
-                waitSeconds = Math.min(realm.getMaxFailureWaitSeconds(), waitSeconds);
-                int notBefore = (int) (currentTime / 1000) + waitSeconds;
-                logger.debugv("set notBefore: {0}", notBefore);
-                userLoginFailure.setFailedLoginNotBefore(notBefore);
+        }
+        userLoginFailure.incrementFailures();
+        logger.debugv("new num failures: {0}", userLoginFailure.getNumFailures());
+
+        int waitSeconds = realm.getWaitIncrementSeconds() *  (userLoginFailure.getNumFailures() / realm.getFailureFactor());
+        logger.debugv("waitSeconds: {0}", waitSeconds);
+        logger.debugv("deltaTime: {0}", deltaTime);
+
+        if (waitSeconds == 0) {
+            if (last > 0 && deltaTime < realm.getQuickLoginCheckMilliSeconds()) {
+                logger.debugv("quick login, set min wait seconds");
+                waitSeconds = realm.getMinimumQuickLoginWaitSeconds();
             }
         }
+        if (waitSeconds > 0) {
+            waitSeconds = Math.min(realm.getMaxFailureWaitSeconds(), waitSeconds);
+            int notBefore = (int) (currentTime / 1000) + waitSeconds;
+            logger.debugv("set notBefore: {0}", notBefore);
+            userLoginFailure.setFailedLoginNotBefore(notBefore);
+        }
     }
 
 
@@ -153,46 +190,47 @@ public class DefaultBruteForceProtector implements Runnable, BruteForceProtector
     }
 
     public void start() {
-        new Thread(this, "Brute Force Protector").start();
+        for (int i = 0; i < shards.length; i++) {
+            new Thread(shards[i], "Brute Force Protector " + i).start();
+        }
     }
 
     public void shutdown() {
         run = false;
         try {
-            queue.offer(new ShutdownEvent());
+            for (Shard shard : shards) {
+                shard.queue.offer(new ShutdownEvent());
+            }
             shutdownLatch.await(10, TimeUnit.SECONDS);
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
         }
     }
 
-    public void run() {
-        final ArrayList<LoginEvent> events = new ArrayList<LoginEvent>(TRANSACTION_SIZE + 1);
-        try {
-            while (run) {
-                try {
-                    LoginEvent take = queue.poll(2, TimeUnit.SECONDS);
-                    if (take == null) {
-                        continue;
-                    }
+    protected Shard getShard(String realmId, String userId) {
+        int hash = 31 * realmId.hashCode() + userId.hashCode();
+        return shards[Math.floorMod(hash, shards.length)];
+    }
+
+    protected class Shard implements Runnable {
+
+        protected final LinkedBlockingQueue<LoginEvent> queue = new LinkedBlockingQueue<LoginEvent>();
+
+        public void run() {
+            final ArrayList<LoginEvent> events = new ArrayList<LoginEvent>(TRANSACTION_SIZE + 1);
+            try {
+                while (run) {
                     try {
-                        events.add(take);
-                        queue.drainTo(events, TRANSACTION_SIZE);
-                        Collections.sort(events); // we sort to avoid deadlock due to ordered updates.  Maybe I'm overthinking this.
-                        KeycloakSession session = factory.create();
-                        session.getTransactionManager().begin();
+                        LoginEvent take = queue.poll(2, TimeUnit.SECONDS);
+                        if (take == null) {
+                            continue;
+                        }
                         try {
-                            for (LoginEvent event : events) {
-                                if (event instanceof FailedLogin) {
-                                    failure(session, event);
-                                } else if (event instanceof ShutdownEvent) {
-                                    run = false;
-                                }
-                            }
-                            session.getTransactionManager().commit();
+                            events.add(take);
+                            queue.drainTo(events, TRANSACTION_SIZE);
+                            process(events);
                         } catch (Exception e) {
-                            session.getTransactionManager().rollback();
-                            throw e;
+                            ServicesLogger.LOGGER.failedProcessingType(e);
                         } finally {
                             for (LoginEvent event : events) {
                                 if (event instanceof FailedLogin) {
@@ -200,23 +238,51 @@ public class DefaultBruteForceProtector implements Runnable, BruteForceProtector
                                 }
                             }
                             events.clear();
-                            session.close();
                         }
-                    } catch (Exception e) {
-                        ServicesLogger.LOGGER.failedProcessingType(e);
+                    } catch (InterruptedException e) {
+                        break;
                     }
-                } catch (InterruptedException e) {
-                    break;
                 }
+            } finally {
+                shutdownLatch.countDown();
+            }
+        }
+
+        protected void process(List<LoginEvent> events) throws Exception {
+            // Group failures by user. Sorted to avoid deadlock due to ordered updates
+            Map<String, List<LoginEvent>> failuresByUser = new TreeMap<>();
+            for (LoginEvent event : events) {
+                if (event instanceof FailedLogin) {
+                    String key = event.realmId + "/" + event.userId;
+                    failuresByUser.computeIfAbsent(key, k -> new LinkedList<>()).add(event);
+                } else if (event instanceof ShutdownEvent) {
+                    run = false;
+                }
+            }
+
+            if (failuresByUser.isEmpty()) {
+                return;
+            }
+
+            KeycloakSession session = factory.create();
+            session.getTransactionManager().begin();
+            try {
+                for (List<LoginEvent> userFailures : failuresByUser.values()) {
+                    failures(session, userFailures);
+                }
+                session.getTransactionManager().commit();
+            } catch (Exception e) {
+                session.getTransactionManager().rollback();
+                throw e;
+            } finally {
+                session.close();
             }
-        } finally {
-            shutdownLatch.countDown();
         }
     }
 
     protected void logFailure(LoginEvent event) {
         ServicesLogger.LOGGER.loginFailure(event.userId, event.ip);
-        failures++;
+        failures.incrementAndGet();
         long delta = 0;
         if (lastFailure > 0) {
             delta = Time.currentTimeMillis() - lastFailure;
@@ -233,11 +299,11 @@ public class DefaultBruteForceProtector implements Runnable, BruteForceProtector
     public void failedLogin(RealmModel realm, UserModel user, ClientConnection clientConnection) {
         try {
             FailedLogin event = new FailedLogin(realm.getId(), user.getId(), clientConnection.getRemoteAddr());
-            queue.offer(event);
+            getShard(event.realmId, event.userId).queue.offer(event);
             // wait a minimum of seconds for type to process so that a hacker
             // cannot flood with failed logins and overwhelm the queue and not have notBefore updated to block next requests
             // todo failure HTTP responses should be queued via async HTTP
-            event.latch.await(5, TimeUnit.SECONDS);
+            event.latch.await(failureWaitMillis, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
         }
         logger.trace("sent failure event");
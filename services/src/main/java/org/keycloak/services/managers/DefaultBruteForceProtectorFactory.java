@@ -28,6 +28,9 @@ import org.keycloak.models.KeycloakSessionFactory;
 public class DefaultBruteForceProtectorFactory implements BruteForceProtectorFactory {
     DefaultBruteForceProtector protector;
 
+    private int shards;
+    private long failureWaitMillis;
+
     @Override
     public BruteForceProtector create(KeycloakSession session) {
         return protector;
@@ -35,12 +38,13 @@ public class DefaultBruteForceProtectorFactory implements BruteForceProtectorFac
 
     @Override
     public void init(Config.Scope config) {
-
+        shards = config.getInt("shards", Runtime.getRuntime().availableProcessors());
+        failureWaitMillis = config.getLong("failureWaitMillis", DefaultBruteForceProtector.DEFAULT_FAILURE_WAIT_MILLIS);
     }
 
     @Override
     public void postInit(KeycloakSessionFactory factory) {
-        protector = new DefaultBruteForceProtector(factory);
+        protector = new DefaultBruteForceProtector(factory, shards, failureWaitMillis);
         protector.start();
 
     }
@@ -22,7 +22,6 @@ import org.keycloak.common.util.KeycloakUriBuilder;
 import org.keycloak.common.util.MultivaluedHashMap;
 import org.keycloak.common.util.StringPropertyReplacer;
 import org.keycloak.common.util.Time;
-import org.keycloak.connections.httpclient.HttpClientProvider;
 import org.keycloak.constants.AdapterConstants;
 import org.keycloak.models.ClientModel;
 import org.keycloak.models.ClientSessionModel;
@@ -35,11 +34,9 @@ import org.keycloak.representations.adapters.action.GlobalRequestResult;
 import org.keycloak.representations.adapters.action.LogoutAction;
 import org.keycloak.representations.adapters.action.PushNotBeforeAction;
 import org.keycloak.representations.adapters.action.TestAvailabilityAction;
-import org.keycloak.services.ServicesLogger;
 import org.keycloak.services.util.ResolveRelative;
 
 import javax.ws.rs.core.UriBuilder;
-import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -48,6 +45,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * @author <a href="mailto:bill@burkecentral.com">Bill Burke</a>
@@ -175,17 +175,15 @@ public class ResourceAdminManager {
                 return false;
             }
 
+            List<Future<GlobalRequestResult>> results = new LinkedList<>();
             if (managementUrl.contains(CLIENT_SESSION_HOST_PROPERTY)) {
-                boolean allPassed = true;
                 // Send logout separately to each host (needed for single-sign-out in cluster for non-distributable apps - KEYCLOAK-748)
                 for (Map.Entry<String, List<String>> entry : adapterSessionIds.entrySet()) {
                     String host = entry.getKey();
                     List<String> sessionIds = entry.getValue();
                     String currentHostMgmtUrl = managementUrl.replace(CLIENT_SESSION_HOST_PROPERTY, host);
-                    allPassed = sendLogoutRequest(realm, resource, sessionIds, userSessions, 0, currentHostMgmtUrl) && allPassed;
+                    results.add(sendLogoutRequest(realm, resource, sessionIds, userSessions, 0, Arrays.asList(currentHostMgmtUrl)));
                 }
-
-                return allPassed;
             } else {
                 // Send single logout request
                 List<String> allSessionIds = new ArrayList<String>();
@@ -193,8 +191,15 @@ public class ResourceAdminManager {
                     allSessionIds.addAll(currentIds);
                 }
 
-                return sendLogoutRequest(realm, resource, allSessionIds, userSessions, 0, managementUrl);
+                results.add(sendLogoutRequest(realm, resource, allSessionIds, userSessions, 0, Arrays.asList(managementUrl)));
+            }
+
+            // Don't let slow adapters delay the logout unless configured otherwise
+            if (!getDispatcher().isSynchronousLogout()) {
+                return true;
             }
+            GlobalRequestResult result = await(results);
+            return result.getFailedRequests() == null || result.getFailedRequests().isEmpty();
         } else {
             logger.debugv("Can't logout {0}: no management url", resource.getClientId());
             return false;
@@ -208,12 +213,11 @@ public class ResourceAdminManager {
         List<ClientModel> resources = realm.getClients();
         logger.debugv("logging out {0} resources ", resources.size());
 
-        GlobalRequestResult finalResult = new GlobalRequestResult();
+        List<Future<GlobalRequestResult>> results = new LinkedList<>();
         for (ClientModel resource : resources) {
-            GlobalRequestResult currentResult = logoutClient(requestUri, realm, resource, realm.getNotBefore());
-            finalResult.addAll(currentResult);
+            results.add(sendLogoutClient(requestUri, realm, resource, realm.getNotBefore()));
         }
-        return finalResult;
+        return await(results);
     }
 
     public GlobalRequestResult logoutClient(URI requestUri, RealmModel realm, ClientModel resource) {
@@ -223,49 +227,35 @@ public class ResourceAdminManager {
 
 
     protected GlobalRequestResult logoutClient(URI requestUri, RealmModel realm, ClientModel resource, int notBefore) {
+        return await(Arrays.asList(sendLogoutClient(requestUri, realm, resource, notBefore)));
+    }
+
+    protected Future<GlobalRequestResult> sendLogoutClient(URI requestUri, RealmModel realm, ClientModel resource, int notBefore) {
         List<String> mgmtUrls = getAllManagementUrls(requestUri, resource);
         if (mgmtUrls.isEmpty()) {
             logger.debug("No management URL or no registered cluster nodes for the client " + resource.getClientId());
-            return new GlobalRequestResult();
+            return CompletableFuture.completedFuture(new GlobalRequestResult());
         }
 
         if (logger.isDebugEnabled()) logger.debug("Send logoutClient for URLs: " + mgmtUrls);
 
         // Propagate this to all hosts
-        GlobalRequestResult result = new GlobalRequestResult();
-        for (String mgmtUrl : mgmtUrls) {
-            if (sendLogoutRequest(realm, resource, null, null, notBefore, mgmtUrl)) {
-                result.addSuccessRequest(mgmtUrl);
-            } else {
-                result.addFailedRequest(mgmtUrl);
-            }
-        }
-        return result;
+        return sendLogoutRequest(realm, resource, null, null, notBefore, mgmtUrls);
     }
 
-    protected boolean sendLogoutRequest(RealmModel realm, ClientModel resource, List<String> adapterSessionIds, List<String> userSessions, int notBefore, String managementUrl) {
+    protected Future<GlobalRequestResult> sendLogoutRequest(RealmModel realm, ClientModel resource, List<String> adapterSessionIds, List<String> userSessions, int notBefore, List<String> managementUrls) {
         LogoutAction adminAction = new LogoutAction(TokenIdGenerator.generateId(), Time.currentTime() + 30, resource.getClientId(), adapterSessionIds, notBefore, userSessions);
         String token = new TokenManager().encodeToken(session, realm, adminAction);
-        if (logger.isDebugEnabled()) logger.debugv("logout resource {0} url: {1} sessionIds: " + adapterSessionIds, resource.getClientId(), managementUrl);
-        URI target = UriBuilder.fromUri(managementUrl).path(AdapterConstants.K_LOGOUT).build();
-        try {
-            int status = session.getProvider(HttpClientProvider.class).postText(target.toString(), token);
-            boolean success = status == 204 || status == 200;
-            logger.debugf("logout success for %s: %s", managementUrl, success);
-            return success;
-        } catch (IOException e) {
-            ServicesLogger.LOGGER.logoutFailed(e, resource.getClientId());
-            return false;
-        }
+        if (logger.isDebugEnabled()) logger.debugv("logout resource {0} urls: {1} sessionIds: " + adapterSessionIds, resource.getClientId(), managementUrls);
+        return send(managementUrls, AdapterConstants.K_LOGOUT, token, adminAction.getExpiration());
     }
 
     public GlobalRequestResult pushRealmRevocationPolicy(URI requestUri, RealmModel realm) {
-        GlobalRequestResult finalResult = new GlobalRequestResult();
+        List<Future<GlobalRequestResult>> results = new LinkedList<>();
         for (ClientModel client : realm.getClients()) {
-            GlobalRequestResult currentResult = pushRevocationPolicy(requestUri, realm, client, realm.getNotBefore());
-            finalResult.addAll(currentResult);
+            results.add(sendPushRevocationPolicy(requestUri, realm, client, realm.getNotBefore()));
         }
-        return finalResult;
+        return await(results);
     }
 
     public GlobalRequestResult pushClientRevocationPolicy(URI requestUri, RealmModel realm, ClientModel client) {
@@ -274,40 +264,22 @@ public class ResourceAdminManager {
 
 
     protected GlobalRequestResult pushRevocationPolicy(URI requestUri, RealmModel realm, ClientModel resource, int notBefore) {
+        return await(Arrays.asList(sendPushRevocationPolicy(requestUri, realm, resource, notBefore)));
+    }
+
+    protected Future<GlobalRequestResult> sendPushRevocationPolicy(URI requestUri, RealmModel realm, ClientModel resource, int notBefore) {
         List<String> mgmtUrls = getAllManagementUrls(requestUri, resource);
         if (mgmtUrls.isEmpty()) {
             logger.debugf("No management URL or no registered cluster nodes for the client %s", resource.getClientId());
-            return new GlobalRequestResult();
+            return CompletableFuture.completedFuture(new GlobalRequestResult());
         }
 
         if (logger.isDebugEnabled()) logger.debug("Sending push revocation to URLS: " + mgmtUrls);
 
         // Propagate this to all hosts
-        GlobalRequestResult result = new GlobalRequestResult();
-        for (String mgmtUrl : mgmtUrls) {
-            if (sendPushRevocationPolicyRequest(realm, resource, notBefore, mgmtUrl)) {
-                result.addSuccessRequest(mgmtUrl);
-            } else {
-                result.addFailedRequest(mgmtUrl);
-            }
-        }
-        return result;
-    }
-
-    protected boolean sendPushRevocationPolicyRequest(RealmModel realm, ClientModel resource, int notBefore, String managementUrl) {
         PushNotBeforeAction adminAction = new PushNotBeforeAction(TokenIdGenerator.generateId(), Time.currentTime() + 30, resource.getClientId(), notBefore);
         String token = new TokenManager().encodeToken(session, realm, adminAction);
-        logger.debugv("pushRevocation resource: {0} url: {1}", resource.getClientId(), managementUrl);
-        URI target = UriBuilder.fromUri(managementUrl).path(AdapterConstants.K_PUSH_NOT_BEFORE).build();
-        try {
-            int status = session.getProvider(HttpClientProvider.class).postText(target.toString(), token);
-            boolean success = status == 204 || status == 200;
-            logger.debugf("pushRevocation success for %s: %s", managementUrl, success);
-            return success;
-        } catch (IOException e) {
-            ServicesLogger.LOGGER.failedToSendRevocation(e);
-            return false;
-        }
+        return send(mgmtUrls, AdapterConstants.K_PUSH_NOT_BEFORE, token, adminAction.getExpiration());
     }
 
     public GlobalRequestResult testNodesAvailability(URI requestUri, RealmModel realm, ClientModel client) {
@@ -321,31 +293,37 @@ public class ResourceAdminManager {
         if (logger.isDebugEnabled()) logger.debug("Sending test nodes availability: " + mgmtUrls);
 
         // Propagate this to all hosts
-        GlobalRequestResult result = new GlobalRequestResult();
-        for (String mgmtUrl : mgmtUrls) {
-            if (sendTestNodeAvailabilityRequest(realm, client, mgmtUrl)) {
-                result.addSuccessRequest(mgmtUrl);
-            } else {
-                result.addFailedRequest(mgmtUrl);
-            }
+        TestAvailabilityAction adminAction = new TestAvailabilityAction(TokenIdGenerator.generateId(), Time.currentTime() + 30, client.getClientId());
+        String token = new TokenManager().encodeToken(session, realm, adminAction);
+        return await(Arrays.asList(send(mgmtUrls, AdapterConstants.K_TEST_AVAILABLE, token, adminAction.getExpiration())));
+    }
+
+    // The same token is sent to all nodes of the client
+    private Future<GlobalRequestResult> send(List<String> managementUrls, String path, String token, int expiration) {
+        List<String> targets = new LinkedList<>();
+        for (String managementUrl : managementUrls) {
+            targets.add(UriBuilder.fromUri(managementUrl).path(path).build().toString());
         }
-        return result;
+        return getDispatcher().send(session, targets, token, expiration);
     }
 
-    protected boolean sendTestNodeAvailabilityRequest(RealmModel realm, ClientModel client, String managementUrl) {
-        TestAvailabilityAction adminAction = new TestAvailabilityAction(TokenIdGenerator.generateId(), Time.currentTime() + 30, client.getClientId());
-        String token = new TokenManager().encodeToken(session, realm, adminAction);
-        logger.debugv("testNodes availability resource: {0} url: {1}", client.getClientId(), managementUrl);
-        URI target = UriBuilder.fromUri(managementUrl).path(AdapterConstants.K_TEST_AVAILABLE).build();
-        try {
-            int status = session.getProvider(HttpClientProvider.class).postText(target.toString(), token);
-            boolean success = status == 204 || status == 200;
-            logger.debugf("testAvailability success for %s: %s", managementUrl, success);
-            return success;
-        } catch (IOException e) {
-            ServicesLogger.LOGGER.availabilityTestFailed(managementUrl);
-            return false;
+    private GlobalRequestResult await(List<Future<GlobalRequestResult>> results) {
+        GlobalRequestResult finalResult = new GlobalRequestResult();
+        for (Future<GlobalRequestResult> result : results) {
+            try {
+                finalResult.addAll(result.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
         }
-   }
+        return finalResult;
+    }
+
+    private BackchannelRequestDispatcher getDispatcher() {
+        return session.getProvider(BackchannelRequestDispatcher.class);
+    }
 
 }
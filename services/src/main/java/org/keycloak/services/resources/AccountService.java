@@ -782,7 +782,7 @@ public class AccountService extends AbstractSecuredLocalService {
         ClientModel referrerClient = realm.getClientByClientId(referrer);
         if (referrerClient != null) {
             if (referrerUri != null) {
-                referrerUri = RedirectUtils.verifyRedirectUri(uriInfo, referrerUri, realm, referrerClient);
+                referrerUri = RedirectUtils.verifyRedirectUri(session, uriInfo, referrerUri, realm, referrerClient);
             } else {
                 referrerUri = ResolveRelative.resolveRelativeUri(uriInfo.getRequestUri(), client.getRootUrl(), referrerClient.getBaseUrl());
             }
@@ -793,7 +793,7 @@ public class AccountService extends AbstractSecuredLocalService {
         } else if (referrerUri != null) {
             referrerClient = realm.getClientByClientId(referrer);
             if (client != null) {
-                referrerUri = RedirectUtils.verifyRedirectUri(uriInfo, referrerUri, realm, referrerClient);
+                referrerUri = RedirectUtils.verifyRedirectUri(session, uriInfo, referrerUri, realm, referrerClient);
 
                 if (referrerUri != null) {
                     return new String[]{referrer, referrerUri};
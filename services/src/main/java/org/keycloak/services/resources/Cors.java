@@ -21,10 +21,13 @@ import org.jboss.resteasy.spi.HttpRequest;
 import org.jboss.resteasy.spi.HttpResponse;
 import org.keycloak.common.util.CollectionUtil;
 import org.keycloak.models.ClientModel;
+import org.keycloak.models.KeycloakSession;
+import org.keycloak.protocol.oidc.utils.WebOriginsUtils;
 import org.keycloak.representations.AccessToken;
 
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.UriInfo;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -95,6 +98,13 @@ public class Cors {
         return this;
     }
 
+    public Cors allowedOrigins(KeycloakSession session, UriInfo uriInfo, ClientModel client) {
+        if (client != null) {
+            allowedOrigins = WebOriginsUtils.resolveValidWebOrigins(session, uriInfo, client);
+        }
+        return this;
+    }
+
     public Cors allowedOrigins(AccessToken token) {
         if (token != null) {
             allowedOrigins = token.getAllowedOrigins();
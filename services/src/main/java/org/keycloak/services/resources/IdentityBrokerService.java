@@ -552,7 +552,7 @@ public class IdentityBrokerService implements IdentityProvider.AuthenticationCal
         this.event.user(federatedUser);
         this.event.session(userSession);
 
-        TokenManager.attachClientSession(userSession, clientSession);
+        TokenManager.attachClientSession(this.session, userSession, clientSession);
         context.getIdp().attachUserSession(userSession, clientSession, context);
         userSession.setNote(Details.IDENTITY_PROVIDER, providerId);
         userSession.setNote(Details.IDENTITY_PROVIDER_USERNAME, context.getUsername());
@@ -839,7 +839,7 @@ public class IdentityBrokerService implements IdentityProvider.AuthenticationCal
     }
 
     private Response corsResponse(Response response, ClientModel clientModel) {
-        return Cors.add(this.request, Response.fromResponse(response)).auth().allowedOrigins(clientModel).build();
+        return Cors.add(this.request, Response.fromResponse(response)).auth().allowedOrigins(session, uriInfo, clientModel).build();
     }
 
     private void fireErrorEvent(String message, Throwable throwable) {
@@ -77,6 +77,7 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
@@ -89,9 +90,11 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.PatternSyntaxException;
 
 /**
@@ -448,19 +451,55 @@ public class RealmAdminResource {
     public List<Map<String, String>> getClientSessionStats() {
         auth.requireView();
 
+        Map<String, Long> active = session.sessions().getActiveClientSessionStats(realm, false);
+        Map<String, Long> offline = session.sessions().getActiveClientSessionStats(realm, true);
+
+        // Clients with offline sessions only are listed too
+        Set<String> clientIds = new HashSet<>(active.keySet());
+        clientIds.addAll(offline.keySet());
+
         List<Map<String, String>> data = new LinkedList<Map<String, String>>();
-        for (ClientModel client : realm.getClients()) {
-            long size = session.sessions().getActiveUserSessions(client.getRealm(), client);
-            if (size == 0) continue;
+        for (String clientId : clientIds) {
+            Long activeCount = active.get(clientId);
+            Long offlineCount = offline.get(clientId);
+            if ((activeCount == null || activeCount == 0) && (offlineCount == null || offlineCount == 0)) continue;
+            ClientModel client = realm.getClientById(clientId);
+            if (client == null) continue;
             Map<String, String> map = new HashMap<>();
             map.put("id", client.getId());
             map.put("clientId", client.getClientId());
-            map.put("active", size + "");
+            map.put("active", (activeCount != null ? activeCount : 0) + "");
+            map.put("offline", (offlineCount != null ? offlineCount : 0) + "");
             data.add(map);
         }
         return data;
     }
 
+    /**
+     * Get session stats
+     *
+     * Returns a JSON map with the number of active and offline user sessions in the realm.
+     *
+     * {
+     *     "active": number,
+     *     "offline": number
+     * }
+     *
+     * @return
+     */
+    @Path("session-stats")
+    @GET
+    @NoCache
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Long> getSessionStats() {
+        auth.requireView();
+
+        Map<String, Long> map = new HashMap<>();
+        map.put("active", session.sessions().getActiveUserSessions(realm));
+        map.put("offline", session.sessions().getOfflineSessionsCount(realm));
+        return map;
+    }
+
     /**
      * Get the events provider configuration
      *
@@ -517,6 +556,8 @@ public class RealmAdminResource {
      * @param dateFrom From date
      * @param firstResult Paging offset
      * @param maxResults Paging size
+     * @param afterTime Keyset paging - time of the last event of previous page. Used instead of paging offset together with afterId
+     * @param afterId Keyset paging - id of the last event of previous page
      * @return
      */
     @Path("events")
@@ -526,7 +567,8 @@ public class RealmAdminResource {
     public List<EventRepresentation> getEvents(@QueryParam("type") List<String> types, @QueryParam("client") String client,
                                                @QueryParam("user") String user, @QueryParam("dateFrom") String dateFrom, @QueryParam("dateTo") String dateTo,
                                                @QueryParam("ipAddress") String ipAddress, @QueryParam("first") Integer firstResult,
-                                               @QueryParam("max") Integer maxResults) {
+                                               @QueryParam("max") Integer maxResults, @QueryParam("afterTime") Long afterTime,
+                                               @QueryParam("afterId") String afterId) {
         auth.init(RealmAuth.Resource.EVENTS).requireView();
 
         EventStoreProvider eventStore = session.getProvider(EventStoreProvider.class);
@@ -573,6 +615,18 @@ public class RealmAdminResource {
         if (ipAddress != null) {
             query.ipAddress(ipAddress);
         }
+        if (afterTime != null || afterId != null) {
+            if (afterTime == null || afterId == null) {
+                throw new BadRequestException("Both 'afterTime' and 'afterId' are required for keyset paging");
+            }
+            try {
+                query.after(afterTime, afterId);
+            } catch (UnsupportedOperationException e) {
+                throw new WebApplicationException(ErrorResponse.error("Keyset paging is not supported by the event store", Status.NOT_IMPLEMENTED));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Invalid value for 'afterId'");
+            }
+        }
         if (firstResult != null) {
             query.firstResult(firstResult);
         }
@@ -606,6 +660,8 @@ public class RealmAdminResource {
      * @param dateFrom
      * @param firstResult
      * @param maxResults
+     * @param afterTime Keyset paging - time of the last event of previous page. Used instead of firstResult together with afterId
+     * @param afterId Keyset paging - id of the last event of previous page
      * @return
      */
     @Path("admin-events")
@@ -617,7 +673,8 @@ public class RealmAdminResource {
                                                     @QueryParam("resourcePath") String resourcePath, @QueryParam("dateFrom") String dateFrom,
                                                     @QueryParam("dateTo") String dateTo, @QueryParam("first") Integer firstResult,
                                                     @QueryParam("max") Integer maxResults,
-                                                    @QueryParam("resourceTypes") List<String> resourceTypes) {
+                                                    @QueryParam("resourceTypes") List<String> resourceTypes,
+                                                    @QueryParam("afterTime") Long afterTime, @QueryParam("afterId") String afterId) {
         auth.init(RealmAuth.Resource.EVENTS).requireView();
 
         EventStoreProvider eventStore = session.getProvider(EventStoreProvider.class);
@@ -683,6 +740,18 @@ public class RealmAdminResource {
             query.toTime(to);
         }
 
+        if (afterTime != null || afterId != null) {
+            if (afterTime == null || afterId == null) {
+                throw new BadRequestException("Both 'afterTime' and 'afterId' are required for keyset paging");
+            }
+            try {
+                query.after(afterTime, afterId);
+            } catch (UnsupportedOperationException e) {
+                throw new WebApplicationException(ErrorResponse.error("Keyset paging is not supported by the event store", Status.NOT_IMPLEMENTED));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Invalid value for 'afterId'");
+            }
+        }
         if (firstResult != null) {
             query.firstResult(firstResult);
         }
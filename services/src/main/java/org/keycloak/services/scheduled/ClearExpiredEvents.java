@@ -19,25 +19,43 @@ package org.keycloak.services.scheduled;
 
 import org.keycloak.events.EventStoreProvider;
 import org.keycloak.models.KeycloakSession;
+import org.keycloak.models.KeycloakSessionFactory;
 import org.keycloak.models.RealmModel;
+import org.keycloak.models.utils.KeycloakModelUtils;
 import org.keycloak.timer.ScheduledTask;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author <a href="mailto:sthorger@redhat.com">Stian Thorgersen</a>
  */
 public class ClearExpiredEvents implements ScheduledTask {
 
+    // Expired events are removed in chunks, each in separate transaction, so the event table isn't locked for long
+    private static final int CHUNK_SIZE = 10000;
+
     @Override
     public void run(KeycloakSession session) {
         EventStoreProvider eventStore = session.getProvider(EventStoreProvider.class);
         if (eventStore != null) {
-            for (RealmModel realm : session.realms().getRealms()) {
-                if (realm.isEventsEnabled() && realm.getEventsExpiration() > 0) {
+            for (String realmId : session.realms().getRealmIds()) {
+                RealmModel realm = session.realms().getRealm(realmId);
+                if (realm != null && realm.isEventsEnabled() && realm.getEventsExpiration() > 0) {
                     long olderThan = System.currentTimeMillis() - realm.getEventsExpiration() * 1000;
-                    eventStore.clear(realm.getId(), olderThan);
+                    clearExpiredEvents(session.getKeycloakSessionFactory(), realm.getId(), olderThan);
                 }
             }
         }
     }
 
+    private void clearExpiredEvents(KeycloakSessionFactory sessionFactory, String realmId, long olderThan) {
+        AtomicInteger removed = new AtomicInteger();
+        do {
+            KeycloakModelUtils.runJobInTransaction(sessionFactory, session -> {
+                EventStoreProvider eventStore = session.getProvider(EventStoreProvider.class);
+                removed.set(eventStore.clear(realmId, olderThan, CHUNK_SIZE));
+            });
+        } while (removed.get() >= CHUNK_SIZE);
+    }
+
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.services.util;
+
+import org.keycloak.common.util.Base64Url;
+import org.keycloak.util.JsonSerialization;
+
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * JSON document rendered once and served with a strong ETag, so clients polling it can revalidate with
+ * {@code If-None-Match} and get {@code 304 Not Modified}.
+ */
+public class CachedDocument {
+
+    private final String version;
+    private final byte[] content;
+    private final EntityTag etag;
+
+    private CachedDocument(String version, byte[] content, EntityTag etag) {
+        this.version = version;
+        this.content = content;
+        this.etag = etag;
+    }
+
+    /**
+     * @param version identifies the state the document was created from, used to check if the document is stale
+     * @param document the document to render
+     * @return
+     */
+    public static CachedDocument render(String version, Object document) {
+        try {
+            byte[] content = JsonSerialization.writeValueAsBytes(document);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return new CachedDocument(version, content, new EntityTag(Base64Url.encode(digest)));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to render document", e);
+        }
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public EntityTag getEntityTag() {
+        return etag;
+    }
+
+    public Response.ResponseBuilder toResponse(HttpHeaders headers, CacheControl cacheControl) {
+        if (isNotModified(headers.getRequestHeader(HttpHeaders.IF_NONE_MATCH))) {
+            return Response.notModified(etag).cacheControl(cacheControl);
+        }
+        return Response.ok(content, MediaType.APPLICATION_JSON_TYPE).tag(etag).cacheControl(cacheControl);
+    }
+
+    private boolean isNotModified(List<String> ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        String value = etag.getValue();
+        for (String header : ifNoneMatch) {
+            for (String tag : header.split(",")) {
+                tag = tag.trim();
+                // weak comparison is used for If-None-Match
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals("\"" + value + "\"")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+}
@@ -44,6 +44,7 @@ import org.keycloak.storage.user.UserLookupProvider;
 import org.keycloak.storage.user.UserQueryProvider;
 import org.keycloak.storage.user.UserRegistrationProvider;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -264,6 +265,28 @@ public class UserStorageManager implements UserProvider, OnUserCache {
         return provider.getUserById(id, realm);
     }
 
+    @Override
+    public List<UserModel> getUsersByIds(Collection<String> ids, RealmModel realm) {
+        List<String> localIds = new LinkedList<>();
+        List<UserModel> users = new LinkedList<>();
+        for (String id : ids) {
+            StorageId storageId = new StorageId(id);
+            if (storageId.getProviderId() == null) {
+                localIds.add(id);
+            } else {
+                UserLookupProvider provider = (UserLookupProvider)getStorageProvider(session, realm, storageId.getProviderId());
+                UserModel user = provider.getUserById(id, realm);
+                if (user != null) users.add(user);
+            }
+        }
+        if (!localIds.isEmpty()) {
+            for (UserModel user : importValidation(realm, localStorage().getUsersByIds(localIds, realm))) {
+                if (user != null) users.add(user);
+            }
+        }
+        return users;
+    }
+
     @Override
     public List<UserModel> getGroupMembers(RealmModel realm, GroupModel group) {
         return getGroupMembers(realm, group, -1, -1);
@@ -282,6 +305,30 @@ public class UserStorageManager implements UserProvider, OnUserCache {
         return null;
     }
 
+    @Override
+    public List<UserModel> getUsersByUsernames(Collection<String> usernames, RealmModel realm) {
+        List<UserModel> users = new LinkedList<>();
+        Set<String> notFound = new HashSet<>();
+        for (String username : usernames) {
+            notFound.add(username.toLowerCase());
+        }
+        for (UserModel user : localStorage().getUsersByUsernames(notFound, realm)) {
+            notFound.remove(user.getUsername().toLowerCase());
+            user = importValidation(realm, user);
+            if (user != null) users.add(user);
+        }
+        for (String username : notFound) {
+            for (UserLookupProvider provider : getStorageProviders(session, realm, UserLookupProvider.class)) {
+                UserModel user = provider.getUserByUsername(username, realm);
+                if (user != null) {
+                    users.add(user);
+                    break;
+                }
+            }
+        }
+        return users;
+    }
+
     @Override
     public UserModel getUserByEmail(String email, RealmModel realm) {
         UserModel user = localStorage().getUserByEmail(email, realm);
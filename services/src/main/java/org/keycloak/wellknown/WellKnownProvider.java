@@ -18,6 +18,10 @@
 package org.keycloak.wellknown;
 
 import org.keycloak.provider.Provider;
+import org.keycloak.services.util.CacheControlUtil;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
 
 /**
  * @author <a href="mailto:sthorger@redhat.com">Stian Thorgersen</a>
@@ -26,4 +30,15 @@ public interface WellKnownProvider extends Provider {
 
     Object getConfig();
 
+    /**
+     * Returns the response for the configuration. Providers that can cache their configuration should override this
+     * to render it once and answer conditional requests.
+     *
+     * @param headers headers of the request
+     * @return
+     */
+    default Response.ResponseBuilder getConfigResponse(HttpHeaders headers) {
+        return Response.ok(getConfig()).cacheControl(CacheControlUtil.getDefaultCacheControl());
+    }
+
 }
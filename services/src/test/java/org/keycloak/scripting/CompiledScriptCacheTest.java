@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keycloak.scripting;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.keycloak.models.ScriptModel;
+
+import javax.script.CompiledScript;
+import javax.script.ScriptEngineManager;
+
+public class CompiledScriptCacheTest {
+
+    private final ScriptEngineManager scriptEngineManager = new ScriptEngineManager();
+
+    @Test
+    public void testScriptCompiledOnce() {
+        CompiledScriptCache cache = new CompiledScriptCache(scriptEngineManager, 10);
+
+        CompiledScript compiled = cache.getCompiledScript(script("id1", "1 + 1"));
+
+        Assert.assertSame(compiled, cache.getCompiledScript(script("id1", "1 + 1")));
+        Assert.assertNotSame(compiled, cache.getCompiledScript(script("id2", "1 + 1")));
+    }
+
+    @Test
+    public void testScriptRecompiledWhenCodeChanges() throws Exception {
+        CompiledScriptCache cache = new CompiledScriptCache(scriptEngineManager, 10);
+
+        CompiledScript compiled = cache.getCompiledScript(script("id1", "1 + 1"));
+        CompiledScript recompiled = cache.getCompiledScript(script("id1", "2 + 2"));
+
+        Assert.assertNotSame(compiled, recompiled);
+        Assert.assertEquals(4, ((Number) recompiled.eval()).intValue());
+        Assert.assertSame(recompiled, cache.getCompiledScript(script("id1", "2 + 2")));
+    }
+
+    @Test
+    public void testScriptsWithoutIdIdentifiedByCode() {
+        CompiledScriptCache cache = new CompiledScriptCache(scriptEngineManager, 10);
+
+        CompiledScript compiled = cache.getCompiledScript(script(null, "1 + 1"));
+
+        Assert.assertSame(compiled, cache.getCompiledScript(script(null, "1 + 1")));
+        Assert.assertNotSame(compiled, cache.getCompiledScript(script(null, "2 + 2")));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        CompiledScriptCache cache = new CompiledScriptCache(scriptEngineManager, 2);
+
+        CompiledScript compiled1 = cache.getCompiledScript(script("id1", "1"));
+        CompiledScript compiled2 = cache.getCompiledScript(script("id2", "2"));
+        cache.getCompiledScript(script("id1", "1"));
+        cache.getCompiledScript(script("id3", "3"));
+
+        Assert.assertSame(compiled1, cache.getCompiledScript(script("id1", "1")));
+        Assert.assertNotSame(compiled2, cache.getCompiledScript(script("id2", "2")));
+    }
+
+    @Test
+    public void testEvaluationsHaveOwnBindings() {
+        CompiledScriptCache cache = new CompiledScriptCache(scriptEngineManager, 10);
+        DefaultScriptingProvider provider = new DefaultScriptingProvider(scriptEngineManager, cache);
+
+        EvaluatableScriptAdapter adapter = provider.prepareEvaluatableScript(script("id1", "if (typeof counter === 'undefined') { counter = 0; } counter += value; counter"));
+
+        Assert.assertEquals(1, ((Number) adapter.eval(bindings -> bindings.put("value", 1))).intValue());
+        Assert.assertEquals(2, ((Number) adapter.eval(bindings -> bindings.put("value", 2))).intValue());
+    }
+
+    @Test(expected = ScriptExecutionException.class)
+    public void testInvalidScript() {
+        new CompiledScriptCache(scriptEngineManager, 10).getCompiledScript(script("id1", "function ("));
+    }
+
+    private ScriptModel script(String id, String code) {
+        return new Script(id, "realm", "script", ScriptModel.TEXT_JAVASCRIPT, code, null);
+    }
+}
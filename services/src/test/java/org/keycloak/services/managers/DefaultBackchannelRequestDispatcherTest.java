@@ -0,0 +1,220 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.services.managers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.common.util.Time;
+import org.keycloak.representations.adapters.action.GlobalRequestResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DefaultBackchannelRequestDispatcherTest {
+
+    private HttpServer server;
+    private CloseableHttpClient httpClient;
+    private DefaultBackchannelRequestDispatcher dispatcher;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+
+    @Before
+    public void before() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/ok", exchange -> {
+            int current = active.incrementAndGet();
+            maxActive.accumulateAndGet(current, Math::max);
+            try {
+                requests.incrementAndGet();
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+            respond(exchange, 204);
+        });
+        server.createContext("/flaky", exchange -> {
+            respond(exchange, requests.incrementAndGet() == 1 ? 503 : 200);
+        });
+        server.createContext("/error", exchange -> {
+            requests.incrementAndGet();
+            respond(exchange, 500);
+        });
+        server.createContext("/forbidden", exchange -> {
+            requests.incrementAndGet();
+            respond(exchange, 403);
+        });
+        server.start();
+
+        httpClient = HttpClients.createDefault();
+        dispatcher = new DefaultBackchannelRequestDispatcher(8, 2, 100, 2000, 2, 10, false);
+    }
+
+    @After
+    public void after() throws Exception {
+        dispatcher.shutdown();
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testConcurrencyPerHost() throws Exception {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            urls.add(url("/ok") + "?node=" + i);
+        }
+
+        GlobalRequestResult result = get(dispatcher.send(httpClient, urls, "token", expiration()));
+
+        Assert.assertEquals(10, result.getSuccessRequests().size());
+        Assert.assertNull(result.getFailedRequests());
+        Assert.assertEquals(10, requests.get());
+        Assert.assertTrue("More than 2 concurrent requests to the same host: " + maxActive.get(), maxActive.get() <= 2);
+
+        // Idle hosts aren't kept
+        Assert.assertEquals(0, dispatcher.getHostCount());
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        GlobalRequestResult result = get(dispatcher.send(httpClient, Arrays.asList(url("/flaky")), "token", expiration()));
+
+        Assert.assertEquals(Arrays.asList(url("/flaky")), result.getSuccessRequests());
+        Assert.assertEquals(Arrays.asList(url("/flaky")), result.getRetriedRequests());
+        Assert.assertNull(result.getFailedRequests());
+        Assert.assertEquals(0, dispatcher.getHostCount());
+    }
+
+    @Test
+    public void testFailedAfterRetries() throws Exception {
+        GlobalRequestResult result = get(dispatcher.send(httpClient, Arrays.asList(url("/error")), "token", expiration()));
+
+        Assert.assertNull(result.getSuccessRequests());
+        Assert.assertEquals(Arrays.asList(url("/error")), result.getFailedRequests());
+        Assert.assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void testClientErrorNotRetried() throws Exception {
+        GlobalRequestResult result = get(dispatcher.send(httpClient, Arrays.asList(url("/forbidden")), "token", expiration()));
+
+        Assert.assertEquals(Arrays.asList(url("/forbidden")), result.getFailedRequests());
+        Assert.assertNull(result.getRetriedRequests());
+        Assert.assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testUnreachableHostDoesNotBlockOthers() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        String unreachable = "http://localhost:" + closedPort + "/k_logout";
+
+        Future<GlobalRequestResult> failing = dispatcher.send(httpClient, Arrays.asList(unreachable), "token", expiration());
+        GlobalRequestResult result = get(dispatcher.send(httpClient, Arrays.asList(url("/ok")), "token", expiration()));
+        Assert.assertEquals(1, result.getSuccessRequests().size());
+
+        result = get(failing);
+        Assert.assertEquals(Arrays.asList(unreachable), result.getFailedRequests());
+        Assert.assertEquals(Arrays.asList(unreachable), result.getRetriedRequests());
+    }
+
+    @Test
+    public void testShutdownCompletesPendingRequests() throws Exception {
+        DefaultBackchannelRequestDispatcher slowRetries = new DefaultBackchannelRequestDispatcher(1, 1, 100, 2000, 1, 60000, false);
+        // Token valid long enough for the retry to be scheduled
+        Future<GlobalRequestResult> future = slowRetries.send(httpClient, Arrays.asList(url("/error")), "token", Time.currentTime() + 120);
+
+        // Wait until the first attempt failed and the retry is scheduled
+        while (requests.get() == 0) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        Assert.assertFalse(future.isDone());
+
+        slowRetries.shutdown();
+        Assert.assertTrue(future.isDone());
+    }
+
+    @Test
+    public void testExpiredTokenNotSent() throws Exception {
+        GlobalRequestResult result = get(dispatcher.send(httpClient, Arrays.asList(url("/ok")), "token", Time.currentTime() - 1));
+
+        Assert.assertEquals(Arrays.asList(url("/ok")), result.getFailedRequests());
+        Assert.assertEquals(0, requests.get());
+        Assert.assertEquals(0, dispatcher.getHostCount());
+    }
+
+    @Test
+    public void testNotRetriedAfterTokenExpiration() throws Exception {
+        // Next attempt would start after the token expired
+        DefaultBackchannelRequestDispatcher slowRetries = new DefaultBackchannelRequestDispatcher(1, 1, 100, 2000, 2, 5000, false);
+        try {
+            GlobalRequestResult result = get(slowRetries.send(httpClient, Arrays.asList(url("/error")), "token", Time.currentTime() + 1));
+
+            Assert.assertEquals(Arrays.asList(url("/error")), result.getFailedRequests());
+            Assert.assertNull(result.getRetriedRequests());
+            Assert.assertEquals(1, requests.get());
+        } finally {
+            slowRetries.shutdown();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+        // Request body must be read, otherwise the connection is reset
+        try (InputStream is = exchange.getRequestBody()) {
+            while (is.read() != -1) {
+            }
+        }
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    private static int expiration() {
+        return Time.currentTime() + 30;
+    }
+
+    private static GlobalRequestResult get(Future<GlobalRequestResult> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.services.util;
+
+import org.junit.Test;
+
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class CachedDocumentTest {
+
+    @Test
+    public void testEntityTagDependsOnContent() {
+        CachedDocument document = CachedDocument.render("1", config("issuer", "http://localhost/auth/realms/test"));
+
+        assertEquals(document.getEntityTag(), CachedDocument.render("2", config("issuer", "http://localhost/auth/realms/test")).getEntityTag());
+        assertNotEquals(document.getEntityTag(), CachedDocument.render("1", config("issuer", "http://localhost/auth/realms/other")).getEntityTag());
+    }
+
+    @Test
+    public void testConditionalRequest() {
+        CachedDocument document = CachedDocument.render("1", config("issuer", "http://localhost/auth/realms/test"));
+        String etag = "\"" + document.getEntityTag().getValue() + "\"";
+
+        assertEquals(200, status(document, null));
+        assertEquals(200, status(document, "\"other\""));
+        assertEquals(304, status(document, etag));
+        assertEquals(304, status(document, "W/" + etag));
+        assertEquals(304, status(document, "\"other\", " + etag));
+        assertEquals(304, status(document, "*"));
+    }
+
+    private static Map<String, String> config(String name, String value) {
+        Map<String, String> config = new HashMap<>();
+        config.put(name, value);
+        return config;
+    }
+
+    private static int status(CachedDocument document, String ifNoneMatch) {
+        List<String> header = ifNoneMatch != null ? Collections.singletonList(ifNoneMatch) : null;
+        HttpHeaders headers = (HttpHeaders) Proxy.newProxyInstance(HttpHeaders.class.getClassLoader(), new Class<?>[] { HttpHeaders.class }, (proxy, method, args) -> {
+            if (method.getName().equals("getRequestHeader") && HttpHeaders.IF_NONE_MATCH.equals(args[0])) {
+                return header;
+            }
+            return null;
+        });
+
+        Response response = document.toResponse(headers, new CacheControl()).build();
+        return response.getStatus();
+    }
+
+}
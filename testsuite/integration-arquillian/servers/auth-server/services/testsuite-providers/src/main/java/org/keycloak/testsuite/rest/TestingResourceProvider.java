@@ -252,6 +252,14 @@ public class TestingResourceProvider implements RealmResourceProvider {
         return Response.ok().build();
     }
 
+    @GET
+    @Path("/clear-event-store-older-than-chunk")
+    @Produces(MediaType.APPLICATION_JSON)
+    public int clearEventStore(@QueryParam("realmId") String realmId, @QueryParam("olderThan") long olderThan, @QueryParam("max") int maxResults) {
+        EventStoreProvider eventStore = session.getProvider(EventStoreProvider.class);
+        return eventStore.clear(realmId, olderThan, maxResults);
+    }
+
     /**
      * Query events
      *
@@ -324,6 +332,22 @@ public class TestingResourceProvider implements RealmResourceProvider {
         return toEventListRep(query.getResultList());
     }
 
+    @Path("query-events-after")
+    @GET
+    @NoCache
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<EventRepresentation> queryEventsAfter(@QueryParam("realmId") String realmId, @QueryParam("afterTime") long afterTime,
+            @QueryParam("afterId") String afterId, @QueryParam("max") Integer maxResults) {
+        EventStoreProvider eventStore = session.getProvider(EventStoreProvider.class);
+
+        EventQuery query = eventStore.createQuery().realm(realmId).after(afterTime, afterId);
+        if (maxResults != null) {
+            query.maxResults(maxResults);
+        }
+
+        return toEventListRep(query.getResultList());
+    }
+
     private List<EventRepresentation> toEventListRep(List<Event> events) {
         List<EventRepresentation> reps = new ArrayList<>();
         for (Event event : events) {
@@ -92,6 +92,11 @@ public interface TestingResource {
     @Produces(MediaType.APPLICATION_JSON)
     public Response clearEventStore(@QueryParam("realmId") String realmId, @QueryParam("olderThan") long olderThan);
 
+    @GET
+    @Path("/clear-event-store-older-than-chunk")
+    @Produces(MediaType.APPLICATION_JSON)
+    public int clearEventStore(@QueryParam("realmId") String realmId, @QueryParam("olderThan") long olderThan, @QueryParam("max") int maxResults);
+
     /**
      * Query events
      *
@@ -117,6 +122,13 @@ public interface TestingResource {
             @QueryParam("ipAddress") String ipAddress, @QueryParam("first") Integer firstResult,
             @QueryParam("max") Integer maxResults);
 
+    @Path("query-events-after")
+    @GET
+    @NoCache
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<EventRepresentation> queryEventsAfter(@QueryParam("realmId") String realmId, @QueryParam("afterTime") long afterTime,
+            @QueryParam("afterId") String afterId, @QueryParam("max") Integer maxResults);
+
     @PUT
     @Path("/on-event")
     @Consumes(MediaType.APPLICATION_JSON)
@@ -28,6 +28,8 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -182,6 +184,57 @@ public class EventStoreProviderTest extends AbstractEventsTest {
         Assert.assertEquals(3, testing().queryEvents(null, null, null, null, null, null, null, null, null).size());
     }
 
+    @Test
+    public void clearOldInChunks() {
+        for (int i = 0; i < 5; i++) {
+            testing().onEvent(create(System.currentTimeMillis() - 30000, EventType.LOGIN, "realmId", "clientId", "userId", "127.0.0.1", "error"));
+        }
+        testing().onEvent(create(System.currentTimeMillis(), EventType.LOGIN, "realmId", "clientId", "userId", "127.0.0.1", "error"));
+        testing().onEvent(create(System.currentTimeMillis() - 30000, EventType.LOGIN, "realmId2", "clientId", "userId", "127.0.0.1", "error"));
+
+        long olderThan = System.currentTimeMillis() - 10000;
+        Assert.assertEquals(2, testing().clearEventStore("realmId", olderThan, 2));
+        Assert.assertEquals(5, testing().queryEvents(null, null, null, null, null, null, null, null, null).size());
+
+        Assert.assertEquals(2, testing().clearEventStore("realmId", olderThan, 2));
+        Assert.assertEquals(1, testing().clearEventStore("realmId", olderThan, 2));
+        Assert.assertEquals(0, testing().clearEventStore("realmId", olderThan, 2));
+
+        Assert.assertEquals(2, testing().queryEvents(null, null, null, null, null, null, null, null, null).size());
+    }
+
+    @Test
+    public void keysetPaging() {
+        long time = System.currentTimeMillis();
+        for (int i = 0; i < 4; i++) {
+            testing().onEvent(create(time - i * 1000, EventType.LOGIN, "realmId", "clientId", "userId", "127.0.0.1", "error"));
+        }
+        // Events with same time are ordered by id
+        for (int i = 0; i < 3; i++) {
+            testing().onEvent(create(time - 5000, EventType.LOGIN, "realmId", "clientId", "userId", "127.0.0.1", "error"));
+        }
+        testing().onEvent(create(time, EventType.LOGIN, "realmId2", "clientId", "userId", "127.0.0.1", "error"));
+
+        List<EventRepresentation> all = testing().queryEvents("realmId", null, null, null, null, null, null, null, null);
+        Assert.assertEquals(7, all.size());
+
+        List<EventRepresentation> page = testing().queryEvents("realmId", null, null, null, null, null, null, null, 3);
+        List<String> ids = new LinkedList<>();
+        while (!page.isEmpty()) {
+            for (EventRepresentation event : page) {
+                ids.add(event.getId());
+            }
+            EventRepresentation last = page.get(page.size() - 1);
+            page = testing().queryEventsAfter("realmId", last.getTime(), last.getId(), 3);
+        }
+
+        List<String> expected = new LinkedList<>();
+        for (EventRepresentation event : all) {
+            expected.add(event.getId());
+        }
+        Assert.assertEquals(expected, ids);
+    }
+
     private EventRepresentation create(EventType event, String realmId, String clientId, String userId, String ipAddress, String error) {
         return create(System.currentTimeMillis(), event, realmId, clientId, userId, ipAddress, error);
     }
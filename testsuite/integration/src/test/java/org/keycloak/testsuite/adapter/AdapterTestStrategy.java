@@ -40,6 +40,7 @@ import org.keycloak.services.managers.RealmManager;
 import org.keycloak.services.managers.ResourceAdminManager;
 import org.keycloak.testsuite.KeycloakServer;
 import org.keycloak.testsuite.OAuthClient;
+import org.keycloak.testsuite.Retry;
 import org.keycloak.testsuite.pages.AccountSessionsPage;
 import org.keycloak.testsuite.pages.LoginPage;
 import org.keycloak.testsuite.rule.AbstractKeycloakRule;
@@ -682,6 +683,33 @@ public class AdapterTestStrategy extends ExternalResource {
         Time.setOffset(0);
     }
 
+    /**
+     * Logout is propagated to the application, even if the backchannel request isn't sent before the browser is redirected
+     */
+    public void testAsynchronousBackchannelLogout() throws Throwable {
+        // Login
+        loginAndCheckSession(driver, loginPage);
+
+        // Logout
+        String logoutUri = OIDCLoginProtocolService.logoutUrl(UriBuilder.fromUri(AUTH_SERVER_URL))
+                .queryParam(OAuth2Constants.REDIRECT_URI, APP_SERVER_BASE_URL + "/session-portal").build("demo").toString();
+        driver.navigate().to(logoutUri);
+        Assert.assertTrue(driver.getCurrentUrl().startsWith(LOGIN_URL));
+
+        // Assert that http session is invalidated once the backchannel request was dispatched
+        Retry.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                driver.navigate().to(APP_SERVER_BASE_URL + "/session-portal");
+                if (!driver.getCurrentUrl().startsWith(LOGIN_URL)) {
+                    throw new RuntimeException("Still logged in to session-portal");
+                }
+            }
+
+        }, 20, 250);
+    }
+
     /**
      * KEYCLOAK-942
      */
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keycloak.testsuite.authorization;
+
+import org.junit.Test;
+import org.keycloak.authorization.Decision.Effect;
+import org.keycloak.authorization.model.Policy;
+import org.keycloak.authorization.model.Resource;
+import org.keycloak.authorization.permission.ResourcePermission;
+import org.keycloak.authorization.policy.evaluation.Result;
+import org.keycloak.authorization.store.PolicyStore;
+import org.keycloak.authorization.store.ResourceStore;
+import org.keycloak.representations.idm.authorization.Logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Identity only policies (eg. role policies) are evaluated once per request and their outcome is reused for all the
+ * permissions of the request. These tests check the reused outcome leads to the same decisions.
+ */
+public class PermissionEvaluationTest extends AbstractPhotozAdminTest {
+
+    private static final int RESOURCES = 5;
+
+    @Test
+    public void testRolePolicySharedByPermissions() {
+        List<ResourcePermission> permissions = createPermissions(false);
+
+        assertResults(evaluatePermissions(permissions, createAccessToken(new HashSet<>(Arrays.asList("user", "admin"))), createClientConnection("127.0.0.1")), Effect.PERMIT);
+        assertResults(evaluatePermissions(permissions, createAccessToken(new HashSet<>(Collections.singletonList("user"))), createClientConnection("127.0.0.1")), Effect.DENY);
+    }
+
+    @Test
+    public void testNegativeRolePolicySharedByPermissions() {
+        List<ResourcePermission> permissions = createPermissions(true);
+
+        assertResults(evaluatePermissions(permissions, createAccessToken(new HashSet<>(Arrays.asList("user", "admin"))), createClientConnection("127.0.0.1")), Effect.DENY);
+        assertResults(evaluatePermissions(permissions, createAccessToken(new HashSet<>(Collections.singletonList("user"))), createClientConnection("127.0.0.1")), Effect.PERMIT);
+    }
+
+    private List<ResourcePermission> createPermissions(boolean negative) {
+        return onAuthorizationSession(authorizationProvider -> {
+            PolicyStore policyStore = authorizationProvider.getStoreFactory().getPolicyStore();
+            ResourceStore resourceStore = authorizationProvider.getStoreFactory().getResourceStore();
+            Policy adminPolicy = policyStore.findById(anyAdminPolicy.getId());
+            List<ResourcePermission> created = new ArrayList<>();
+
+            if (negative) {
+                adminPolicy.setLogic(Logic.NEGATIVE);
+            }
+
+            for (int i = 0; i < RESOURCES; i++) {
+                Resource resource = resourceStore.create("Shared Policy Resource " + i, resourceServer, resourceServer.getId());
+                Policy permission = policyStore.create("Shared Policy Permission " + i, "resource", resourceServer);
+
+                permission.addResource(resource);
+                permission.addAssociatedPolicy(adminPolicy);
+
+                created.add(new ResourcePermission(resource, Collections.emptyList(), resourceServer));
+            }
+
+            return created;
+        });
+    }
+
+    private void assertResults(List<Result> results, Effect expected) {
+        assertEquals(RESOURCES, results.size());
+
+        for (Result result : results) {
+            assertEquals(expected, result.getEffect());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keycloak.testsuite.authorization;
+
+import org.jboss.logging.Logger;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.keycloak.authorization.model.Policy;
+import org.keycloak.authorization.model.Resource;
+import org.keycloak.authorization.permission.ResourcePermission;
+import org.keycloak.authorization.store.PolicyStore;
+import org.keycloak.authorization.store.ResourceStore;
+import org.keycloak.representations.AccessToken;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures latency of evaluating permissions for many resources, when the resource server has a lot of policies.
+ *
+ * Not executed during build. Run manually.
+ */
+@Ignore
+public class PolicyEvaluationBenchmarkTest extends AbstractPhotozAdminTest {
+
+    private static final Logger logger = Logger.getLogger(PolicyEvaluationBenchmarkTest.class);
+
+    private static final int RESOURCES = 200;
+    private static final int POLICIES = 10000;
+    private static final int ITERATIONS = 20;
+
+    @Test
+    public void benchmarkEntitlement() {
+        List<Resource> resources = onAuthorizationSession(authorizationProvider -> {
+            ResourceStore resourceStore = authorizationProvider.getStoreFactory().getResourceStore();
+            List<Resource> created = new ArrayList<>();
+
+            for (int i = 0; i < RESOURCES; i++) {
+                created.add(resourceStore.create("Benchmark Resource " + i, resourceServer, resourceServer.getId()));
+            }
+
+            return created;
+        });
+
+        for (int batch = 0; batch < POLICIES; batch += 1000) {
+            int first = batch;
+
+            onAuthorizationSession(authorizationProvider -> {
+                PolicyStore policyStore = authorizationProvider.getStoreFactory().getPolicyStore();
+                ResourceStore resourceStore = authorizationProvider.getStoreFactory().getResourceStore();
+                Policy userPolicy = policyStore.findById(anyUserPolicy.getId());
+
+                for (int i = first; i < first + 1000; i++) {
+                    Policy permission = policyStore.create("Benchmark Permission " + i, "resource", resourceServer);
+
+                    permission.addResource(resourceStore.findById(resources.get(i % RESOURCES).getId()));
+                    permission.addAssociatedPolicy(userPolicy);
+                }
+            });
+        }
+
+        List<ResourcePermission> permissions = new ArrayList<>();
+
+        for (Resource resource : resources) {
+            permissions.add(new ResourcePermission(resource, Collections.emptyList(), resourceServer));
+        }
+
+        AccessToken accessToken = createAccessToken(new HashSet<>(Collections.singletonList("user")));
+
+        // warm up caches
+        performEvaluation(permissions, accessToken, createClientConnection("127.0.0.1"));
+
+        long start = System.currentTimeMillis();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(1, performEvaluation(permissions, accessToken, createClientConnection("127.0.0.1")).size());
+        }
+
+        logger.infof("Policies: %d, resources: %d, avg evaluation time: %d ms", POLICIES, RESOURCES, (System.currentTimeMillis() - start) / ITERATIONS);
+    }
+}
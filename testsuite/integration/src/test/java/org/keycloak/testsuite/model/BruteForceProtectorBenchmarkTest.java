@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.testsuite.model;
+
+import org.jboss.logging.Logger;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.keycloak.models.RealmModel;
+import org.keycloak.models.UserModel;
+import org.keycloak.services.managers.DefaultBruteForceProtector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures throughput of failed logins during credential stuffing attack, when many users fail to login concurrently,
+ * with single shard and with sharded brute force protector.
+ *
+ * Not executed during build. Run manually.
+ */
+@Ignore
+public class BruteForceProtectorBenchmarkTest extends AbstractModelTest {
+
+    private static final Logger logger = Logger.getLogger(BruteForceProtectorBenchmarkTest.class);
+
+    private static final int USERS = 1000;
+    private static final int THREADS = 100;
+    private static final long DURATION_MILLIS = 20000;
+
+    @Test
+    public void benchmarkFailedLogins() throws Exception {
+        RealmModel realm = realmManager.createRealm("brute-force");
+        realm.setBruteForceProtected(true);
+        for (int i = 0; i < USERS; i++) {
+            session.users().addUser(realm, "user" + i);
+        }
+        commit();
+
+        realm = model.getRealmByName("brute-force");
+        List<UserModel> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(session.users().getUserByUsername("user" + i, realm));
+        }
+
+        benchmark(realm, users, 1);
+        benchmark(realm, users, Runtime.getRuntime().availableProcessors());
+    }
+
+    private void benchmark(RealmModel realm, List<UserModel> users, int shards) throws Exception {
+        DefaultBruteForceProtector protector = new DefaultBruteForceProtector(session.getKeycloakSessionFactory(), shards, DefaultBruteForceProtector.DEFAULT_FAILURE_WAIT_MILLIS);
+        protector.start();
+
+        AtomicLong count = new AtomicLong();
+        AtomicLong maxLatency = new AtomicLong();
+        long end = System.currentTimeMillis() + DURATION_MILLIS;
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                int i = thread;
+                while (System.currentTimeMillis() < end) {
+                    long start = System.currentTimeMillis();
+                    protector.failedLogin(realm, users.get(i++ % users.size()), BruteForceProtectorTest.createConnection("127.0.0.1"));
+                    maxLatency.accumulateAndGet(System.currentTimeMillis() - start, Math::max);
+                    count.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(DURATION_MILLIS * 2, TimeUnit.MILLISECONDS);
+        protector.shutdown();
+
+        logger.infof("Shards: %d, threads: %d, failed logins per second: %d, max latency: %d ms", shards, THREADS,
+                count.get() * 1000 / DURATION_MILLIS, maxLatency.get());
+    }
+
+}
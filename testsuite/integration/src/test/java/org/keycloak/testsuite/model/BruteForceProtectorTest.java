@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.keycloak.testsuite.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.keycloak.common.ClientConnection;
+import org.keycloak.models.RealmModel;
+import org.keycloak.models.UserLoginFailureModel;
+import org.keycloak.models.UserModel;
+import org.keycloak.services.managers.DefaultBruteForceProtector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class BruteForceProtectorTest extends AbstractModelTest {
+
+    private static final int USERS = 5;
+    private static final int FAILURES_PER_USER = 20;
+
+    @Test
+    public void concurrentFailuresCounted() throws Exception {
+        RealmModel realm = realmManager.createRealm("brute-force");
+        realm.setBruteForceProtected(true);
+        realm.setFailureFactor(1000);
+        realm.setMaxDeltaTimeSeconds(3600);
+        for (int i = 0; i < USERS; i++) {
+            session.users().addUser(realm, "user" + i);
+        }
+        commit();
+
+        DefaultBruteForceProtector protector = new DefaultBruteForceProtector(session.getKeycloakSessionFactory(), 3, 5000);
+        protector.start();
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            realm = model.getRealmByName("brute-force");
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < USERS * FAILURES_PER_USER; i++) {
+                RealmModel r = realm;
+                UserModel user = session.users().getUserByUsername("user" + (i % USERS), realm);
+                ClientConnection connection = createConnection("127.0.0." + (i % USERS));
+                futures.add(executor.submit(() -> protector.failedLogin(r, user, connection)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            protector.shutdown();
+        }
+
+        resetSession();
+        realm = model.getRealmByName("brute-force");
+        for (int i = 0; i < USERS; i++) {
+            UserModel user = session.users().getUserByUsername("user" + i, realm);
+            UserLoginFailureModel failure = session.sessions().getUserLoginFailure(realm, user.getId());
+            Assert.assertEquals(FAILURES_PER_USER, failure.getNumFailures());
+            Assert.assertEquals("127.0.0." + i, failure.getLastIPFailure());
+        }
+    }
+
+    static ClientConnection createConnection(String ip) {
+        return new ClientConnection() {
+            @Override
+            public String getRemoteAddr() {
+                return ip;
+            }
+
+            @Override
+            public String getRemoteHost() {
+                return ip;
+            }
+
+            @Override
+            public int getRemotePort() {
+                return 0;
+            }
+
+            @Override
+            public String getLocalAddr() {
+                return null;
+            }
+
+            @Override
+            public int getLocalPort() {
+                return 0;
+            }
+        };
+    }
+
+}
@@ -162,4 +162,40 @@ public class CacheTest {
         }
     }
 
+    @Test
+    public void testRealmListInvalidatedWhenRealmAddedOrRemoved() {
+        // load up cache
+        KeycloakSession session = kc.startSession();
+        List<String> realmIds = session.realms().getRealmIds();
+        kc.stopSession(session, true);
+
+        session = kc.startSession();
+        String realmId = session.realms().createRealm("realm-list-test").getId();
+        kc.stopSession(session, true);
+
+        session = kc.startSession();
+        try {
+            Assert.assertEquals(realmIds.size() + 1, session.realms().getRealmIds().size());
+            Assert.assertTrue(session.realms().getRealmIds().contains(realmId));
+
+            boolean found = false;
+            for (RealmModel realm : session.realms().getRealms()) {
+                found |= realm.getName().equals("realm-list-test");
+            }
+            Assert.assertTrue(found);
+
+            session.realms().removeRealm(realmId);
+        } finally {
+            kc.stopSession(session, true);
+        }
+
+        session = kc.startSession();
+        try {
+            Assert.assertFalse(session.realms().getRealmIds().contains(realmId));
+            Assert.assertEquals(realmIds.size(), session.realms().getRealms().size());
+        } finally {
+            kc.stopSession(session, true);
+        }
+    }
+
 }
@@ -26,6 +26,7 @@ import org.keycloak.models.ClientModel;
 import org.keycloak.models.RealmModel;
 import org.keycloak.models.RoleModel;
 import org.keycloak.models.UserModel;
+import org.keycloak.protocol.oidc.TokenManager;
 import org.keycloak.representations.idm.RealmRepresentation;
 import org.keycloak.services.managers.RealmManager;
 
@@ -87,6 +88,56 @@ public class CompositeRolesModelTest extends AbstractModelTest {
         assertContains("realm", "REALM_ROLE_1", requestedRoles);
     }
 
+    @Test
+    public void testTokenManagerAccess() {
+        Set<RoleModel> requestedRoles = getAccess("REALM_COMPOSITE_1_APPLICATION", "REALM_COMPOSITE_1_USER");
+        Assert.assertEquals(1, requestedRoles.size());
+        assertContains("realm", "REALM_COMPOSITE_1", requestedRoles);
+
+        requestedRoles = getAccess("REALM_ROLE_1_APPLICATION", "REALM_COMPOSITE_1_USER");
+        Assert.assertEquals(1, requestedRoles.size());
+        assertContains("realm", "REALM_ROLE_1", requestedRoles);
+
+        requestedRoles = getAccess("REALM_COMPOSITE_1_APPLICATION", "REALM_ROLE_1_USER");
+        Assert.assertEquals(1, requestedRoles.size());
+        assertContains("realm", "REALM_ROLE_1", requestedRoles);
+
+        // Second time from the cache
+        requestedRoles = getAccess("REALM_ROLE_1_APPLICATION", "REALM_COMPOSITE_1_USER");
+        Assert.assertEquals(1, requestedRoles.size());
+        assertContains("realm", "REALM_ROLE_1", requestedRoles);
+    }
+
+    @Test
+    public void testTokenManagerAccessAfterCompositeChanged() {
+        commit();
+        assertContains("realm", "REALM_ROLE_1", getAccess("REALM_ROLE_1_APPLICATION", "REALM_COMPOSITE_1_USER"));
+        commit();
+
+        RealmModel realm = realmManager.getRealm("TestComposites");
+        realm.getRole("REALM_COMPOSITE_1").removeCompositeRole(realm.getRole("REALM_ROLE_1"));
+        commit();
+
+        Assert.assertTrue(getAccess("REALM_ROLE_1_APPLICATION", "REALM_COMPOSITE_1_USER").isEmpty());
+        commit();
+
+        realm = realmManager.getRealm("TestComposites");
+        realm.getRole("REALM_COMPOSITE_1").addCompositeRole(realm.getRole("REALM_ROLE_1"));
+        commit();
+
+        Set<RoleModel> requestedRoles = getAccess("REALM_ROLE_1_APPLICATION", "REALM_COMPOSITE_1_USER");
+        Assert.assertEquals(1, requestedRoles.size());
+        assertContains("realm", "REALM_ROLE_1", requestedRoles);
+    }
+
+    private Set<RoleModel> getAccess(String applicationName, String username) {
+        RealmModel realm = realmManager.getRealm("TestComposites");
+        UserModel user = realmManager.getSession().users().getUserByUsername(username, realm);
+        ClientModel application = realm.getClientByClientId(applicationName);
+
+        return TokenManager.getAccess(realmManager.getSession(), null, false, application, user);
+    }
+
     // Same algorithm as in TokenManager.createAccessCode
     private Set<RoleModel> getRequestedRoles(String applicationName, String username) {
         Set<RoleModel> requestedRoles = new HashSet<RoleModel>();
@@ -30,6 +30,7 @@ import org.keycloak.services.managers.ClientManager;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -394,6 +395,39 @@ public class UserModelTest extends AbstractModelTest {
         Assert.assertFalse(realm2User1.hasRole(role1));
     }
 
+    @Test
+    public void testGetUsersByUsernames() {
+        RealmModel realm1 = realmManager.createRealm("realm1");
+        session.users().addUser(realm1, "user1");
+        session.users().addUser(realm1, "user2");
+        session.users().addUser(realm1, "user3");
+
+        RealmModel realm2 = realmManager.createRealm("realm2");
+        session.users().addUser(realm2, "user4");
+
+        commit();
+
+        realm1 = realmManager.getRealmByName("realm1");
+        List<UserModel> users = session.userStorage().getUsersByUsernames(Arrays.asList("USER1", "user3", "user4", "nonexistent"), realm1);
+        assertUsernames(users, "user1", "user3");
+
+        commit();
+
+        // Second lookup is served from the cache
+        realm1 = realmManager.getRealmByName("realm1");
+        users = session.userStorage().getUsersByUsernames(Arrays.asList("user1", "user2", "user3"), realm1);
+        assertUsernames(users, "user1", "user2", "user3");
+    }
+
+    private static void assertUsernames(List<UserModel> users, String... expectedUsernames) {
+        List<String> usernames = new ArrayList<>();
+        for (UserModel user : users) {
+            usernames.add(user.getUsername());
+        }
+        Collections.sort(usernames);
+        Assert.assertEquals(Arrays.asList(expectedUsernames), usernames);
+    }
+
     public static void assertEquals(UserModel expected, UserModel actual) {
         Assert.assertEquals(expected.getUsername(), actual.getUsername());
         Assert.assertEquals(expected.getCreatedTimestamp(), actual.getCreatedTimestamp());
@@ -37,6 +37,7 @@ import org.keycloak.services.managers.UserManager;
 import org.keycloak.testsuite.rule.KeycloakRule;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -348,6 +349,52 @@ public class UserSessionPersisterProviderTest {
 
     }
 
+    @Test
+    public void testKeysetLoading() {
+        // Create some sessions in infinispan
+        int started = Time.currentTime();
+        UserSessionModel[] origSessions = createSessions();
+
+        resetSession();
+
+        for (UserSessionModel origSession : origSessions) {
+            UserSessionModel userSession = session.sessions().getUserSession(realm, origSession.getId());
+            persistUserSession(userSession, true);
+        }
+
+        resetSession();
+
+        List<String> sortedIds = new ArrayList<>();
+        for (UserSessionModel origSession : origSessions) {
+            sortedIds.add(origSession.getId());
+        }
+        Collections.sort(sortedIds);
+
+        // Load all sessions in pages of 2 sessions
+        List<UserSessionModel> loadedSessions = loadPersistedSessionsKeyset(null, null, 2, 2, 3);
+        for (int i = 0; i < sortedIds.size(); i++) {
+            Assert.assertEquals(sortedIds.get(i), loadedSessions.get(i).getId());
+        }
+        UserModel user1 = session.users().getUserByUsername("user1", realm);
+        UserModel user2 = session.users().getUserByUsername("user2", realm);
+        assertSessionLoaded(loadedSessions, origSessions[0].getId(), user1, "127.0.0.1", started, started, "test-app", "third-party");
+        assertSessionLoaded(loadedSessions, origSessions[1].getId(), user1, "127.0.0.2", started, started, "test-app");
+        assertSessionLoaded(loadedSessions, origSessions[2].getId(), user2, "127.0.0.3", started, started, "test-app");
+
+        // Bounds are exclusive from below and inclusive from above
+        loadedSessions = loadPersistedSessionsKeyset(sortedIds.get(0), sortedIds.get(1), 10, 1, 1);
+        Assert.assertEquals(sortedIds.get(1), loadedSessions.get(0).getId());
+        loadPersistedSessionsKeyset(null, sortedIds.get(1), 10, 1, 2);
+        loadPersistedSessionsKeyset(sortedIds.get(2), null, 10, 0, 0);
+
+        // Delete user "directly". His sessions are skipped and removed from the persister
+        session.users().removeUser(realm, user1);
+
+        loadedSessions = loadPersistedSessionsKeyset(null, null, 1, 1, 1);
+        assertSessionLoaded(loadedSessions, origSessions[2].getId(), user2, "127.0.0.3", started, started, "test-app");
+        Assert.assertEquals(1, persister.getUserSessionsCount(true));
+    }
+
     // KEYCLOAK-1999
     @Test
     public void testNoSessions() {
@@ -415,6 +462,25 @@ public class UserSessionPersisterProviderTest {
         Assert.fail("Session with ID " + id + " not found in the list");
     }
 
+    private List<UserSessionModel> loadPersistedSessionsKeyset(String lastSessionId, String upperBoundSessionId, int sessionsPerPage, int expectedPageCount, int expectedSessionsCount) {
+        int pageCount = 0;
+        boolean next = true;
+        List<UserSessionModel> result = new ArrayList<>();
+        while (next) {
+            List<UserSessionModel> sess = persister.loadUserSessions(lastSessionId, upperBoundSessionId, sessionsPerPage, true);
+            if (sess.size() > 0) {
+                pageCount++;
+                result.addAll(sess);
+                lastSessionId = sess.get(sess.size() - 1).getId();
+            }
+            next = sess.size() == sessionsPerPage;
+        }
+
+        Assert.assertEquals(expectedPageCount, pageCount);
+        Assert.assertEquals(expectedSessionsCount, result.size());
+        return result;
+    }
+
     private List<UserSessionModel> loadPersistedSessionsPaginated(boolean offline, int sessionsPerPage, int expectedPageCount, int expectedSessionsCount) {
         int count = persister.getUserSessionsCount(offline);
 
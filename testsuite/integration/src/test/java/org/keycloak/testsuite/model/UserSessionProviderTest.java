@@ -38,6 +38,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertArrayEquals;
@@ -478,6 +479,28 @@ public class UserSessionProviderTest {
         assertEquals(1, session.sessions().getActiveUserSessions(realm, realm.getClientByClientId("third-party")));
     }
 
+    @Test
+    public void testGetSessionStats() {
+        UserSessionModel[] sessions = createSessions();
+
+        assertEquals(3, session.sessions().getActiveUserSessions(realm));
+
+        Map<String, Long> stats = session.sessions().getActiveClientSessionStats(realm, false);
+        assertEquals(2, stats.size());
+        assertEquals(3, stats.get(realm.getClientByClientId("test-app").getId()).longValue());
+        assertEquals(1, stats.get(realm.getClientByClientId("third-party").getId()).longValue());
+        assertTrue(session.sessions().getActiveClientSessionStats(realm, true).isEmpty());
+
+        session.sessions().removeUserSession(realm, session.sessions().getUserSession(realm, sessions[0].getId()));
+        resetSession();
+
+        assertEquals(2, session.sessions().getActiveUserSessions(realm));
+
+        stats = session.sessions().getActiveClientSessionStats(realm, false);
+        assertEquals(1, stats.size());
+        assertEquals(2, stats.get(realm.getClientByClientId("test-app").getId()).longValue());
+    }
+
     @Test
     public void loginFailures() {
         UserLoginFailureModel failure1 = session.sessions().addUserLoginFailure(realm, "user1");